@@ -0,0 +1,199 @@
+package tech.kayys.wayang.agent.runtime;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Runs blocking sections (synchronous clients, parsers, summarizers) off
+ * the event loop.
+ *
+ * By default sections run on the Mutiny worker pool, so at most as many
+ * block at once as the pool has threads. With virtual threads enabled each
+ * section gets its own virtual thread instead, and blocking-heavy load is
+ * no longer bounded by the pool size. A virtual thread that blocks while
+ * holding a monitor pins its carrier thread; such pinning is picked up
+ * from the JFR jdk.VirtualThreadPinned event, counted, and logged once per
+ * code location so it can be fixed.
+ */
+@ApplicationScoped
+public class BlockingExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BlockingExecutor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    @ConfigProperty(name = "silat.blocking.virtual-threads.enabled", defaultValue = "false")
+    boolean virtualThreads;
+
+    @ConfigProperty(name = "silat.blocking.pinning.detection", defaultValue = "true")
+    boolean pinningDetection;
+
+    // Pinned for less than this is not reported
+    @ConfigProperty(name = "silat.blocking.pinning.threshold", defaultValue = "PT0.02S")
+    Duration pinningThreshold;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder pinned = new LongAdder();
+    private final Set<String> reportedPinningSites = ConcurrentHashMap.newKeySet();
+    // section -> duration timer, built once rather than looked up per call
+    private final Map<String, Timer> sectionTimers = new ConcurrentHashMap<>();
+
+    private volatile ExecutorService virtualExecutor;
+    private RecordingStream pinningStream;
+
+    @PostConstruct
+    void init() {
+        if (meterRegistry != null) {
+            Gauge.builder("blocking.sections.active", active, AtomicInteger::get)
+                    .description("Blocking sections currently running")
+                    .register(meterRegistry);
+            FunctionCounter.builder("blocking.virtual.pinned", pinned, LongAdder::sum)
+                    .description("Virtual threads pinned to their carrier")
+                    .register(meterRegistry);
+        }
+
+        if (virtualThreads) {
+            LOG.info("Blocking sections run on virtual threads");
+            if (pinningDetection) {
+                startPinningDetection();
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (pinningStream != null) {
+            pinningStream.close();
+        }
+        ExecutorService executor = virtualExecutor;
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtualThreads;
+    }
+
+    /**
+     * Executor to run blocking work on in the configured mode
+     */
+    public Executor executor() {
+        return virtualThreads ? virtualExecutor() : Infrastructure.getDefaultWorkerPool();
+    }
+
+    /**
+     * Run a blocking section, timed under the given name
+     */
+    public <T> Uni<T> call(String section, Supplier<T> work) {
+        return Uni.createFrom().item(() -> measure(section, work))
+                .runSubscriptionOn(executor());
+    }
+
+    public long pinnedCount() {
+        return pinned.sum();
+    }
+
+    private <T> T measure(String section, Supplier<T> work) {
+        active.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            active.decrementAndGet();
+            if (meterRegistry != null) {
+                sectionTimers.computeIfAbsent(section, this::sectionTimer)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private Timer sectionTimer(String section) {
+        return Timer.builder("blocking.sections.duration")
+                .tag("section", section)
+                .tag("mode", virtualThreads ? "virtual" : "worker")
+                .register(meterRegistry);
+    }
+
+    private ExecutorService virtualExecutor() {
+        ExecutorService executor = virtualExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = virtualExecutor;
+                if (executor == null) {
+                    executor = Executors.newThreadPerTaskExecutor(
+                            Thread.ofVirtual().name("blocking-vt-", 0).factory());
+                    virtualExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private void startPinningDetection() {
+        try {
+            RecordingStream stream = new RecordingStream();
+            stream.enable(PINNED_EVENT).withThreshold(pinningThreshold).withStackTrace();
+            stream.onEvent(PINNED_EVENT, this::onPinned);
+            stream.startAsync();
+            pinningStream = stream;
+        } catch (RuntimeException e) {
+            // JFR is missing from some runtimes, e.g. native images
+            LOG.warn("Virtual thread pinning detection unavailable: {}", e.getMessage());
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.increment();
+        String site = pinningSite(event);
+        if (reportedPinningSites.add(site)) {
+            LOG.warn("Virtual thread pinned for {}ms at {}", event.getDuration().toMillis(), site);
+        }
+    }
+
+    /**
+     * First frame outside the JDK, where the monitor was held
+     */
+    private static String pinningSite(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return "unknown";
+    }
+}
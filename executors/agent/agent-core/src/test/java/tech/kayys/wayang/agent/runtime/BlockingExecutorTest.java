@@ -0,0 +1,170 @@
+package tech.kayys.wayang.agent.runtime;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class BlockingExecutorTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private BlockingExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testVirtualModeRunsSectionsOnVirtualThreads() {
+        executor = executor(true, false);
+
+        Thread thread = executor.call("parse", Thread::currentThread).await().atMost(TIMEOUT);
+
+        assertTrue(executor.isVirtual());
+        assertTrue(thread.isVirtual());
+        assertTrue(thread.getName().startsWith("blocking-vt-"), thread.getName());
+    }
+
+    @Test
+    void testWorkerModeRunsSectionsOnPlatformThreads() {
+        executor = executor(false, false);
+
+        Thread thread = executor.call("parse", Thread::currentThread).await().atMost(TIMEOUT);
+
+        assertFalse(executor.isVirtual());
+        assertFalse(thread.isVirtual());
+    }
+
+    @Test
+    void testSectionsAreTimedUnderOneTimerPerSection() {
+        executor = executor(true, false);
+
+        executor.call("parse", () -> "a").await().atMost(TIMEOUT);
+        executor.call("parse", () -> "b").await().atMost(TIMEOUT);
+        executor.call("summarize", () -> "c").await().atMost(TIMEOUT);
+
+        Timer parse = registry.find("blocking.sections.duration")
+                .tags("section", "parse", "mode", "virtual").timer();
+        assertNotNull(parse);
+        assertEquals(2, parse.count());
+        assertEquals(1, registry.find("blocking.sections.duration")
+                .tags("section", "summarize", "mode", "virtual").timer().count());
+        assertEquals(2, registry.find("blocking.sections.duration").timers().size());
+
+        // Later calls record on the timer built by the first one
+        executor.call("parse", () -> "d").await().atMost(TIMEOUT);
+        assertSame(parse, registry.find("blocking.sections.duration").tag("section", "parse").timer());
+        assertEquals(3, parse.count());
+    }
+
+    @Test
+    void testFailedSectionIsStillTimed() {
+        executor = executor(false, false);
+
+        Uni<Object> failing = executor.call("parse", () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        assertEquals("boom", assertThrows(IllegalStateException.class,
+                () -> failing.await().atMost(TIMEOUT)).getMessage());
+        assertEquals(1, registry.find("blocking.sections.duration")
+                .tags("section", "parse", "mode", "worker").timer().count());
+    }
+
+    @Test
+    void testActiveGaugeCountsRunningSections() throws InterruptedException {
+        executor = executor(true, false);
+        Gauge active = registry.find("blocking.sections.active").gauge();
+        assertNotNull(active);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Uni<String> section = executor.call("wait", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "done";
+        });
+        CompletableFuture<String> result = section.subscribeAsCompletionStage();
+
+        assertTrue(started.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+        assertEquals(1.0, active.value());
+
+        release.countDown();
+        assertEquals("done", result.join());
+        assertEquals(0.0, active.value());
+    }
+
+    @Test
+    void testPinnedVirtualThreadIsCounted() throws InterruptedException {
+        // From JDK 24 a monitor no longer pins its virtual thread
+        assumeTrue(Runtime.version().feature() < 24, "synchronized does not pin on this JDK");
+        executor = executor(true, true);
+
+        Object lock = new Object();
+        executor.call("pinning", () -> {
+            synchronized (lock) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return null;
+        }).await().atMost(TIMEOUT);
+
+        // JFR hands events to the stream about once a second
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (executor.pinnedCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertTrue(executor.pinnedCount() > 0);
+        assertEquals(executor.pinnedCount(),
+                registry.find("blocking.virtual.pinned").functionCounter().count());
+    }
+
+    @Test
+    void testNoPinningDetectionInWorkerMode() {
+        executor = executor(false, true);
+
+        executor.call("parse", () -> "a").await().atMost(TIMEOUT);
+
+        assertEquals(0, executor.pinnedCount());
+        assertEquals(0.0, registry.find("blocking.virtual.pinned").functionCounter().count());
+    }
+
+    private BlockingExecutor executor(boolean virtualThreads, boolean pinningDetection) {
+        BlockingExecutor blocking = new BlockingExecutor();
+        blocking.virtualThreads = virtualThreads;
+        blocking.pinningDetection = pinningDetection;
+        blocking.pinningThreshold = Duration.ofMillis(20);
+        blocking.meterRegistry = registry;
+        blocking.init();
+        return blocking;
+    }
+}
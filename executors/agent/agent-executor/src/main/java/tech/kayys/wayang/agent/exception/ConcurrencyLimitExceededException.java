@@ -0,0 +1,7 @@
+package tech.kayys.wayang.agent.exception;
+
+public class ConcurrencyLimitExceededException extends RuntimeException {
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -22,8 +22,12 @@ public class AgentContext {
     private List<Message> memory;
     private final List<Message> messages;
     private List<Tool> tools;
+    private List<ToolDefinition> toolDefinitions;
     private final Map<String, Object> metadata;
 
+    // Prompt sent to the LLM, started on the first iteration
+    private volatile ConversationBuffer conversation;
+
     private AgentContext(Builder builder) {
         this.sessionId = builder.sessionId;
         this.runId = builder.runId;
@@ -34,6 +38,7 @@ public class AgentContext {
         this.memory = new ArrayList<>();
         this.messages = new CopyOnWriteArrayList<>();
         this.tools = new ArrayList<>();
+        this.toolDefinitions = List.of();
         this.metadata = new HashMap<>();
     }
 
@@ -85,16 +90,36 @@ public class AgentContext {
 
     public void addMessage(Message message) {
         messages.add(message);
+        ConversationBuffer buffer = conversation;
+        if (buffer != null) {
+            buffer.append(message);
+        }
     }
 
     public void addMessage(LLMResponse response) {
-        messages.add(Message.assistant(
+        addMessage(Message.assistant(
                 response.content(),
                 response.toolCalls()));
     }
 
     public void addToolResult(ToolResult result) {
-        messages.add(Message.tool(result.id(), result.output()));
+        addMessage(Message.tool(result.id(), result.output()));
+    }
+
+    /**
+     * The prompt conversation, or null before the first LLM call
+     */
+    public ConversationBuffer conversation() {
+        return conversation;
+    }
+
+    /**
+     * Start the prompt conversation; messages added from now on are appended to it
+     */
+    public ConversationBuffer startConversation(List<Message> initialMessages) {
+        ConversationBuffer buffer = new ConversationBuffer(initialMessages);
+        this.conversation = buffer;
+        return buffer;
     }
 
     // Tool management
@@ -108,6 +133,16 @@ public class AgentContext {
 
     public void setTools(List<Tool> tools) {
         this.tools = new ArrayList<>(tools);
+        this.toolDefinitions = tools.stream()
+                .map(Tool::toToolDefinition)
+                .toList();
+    }
+
+    /**
+     * Definitions of the tools, built once when the tools are set
+     */
+    public List<ToolDefinition> getToolDefinitions() {
+        return toolDefinitions;
     }
 
     // Metadata
@@ -0,0 +1,80 @@
+package tech.kayys.wayang.agent.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Append-only message history of one agent execution.
+ *
+ * Messages are only ever added at the end, so the provider-specific
+ * encoding of a message never changes once computed. Providers ask for
+ * the encodings of the messages they are sending and only the messages
+ * appended since their previous call get encoded.
+ */
+public final class ConversationBuffer {
+
+    private final List<Message> messages;
+
+    // Encodings by provider format, aligned with messages
+    private final Map<String, List<Object>> encodings = new HashMap<>();
+
+    private List<Message> snapshot;
+
+    public ConversationBuffer(List<Message> initialMessages) {
+        this.messages = new ArrayList<>(initialMessages);
+    }
+
+    public synchronized void append(Message message) {
+        messages.add(message);
+        snapshot = null;
+    }
+
+    public synchronized int size() {
+        return messages.size();
+    }
+
+    /**
+     * Immutable copy of the messages so far
+     */
+    public synchronized List<Message> snapshot() {
+        if (snapshot == null) {
+            snapshot = List.copyOf(messages);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Encodings of the given messages in a provider format, reusing those
+     * computed by earlier calls.
+     *
+     * @param format Identifies the encoding, e.g. the provider API it is for
+     * @param prefix Messages to encode; must be the first messages of this buffer
+     * @return Encodings in message order, or null if prefix is not a prefix of this buffer
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> List<T> encoded(
+            String format,
+            List<Message> prefix,
+            Function<? super Message, ? extends T> encoder) {
+
+        int count = prefix.size();
+        if (count > messages.size()) {
+            return null;
+        }
+        for (int i = 0; i < count; i++) {
+            if (prefix.get(i) != messages.get(i)) {
+                return null;
+            }
+        }
+
+        List<Object> cached = encodings.computeIfAbsent(format, f -> new ArrayList<>());
+        for (int i = cached.size(); i < count; i++) {
+            cached.add(encoder.apply(messages.get(i)));
+        }
+        return (List<T>) Collections.unmodifiableList(new ArrayList<>(cached.subList(0, count)));
+    }
+}
@@ -8,6 +8,7 @@ import org.slf4j.LoggerFactory;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import tech.kayys.wayang.agent.runtime.BlockingExecutor;
 import tech.kayys.wayang.agent.service.MemoryStorageService;
 
 @ApplicationScoped
@@ -24,6 +25,9 @@ public class DefaultAgentMemoryManager implements AgentMemoryManager {
     @Inject
     MemoryCache memoryCache;
 
+    @Inject
+    BlockingExecutor blockingExecutor;
+
     @Override
     public Uni<List<Message>> loadMemory(
             String sessionId,
@@ -55,7 +59,10 @@ public class DefaultAgentMemoryManager implements AgentMemoryManager {
 
         return strategyFactory.getStrategy(memoryType)
                 .flatMap(strategy -> storageService.loadMessages(sessionId, tenantId)
-                        .map(messages -> strategy.process(messages, windowSize)))
+                        .flatMap(messages -> strategy.isBlocking()
+                                ? blockingExecutor.call("memory-" + strategy.getType(),
+                                        () -> strategy.process(messages, windowSize))
+                                : Uni.createFrom().item(strategy.process(messages, windowSize))))
                 .onItem().invoke(messages -> {
                     // Update cache
                     memoryCache.put(sessionId, tenantId, messages);
@@ -83,4 +83,20 @@ public interface LLMProvider {
      * Get provider configuration
      */
     Map<String, Object> getConfig();
+
+    /**
+     * Identity of the endpoint this provider sends its calls to. Routing
+     * statistics and concurrency limits are kept per endpoint.
+     */
+    default String endpoint() {
+        return name();
+    }
+
+    /**
+     * One provider per endpoint serving this provider's models, e.g. one
+     * per configured base URL. Routing spreads completions over all of them.
+     */
+    default List<LLMProvider> endpoints() {
+        return List.of(this);
+    }
 }
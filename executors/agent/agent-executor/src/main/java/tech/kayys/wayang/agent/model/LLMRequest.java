@@ -7,6 +7,9 @@ import java.util.Map;
 
 /**
  * Request to LLM provider
+ *
+ * conversation is optional: when the messages were taken from a
+ * ConversationBuffer, providers can reuse the encodings it caches.
  */
 public record LLMRequest(
         String provider,
@@ -16,7 +19,8 @@ public record LLMRequest(
         Integer maxTokens,
         List<ToolDefinition> tools,
         boolean streaming,
-        Map<String, Object> additionalParams) {
+        Map<String, Object> additionalParams,
+        ConversationBuffer conversation) {
 
     public LLMRequest {
         messages = List.copyOf(messages);
@@ -37,6 +41,7 @@ public record LLMRequest(
         private List<ToolDefinition> tools = List.of();
         private boolean streaming = false;
         private Map<String, Object> additionalParams = Map.of();
+        private ConversationBuffer conversation;
 
         public Builder provider(String provider) {
             this.provider = provider;
@@ -53,6 +58,15 @@ public record LLMRequest(
             return this;
         }
 
+        /**
+         * Messages of the conversation so far, keeping the buffer for encoding reuse
+         */
+        public Builder conversation(ConversationBuffer conversation) {
+            this.conversation = conversation;
+            this.messages = conversation.snapshot();
+            return this;
+        }
+
         public Builder temperature(Double temperature) {
             this.temperature = temperature;
             return this;
@@ -89,7 +103,7 @@ public record LLMRequest(
         public LLMRequest build() {
             return new LLMRequest(
                     provider, model, messages, temperature, maxTokens,
-                    tools, streaming, additionalParams);
+                    tools, streaming, additionalParams, conversation);
         }
     }
 }
@@ -16,4 +16,11 @@ public interface MemoryStrategy {
      * Get strategy type
      */
     String getType();
+
+    /**
+     * Whether process blocks, e.g. on an LLM call, and must run off the event loop
+     */
+    default boolean isBlocking() {
+        return false;
+    }
 }
@@ -53,4 +53,12 @@ public class SummaryMemoryStrategy implements MemoryStrategy {
     public String getType() {
         return "summary";
     }
+
+    /**
+     * Summarizing calls the LLM synchronously
+     */
+    @Override
+    public boolean isBlocking() {
+        return true;
+    }
 }
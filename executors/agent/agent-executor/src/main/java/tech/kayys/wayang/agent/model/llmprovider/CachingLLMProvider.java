@@ -0,0 +1,89 @@
+package tech.kayys.wayang.agent.model.llmprovider;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import tech.kayys.wayang.agent.model.LLMProvider;
+import tech.kayys.wayang.agent.model.LLMRequest;
+import tech.kayys.wayang.agent.model.LLMResponse;
+
+/**
+ * Provider that answers cacheable completions from the LLMResponseCache
+ * of one tenant and delegates everything else
+ */
+public class CachingLLMProvider implements LLMProvider {
+
+    private final LLMProvider delegate;
+    private final LLMResponseCache cache;
+    private final String tenantId;
+
+    public CachingLLMProvider(LLMProvider delegate, LLMResponseCache cache, String tenantId) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.tenantId = tenantId;
+    }
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+    @Override
+    public Uni<LLMResponse> complete(LLMRequest request) {
+        if (!cache.isCacheable(request)) {
+            return delegate.complete(request);
+        }
+
+        return cache.get(tenantId, delegate.name(), request)
+                .flatMap(cached -> {
+                    if (cached.isPresent()) {
+                        return Uni.createFrom().item(fromCache(cached.get()));
+                    }
+                    return delegate.complete(request)
+                            .call(response -> cache.put(tenantId, delegate.name(), request, response));
+                });
+    }
+
+    @Override
+    public Multi<String> stream(LLMRequest request) {
+        return delegate.stream(request);
+    }
+
+    @Override
+    public boolean supportsFunctionCalling() {
+        return delegate.supportsFunctionCalling();
+    }
+
+    @Override
+    public List<String> supportedModels() {
+        return delegate.supportedModels();
+    }
+
+    @Override
+    public boolean supportsModel(String model) {
+        return delegate.supportsModel(model);
+    }
+
+    @Override
+    public Map<String, Object> getConfig() {
+        return delegate.getConfig();
+    }
+
+    public LLMProvider delegate() {
+        return delegate;
+    }
+
+    private static LLMResponse fromCache(LLMResponse response) {
+        Map<String, Object> metadata = new HashMap<>(response.metadata());
+        metadata.put("cacheHit", true);
+        return new LLMResponse(
+                response.content(),
+                response.finishReason(),
+                response.toolCalls(),
+                response.usage(),
+                metadata);
+    }
+}
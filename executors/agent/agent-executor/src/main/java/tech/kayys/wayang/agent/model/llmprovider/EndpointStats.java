@@ -0,0 +1,118 @@
+package tech.kayys.wayang.agent.model.llmprovider;
+
+import java.util.Arrays;
+
+/**
+ * Latency and error statistics of one provider endpoint, as seen by the
+ * LLMRouter.
+ *
+ * Latency and error rate are exponentially weighted moving averages, so
+ * recent calls dominate and an endpoint that slows down or starts failing
+ * is noticed within a few requests. The last latencies are also kept in a
+ * ring buffer for the percentile that hedging waits for.
+ */
+public final class EndpointStats {
+
+    static final int WINDOW = 128;
+
+    // Percentiles are not trusted below this many samples
+    static final int MIN_SAMPLES = 10;
+
+    // Floor of the success rate in the cost, so failing endpoints are still probed
+    private static final double MIN_SUCCESS_RATE = 0.05;
+
+    // Latency charged for a failed call, however fast it failed, so an endpoint
+    // answering every request with an error does not look like the fastest one
+    static final long FAILURE_PENALTY_MILLIS = 10_000;
+
+    private final double alpha;
+    private final long[] window = new long[WINDOW];
+
+    private int samples;
+    private int next;
+    private double latencyMillis;
+    private double errorRate;
+    private int inFlight;
+
+    EndpointStats(double alpha) {
+        this.alpha = alpha;
+    }
+
+    synchronized void started() {
+        inFlight++;
+    }
+
+    synchronized void succeeded(long latencyMillis) {
+        inFlight--;
+        recordLatency(latencyMillis);
+        errorRate = ewma(errorRate, 0.0);
+    }
+
+    synchronized void failed(long latencyMillis) {
+        inFlight--;
+        long penalty = Math.max(latencyMillis, FAILURE_PENALTY_MILLIS);
+        this.latencyMillis = this.latencyMillis == 0 ? penalty : ewma(this.latencyMillis, penalty);
+        errorRate = ewma(errorRate, 1.0);
+    }
+
+    /**
+     * A call abandoned because another one won or the caller gave up. Its
+     * elapsed time is only a lower bound on the latency: it can raise the
+     * moving average, never lower it, and stays out of the percentile window
+     * so hedge losers do not drag the hedge delay around.
+     */
+    synchronized void cancelled(long latencyMillis) {
+        inFlight--;
+        if (latencyMillis > this.latencyMillis) {
+            this.latencyMillis = this.latencyMillis == 0 ? latencyMillis : ewma(this.latencyMillis, latencyMillis);
+        }
+    }
+
+    /**
+     * Expected cost of sending one more request here: the moving latency
+     * scaled by the requests already waiting and by the error rate. An
+     * endpoint without samples costs nothing, so it is tried first.
+     */
+    public synchronized double cost() {
+        return latencyMillis * (inFlight + 1) / Math.max(MIN_SUCCESS_RATE, 1.0 - errorRate);
+    }
+
+    /**
+     * @return Latency at the given percentile of the recent window, or -1 with too few samples
+     */
+    public synchronized long percentile(double percentile) {
+        int count = samples;
+        if (count < MIN_SAMPLES) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(window, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    public synchronized double latencyMillis() {
+        return latencyMillis;
+    }
+
+    public synchronized double errorRate() {
+        return errorRate;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    private void recordLatency(long millis) {
+        latencyMillis = latencyMillis == 0 ? millis : ewma(latencyMillis, millis);
+        window[next] = millis;
+        next = (next + 1) % WINDOW;
+        if (samples < WINDOW) {
+            samples++;
+        }
+    }
+
+    private double ewma(double average, double sample) {
+        return average + alpha * (sample - average);
+    }
+}
@@ -12,20 +12,36 @@ import org.slf4j.LoggerFactory;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import tech.kayys.wayang.agent.model.LLMProvider;
+import tech.kayys.wayang.agent.service.ConcurrencyLimiterRegistry;
 
 @ApplicationScoped
 public class LLMProviderRegistry {
 
     private static final Logger LOG = LoggerFactory.getLogger(LLMProviderRegistry.class);
 
+    // Cache namespace for callers without a tenant
+    private static final String SHARED_TENANT = "_shared";
+
     private final Map<String, LLMProvider> providers = new ConcurrentHashMap<>();
 
+    // Endpoints of each provider under their concurrency limiters, innermost layer of every call
+    private final Map<String, List<LLMProvider>> limited = new ConcurrentHashMap<>();
+
     @jakarta.inject.Inject
     OpenAIProvider openAIProvider;
 
     @jakarta.inject.Inject
     AnthropicProvider anthropicProvider;
 
+    @jakarta.inject.Inject
+    LLMResponseCache responseCache;
+
+    @jakarta.inject.Inject
+    LLMRouter router;
+
+    @jakarta.inject.Inject
+    ConcurrencyLimiterRegistry concurrencyLimiters;
+
     @jakarta.annotation.PostConstruct
     void init() {
         registerProvider(openAIProvider);
@@ -35,8 +51,16 @@ public class LLMProviderRegistry {
     }
 
     public void registerProvider(LLMProvider provider) {
+        List<LLMProvider> endpoints = new ArrayList<>();
+        for (LLMProvider endpoint : provider.endpoints()) {
+            endpoints.add(concurrencyLimiters != null
+                    ? new LimitedLLMProvider(endpoint, concurrencyLimiters.forProvider(endpoint.endpoint()))
+                    : endpoint);
+        }
+
         providers.put(provider.name(), provider);
-        LOG.info("Registered LLM provider: {}", provider.name());
+        limited.put(provider.name(), List.copyOf(endpoints));
+        LOG.info("Registered LLM provider: {} ({} endpoints)", provider.name(), endpoints.size());
     }
 
     public Uni<LLMProvider> getProvider(String name) {
@@ -51,6 +75,29 @@ public class LLMProviderRegistry {
         return Uni.createFrom().item(provider);
     }
 
+    /**
+     * Provider whose completions go through the response cache of the tenant
+     * and, when routing is enabled, are spread over all endpoints of the model.
+     * Without routing they go to the provider's first endpoint. Only calls
+     * that reach an endpoint take a slot of its concurrency limiter.
+     */
+    public Uni<LLMProvider> getProvider(String name, String tenantId) {
+        return getProvider(name)
+                .map(provider -> limited.get(provider.name()).get(0))
+                .map(provider -> router != null && router.isEnabled()
+                        ? new RoutingLLMProvider(provider, allEndpoints(), router)
+                        : provider)
+                .map(provider -> responseCache != null && responseCache.isEnabled()
+                        ? new CachingLLMProvider(provider, responseCache, tenantId != null ? tenantId : SHARED_TENANT)
+                        : provider);
+    }
+
+    private List<LLMProvider> allEndpoints() {
+        List<LLMProvider> endpoints = new ArrayList<>();
+        limited.values().forEach(endpoints::addAll);
+        return endpoints;
+    }
+
     public List<String> getAvailableProviders() {
         return new ArrayList<>(providers.keySet());
     }
@@ -0,0 +1,427 @@
+package tech.kayys.wayang.agent.model.llmprovider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import tech.kayys.wayang.agent.model.LLMRequest;
+import tech.kayys.wayang.agent.model.LLMResponse;
+import tech.kayys.wayang.agent.model.Message;
+import tech.kayys.wayang.agent.model.ToolCall;
+import tech.kayys.wayang.agent.model.ToolDefinition;
+
+/**
+ * Exact-match cache of LLM responses.
+ *
+ * The key is a SHA-256 over a canonical form of the provider, model,
+ * parameters, messages and tools: map keys are sorted and message
+ * timestamps left out, so the same prompt always hashes the same. Only
+ * requests at temperature 0 are cached unless allow-nonzero-temperature
+ * is set, since other responses are not meant to repeat.
+ *
+ * Entries live in a memory tier and, when enabled, a local disk tier
+ * that survives restarts; a disk hit is promoted to memory. Every tenant
+ * has its own namespace in both tiers with a byte quota, and the least
+ * recently used entries are evicted when a tenant goes over it.
+ */
+@ApplicationScoped
+public class LLMResponseCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LLMResponseCache.class);
+
+    @ConfigProperty(name = "silat.agent.llm.cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "silat.agent.llm.cache.allow-nonzero-temperature", defaultValue = "false")
+    boolean allowNonZeroTemperature;
+
+    @ConfigProperty(name = "silat.agent.llm.cache.ttl", defaultValue = "PT24H")
+    Duration ttl;
+
+    @ConfigProperty(name = "silat.agent.llm.cache.memory.tenant-quota-bytes", defaultValue = "8388608")
+    long memoryQuotaBytes;
+
+    @ConfigProperty(name = "silat.agent.llm.cache.disk.enabled", defaultValue = "false")
+    boolean diskEnabled;
+
+    @ConfigProperty(name = "silat.agent.llm.cache.disk.dir", defaultValue = "data/llm-cache")
+    String diskDir;
+
+    @ConfigProperty(name = "silat.agent.llm.cache.disk.tenant-quota-bytes", defaultValue = "268435456")
+    long diskQuotaBytes;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    private final Map<String, MemoryTier> memory = new ConcurrentHashMap<>();
+    private final Map<String, DiskTier> disk = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether the response to this request may be served from the cache
+     */
+    public boolean isCacheable(LLMRequest request) {
+        if (!enabled || request.streaming()) {
+            return false;
+        }
+        // No temperature means the provider's default, which is not 0
+        Double temperature = request.temperature();
+        return allowNonZeroTemperature || (temperature != null && temperature == 0.0);
+    }
+
+    public Uni<Optional<LLMResponse>> get(String tenantId, String provider, LLMRequest request) {
+        String key = key(provider, request);
+
+        Optional<LLMResponse> cached = memoryTier(tenantId).get(key, System.currentTimeMillis());
+        if (cached.isPresent() || !diskEnabled) {
+            return Uni.createFrom().item(cached);
+        }
+
+        return Uni.createFrom().item(() -> diskTier(tenantId).get(key, System.currentTimeMillis()))
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+                .invoke(stored -> stored.ifPresent(entry -> memoryTier(tenantId).put(key, entry)))
+                .map(stored -> stored.map(Stored::response));
+    }
+
+    public Uni<Void> put(String tenantId, String provider, LLMRequest request, LLMResponse response) {
+        String key = key(provider, request);
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        byte[] encoded;
+        try {
+            encoded = objectMapper.writeValueAsBytes(new Stored(expiresAt, response, 0));
+        } catch (IOException e) {
+            LOG.warn("Not caching LLM response that cannot be serialized: {}", e.getMessage());
+            return Uni.createFrom().voidItem();
+        }
+
+        Stored stored = new Stored(expiresAt, response, encoded.length);
+        memoryTier(tenantId).put(key, stored);
+
+        if (!diskEnabled) {
+            return Uni.createFrom().voidItem();
+        }
+        return Uni.createFrom().item(() -> {
+            try {
+                diskTier(tenantId).put(key, encoded);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return (Void) null;
+        })
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+                .onFailure().recoverWithItem(error -> {
+                    LOG.warn("Failed to write LLM response to disk cache: {}", error.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Bytes held for the tenant in memory
+     */
+    public long memoryBytes(String tenantId) {
+        MemoryTier tier = memory.get(tenantId);
+        return tier == null ? 0 : tier.bytes();
+    }
+
+    // ==================== KEY ====================
+
+    String key(String provider, LLMRequest request) {
+        Map<String, Object> canonical = new TreeMap<>();
+        canonical.put("provider", provider);
+        canonical.put("model", request.model());
+        canonical.put("temperature", request.temperature());
+        canonical.put("maxTokens", request.maxTokens());
+        canonical.put("params", request.additionalParams());
+
+        List<Object> messages = new ArrayList<>(request.messages().size());
+        for (Message message : request.messages()) {
+            // Timestamps are not part of the prompt
+            Map<String, Object> m = new TreeMap<>();
+            m.put("role", message.role());
+            m.put("content", message.content());
+            m.put("toolCallId", message.toolCallId());
+            if (message.hasToolCalls()) {
+                List<Object> calls = new ArrayList<>();
+                for (ToolCall call : message.toolCalls()) {
+                    calls.add(List.of(String.valueOf(call.id()), String.valueOf(call.name()), call.arguments()));
+                }
+                m.put("toolCalls", calls);
+            }
+            messages.add(m);
+        }
+        canonical.put("messages", messages);
+
+        List<Object> tools = new ArrayList<>(request.tools().size());
+        for (ToolDefinition tool : request.tools()) {
+            tools.add(List.of(String.valueOf(tool.name()), String.valueOf(tool.description()), tool.parameters()));
+        }
+        canonical.put("tools", tools);
+
+        StringBuilder out = new StringBuilder(256);
+        writeCanonical(canonical, out);
+        return sha256(out.toString());
+    }
+
+    /**
+     * JSON-like rendering with map keys sorted, so equal values render identically
+     */
+    static void writeCanonical(Object value, StringBuilder out) {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof Map<?, ?> map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            map.forEach((k, v) -> sorted.put(String.valueOf(k), v));
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                writeString(entry.getKey(), out);
+                out.append(':');
+                writeCanonical(entry.getValue(), out);
+            }
+            out.append('}');
+        } else if (value instanceof Collection<?> collection) {
+            out.append('[');
+            boolean first = true;
+            for (Object item : collection) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                writeCanonical(item, out);
+            }
+            out.append(']');
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.append(value);
+        } else {
+            writeString(value.toString(), out);
+        }
+    }
+
+    private static void writeString(String value, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ==================== TIERS ====================
+
+    private MemoryTier memoryTier(String tenantId) {
+        return memory.computeIfAbsent(tenantId, t -> new MemoryTier(memoryQuotaBytes));
+    }
+
+    private DiskTier diskTier(String tenantId) {
+        return disk.computeIfAbsent(tenantId,
+                t -> new DiskTier(Path.of(diskDir).resolve(sha256(t).substring(0, 16)), diskQuotaBytes, objectMapper));
+    }
+
+    /**
+     * Cached response with its expiry; size is its serialized length
+     */
+    record Stored(long expiresAt, LLMResponse response, int size) {
+    }
+
+    /**
+     * One tenant's entries in memory, least recently used first
+     */
+    private static final class MemoryTier {
+
+        private final long quotaBytes;
+        private final LinkedHashMap<String, Stored> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long bytes;
+
+        MemoryTier(long quotaBytes) {
+            this.quotaBytes = quotaBytes;
+        }
+
+        synchronized Optional<LLMResponse> get(String key, long now) {
+            Stored stored = entries.get(key);
+            if (stored == null) {
+                return Optional.empty();
+            }
+            if (stored.expiresAt() <= now) {
+                entries.remove(key);
+                bytes -= stored.size();
+                return Optional.empty();
+            }
+            return Optional.of(stored.response());
+        }
+
+        synchronized void put(String key, Stored stored) {
+            if (stored.size() > quotaBytes) {
+                return;
+            }
+            Stored previous = entries.put(key, stored);
+            if (previous != null) {
+                bytes -= previous.size();
+            }
+            bytes += stored.size();
+
+            Iterator<Stored> eldest = entries.values().iterator();
+            while (bytes > quotaBytes && eldest.hasNext()) {
+                bytes -= eldest.next().size();
+                eldest.remove();
+            }
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+    }
+
+    /**
+     * One tenant's entries on disk, a file per key. The index of file sizes
+     * is rebuilt from the directory on first use, oldest files first.
+     */
+    private static final class DiskTier {
+
+        private final Path dir;
+        private final long quotaBytes;
+        private final ObjectMapper objectMapper;
+
+        private LinkedHashMap<String, Long> index;
+        private long bytes;
+
+        DiskTier(Path dir, long quotaBytes, ObjectMapper objectMapper) {
+            this.dir = dir;
+            this.quotaBytes = quotaBytes;
+            this.objectMapper = objectMapper;
+        }
+
+        synchronized Optional<Stored> get(String key, long now) {
+            loadIndex();
+            if (!index.containsKey(key)) {
+                return Optional.empty();
+            }
+            Path file = dir.resolve(key + ".json");
+            try {
+                byte[] encoded = Files.readAllBytes(file);
+                Stored stored = objectMapper.readValue(encoded, Stored.class);
+                if (stored.expiresAt() <= now) {
+                    remove(key);
+                    return Optional.empty();
+                }
+                return Optional.of(new Stored(stored.expiresAt(), stored.response(), encoded.length));
+            } catch (IOException e) {
+                LOG.warn("Dropping unreadable LLM cache entry {}: {}", file, e.getMessage());
+                remove(key);
+                return Optional.empty();
+            }
+        }
+
+        synchronized void put(String key, byte[] encoded) throws IOException {
+            if (encoded.length > quotaBytes) {
+                return;
+            }
+            loadIndex();
+
+            Path file = dir.resolve(key + ".json");
+            Path temp = dir.resolve(key + ".tmp");
+            Files.write(temp, encoded);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            Long previous = index.put(key, (long) encoded.length);
+            if (previous != null) {
+                bytes -= previous;
+            }
+            bytes += encoded.length;
+
+            while (bytes > quotaBytes && !index.isEmpty()) {
+                remove(index.keySet().iterator().next());
+            }
+        }
+
+        private void remove(String key) {
+            Long size = index.remove(key);
+            if (size != null) {
+                bytes -= size;
+            }
+            try {
+                Files.deleteIfExists(dir.resolve(key + ".json"));
+            } catch (IOException e) {
+                LOG.warn("Failed to delete LLM cache entry {}: {}", key, e.getMessage());
+            }
+        }
+
+        private void loadIndex() {
+            if (index != null) {
+                return;
+            }
+            index = new LinkedHashMap<>(16, 0.75f, true);
+            bytes = 0;
+            try {
+                Files.createDirectories(dir);
+                List<Path> files;
+                try (Stream<Path> listing = Files.list(dir)) {
+                    files = listing.filter(p -> p.getFileName().toString().endsWith(".json")).toList();
+                }
+                List<Map.Entry<Path, Long>> byAge = new ArrayList<>();
+                for (Path file : files) {
+                    byAge.add(Map.entry(file, Files.getLastModifiedTime(file).toMillis()));
+                }
+                byAge.sort(Map.Entry.comparingByValue());
+                for (Map.Entry<Path, Long> entry : byAge) {
+                    String name = entry.getKey().getFileName().toString();
+                    long size = Files.size(entry.getKey());
+                    index.put(name.substring(0, name.length() - ".json".length()), size);
+                    bytes += size;
+                }
+            } catch (IOException e) {
+                LOG.warn("Failed to read LLM cache directory {}: {}", dir, e.getMessage());
+            }
+        }
+    }
+}
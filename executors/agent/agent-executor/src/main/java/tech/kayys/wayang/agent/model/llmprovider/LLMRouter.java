@@ -0,0 +1,268 @@
+package tech.kayys.wayang.agent.model.llmprovider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.subscription.Cancellable;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import jakarta.enterprise.context.ApplicationScoped;
+import tech.kayys.wayang.agent.model.LLMProvider;
+import tech.kayys.wayang.agent.model.LLMRequest;
+import tech.kayys.wayang.agent.model.LLMResponse;
+
+/**
+ * Latency-aware routing of completions across the endpoints that can
+ * serve a model: every base URL of the named provider and every other
+ * provider supporting the model.
+ *
+ * Every endpoint/model pair has its own EndpointStats.
+ * A request goes to the cheaper of two endpoints picked at random (power
+ * of two choices), which steers load away from slow or failing endpoints
+ * without the herding of always picking the single best one.
+ *
+ * With hedging on, if the chosen endpoint has not answered by the time
+ * its recent latency percentile has passed, the same request is also sent
+ * to the other endpoint. The first response wins and the other call is
+ * cancelled. A failure before the hedge fires sends it right away.
+ */
+@ApplicationScoped
+public class LLMRouter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LLMRouter.class);
+
+    @ConfigProperty(name = "silat.agent.llm.routing.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "silat.agent.llm.routing.ewma-alpha", defaultValue = "0.3")
+    double ewmaAlpha;
+
+    @ConfigProperty(name = "silat.agent.llm.routing.hedge.enabled", defaultValue = "false")
+    boolean hedgeEnabled;
+
+    @ConfigProperty(name = "silat.agent.llm.routing.hedge.percentile", defaultValue = "0.95")
+    double hedgePercentile;
+
+    @ConfigProperty(name = "silat.agent.llm.routing.hedge.min-delay", defaultValue = "PT0.1S")
+    Duration hedgeMinDelay;
+
+    // Used until the endpoint has enough samples for a percentile
+    @ConfigProperty(name = "silat.agent.llm.routing.hedge.default-delay", defaultValue = "PT2S")
+    Duration hedgeDefaultDelay;
+
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Complete the request on the best of the candidates
+     */
+    public Uni<LLMResponse> complete(List<LLMProvider> candidates, LLMRequest request) {
+        if (candidates.isEmpty()) {
+            return Uni.createFrom().failure(
+                    new IllegalArgumentException("No provider supports model: " + request.model()));
+        }
+
+        return Uni.createFrom().deferred(() -> {
+            List<LLMProvider> chosen = choose(candidates, request.model());
+            if (chosen.size() == 1 || !hedgeEnabled) {
+                return attempt(chosen.get(0), request);
+            }
+            return hedged(chosen.get(0), chosen.get(1), request);
+        });
+    }
+
+    public EndpointStats stats(LLMProvider provider, String model) {
+        return stats.computeIfAbsent(provider.endpoint() + "/" + model, key -> new EndpointStats(ewmaAlpha));
+    }
+
+    /**
+     * Power of two choices: the cheaper of two random candidates first, then the other
+     */
+    List<LLMProvider> choose(List<LLMProvider> candidates, String model) {
+        int count = candidates.size();
+        if (count == 1) {
+            return candidates;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(count);
+        int second = random.nextInt(count - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        LLMProvider a = candidates.get(first);
+        LLMProvider b = candidates.get(second);
+        return stats(b, model).cost() < stats(a, model).cost() ? List.of(b, a) : List.of(a, b);
+    }
+
+    long hedgeDelayMillis(EndpointStats primary) {
+        long percentile = primary.percentile(hedgePercentile);
+        if (percentile < 0) {
+            return hedgeDefaultDelay.toMillis();
+        }
+        return Math.max(hedgeMinDelay.toMillis(), percentile);
+    }
+
+    /**
+     * One call to one endpoint, recorded in its stats
+     */
+    private Uni<LLMResponse> attempt(LLMProvider provider, LLMRequest request) {
+        EndpointStats endpoint = stats(provider, request.model());
+
+        return Uni.createFrom().deferred(() -> {
+            long start = System.nanoTime();
+            endpoint.started();
+
+            return provider.complete(request)
+                    .onItemOrFailure().invoke((response, failure) -> {
+                        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                        if (failure == null) {
+                            endpoint.succeeded(elapsed);
+                        } else {
+                            endpoint.failed(elapsed);
+                        }
+                    })
+                    .onCancellation().invoke(() -> endpoint.cancelled(
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        });
+    }
+
+    private Uni<LLMResponse> hedged(LLMProvider primary, LLMProvider backup, LLMRequest request) {
+        long delay = hedgeDelayMillis(stats(primary, request.model()));
+
+        return Uni.createFrom().emitter(emitter -> {
+            Hedge hedge = new Hedge(emitter, () -> {
+                LOG.debug("Hedging {} request to {} after {}ms", primary.endpoint(), backup.endpoint(), delay);
+                return attempt(backup, request);
+            });
+            emitter.onTermination(hedge::cancel);
+
+            hedge.launch(attempt(primary, request));
+            hedge.schedule(delay);
+        });
+    }
+
+    /**
+     * Race between the primary call and the backup call of one request
+     */
+    private static final class Hedge {
+
+        private final UniEmitter<? super LLMResponse> emitter;
+        private final Supplier<Uni<LLMResponse>> backup;
+
+        private final List<Cancellable> calls = new ArrayList<>(2);
+        private ScheduledFuture<?> timer;
+        private boolean backupLaunched;
+        private boolean done;
+        private int pending;
+
+        Hedge(UniEmitter<? super LLMResponse> emitter, Supplier<Uni<LLMResponse>> backup) {
+            this.emitter = emitter;
+            this.backup = backup;
+        }
+
+        synchronized void schedule(long delayMillis) {
+            if (!done && !backupLaunched) {
+                timer = Infrastructure.getDefaultWorkerPool()
+                        .schedule(this::launchBackup, delayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        void launch(Uni<LLMResponse> call) {
+            synchronized (this) {
+                pending++;
+            }
+            Cancellable cancellable = call.subscribe().with(this::onItem, this::onFailure);
+
+            boolean cancel;
+            synchronized (this) {
+                cancel = done;
+                if (!done) {
+                    calls.add(cancellable);
+                }
+            }
+            if (cancel) {
+                cancellable.cancel();
+            }
+        }
+
+        void launchBackup() {
+            synchronized (this) {
+                if (done || backupLaunched) {
+                    return;
+                }
+                backupLaunched = true;
+            }
+            launch(backup.get());
+        }
+
+        private void onItem(LLMResponse response) {
+            List<Cancellable> losers;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                losers = finish();
+            }
+            // The losing call is cancelled before the winner is passed on
+            losers.forEach(Cancellable::cancel);
+            emitter.complete(response);
+        }
+
+        private void onFailure(Throwable failure) {
+            boolean failover;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                pending--;
+                failover = !backupLaunched;
+                if (!failover && pending > 0) {
+                    return;
+                }
+                if (!failover) {
+                    finish();
+                }
+            }
+            if (failover) {
+                launchBackup();
+            } else {
+                emitter.fail(failure);
+            }
+        }
+
+        void cancel() {
+            List<Cancellable> running;
+            synchronized (this) {
+                running = finish();
+            }
+            running.forEach(Cancellable::cancel);
+        }
+
+        private List<Cancellable> finish() {
+            done = true;
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            List<Cancellable> running = new ArrayList<>(calls);
+            calls.clear();
+            return running;
+        }
+    }
+}
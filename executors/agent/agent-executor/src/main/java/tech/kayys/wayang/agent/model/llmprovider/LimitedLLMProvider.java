@@ -0,0 +1,79 @@
+package tech.kayys.wayang.agent.model.llmprovider;
+
+import java.util.List;
+import java.util.Map;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import tech.kayys.wayang.agent.model.LLMProvider;
+import tech.kayys.wayang.agent.model.LLMRequest;
+import tech.kayys.wayang.agent.model.LLMResponse;
+import tech.kayys.wayang.agent.service.AdaptiveConcurrencyLimiter;
+
+/**
+ * Provider whose completions run under the adaptive concurrency limiter
+ * of the endpoint that actually serves them.
+ *
+ * It wraps the real provider, inside routing and caching, so the limiter
+ * only sees real calls: cache hits never take a slot or feed it their
+ * near-zero latency, and a routed call is charged to the endpoint the
+ * router picked rather than the provider that was asked for.
+ */
+public class LimitedLLMProvider implements LLMProvider {
+
+    private final LLMProvider delegate;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public LimitedLLMProvider(LLMProvider delegate, AdaptiveConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+    @Override
+    public Uni<LLMResponse> complete(LLMRequest request) {
+        return limiter.run(() -> delegate.complete(request));
+    }
+
+    @Override
+    public Multi<String> stream(LLMRequest request) {
+        return delegate.stream(request);
+    }
+
+    @Override
+    public boolean supportsFunctionCalling() {
+        return delegate.supportsFunctionCalling();
+    }
+
+    @Override
+    public List<String> supportedModels() {
+        return delegate.supportedModels();
+    }
+
+    @Override
+    public boolean supportsModel(String model) {
+        return delegate.supportsModel(model);
+    }
+
+    @Override
+    public Map<String, Object> getConfig() {
+        return delegate.getConfig();
+    }
+
+    @Override
+    public String endpoint() {
+        return delegate.endpoint();
+    }
+
+    public LLMProvider delegate() {
+        return delegate;
+    }
+
+    public AdaptiveConcurrencyLimiter limiter() {
+        return limiter;
+    }
+}
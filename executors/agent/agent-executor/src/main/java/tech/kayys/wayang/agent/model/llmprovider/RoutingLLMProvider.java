@@ -0,0 +1,80 @@
+package tech.kayys.wayang.agent.model.llmprovider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import tech.kayys.wayang.agent.model.LLMProvider;
+import tech.kayys.wayang.agent.model.LLMRequest;
+import tech.kayys.wayang.agent.model.LLMResponse;
+
+/**
+ * Provider that sends completions through the LLMRouter, over every
+ * endpoint of the named provider and every endpoint of another provider
+ * serving the same model. Streams go to the named provider's first endpoint.
+ */
+public class RoutingLLMProvider implements LLMProvider {
+
+    private final LLMProvider delegate;
+    private final List<LLMProvider> endpoints;
+    private final LLMRouter router;
+
+    /**
+     * @param delegate  first endpoint of the named provider
+     * @param endpoints endpoints of all registered providers, including the delegate
+     */
+    public RoutingLLMProvider(LLMProvider delegate, List<LLMProvider> endpoints, LLMRouter router) {
+        this.delegate = delegate;
+        this.endpoints = endpoints;
+        this.router = router;
+    }
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+    @Override
+    public Uni<LLMResponse> complete(LLMRequest request) {
+        return router.complete(candidates(request.model()), request);
+    }
+
+    @Override
+    public Multi<String> stream(LLMRequest request) {
+        return delegate.stream(request);
+    }
+
+    @Override
+    public boolean supportsFunctionCalling() {
+        return delegate.supportsFunctionCalling();
+    }
+
+    @Override
+    public List<String> supportedModels() {
+        return delegate.supportedModels();
+    }
+
+    @Override
+    public boolean supportsModel(String model) {
+        return delegate.supportsModel(model);
+    }
+
+    @Override
+    public Map<String, Object> getConfig() {
+        return delegate.getConfig();
+    }
+
+    List<LLMProvider> candidates(String model) {
+        List<LLMProvider> candidates = new ArrayList<>();
+        candidates.add(delegate);
+        for (LLMProvider endpoint : endpoints) {
+            if (endpoint != delegate
+                    && (endpoint.name().equals(delegate.name()) || endpoint.supportsModel(model))) {
+                candidates.add(endpoint);
+            }
+        }
+        return candidates;
+    }
+}
@@ -0,0 +1,282 @@
+package tech.kayys.wayang.agent.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import tech.kayys.wayang.agent.exception.ConcurrencyLimitExceededException;
+
+/**
+ * Concurrency limit that sizes itself from observed latency, after the
+ * Gradient2 algorithm.
+ *
+ * A long-term moving average of latency stands for the latency of the
+ * backend when it is not queueing. Every completed call compares its
+ * latency against it: while they are close the limit grows by about the
+ * square root of itself, and when calls get slower than the average by
+ * more than the tolerance the limit shrinks in proportion. Failures
+ * shrink the limit multiplicatively. Calls over the limit wait in a
+ * bounded queue and are rejected with ConcurrencyLimitExceededException
+ * once it is full.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    // Multiplier applied to the limit when a call fails
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final double smoothing;
+    private final double tolerance;
+    private final int longWindow;
+    private final LongSupplier nanoClock;
+
+    private final Deque<Call<?>> waiting = new ArrayDeque<>();
+
+    private double limit;
+    private double longRttNanos;
+    private int inFlight;
+    private long rejected;
+
+    public AdaptiveConcurrencyLimiter(
+            String name,
+            int initialLimit,
+            int minLimit,
+            int maxLimit,
+            int maxQueue,
+            double smoothing,
+            double tolerance,
+            int longWindow) {
+        this(name, initialLimit, minLimit, maxLimit, maxQueue, smoothing, tolerance, longWindow, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(
+            String name,
+            int initialLimit,
+            int minLimit,
+            int maxLimit,
+            int maxQueue,
+            double smoothing,
+            double tolerance,
+            int longWindow,
+            LongSupplier nanoClock) {
+        this.name = name;
+        this.nanoClock = nanoClock;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.maxQueue = maxQueue;
+        this.smoothing = smoothing;
+        this.tolerance = tolerance;
+        this.longWindow = Math.max(1, longWindow);
+        this.limit = clamp(initialLimit);
+    }
+
+    /**
+     * Run the call once the limit allows it
+     */
+    public <T> Uni<T> run(Supplier<Uni<T>> call) {
+        return Uni.createFrom().emitter(emitter -> {
+            Call<T> pending = new Call<>(call, emitter);
+            emitter.onTermination(pending::cancel);
+
+            boolean start;
+            synchronized (this) {
+                if (inFlight < (int) limit) {
+                    inFlight++;
+                    start = true;
+                } else if (waiting.size() < maxQueue) {
+                    waiting.add(pending);
+                    return;
+                } else {
+                    rejected++;
+                    start = false;
+                }
+            }
+            if (start) {
+                pending.start();
+            } else {
+                emitter.fail(new ConcurrencyLimitExceededException(
+                        "Concurrency limit of " + name + " reached: " + limit()));
+            }
+        });
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized int queued() {
+        return waiting.size();
+    }
+
+    public synchronized long rejected() {
+        return rejected;
+    }
+
+    /**
+     * Free the slot of a finished call, learn from its outcome and start the
+     * calls the limit now allows
+     *
+     * @param rttNanos Latency of the call, or -1 if it was cancelled and tells nothing
+     */
+    private void release(long rttNanos, boolean failed) {
+        List<Call<?>> next = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            if (failed) {
+                limit = clamp(limit * BACKOFF_RATIO);
+            } else if (rttNanos >= 0) {
+                sample(rttNanos);
+            }
+            while (inFlight < (int) limit && !waiting.isEmpty()) {
+                inFlight++;
+                next.add(waiting.poll());
+            }
+        }
+        next.forEach(Call::start);
+    }
+
+    private void sample(long rttNanos) {
+        double shortRtt = Math.max(1, rttNanos);
+        if (longRttNanos == 0) {
+            longRttNanos = shortRtt;
+        } else {
+            longRttNanos += (shortRtt - longRttNanos) / longWindow;
+        }
+
+        // After a latency spike the long average lags behind; let it catch up
+        if (longRttNanos / shortRtt > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        // Not using the slots we have says nothing about needing more
+        if (inFlight + 1 < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = clamp(limit * (1 - smoothing) + target * smoothing);
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    private synchronized boolean dequeue(Call<?> call) {
+        return waiting.remove(call);
+    }
+
+    /**
+     * One call through the limiter: queued, running, then done
+     */
+    private final class Call<T> {
+
+        private final Supplier<Uni<T>> supplier;
+        private final UniEmitter<? super T> emitter;
+
+        private State state = State.QUEUED;
+        private long startNanos;
+        private Cancellable running;
+
+        Call(Supplier<Uni<T>> supplier, UniEmitter<? super T> emitter) {
+            this.supplier = supplier;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Run holding a slot, which is released exactly once
+         */
+        void start() {
+            boolean cancelled;
+            synchronized (this) {
+                cancelled = state == State.DONE;
+                if (!cancelled) {
+                    state = State.RUNNING;
+                    startNanos = nanoClock.getAsLong();
+                }
+            }
+            if (cancelled) {
+                // Cancelled between leaving the queue and starting
+                release(-1, false);
+                return;
+            }
+
+            Cancellable cancellable = Uni.createFrom().deferred(supplier)
+                    .subscribe().with(this::onItem, this::onFailure);
+
+            boolean cancel;
+            synchronized (this) {
+                running = cancellable;
+                cancel = state == State.DONE;
+            }
+            if (cancel) {
+                // No-op if the call already completed
+                cancellable.cancel();
+            }
+        }
+
+        void cancel() {
+            State previous;
+            Cancellable cancellable;
+            synchronized (this) {
+                previous = state;
+                state = State.DONE;
+                cancellable = running;
+            }
+            if (previous == State.QUEUED) {
+                // If start() already took it off the queue, it releases the slot
+                dequeue(this);
+            } else if (previous == State.RUNNING) {
+                if (cancellable != null) {
+                    cancellable.cancel();
+                }
+                release(-1, false);
+            }
+        }
+
+        private void onItem(T item) {
+            if (finish()) {
+                release(nanoClock.getAsLong() - startNanos, false);
+                emitter.complete(item);
+            }
+        }
+
+        private void onFailure(Throwable failure) {
+            if (finish()) {
+                release(nanoClock.getAsLong() - startNanos, true);
+                emitter.fail(failure);
+            }
+        }
+
+        private synchronized boolean finish() {
+            if (state != State.RUNNING) {
+                return false;
+            }
+            state = State.DONE;
+            return true;
+        }
+    }
+
+    private enum State {
+        QUEUED,
+        RUNNING,
+        DONE
+    }
+}
@@ -10,6 +10,7 @@ import tech.kayys.silat.sdk.executor.Executor;
 import tech.kayys.wayang.agent.model.AgentExecutionResult;
 import tech.kayys.wayang.agent.model.AgentConfiguration;
 import tech.kayys.wayang.agent.model.AgentContext;
+import tech.kayys.wayang.agent.model.ConversationBuffer;
 import tech.kayys.wayang.agent.model.LLMRequest;
 import tech.kayys.wayang.agent.model.LLMResponse;
 import tech.kayys.wayang.agent.model.Message;
@@ -67,6 +68,9 @@ public class AgentExecutor extends AbstractWorkflowExecutor {
     @Inject
     protected tech.kayys.wayang.agent.model.AgentMemoryManager memoryManager;
 
+    @Inject
+    protected ConcurrencyLimiterRegistry concurrencyLimiters;
+
     @Override
     public Uni<NodeExecutionResult> execute(NodeExecutionTask task) {
         LOG.info("Starting agent execution: run={}, node={}, attempt={}",
@@ -74,13 +78,13 @@ public class AgentExecutor extends AbstractWorkflowExecutor {
 
         Instant startTime = Instant.now();
 
-        return loadAgentConfiguration(task)
+        return concurrencyLimiters.forExecutor(this).run(() -> loadAgentConfiguration(task)
                 // Initialize context
                 .flatMap(config -> initializeContext(task, config, getSessionId(task)))
                 // Execute agent loop
                 .flatMap(context -> executeAgentLoop(task, context))
                 // Save state and finalize
-                .flatMap(agentResult -> finalizeExecution(task, agentResult, getSessionId(task)))
+                .flatMap(agentResult -> finalizeExecution(task, agentResult, getSessionId(task))))
                 .onItem().invoke(result -> {
                     Duration duration = Duration.between(startTime, Instant.now());
                     metricsCollector.recordExecution(task.nodeId().value(), duration, true);
@@ -280,7 +284,12 @@ public class AgentExecutor extends AbstractWorkflowExecutor {
     }
 
     /**
-     * Prepare messages for LLM call
+     * Prepare messages for LLM call.
+     *
+     * The prompt (system prompt, memory, user input) is assembled once on
+     * the first iteration into the context's conversation buffer; later
+     * iterations only see the assistant and tool messages appended to it,
+     * so the work per iteration does not grow with the conversation.
      */
     protected Uni<List<Message>> prepareMessages(
             NodeExecutionTask task,
@@ -288,29 +297,37 @@ public class AgentExecutor extends AbstractWorkflowExecutor {
             int iteration) {
 
         return Uni.createFrom().deferred(() -> {
-            List<Message> messages = new ArrayList<>();
+            ConversationBuffer conversation = context.conversation();
 
-            // Add system prompt
-            if (context.configuration().systemPrompt() != null) {
-                messages.add(Message.system(context.configuration().systemPrompt()));
-            }
+            if (conversation == null) {
+                List<Message> messages = new ArrayList<>();
 
-            // Add memory (previous conversation)
-            if (context.hasMemory()) {
-                messages.addAll(context.getMemory());
-            }
+                // Add system prompt
+                if (context.configuration().systemPrompt() != null) {
+                    messages.add(Message.system(context.configuration().systemPrompt()));
+                }
 
-            // Add messages from current execution
-            messages.addAll(context.getMessages());
+                // Add memory (previous conversation)
+                if (context.hasMemory()) {
+                    messages.addAll(context.getMemory());
+                }
 
-            // Add user input if first iteration
-            if (iteration == 0 && context.getMessages().isEmpty()) {
-                String userInput = extractUserInput(task);
-                if (userInput != null) {
-                    messages.add(Message.user(userInput));
+                // Add messages from current execution
+                List<Message> executionMessages = context.getMessages();
+                messages.addAll(executionMessages);
+
+                // Add user input if nothing has happened yet
+                if (executionMessages.isEmpty()) {
+                    String userInput = extractUserInput(task);
+                    if (userInput != null) {
+                        messages.add(Message.user(userInput));
+                    }
                 }
+
+                conversation = context.startConversation(messages);
             }
 
+            List<Message> messages = conversation.snapshot();
             LOG.debug("Prepared {} messages for LLM", messages.size());
             return Uni.createFrom().item(messages);
         });
@@ -326,15 +343,20 @@ public class AgentExecutor extends AbstractWorkflowExecutor {
         AgentConfiguration config = context.configuration();
 
         LLMRequest.Builder requestBuilder = LLMRequest.builder()
-                .messages(messages)
                 .model(config.llmModel())
                 .temperature(config.temperature())
                 .maxTokens(config.maxTokens());
 
+        // Keep the buffer with the request so providers can reuse message encodings
+        ConversationBuffer conversation = context.conversation();
+        if (conversation != null && conversation.snapshot() == messages) {
+            requestBuilder.conversation(conversation);
+        } else {
+            requestBuilder.messages(messages);
+        }
+
         if (context.hasTools()) {
-            requestBuilder.tools(context.getTools().stream()
-                    .map(Tool::toToolDefinition)
-                    .toList());
+            requestBuilder.tools(context.getToolDefinitions());
             requestBuilder.toolChoice(config.toolExecutionMode());
         }
 
@@ -346,7 +368,7 @@ public class AgentExecutor extends AbstractWorkflowExecutor {
                 config.llmProvider(), config.llmModel(),
                 context.hasTools() ? context.getTools().size() : 0);
 
-        return llmProviderRegistry.getProvider(config.llmProvider())
+        return llmProviderRegistry.getProvider(config.llmProvider(), context.tenantId())
                 .flatMap(provider -> provider.complete(request))
                 .onItem().invoke(response -> {
                     LOG.debug("LLM response: tokens={}, finish={}",
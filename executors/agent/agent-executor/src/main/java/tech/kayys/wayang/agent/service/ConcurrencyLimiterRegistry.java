@@ -0,0 +1,118 @@
+package tech.kayys.wayang.agent.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import tech.kayys.silat.sdk.executor.Executor;
+
+/**
+ * Adaptive concurrency limiters by name, one per executor and one per
+ * downstream provider.
+ *
+ * Executors opt in by running their work through forExecutor(this); the
+ * limit starts at the maxConcurrentTasks of their @Executor annotation
+ * and adapts from there. Each limiter's current limit, in-flight and
+ * queued calls are published as gauges tagged with its name.
+ */
+@ApplicationScoped
+public class ConcurrencyLimiterRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConcurrencyLimiterRegistry.class);
+
+    @ConfigProperty(name = "silat.agent.concurrency.provider.initial-limit", defaultValue = "10")
+    int providerInitialLimit;
+
+    @ConfigProperty(name = "silat.agent.concurrency.min-limit", defaultValue = "1")
+    int minLimit;
+
+    @ConfigProperty(name = "silat.agent.concurrency.max-limit", defaultValue = "200")
+    int maxLimit;
+
+    @ConfigProperty(name = "silat.agent.concurrency.max-queue", defaultValue = "20")
+    int maxQueue;
+
+    @ConfigProperty(name = "silat.agent.concurrency.smoothing", defaultValue = "0.2")
+    double smoothing;
+
+    // How much slower than the long-term latency calls may get before the limit shrinks
+    @ConfigProperty(name = "silat.agent.concurrency.tolerance", defaultValue = "1.5")
+    double tolerance;
+
+    // Samples averaged into the long-term latency
+    @ConfigProperty(name = "silat.agent.concurrency.long-window", defaultValue = "600")
+    int longWindow;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Limiter of an executor, starting from its declared maxConcurrentTasks
+     */
+    public AdaptiveConcurrencyLimiter forExecutor(Object executor) {
+        Executor annotation = executorAnnotation(executor.getClass());
+        String name = annotation != null ? annotation.executorType() : executor.getClass().getSimpleName();
+        int initialLimit = annotation != null ? annotation.maxConcurrentTasks() : providerInitialLimit;
+        return limiter("executor:" + name, initialLimit);
+    }
+
+    /**
+     * Limiter of the calls to one downstream provider
+     */
+    public AdaptiveConcurrencyLimiter forProvider(String provider) {
+        return limiter("provider:" + provider, providerInitialLimit);
+    }
+
+    public AdaptiveConcurrencyLimiter limiter(String name, int initialLimit) {
+        return limiters.computeIfAbsent(name, key -> {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                    key, initialLimit, minLimit, maxLimit, maxQueue, smoothing, tolerance, longWindow);
+            register(limiter);
+            LOG.info("Adaptive concurrency limiter {} starts at {}", key, limiter.limit());
+            return limiter;
+        });
+    }
+
+    private void register(AdaptiveConcurrencyLimiter limiter) {
+        if (meterRegistry == null) {
+            return;
+        }
+        Gauge.builder("agent.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                .tag("limiter", limiter.name())
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("agent.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .tag("limiter", limiter.name())
+                .description("Calls running under the concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("agent.concurrency.queued", limiter, AdaptiveConcurrencyLimiter::queued)
+                .tag("limiter", limiter.name())
+                .description("Calls waiting for the concurrency limit")
+                .register(meterRegistry);
+        FunctionCounter.builder("agent.concurrency.rejected", limiter, l -> l.rejected())
+                .tag("limiter", limiter.name())
+                .description("Calls rejected with a full queue")
+                .register(meterRegistry);
+    }
+
+    // Beans may be subclassed by the container
+    private static Executor executorAnnotation(Class<?> type) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            Executor annotation = c.getAnnotation(Executor.class);
+            if (annotation != null) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+}
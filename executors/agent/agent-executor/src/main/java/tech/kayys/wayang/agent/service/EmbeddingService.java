@@ -4,12 +4,16 @@ import io.smallrye.mutiny.Uni;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.mutiny.ext.web.client.WebClient;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import tech.kayys.wayang.embedding.EmbeddingBatchDispatcher;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -38,7 +42,11 @@ import java.util.stream.Collectors;
 // ==================== EMBEDDING SERVICE ====================
 
 /**
- * Service for generating embeddings from text
+ * Service for generating embeddings from text.
+ *
+ * OpenAI requests go through an {@link EmbeddingBatchDispatcher}: concurrent
+ * single-text calls are merged into one request, and large batches are split
+ * into provider-sized chunks sent with bounded parallelism.
  */
 @ApplicationScoped
 public class EmbeddingService {
@@ -57,6 +65,35 @@ public class EmbeddingService {
     @ConfigProperty(name = "silat.agent.llm.openai.api-key")
     String openaiApiKey;
 
+    @ConfigProperty(name = "silat.agent.embeddings.batch.max-size", defaultValue = "2048")
+    int batchMaxSize;
+
+    @ConfigProperty(name = "silat.agent.embeddings.batch.max-linger", defaultValue = "PT0.005S")
+    Duration batchMaxLinger;
+
+    @ConfigProperty(name = "silat.agent.embeddings.batch.max-concurrency", defaultValue = "4")
+    int batchMaxConcurrency;
+
+    // Texts waiting for a batch before new requests are rejected
+    @ConfigProperty(name = "silat.agent.embeddings.batch.max-queued", defaultValue = "100000")
+    int batchMaxQueued;
+
+    private EmbeddingBatchDispatcher openaiDispatcher;
+
+    @PostConstruct
+    void init() {
+        openaiDispatcher = new EmbeddingBatchDispatcher(
+                this::generateOpenAIEmbeddingsBatch, batchMaxSize, batchMaxLinger, batchMaxConcurrency,
+                batchMaxQueued);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (openaiDispatcher != null) {
+            openaiDispatcher.close();
+        }
+    }
+
     /**
      * Generate embedding vector for text
      */
@@ -64,7 +101,7 @@ public class EmbeddingService {
         LOG.debug("Generating embedding for text: {} chars", text.length());
 
         return switch (provider.toLowerCase()) {
-            case "openai" -> generateOpenAIEmbedding(text);
+            case "openai" -> openaiDispatcher.submit(text);
             case "huggingface" -> generateHuggingFaceEmbedding(text);
             default -> Uni.createFrom().failure(
                     new IllegalArgumentException("Unsupported embedding provider: " + provider));
@@ -77,9 +114,9 @@ public class EmbeddingService {
     public Uni<List<float[]>> generateEmbeddings(List<String> texts) {
         LOG.debug("Generating embeddings for {} texts", texts.size());
 
-        // Batch API call for efficiency
+        // Batch API calls, chunked to the provider's input limit
         return switch (provider.toLowerCase()) {
-            case "openai" -> generateOpenAIEmbeddingsBatch(texts);
+            case "openai" -> openaiDispatcher.submitAll(texts);
             default -> {
                 // Fallback to sequential calls
                 List<Uni<float[]>> unis = texts.stream()
@@ -94,9 +131,9 @@ public class EmbeddingService {
         };
     }
 
-    private Uni<float[]> generateOpenAIEmbedding(String text) {
+    private Uni<List<float[]>> generateOpenAIEmbeddingsBatch(List<String> texts) {
         JsonObject requestBody = new JsonObject()
-                .put("input", text)
+                .put("input", new JsonArray(texts))
                 .put("model", model);
 
         return webClient
@@ -109,32 +146,6 @@ public class EmbeddingService {
                         throw new RuntimeException("Embedding API error: " + response.statusCode());
                     }
 
-                    JsonObject json = response.bodyAsJsonObject();
-                    JsonArray data = json.getJsonArray("data");
-                    JsonObject embeddingObj = data.getJsonObject(0);
-                    JsonArray embedding = embeddingObj.getJsonArray("embedding");
-
-                    float[] vector = new float[embedding.size()];
-                    for (int i = 0; i < embedding.size(); i++) {
-                        vector[i] = embedding.getDouble(i).floatValue();
-                    }
-
-                    LOG.trace("Generated embedding: dimension={}", vector.length);
-                    return vector;
-                });
-    }
-
-    private Uni<List<float[]>> generateOpenAIEmbeddingsBatch(List<String> texts) {
-        JsonObject requestBody = new JsonObject()
-                .put("input", new JsonArray(texts))
-                .put("model", model);
-
-        return webClient
-                .postAbs("https://api.openai.com/v1/embeddings")
-                .putHeader("Authorization", "Bearer " + openaiApiKey)
-                .putHeader("Content-Type", "application/json")
-                .sendJsonObject(requestBody)
-                .map(response -> {
                     JsonObject json = response.bodyAsJsonObject();
                     JsonArray data = json.getJsonArray("data");
 
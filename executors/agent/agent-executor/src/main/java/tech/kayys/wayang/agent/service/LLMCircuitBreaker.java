@@ -1,6 +1,5 @@
 package tech.kayys.wayang.agent.service;
 
-import org.eclipse.microprofile.faulttolerance.Bulkhead;
 import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
 import org.eclipse.microprofile.faulttolerance.Fallback;
 import org.eclipse.microprofile.faulttolerance.Retry;
@@ -11,6 +10,7 @@ import org.slf4j.LoggerFactory;
 import io.smallrye.faulttolerance.api.CircuitBreakerName;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import tech.kayys.wayang.agent.exception.CircuitBreakerOpenException;
 
 /**
@@ -21,6 +21,13 @@ public class LLMCircuitBreaker {
 
     private static final Logger LOG = LoggerFactory.getLogger(LLMCircuitBreaker.class);
 
+    // Limiter of calls that do not name their provider
+    private static final String DEFAULT_PROVIDER = "llm";
+
+    // Replaces a fixed bulkhead: the number of calls in flight adapts to provider latency
+    @Inject
+    ConcurrencyLimiterRegistry concurrencyLimiters;
+
     /**
      * Call LLM with circuit breaker protection
      */
@@ -28,11 +35,24 @@ public class LLMCircuitBreaker {
     @CircuitBreakerName("llm-provider")
     @Timeout(30000) // 30 seconds
     @Retry(maxRetries = 3, delay = 1000, maxDuration = 60000, jitter = 500)
-    @Bulkhead(value = 10, waitingTaskQueue = 20)
     @Fallback(fallbackMethod = "fallbackLLMCall")
     public <T> Uni<T> callWithProtection(java.util.function.Supplier<Uni<T>> call) {
         LOG.debug("Executing LLM call with circuit breaker protection");
-        return call.get();
+        return concurrencyLimiters.forProvider(DEFAULT_PROVIDER).run(call);
+    }
+
+    /**
+     * Call LLM with circuit breaker protection, limiting concurrency per provider.
+     * Breaker names must be unique per method, hence its own name.
+     */
+    @CircuitBreaker(requestVolumeThreshold = 10, failureRatio = 0.5, delay = 5000, successThreshold = 3)
+    @CircuitBreakerName("llm-provider-named")
+    @Timeout(30000) // 30 seconds
+    @Retry(maxRetries = 3, delay = 1000, maxDuration = 60000, jitter = 500)
+    @Fallback(fallbackMethod = "fallbackLLMCall")
+    public <T> Uni<T> callWithProtection(String provider, java.util.function.Supplier<Uni<T>> call) {
+        LOG.debug("Executing {} call with circuit breaker protection", provider);
+        return concurrencyLimiters.forProvider(provider).run(call);
     }
 
     /**
@@ -43,4 +63,13 @@ public class LLMCircuitBreaker {
         return Uni.createFrom().failure(
                 new CircuitBreakerOpenException("LLM provider circuit breaker is open"));
     }
+
+    /**
+     * Fallback when the circuit of a provider is open
+     */
+    public <T> Uni<T> fallbackLLMCall(String provider, java.util.function.Supplier<Uni<T>> call) {
+        LOG.warn("Circuit breaker open for {} - using fallback", provider);
+        return Uni.createFrom().failure(
+                new CircuitBreakerOpenException("LLM provider circuit breaker is open: " + provider));
+    }
 }
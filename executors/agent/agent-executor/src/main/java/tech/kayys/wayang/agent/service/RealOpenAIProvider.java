@@ -1,18 +1,27 @@
 package tech.kayys.wayang.agent.service;
 
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.mutiny.core.Vertx;
 import io.vertx.mutiny.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.mutiny.core.http.HttpClient;
+import io.vertx.mutiny.core.http.HttpClientResponse;
 import io.vertx.mutiny.ext.web.client.HttpResponse;
 import io.vertx.mutiny.ext.web.client.WebClient;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import tech.kayys.wayang.agent.exception.AuthenticationException;
 import tech.kayys.wayang.agent.exception.RateLimitException;
 import tech.kayys.wayang.agent.exception.TimeoutException;
 import tech.kayys.wayang.agent.model.AbstractLLMProvider;
+import tech.kayys.wayang.agent.model.LLMProvider;
 import tech.kayys.wayang.agent.model.LLMRequest;
 import tech.kayys.wayang.agent.model.LLMResponse;
 import tech.kayys.wayang.agent.model.Message;
@@ -26,9 +35,10 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * ============================================================================
@@ -53,22 +63,79 @@ public class RealOpenAIProvider extends AbstractLLMProvider {
 
     private static final Logger LOG = LoggerFactory.getLogger(RealOpenAIProvider.class);
 
+    // Key of this provider's message encoding in a ConversationBuffer
+    private static final String MESSAGE_FORMAT = "openai-chat";
+
+    private static final int MAX_CACHED_TOOL_SETS = 256;
+
     @Inject
     WebClient webClient;
 
+    @Inject
+    Vertx vertx;
+
     @ConfigProperty(name = "silat.agent.llm.openai.api-key")
     String apiKey;
 
     @ConfigProperty(name = "silat.agent.llm.openai.base-url", defaultValue = "https://api.openai.com/v1")
     String baseUrl;
 
+    // Further base URLs serving the same models (replicas, regional deployments, proxies)
+    @ConfigProperty(name = "silat.agent.llm.openai.additional-base-urls")
+    Optional<List<String>> additionalBaseUrls = Optional.empty();
+
     @ConfigProperty(name = "silat.agent.llm.openai.timeout", defaultValue = "60000")
     long timeout;
 
+    // This provider followed by one copy per additional base URL, created on first use
+    private volatile List<LLMProvider> endpoints;
+
+    // Streaming responses are read off the raw client so chunks surface as they arrive
+    private volatile HttpClient streamingClient;
+
+    // Encoded tool arrays by definition set; agents with the same configuration share one
+    private final Map<List<ToolDefinition>, io.vertx.core.buffer.Buffer> encodedToolSets = new ConcurrentHashMap<>();
+
     public RealOpenAIProvider() {
         super("openai", Map.of());
     }
 
+    public RealOpenAIProvider(Vertx vertx, WebClient webClient, String apiKey, String baseUrl,
+            List<String> additionalBaseUrls, long timeout) {
+        this();
+        this.vertx = vertx;
+        this.webClient = webClient;
+        this.apiKey = apiKey;
+        this.baseUrl = baseUrl;
+        this.additionalBaseUrls = Optional.of(List.copyOf(additionalBaseUrls));
+        this.timeout = timeout;
+    }
+
+    @Override
+    public String endpoint() {
+        return name() + "@" + baseUrl;
+    }
+
+    @Override
+    public List<LLMProvider> endpoints() {
+        List<LLMProvider> result = endpoints;
+        if (result == null) {
+            synchronized (this) {
+                result = endpoints;
+                if (result == null) {
+                    List<LLMProvider> created = new ArrayList<>();
+                    created.add(this);
+                    for (String url : additionalBaseUrls.orElse(List.of())) {
+                        created.add(new RealOpenAIProvider(vertx, webClient, apiKey, url, List.of(), timeout));
+                    }
+                    result = List.copyOf(created);
+                    endpoints = result;
+                }
+            }
+        }
+        return result;
+    }
+
     @Override
     public Uni<LLMResponse> complete(LLMRequest request) {
         validateRequest(request);
@@ -76,14 +143,14 @@ public class RealOpenAIProvider extends AbstractLLMProvider {
         LOG.debug("OpenAI API call: model={}, messages={}, tools={}",
                 request.model(), request.messages().size(), request.tools().size());
 
-        JsonObject requestBody = buildRequestBody(request);
+        Buffer requestBody = encodeRequestBody(request, false);
 
         return webClient
                 .postAbs(baseUrl + "/chat/completions")
                 .putHeader("Authorization", "Bearer " + apiKey)
                 .putHeader("Content-Type", "application/json")
                 .timeout(timeout)
-                .sendJsonObject(requestBody)
+                .sendBuffer(requestBody)
                 .onItem().transform(this::handleResponse)
                 .onFailure().retry()
                 .withBackOff(Duration.ofSeconds(1), Duration.ofSeconds(10))
@@ -91,28 +158,94 @@ public class RealOpenAIProvider extends AbstractLLMProvider {
                 .onFailure().transform(this::handleError);
     }
 
+    /**
+     * Streams content deltas as the provider emits them. The response body
+     * is parsed chunk by chunk, so the first token is delivered as soon as
+     * it arrives and the body is never buffered whole. The timeout applies
+     * to the gap between chunks rather than to the whole generation.
+     */
     @Override
-    public io.smallrye.mutiny.Multi<String> stream(LLMRequest request) {
+    public Multi<String> stream(LLMRequest request) {
         validateRequest(request);
 
-        JsonObject requestBody = buildRequestBody(request);
-        requestBody.put("stream", true);
+        Buffer requestBody = encodeRequestBody(request, true);
 
-        return webClient
-                .postAbs(baseUrl + "/chat/completions")
+        RequestOptions options = new RequestOptions()
+                .setMethod(HttpMethod.POST)
+                .setAbsoluteURI(baseUrl + "/chat/completions")
                 .putHeader("Authorization", "Bearer " + apiKey)
                 .putHeader("Content-Type", "application/json")
-                .timeout(timeout)
-                .sendJsonObject(requestBody)
-                .onItem().transformToMulti(response -> {
-                    if (response.statusCode() != 200) {
-                        return io.smallrye.mutiny.Multi.createFrom()
-                                .failure(new RuntimeException("API error: " + response.statusCode()));
-                    }
+                .putHeader("Accept", "text/event-stream")
+                .setIdleTimeout(timeout);
+
+        return streamingClient()
+                .request(options)
+                .onItem().transformToUni(httpRequest -> httpRequest.send(requestBody))
+                .onItem().transformToMulti(this::streamDeltas)
+                .onFailure().transform(this::handleError);
+    }
+
+    private Multi<String> streamDeltas(HttpClientResponse response) {
+        if (response.statusCode() != 200) {
+            return response.body()
+                    .onItem().transformToMulti(body -> {
+                        LOG.error("OpenAI API error: {} - {}", response.statusCode(), body);
+                        return Multi.createFrom().<String>failure(
+                                new RuntimeException("OpenAI API error: " + response.statusCode()));
+                    });
+        }
+
+        SseEventParser parser = new SseEventParser();
+        return response.toMulti()
+                .onItem().transformToIterable(chunk -> parser.feed(chunk.getDelegate()))
+                .onCompletion().switchTo(() -> Multi.createFrom().iterable(parser.finish()))
+                .select().first(data -> !"[DONE]".equals(data))
+                .map(RealOpenAIProvider::contentDelta)
+                .filter(content -> !content.isEmpty());
+    }
+
+    private static String contentDelta(String data) {
+        JsonObject json = new JsonObject(data);
+        JsonArray choices = json.getJsonArray("choices");
+        if (choices == null || choices.isEmpty()) {
+            return "";
+        }
+        JsonObject delta = choices.getJsonObject(0).getJsonObject("delta");
+        if (delta == null) {
+            return "";
+        }
+        String content = delta.getString("content");
+        return content == null ? "" : content;
+    }
+
+    private HttpClient streamingClient() {
+        HttpClient client = streamingClient;
+        if (client == null) {
+            synchronized (this) {
+                client = streamingClient;
+                if (client == null) {
+                    client = vertx.createHttpClient(new HttpClientOptions()
+                            .setKeepAlive(true)
+                            .setTryUseCompression(true));
+                    streamingClient = client;
+                }
+            }
+        }
+        return client;
+    }
 
-                    // Parse SSE stream
-                    return parseSSEStream(response.bodyAsString());
-                });
+    @PreDestroy
+    void closeStreamingClient() {
+        if (streamingClient != null) {
+            streamingClient.closeAndForget();
+        }
+        if (endpoints != null) {
+            for (LLMProvider endpoint : endpoints) {
+                if (endpoint != this) {
+                    ((RealOpenAIProvider) endpoint).closeStreamingClient();
+                }
+            }
+        }
     }
 
     @Override
@@ -133,22 +266,80 @@ public class RealOpenAIProvider extends AbstractLLMProvider {
                 "gpt-4o-mini");
     }
 
-    private JsonObject buildRequestBody(LLMRequest request) {
-        JsonObject body = new JsonObject()
+    /**
+     * Encode the request body. Message and tool JSON is spliced in already
+     * encoded: messages from a ConversationBuffer keep their encoding across
+     * iterations and tool definitions are encoded once per distinct set.
+     */
+    private Buffer encodeRequestBody(LLMRequest request, boolean stream) {
+        JsonObject head = new JsonObject()
                 .put("model", request.model())
-                .put("messages", convertMessages(request.messages()))
                 .put("temperature", request.temperature())
                 .put("max_tokens", request.maxTokens());
 
+        if (stream) {
+            head.put("stream", true);
+        }
         if (!request.tools().isEmpty()) {
-            body.put("tools", convertTools(request.tools()));
-            body.put("tool_choice", "auto");
+            head.put("tool_choice", "auto");
         }
 
         // Add additional params
-        request.additionalParams().forEach(body::put);
+        request.additionalParams().forEach((key, value) -> {
+            if (!"messages".equals(key) && !"tools".equals(key)) {
+                head.put(key, value);
+            }
+        });
+
+        List<io.vertx.core.buffer.Buffer> messages = encodedMessages(request);
+        String encodedHead = head.encode();
+
+        io.vertx.core.buffer.Buffer body = io.vertx.core.buffer.Buffer.buffer(
+                encodedHead.length() + 64 * messages.size());
+        body.appendString(encodedHead.substring(0, encodedHead.length() - 1));
+        body.appendString(head.isEmpty() ? "\"messages\":[" : ",\"messages\":[");
+        for (int i = 0; i < messages.size(); i++) {
+            if (i > 0) {
+                body.appendByte((byte) ',');
+            }
+            body.appendBuffer(messages.get(i));
+        }
+        body.appendByte((byte) ']');
+
+        if (!request.tools().isEmpty()) {
+            body.appendString(",\"tools\":").appendBuffer(encodedTools(request.tools()));
+        }
+        body.appendByte((byte) '}');
 
-        return body;
+        return Buffer.newInstance(body);
+    }
+
+    private List<io.vertx.core.buffer.Buffer> encodedMessages(LLMRequest request) {
+        if (request.conversation() != null) {
+            List<io.vertx.core.buffer.Buffer> cached = request.conversation()
+                    .encoded(MESSAGE_FORMAT, request.messages(), message -> toJson(message).toBuffer());
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        List<io.vertx.core.buffer.Buffer> encoded = new ArrayList<>(request.messages().size());
+        for (Message message : request.messages()) {
+            encoded.add(toJson(message).toBuffer());
+        }
+        return encoded;
+    }
+
+    private io.vertx.core.buffer.Buffer encodedTools(List<ToolDefinition> tools) {
+        io.vertx.core.buffer.Buffer encoded = encodedToolSets.get(tools);
+        if (encoded == null) {
+            if (encodedToolSets.size() >= MAX_CACHED_TOOL_SETS) {
+                encodedToolSets.clear();
+            }
+            encoded = ((JsonArray) convertTools(tools)).toBuffer();
+            encodedToolSets.put(tools, encoded);
+        }
+        return encoded;
     }
 
     @Override
@@ -156,34 +347,38 @@ public class RealOpenAIProvider extends AbstractLLMProvider {
         JsonArray jsonMessages = new JsonArray();
 
         for (Message msg : messages) {
-            JsonObject jsonMsg = new JsonObject()
-                    .put("role", msg.role());
+            jsonMessages.add(toJson(msg));
+        }
 
-            if (msg.content() != null) {
-                jsonMsg.put("content", msg.content());
-            }
+        return jsonMessages;
+    }
 
-            if (msg.hasToolCalls()) {
-                JsonArray toolCalls = new JsonArray();
-                for (ToolCall tc : msg.toolCalls()) {
-                    toolCalls.add(new JsonObject()
-                            .put("id", tc.id())
-                            .put("type", "function")
-                            .put("function", new JsonObject()
-                                    .put("name", tc.name())
-                                    .put("arguments", new JsonObject(tc.arguments()).encode())));
-                }
-                jsonMsg.put("tool_calls", toolCalls);
-            }
+    private static JsonObject toJson(Message msg) {
+        JsonObject jsonMsg = new JsonObject()
+                .put("role", msg.role());
+
+        if (msg.content() != null) {
+            jsonMsg.put("content", msg.content());
+        }
 
-            if (msg.toolCallId() != null) {
-                jsonMsg.put("tool_call_id", msg.toolCallId());
+        if (msg.hasToolCalls()) {
+            JsonArray toolCalls = new JsonArray();
+            for (ToolCall tc : msg.toolCalls()) {
+                toolCalls.add(new JsonObject()
+                        .put("id", tc.id())
+                        .put("type", "function")
+                        .put("function", new JsonObject()
+                                .put("name", tc.name())
+                                .put("arguments", new JsonObject(tc.arguments()).encode())));
             }
+            jsonMsg.put("tool_calls", toolCalls);
+        }
 
-            jsonMessages.add(jsonMsg);
+        if (msg.toolCallId() != null) {
+            jsonMsg.put("tool_call_id", msg.toolCallId());
         }
 
-        return jsonMessages;
+        return jsonMsg;
     }
 
     @Override
@@ -256,35 +451,15 @@ public class RealOpenAIProvider extends AbstractLLMProvider {
     private Throwable handleError(Throwable error) {
         LOG.error("OpenAI API request failed", error);
 
-        if (error.getMessage().contains("429")) {
+        String message = String.valueOf(error.getMessage());
+        if (message.contains("429")) {
             return new RateLimitException("OpenAI rate limit exceeded");
-        } else if (error.getMessage().contains("401")) {
+        } else if (message.contains("401")) {
             return new AuthenticationException("Invalid OpenAI API key");
-        } else if (error.getMessage().contains("timeout")) {
+        } else if (message.contains("timeout")) {
             return new TimeoutException("OpenAI API timeout");
         }
 
         return error;
     }
-
-    private io.smallrye.mutiny.Multi<String> parseSSEStream(String sseData) {
-        // Parse Server-Sent Events format
-        List<String> chunks = Arrays.asList(sseData.split("\n\n"));
-
-        return io.smallrye.mutiny.Multi.createFrom().items(chunks.stream())
-                .filter(chunk -> chunk.startsWith("data: "))
-                .map(chunk -> chunk.substring(6))
-                .filter(data -> !data.equals("[DONE]"))
-                .map(data -> {
-                    JsonObject json = new JsonObject(data);
-                    JsonArray choices = json.getJsonArray("choices");
-                    if (choices != null && choices.size() > 0) {
-                        JsonObject delta = choices.getJsonObject(0)
-                                .getJsonObject("delta");
-                        return delta.getString("content", "");
-                    }
-                    return "";
-                })
-                .filter(content -> !content.isEmpty());
-    }
 }
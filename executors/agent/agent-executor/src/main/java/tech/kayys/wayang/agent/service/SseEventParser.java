@@ -0,0 +1,138 @@
+package tech.kayys.wayang.agent.service;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental parser for a Server-Sent Events byte stream.
+ *
+ * Chunks are fed as they arrive off the wire and the data of each event is
+ * returned as soon as its terminating blank line has been seen. Lines are
+ * scanned in place in the chunk and only the payload of "data:" lines is
+ * decoded; the one line split across two chunks is the only thing copied.
+ * Memory held between chunks is therefore bounded by the longest line plus
+ * the data of the event in progress. Comments and fields other than data
+ * are skipped. Not thread-safe: use one parser per stream.
+ */
+public final class SseEventParser {
+
+    private static final byte[] DATA_FIELD = "data".getBytes(StandardCharsets.US_ASCII);
+
+    // Incomplete last line of the previous chunk
+    private Buffer partialLine;
+
+    // Data of the event in progress, null when it has no data line yet
+    private StringBuilder eventData;
+
+    /**
+     * @return Data of the events completed by this chunk, in order
+     */
+    public List<String> feed(Buffer chunk) {
+        List<String> events = null;
+        int length = chunk.length();
+        int lineStart = 0;
+
+        for (int i = 0; i < length; i++) {
+            if (chunk.getByte(i) != '\n') {
+                continue;
+            }
+            String event;
+            if (partialLine != null) {
+                partialLine.appendBuffer(chunk, lineStart, i - lineStart);
+                event = line(partialLine, 0, partialLine.length());
+                partialLine = null;
+            } else {
+                event = line(chunk, lineStart, i);
+            }
+            if (event != null) {
+                if (events == null) {
+                    events = new ArrayList<>(2);
+                }
+                events.add(event);
+            }
+            lineStart = i + 1;
+        }
+
+        if (lineStart < length) {
+            if (partialLine == null) {
+                partialLine = Buffer.buffer(length - lineStart);
+            }
+            partialLine.appendBuffer(chunk, lineStart, length - lineStart);
+        }
+
+        return events == null ? List.of() : events;
+    }
+
+    /**
+     * Flush at end of stream: an event not followed by a blank line is still delivered
+     */
+    public List<String> finish() {
+        if (partialLine != null) {
+            line(partialLine, 0, partialLine.length());
+            partialLine = null;
+        }
+        String event = dispatch();
+        return event == null ? List.of() : List.of(event);
+    }
+
+    /**
+     * Handle the line in [start, end) without its '\n'
+     *
+     * @return The event data if this blank line completes an event
+     */
+    private String line(Buffer buffer, int start, int end) {
+        if (end > start && buffer.getByte(end - 1) == '\r') {
+            end--;
+        }
+        if (end == start) {
+            return dispatch();
+        }
+        if (!startsWith(buffer, start, end, DATA_FIELD)) {
+            return null;
+        }
+
+        int value = start + DATA_FIELD.length;
+        if (value < end) {
+            if (buffer.getByte(value) != ':') {
+                // Another field whose name starts with "data"
+                return null;
+            }
+            value++;
+            if (value < end && buffer.getByte(value) == ' ') {
+                value++;
+            }
+        }
+
+        if (eventData == null) {
+            eventData = new StringBuilder(end - value);
+        } else {
+            eventData.append('\n');
+        }
+        eventData.append(buffer.getString(value, end, "UTF-8"));
+        return null;
+    }
+
+    private String dispatch() {
+        if (eventData == null) {
+            return null;
+        }
+        String data = eventData.toString();
+        eventData = null;
+        return data;
+    }
+
+    private static boolean startsWith(Buffer buffer, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.getByte(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,67 @@
+package tech.kayys.wayang.agent.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ConversationBufferTest {
+
+    @Test
+    void testOnlyNewMessagesAreEncoded() {
+        ConversationBuffer buffer = new ConversationBuffer(List.of(
+                Message.system("be brief"),
+                Message.user("hi")));
+        List<String> encodedCalls = new ArrayList<>();
+
+        List<String> first = buffer.encoded("test", buffer.snapshot(), message -> {
+            encodedCalls.add(message.content());
+            return message.role() + ":" + message.content();
+        });
+
+        buffer.append(Message.assistant("hello"));
+        List<String> second = buffer.encoded("test", buffer.snapshot(), message -> {
+            encodedCalls.add(message.content());
+            return message.role() + ":" + message.content();
+        });
+
+        assertEquals(List.of("system:be brief", "user:hi"), first);
+        assertEquals(List.of("system:be brief", "user:hi", "assistant:hello"), second);
+        assertEquals(List.of("be brief", "hi", "hello"), encodedCalls);
+    }
+
+    @Test
+    void testFormatsAreCachedSeparately() {
+        ConversationBuffer buffer = new ConversationBuffer(List.of(Message.user("hi")));
+
+        List<String> upper = buffer.encoded("upper", buffer.snapshot(), message -> message.content().toUpperCase());
+        List<String> plain = buffer.encoded("plain", buffer.snapshot(), Message::content);
+
+        assertEquals(List.of("HI"), upper);
+        assertEquals(List.of("hi"), plain);
+    }
+
+    @Test
+    void testMessagesNotFromBufferAreRejected() {
+        ConversationBuffer buffer = new ConversationBuffer(List.of(Message.user("hi")));
+
+        assertNull(buffer.encoded("test", List.of(Message.user("hi")), Message::content));
+        assertNull(buffer.encoded("test", List.of(Message.user("hi"), Message.user("again")), Message::content));
+    }
+
+    @Test
+    void testSnapshotIsReusedUntilAppend() {
+        ConversationBuffer buffer = new ConversationBuffer(List.of(Message.user("hi")));
+        List<Message> snapshot = buffer.snapshot();
+
+        assertSame(snapshot, buffer.snapshot());
+
+        buffer.append(Message.assistant("hello"));
+        assertEquals(2, buffer.snapshot().size());
+        assertEquals(1, snapshot.size());
+    }
+}
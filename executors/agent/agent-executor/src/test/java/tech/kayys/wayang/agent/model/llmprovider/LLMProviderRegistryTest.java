@@ -0,0 +1,177 @@
+package tech.kayys.wayang.agent.model.llmprovider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.kayys.wayang.agent.model.LLMProvider;
+import tech.kayys.wayang.agent.model.LLMRequest;
+import tech.kayys.wayang.agent.model.LLMResponse;
+import tech.kayys.wayang.agent.model.Message;
+import tech.kayys.wayang.agent.model.TokenUsage;
+import tech.kayys.wayang.agent.service.AdaptiveConcurrencyLimiter;
+import tech.kayys.wayang.agent.service.ConcurrencyLimiterRegistry;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LLMProviderRegistryTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    private LLMProviderRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new LLMProviderRegistry();
+        // One slot per provider and no queue, so a limited call is either running or rejected
+        registry.concurrencyLimiters = new ConcurrencyLimiterRegistry() {
+            @Override
+            public AdaptiveConcurrencyLimiter forProvider(String provider) {
+                return limiters.computeIfAbsent(provider,
+                        name -> new AdaptiveConcurrencyLimiter(name, 1, 1, 1, 0, 0.2, 1.5, 600));
+            }
+        };
+    }
+
+    @Test
+    void testCacheHitsBypassTheLimiter() {
+        registry.responseCache = newCache();
+        StubProvider provider = new StubProvider("openai", () -> Uni.createFrom().nothing());
+        registry.registerProvider(provider);
+        LLMRequest cached = request(0.0);
+        registry.responseCache.put("tenant-a", "openai", cached, reply("cached")).await().indefinitely();
+
+        // An uncacheable call holds the only slot
+        LLMProvider limited = registry.getProvider("openai", "tenant-a").await().atMost(TIMEOUT);
+        Cancellable running = limited.complete(request(0.7)).subscribe().with(response -> { });
+        assertEquals(1, limiters.get("openai").inFlight());
+
+        LLMResponse response = limited.complete(cached).await().atMost(TIMEOUT);
+
+        assertEquals("cached", response.content());
+        assertEquals(true, response.metadata().get("cacheHit"));
+        assertEquals(1, provider.calls.get());
+        running.cancel();
+        assertEquals(0, limiters.get("openai").inFlight());
+    }
+
+    @Test
+    void testRoutedCallIsChargedToServingProvider() {
+        LLMRouter router = new LLMRouter();
+        router.enabled = true;
+        router.ewmaAlpha = 0.3;
+        router.hedgeEnabled = false;
+        registry.router = router;
+
+        StubProvider slow = new StubProvider("slow", () -> Uni.createFrom().nothing());
+        StubProvider fast = new StubProvider("fast", () -> Uni.createFrom().nothing());
+        registry.registerProvider(slow);
+        registry.registerProvider(fast);
+        seed(router, slow, 800);
+        seed(router, fast, 50);
+
+        Cancellable running = registry.getProvider("slow", "tenant-a").await().atMost(TIMEOUT)
+                .complete(request(0.7)).subscribe().with(response -> { });
+
+        assertEquals(0, slow.calls.get());
+        assertEquals(1, fast.calls.get());
+        assertEquals(0, limiters.get("slow").inFlight());
+        assertEquals(1, limiters.get("fast").inFlight());
+        running.cancel();
+    }
+
+    private static void seed(LLMRouter router, LLMProvider provider, long latencyMillis) {
+        EndpointStats stats = router.stats(provider, "gpt-4");
+        for (int i = 0; i < EndpointStats.MIN_SAMPLES; i++) {
+            stats.started();
+            stats.succeeded(latencyMillis);
+        }
+    }
+
+    private LLMResponseCache newCache() {
+        LLMResponseCache cache = new LLMResponseCache();
+        cache.enabled = true;
+        cache.ttl = Duration.ofHours(1);
+        cache.memoryQuotaBytes = 1024 * 1024;
+        cache.diskDir = tempDir.toString();
+        cache.diskQuotaBytes = 1024 * 1024;
+        cache.objectMapper = new ObjectMapper();
+        return cache;
+    }
+
+    private static LLMRequest request(double temperature) {
+        return LLMRequest.builder()
+                .model("gpt-4")
+                .temperature(temperature)
+                .messages(List.of(Message.user("hi")))
+                .build();
+    }
+
+    private static LLMResponse reply(String content) {
+        return LLMResponse.create(content, "stop", new TokenUsage(1, 1, 2));
+    }
+
+    private static final class StubProvider implements LLMProvider {
+
+        private final String name;
+        private final Supplier<Uni<LLMResponse>> response;
+        final AtomicInteger calls = new AtomicInteger();
+
+        StubProvider(String name, Supplier<Uni<LLMResponse>> response) {
+            this.name = name;
+            this.response = response;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Uni<LLMResponse> complete(LLMRequest request) {
+            calls.incrementAndGet();
+            return response.get();
+        }
+
+        @Override
+        public Multi<String> stream(LLMRequest request) {
+            return Multi.createFrom().empty();
+        }
+
+        @Override
+        public boolean supportsFunctionCalling() {
+            return true;
+        }
+
+        @Override
+        public List<String> supportedModels() {
+            return List.of("gpt-4");
+        }
+
+        @Override
+        public boolean supportsModel(String model) {
+            return true;
+        }
+
+        @Override
+        public Map<String, Object> getConfig() {
+            return Map.of();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package tech.kayys.wayang.agent.model.llmprovider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.kayys.wayang.agent.model.LLMRequest;
+import tech.kayys.wayang.agent.model.LLMResponse;
+import tech.kayys.wayang.agent.model.Message;
+import tech.kayys.wayang.agent.model.TokenUsage;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LLMResponseCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LLMResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = newCache();
+    }
+
+    @Test
+    void testKeyIgnoresTimestampsAndParamOrder() {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("top_p", 1);
+        params.put("seed", 7);
+        Map<String, Object> reversed = new LinkedHashMap<>();
+        reversed.put("seed", 7);
+        reversed.put("top_p", 1);
+
+        LLMRequest first = request("hi", params);
+        LLMRequest second = LLMRequest.builder()
+                .model("gpt-4")
+                .temperature(0.0)
+                .messages(List.of(new Message("user", "hi", null, null, Instant.EPOCH)))
+                .additionalParams(reversed)
+                .build();
+
+        assertEquals(cache.key("openai", first), cache.key("openai", second));
+        assertNotEquals(cache.key("openai", first), cache.key("anthropic", first));
+        assertNotEquals(cache.key("openai", first), cache.key("openai", request("hello", params)));
+    }
+
+    @Test
+    void testNonZeroTemperatureIsNotCached() {
+        LLMRequest warm = LLMRequest.builder()
+                .model("gpt-4")
+                .temperature(0.7)
+                .messages(List.of(Message.user("hi")))
+                .build();
+
+        assertTrue(cache.isCacheable(request("hi", Map.of())));
+        assertFalse(cache.isCacheable(warm));
+
+        cache.allowNonZeroTemperature = true;
+        assertTrue(cache.isCacheable(warm));
+    }
+
+    @Test
+    void testProviderDefaultTemperatureIsNotCached() {
+        LLMRequest unset = LLMRequest.builder()
+                .model("gpt-4")
+                .temperature(null)
+                .messages(List.of(Message.user("hi")))
+                .build();
+
+        assertFalse(cache.isCacheable(unset));
+
+        cache.allowNonZeroTemperature = true;
+        assertTrue(cache.isCacheable(unset));
+    }
+
+    @Test
+    void testTenantsAreIsolated() {
+        LLMRequest request = request("hi", Map.of());
+        cache.put("tenant-a", "openai", request, response("hello")).await().indefinitely();
+
+        assertEquals("hello", get("tenant-a", request).orElseThrow().content());
+        assertTrue(get("tenant-b", request).isEmpty());
+    }
+
+    @Test
+    void testTenantQuotaEvictsLeastRecentlyUsed() {
+        cache.put("tenant-a", "openai", request("one", Map.of()), response("1")).await().indefinitely();
+        long entryBytes = cache.memoryBytes("tenant-a");
+        cache = withQuota(entryBytes * 2);
+
+        cache.put("tenant-a", "openai", request("one", Map.of()), response("1")).await().indefinitely();
+        cache.put("tenant-a", "openai", request("two", Map.of()), response("2")).await().indefinitely();
+        get("tenant-a", request("one", Map.of()));
+        cache.put("tenant-a", "openai", request("three", Map.of()), response("3")).await().indefinitely();
+
+        assertTrue(get("tenant-a", request("one", Map.of())).isPresent());
+        assertTrue(get("tenant-a", request("two", Map.of())).isEmpty());
+        assertTrue(get("tenant-a", request("three", Map.of())).isPresent());
+        assertTrue(cache.memoryBytes("tenant-a") <= entryBytes * 2);
+
+        cache.put("tenant-b", "openai", request("one", Map.of()), response("1")).await().indefinitely();
+        assertTrue(get("tenant-a", request("three", Map.of())).isPresent());
+    }
+
+    @Test
+    void testDiskTierSurvivesRestart() {
+        cache.diskEnabled = true;
+        LLMRequest request = request("hi", Map.of());
+        cache.put("tenant-a", "openai", request, response("hello")).await().indefinitely();
+
+        LLMResponseCache restarted = newCache();
+        restarted.diskEnabled = true;
+
+        LLMResponse cached = restarted.get("tenant-a", "openai", request).await().indefinitely().orElseThrow();
+        assertEquals("hello", cached.content());
+        assertEquals(12, cached.usage().totalTokens());
+        assertTrue(restarted.memoryBytes("tenant-a") > 0);
+        assertTrue(restarted.get("tenant-b", "openai", request).await().indefinitely().isEmpty());
+    }
+
+    @Test
+    void testExpiredEntriesAreNotReturned() {
+        cache.ttl = Duration.ZERO;
+        LLMRequest request = request("hi", Map.of());
+        cache.put("tenant-a", "openai", request, response("hello")).await().indefinitely();
+
+        assertTrue(get("tenant-a", request).isEmpty());
+    }
+
+    private Optional<LLMResponse> get(String tenantId, LLMRequest request) {
+        return cache.get(tenantId, "openai", request).await().indefinitely();
+    }
+
+    private LLMResponseCache withQuota(long quotaBytes) {
+        LLMResponseCache cache = newCache();
+        cache.memoryQuotaBytes = quotaBytes;
+        return cache;
+    }
+
+    private LLMResponseCache newCache() {
+        LLMResponseCache cache = new LLMResponseCache();
+        cache.enabled = true;
+        cache.ttl = Duration.ofHours(1);
+        cache.memoryQuotaBytes = 1024 * 1024;
+        cache.diskDir = tempDir.toString();
+        cache.diskQuotaBytes = 1024 * 1024;
+        cache.objectMapper = new ObjectMapper();
+        return cache;
+    }
+
+    private static LLMRequest request(String prompt, Map<String, Object> params) {
+        return LLMRequest.builder()
+                .model("gpt-4")
+                .temperature(0.0)
+                .messages(List.of(Message.user(prompt)))
+                .additionalParams(params)
+                .build();
+    }
+
+    private static LLMResponse response(String content) {
+        return LLMResponse.create(content, "stop", new TokenUsage(10, 2, 12));
+    }
+}
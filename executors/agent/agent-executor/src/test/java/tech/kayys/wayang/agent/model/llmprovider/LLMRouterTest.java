@@ -0,0 +1,236 @@
+package tech.kayys.wayang.agent.model.llmprovider;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.kayys.wayang.agent.model.LLMProvider;
+import tech.kayys.wayang.agent.model.LLMRequest;
+import tech.kayys.wayang.agent.model.LLMResponse;
+import tech.kayys.wayang.agent.model.Message;
+import tech.kayys.wayang.agent.model.TokenUsage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LLMRouterTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private LLMRouter router;
+
+    @BeforeEach
+    void setUp() {
+        router = new LLMRouter();
+        router.enabled = true;
+        router.ewmaAlpha = 0.3;
+        router.hedgeEnabled = true;
+        router.hedgePercentile = 0.95;
+        router.hedgeMinDelay = Duration.ofMillis(20);
+        router.hedgeDefaultDelay = Duration.ofHours(1);
+    }
+
+    @Test
+    void testPowerOfTwoChoicesPrefersFasterEndpoint() {
+        StubProvider fast = new StubProvider("fast", () -> reply("fast"));
+        StubProvider slow = new StubProvider("slow", () -> reply("slow"));
+        seed(fast, 50);
+        seed(slow, 800);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("fast", router.choose(List.of(slow, fast), "gpt-4").get(0).name());
+        }
+    }
+
+    @Test
+    void testFailingEndpointIsAvoided() {
+        StubProvider healthy = new StubProvider("healthy", () -> reply("healthy"));
+        StubProvider failing = new StubProvider("failing", () -> reply("failing"));
+        seed(healthy, 500);
+        EndpointStats stats = router.stats(failing, "gpt-4");
+        for (int i = 0; i < 5; i++) {
+            stats.started();
+            stats.failed(5);
+        }
+
+        assertEquals("healthy", router.choose(List.of(failing, healthy), "gpt-4").get(0).name());
+    }
+
+    @Test
+    void testHedgeWinsAndSlowCallIsCancelled() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        StubProvider stuck = new StubProvider("stuck", () -> Uni.createFrom().<LLMResponse>nothing()
+                .onCancellation().invoke(() -> cancelled.set(true)));
+        StubProvider backup = new StubProvider("backup", () -> reply("backup"));
+        // The stuck endpoint looks fastest, so it is the primary
+        seed(stuck, 5);
+        seed(backup, 100);
+
+        LLMResponse response = router.complete(List.of(stuck, backup), request())
+                .await().atMost(TIMEOUT);
+
+        assertEquals("backup", response.content());
+        assertTrue(cancelled.get());
+        assertEquals(0, router.stats(stuck, "gpt-4").inFlight());
+        assertEquals(0, router.stats(backup, "gpt-4").inFlight());
+        // The loser's elapsed time never becomes a latency sample
+        assertEquals(5, router.stats(stuck, "gpt-4").percentile(0.95));
+    }
+
+    @Test
+    void testCancelledCallIsOnlyALowerBound() {
+        StubProvider provider = new StubProvider("provider", () -> reply("ok"));
+        seed(provider, 100);
+        EndpointStats stats = router.stats(provider, "gpt-4");
+
+        // Faster than the average: says nothing about the endpoint
+        stats.started();
+        stats.cancelled(5);
+        assertEquals(100, stats.latencyMillis(), 1e-9);
+
+        // Slower: raises the average, but stays out of the percentile window
+        stats.started();
+        stats.cancelled(1_000);
+        assertEquals(100 + 0.3 * 900, stats.latencyMillis(), 1e-9);
+        assertEquals(100, stats.percentile(0.95));
+        assertEquals(0, stats.inFlight());
+    }
+
+    @Test
+    void testCancelledRequestReleasesEndpointWithoutLatencySample() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        StubProvider stuck = new StubProvider("stuck", () -> Uni.createFrom().<LLMResponse>nothing()
+                .onCancellation().invoke(() -> cancelled.set(true)));
+        seed(stuck, 50);
+        EndpointStats stats = router.stats(stuck, "gpt-4");
+
+        Cancellable subscription = router.complete(List.of(stuck), request())
+                .subscribe().with(response -> { }, failure -> { });
+        assertEquals(1, stats.inFlight());
+        subscription.cancel();
+
+        assertTrue(cancelled.get());
+        assertEquals(0, stats.inFlight());
+        assertEquals(50, stats.percentile(0.95));
+        assertEquals(0.0, stats.errorRate(), 1e-9);
+    }
+
+    @Test
+    void testFailureFailsOverWithoutWaitingForHedgeDelay() {
+        StubProvider broken = new StubProvider("broken",
+                () -> Uni.createFrom().failure(new RuntimeException("boom")));
+        StubProvider backup = new StubProvider("backup", () -> reply("backup"));
+        seed(broken, 5);
+        seed(backup, 100);
+
+        LLMResponse response = router.complete(List.of(broken, backup), request())
+                .await().atMost(TIMEOUT);
+
+        assertEquals("backup", response.content());
+        assertEquals(1, broken.calls.get());
+        assertTrue(router.stats(broken, "gpt-4").errorRate() > 0);
+    }
+
+    @Test
+    void testFailsWhenEveryEndpointFails() {
+        StubProvider first = new StubProvider("first",
+                () -> Uni.createFrom().failure(new RuntimeException("first")));
+        StubProvider second = new StubProvider("second",
+                () -> Uni.createFrom().failure(new RuntimeException("second")));
+
+        assertThrows(RuntimeException.class,
+                () -> router.complete(List.of(first, second), request()).await().atMost(TIMEOUT));
+        assertEquals(1, first.calls.get());
+        assertEquals(1, second.calls.get());
+    }
+
+    @Test
+    void testHedgeDelayFollowsLatencyPercentile() {
+        StubProvider provider = new StubProvider("provider", () -> reply("ok"));
+        EndpointStats stats = router.stats(provider, "gpt-4");
+
+        assertEquals(Duration.ofHours(1).toMillis(), router.hedgeDelayMillis(stats));
+
+        for (int i = 1; i <= 100; i++) {
+            stats.started();
+            stats.succeeded(i * 10L);
+        }
+        assertEquals(950, router.hedgeDelayMillis(stats));
+    }
+
+    private void seed(LLMProvider provider, long latencyMillis) {
+        EndpointStats stats = router.stats(provider, "gpt-4");
+        for (int i = 0; i < EndpointStats.MIN_SAMPLES; i++) {
+            stats.started();
+            stats.succeeded(latencyMillis);
+        }
+    }
+
+    private static Uni<LLMResponse> reply(String content) {
+        return Uni.createFrom().item(LLMResponse.create(content, "stop", new TokenUsage(1, 1, 2)));
+    }
+
+    private static LLMRequest request() {
+        return LLMRequest.builder()
+                .model("gpt-4")
+                .messages(List.of(Message.user("hi")))
+                .build();
+    }
+
+    private static final class StubProvider implements LLMProvider {
+
+        private final String name;
+        private final Supplier<Uni<LLMResponse>> response;
+        final AtomicInteger calls = new AtomicInteger();
+
+        StubProvider(String name, Supplier<Uni<LLMResponse>> response) {
+            this.name = name;
+            this.response = response;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Uni<LLMResponse> complete(LLMRequest request) {
+            calls.incrementAndGet();
+            return response.get();
+        }
+
+        @Override
+        public Multi<String> stream(LLMRequest request) {
+            return Multi.createFrom().empty();
+        }
+
+        @Override
+        public boolean supportsFunctionCalling() {
+            return true;
+        }
+
+        @Override
+        public List<String> supportedModels() {
+            return List.of("gpt-4");
+        }
+
+        @Override
+        public boolean supportsModel(String model) {
+            return true;
+        }
+
+        @Override
+        public Map<String, Object> getConfig() {
+            return Map.of();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package tech.kayys.wayang.agent.model.llmprovider;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.core.http.HttpServer;
+import io.vertx.mutiny.core.http.HttpServerRequest;
+import io.vertx.mutiny.ext.web.client.WebClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.kayys.wayang.agent.model.LLMProvider;
+import tech.kayys.wayang.agent.model.LLMRequest;
+import tech.kayys.wayang.agent.model.LLMResponse;
+import tech.kayys.wayang.agent.model.Message;
+import tech.kayys.wayang.agent.service.RealOpenAIProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Routes completions of one provider over two base URLs, each served by a
+ * local HTTP server speaking the OpenAI chat completions protocol
+ */
+public class RoutingLLMProviderTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private Vertx vertx;
+    private WebClient webClient;
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    private LLMRouter router;
+    private LLMProviderRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        vertx = Vertx.vertx();
+        webClient = WebClient.create(vertx);
+
+        router = new LLMRouter();
+        router.enabled = true;
+        router.ewmaAlpha = 0.3;
+        router.hedgeEnabled = false;
+        router.hedgePercentile = 0.95;
+        router.hedgeMinDelay = Duration.ofMillis(20);
+        router.hedgeDefaultDelay = Duration.ofMillis(50);
+
+        registry = new LLMProviderRegistry();
+        registry.router = router;
+    }
+
+    @AfterEach
+    void tearDown() {
+        servers.forEach(HttpServer::closeAndAwait);
+        webClient.close();
+        vertx.closeAndAwait();
+    }
+
+    @Test
+    void testEveryBaseUrlIsACandidate() {
+        Endpoint primary = endpoint("primary", request -> { });
+        Endpoint replica = endpoint("replica", request -> { });
+        register(primary, replica);
+
+        List<LLMProvider> candidates = routed().candidates("gpt-4");
+
+        assertEquals(2, candidates.size());
+        assertEquals("openai", candidates.get(1).name());
+        assertNotEquals(candidates.get(0).endpoint(), candidates.get(1).endpoint());
+    }
+
+    @Test
+    void testSlowBaseUrlIsAvoided() {
+        Endpoint slow = endpoint("slow", request -> vertx.setTimer(300, id -> reply(request, "slow")));
+        Endpoint fast = endpoint("fast", request -> reply(request, "fast"));
+        register(slow, fast);
+
+        LLMProvider routed = routed();
+        for (int i = 0; i < 10; i++) {
+            routed.complete(request()).await().atMost(TIMEOUT);
+        }
+
+        // Each endpoint is probed once while it has no samples, then the fast one wins
+        assertEquals(1, slow.calls.get());
+        assertEquals(9, fast.calls.get());
+    }
+
+    @Test
+    void testHedgeToReplicaAnswersWhenBaseUrlHangs() {
+        router.hedgeEnabled = true;
+        Endpoint stuck = endpoint("stuck", request -> { });
+        Endpoint replica = endpoint("replica", request -> reply(request, "replica"));
+        register(stuck, replica);
+
+        LLMProvider routed = routed();
+        for (int i = 0; i < 3; i++) {
+            LLMResponse response = routed.complete(request()).await().atMost(TIMEOUT);
+            assertEquals("replica", response.content());
+        }
+
+        assertTrue(stuck.calls.get() >= 1);
+        assertEquals(3, replica.calls.get());
+    }
+
+    private void register(Endpoint primary, Endpoint additional) {
+        registry.registerProvider(new RealOpenAIProvider(vertx, webClient, "test-key", primary.baseUrl,
+                List.of(additional.baseUrl), 5000));
+    }
+
+    private RoutingLLMProvider routed() {
+        return (RoutingLLMProvider) registry.getProvider("openai", "tenant-a").await().atMost(TIMEOUT);
+    }
+
+    private Endpoint endpoint(String name, Consumer<HttpServerRequest> handler) {
+        Endpoint endpoint = new Endpoint();
+        HttpServer server = vertx.createHttpServer()
+                .requestHandler(request -> request.body().subscribe().with(body -> {
+                    endpoint.calls.incrementAndGet();
+                    handler.accept(request);
+                }))
+                .listen(0)
+                .await().atMost(TIMEOUT);
+        servers.add(server);
+        endpoint.baseUrl = "http://localhost:" + server.actualPort() + "/" + name + "/v1";
+        return endpoint;
+    }
+
+    private static void reply(HttpServerRequest request, String content) {
+        JsonObject body = new JsonObject()
+                .put("choices", new JsonArray().add(new JsonObject()
+                        .put("message", new JsonObject().put("role", "assistant").put("content", content))
+                        .put("finish_reason", "stop")))
+                .put("usage", new JsonObject().put("prompt_tokens", 1).put("completion_tokens", 1));
+        request.response()
+                .putHeader("Content-Type", "application/json")
+                .endAndForget(body.encode());
+    }
+
+    private static LLMRequest request() {
+        return LLMRequest.builder()
+                .model("gpt-4")
+                .temperature(0.7)
+                .messages(List.of(Message.user("hi")))
+                .build();
+    }
+
+    private static final class Endpoint {
+        final AtomicInteger calls = new AtomicInteger();
+        String baseUrl;
+    }
+}
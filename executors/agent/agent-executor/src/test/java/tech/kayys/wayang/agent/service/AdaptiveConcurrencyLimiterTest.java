@@ -0,0 +1,136 @@
+package tech.kayys.wayang.agent.service;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.kayys.wayang.agent.exception.ConcurrencyLimitExceededException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private List<UniEmitter<? super String>> running;
+
+    @BeforeEach
+    void setUp() {
+        running = new ArrayList<>();
+    }
+
+    @Test
+    void testLimitGrowsWhileLatencyIsSteady() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 20);
+
+        for (int i = 0; i < 20; i++) {
+            round(limiter, limiter.limit(), 100);
+        }
+
+        assertTrue(limiter.limit() > 10, "limit " + limiter.limit());
+    }
+
+    @Test
+    void testLimitShrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 20);
+        for (int i = 0; i < 5; i++) {
+            round(limiter, limiter.limit(), 100);
+        }
+        int before = limiter.limit();
+
+        for (int i = 0; i < 5; i++) {
+            round(limiter, limiter.limit(), 1000);
+        }
+
+        assertTrue(limiter.limit() < before, before + " -> " + limiter.limit());
+    }
+
+    @Test
+    void testFailuresBackOff() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 20);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.run(() -> Uni.createFrom().<String>failure(new RuntimeException("boom")))
+                    .subscribe().with(item -> {
+                    }, failure -> {
+                    });
+        }
+
+        assertTrue(limiter.limit() < 10, "limit " + limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void testCallsOverLimitQueueThenReject() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1);
+        AtomicReference<Throwable> rejection = new AtomicReference<>();
+
+        start(limiter);
+        start(limiter);
+        limiter.run(this::pendingCall).subscribe().with(item -> {
+        }, rejection::set);
+
+        assertEquals(1, running.size());
+        assertEquals(1, limiter.queued());
+        assertInstanceOf(ConcurrencyLimitExceededException.class, rejection.get());
+
+        running.get(0).complete("done");
+
+        assertEquals(2, running.size());
+        assertEquals(0, limiter.queued());
+        assertEquals(1, limiter.inFlight());
+    }
+
+    @Test
+    void testCancellationFreesSlotAndQueuePosition() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 5);
+
+        Cancellable first = start(limiter);
+        Cancellable queued = start(limiter);
+        queued.cancel();
+        assertEquals(0, limiter.queued());
+
+        start(limiter);
+        first.cancel();
+
+        assertEquals(2, running.size());
+        assertEquals(1, limiter.inFlight());
+        assertEquals(0, limiter.queued());
+    }
+
+    /**
+     * Run calls concurrently, all taking the given latency
+     */
+    private void round(AdaptiveConcurrencyLimiter limiter, int calls, long latencyMillis) {
+        running.clear();
+        for (int i = 0; i < calls; i++) {
+            start(limiter);
+        }
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        new ArrayList<>(running).forEach(emitter -> emitter.complete("ok"));
+    }
+
+    private Cancellable start(AdaptiveConcurrencyLimiter limiter) {
+        return limiter.run(this::pendingCall).subscribe().with(item -> {
+        }, failure -> {
+        });
+    }
+
+    private Uni<String> pendingCall() {
+        return Uni.createFrom().emitter(running::add);
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, int maxQueue) {
+        return new AdaptiveConcurrencyLimiter(
+                "test", initialLimit, 1, 100, maxQueue, 0.2, 1.5, 600, clock::get);
+    }
+}
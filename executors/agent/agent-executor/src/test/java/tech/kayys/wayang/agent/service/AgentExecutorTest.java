@@ -59,7 +59,7 @@ public class AgentExecutorTest {
         LLMProvider provider = mock(LLMProvider.class);
         LLMResponse response = LLMResponse.create("Hello! How can I help?", "stop", TokenUsage.of(10, 10));
 
-        when(llmRegistry.getProvider(anyString())).thenReturn(Uni.createFrom().item(provider));
+        when(llmRegistry.getProvider(anyString(), anyString())).thenReturn(Uni.createFrom().item(provider));
         when(provider.complete(any(LLMRequest.class))).thenReturn(Uni.createFrom().item(response));
 
         NodeExecutionResult result = executor.execute(task)
@@ -96,7 +96,7 @@ public class AgentExecutorTest {
         when(weatherTool.validate(any())).thenReturn(Uni.createFrom().item(true));
         when(weatherTool.execute(any(), any())).thenReturn(Uni.createFrom().item("Sunny, 30C"));
 
-        when(llmRegistry.getProvider(anyString())).thenReturn(Uni.createFrom().item(provider));
+        when(llmRegistry.getProvider(anyString(), anyString())).thenReturn(Uni.createFrom().item(provider));
         when(provider.complete(any(LLMRequest.class)))
                 .thenReturn(Uni.createFrom().item(response1))
                 .thenReturn(Uni.createFrom().item(response2));
@@ -124,7 +124,7 @@ public class AgentExecutorTest {
         when(task.nodeId().value()).thenReturn("node-3");
         when(task.context()).thenReturn(Map.of("sessionId", "session-3", "tenantId", "tenant-3"));
 
-        when(llmRegistry.getProvider(anyString()))
+        when(llmRegistry.getProvider(anyString(), anyString()))
                 .thenReturn(Uni.createFrom().failure(new RuntimeException("LLM Error")));
 
         NodeExecutionResult result = executor.execute(task)
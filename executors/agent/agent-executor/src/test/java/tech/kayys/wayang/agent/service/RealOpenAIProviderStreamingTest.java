@@ -0,0 +1,118 @@
+package tech.kayys.wayang.agent.service;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.core.http.HttpServer;
+import io.vertx.mutiny.core.http.HttpServerRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.kayys.wayang.agent.exception.AuthenticationException;
+import tech.kayys.wayang.agent.model.LLMRequest;
+import tech.kayys.wayang.agent.model.Message;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives RealOpenAIProvider.stream against a local server writing SSE chunks
+ */
+public class RealOpenAIProviderStreamingTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private Vertx vertx;
+    private HttpServer server;
+    private RealOpenAIProvider provider;
+
+    private final AtomicReference<Consumer<HttpServerRequest>> handler = new AtomicReference<>();
+    private final AtomicReference<JsonObject> received = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() {
+        vertx = Vertx.vertx();
+        server = vertx.createHttpServer()
+                .requestHandler(request -> request.body().subscribe().with(body -> {
+                    received.set(body.toJsonObject());
+                    handler.get().accept(request);
+                }))
+                .listen(0)
+                .await().atMost(TIMEOUT);
+
+        provider = new RealOpenAIProvider();
+        provider.vertx = vertx;
+        provider.apiKey = "test-key";
+        provider.baseUrl = "http://localhost:" + server.actualPort() + "/v1";
+        provider.timeout = 5000;
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.closeStreamingClient();
+        server.closeAndAwait();
+        vertx.closeAndAwait();
+    }
+
+    @Test
+    void testDeltasAcrossChunkBoundariesStopAtDone() {
+        respondWith(200,
+                "data: {\"choices\":[{\"delta\":{\"role\":\"assistant\"}}]}\n\n",
+                "data: {\"choices\":[{\"delta\":{\"content\":\"Hel\"}}]}\n\ndata: {\"choices\":[{\"del",
+                "ta\":{\"content\":\"lo\"}}]}\n\n: keep-alive\n\n",
+                "data: [DONE]\n\n",
+                "data: {\"choices\":[{\"delta\":{\"content\":\"after done\"}}]}\n\n");
+
+        List<String> deltas = provider.stream(request()).collect().asList().await().atMost(TIMEOUT);
+
+        assertEquals(List.of("Hel", "lo"), deltas);
+        assertEquals(Boolean.TRUE, received.get().getBoolean("stream"));
+        assertEquals("gpt-4", received.get().getString("model"));
+    }
+
+    @Test
+    void testUnterminatedLastEventIsFlushedAtEndOfStream() {
+        respondWith(200,
+                "data: {\"choices\":[{\"delta\":{\"content\":\"one\"}}]}\n\n",
+                "data: {\"choices\":[{\"delta\":{\"content\":\"two\"}}]}");
+
+        List<String> deltas = provider.stream(request()).collect().asList().await().atMost(TIMEOUT);
+
+        assertEquals(List.of("one", "two"), deltas);
+    }
+
+    @Test
+    void testErrorStatusFailsTheStream() {
+        respondWith(401, "{\"error\":{\"message\":\"bad key\"}}");
+
+        AuthenticationException error = assertThrows(AuthenticationException.class,
+                () -> provider.stream(request()).collect().asList().await().atMost(TIMEOUT));
+        assertTrue(error.getMessage().contains("OpenAI"));
+    }
+
+    private void respondWith(int status, String... chunks) {
+        handler.set(request -> {
+            var response = request.response()
+                    .setStatusCode(status)
+                    .setChunked(true)
+                    .putHeader("Content-Type", status == 200 ? "text/event-stream" : "application/json");
+            for (String chunk : chunks) {
+                response.writeAndForget(chunk);
+            }
+            response.endAndForget();
+        });
+    }
+
+    private static LLMRequest request() {
+        return LLMRequest.builder()
+                .model("gpt-4")
+                .temperature(0.0)
+                .messages(List.of(Message.user("hi")))
+                .build();
+    }
+}
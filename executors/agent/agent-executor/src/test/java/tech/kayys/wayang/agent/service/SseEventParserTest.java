@@ -0,0 +1,86 @@
+package tech.kayys.wayang.agent.service;
+
+import io.vertx.core.buffer.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SseEventParserTest {
+
+    private static final String STREAM =
+            ": keep-alive\n\n"
+            + "data: {\"choices\":[{\"delta\":{\"content\":\"Hél\"}}]}\n\n"
+            + "event: message\r\n"
+            + "data: {\"choices\":[{\"delta\":{\"content\":\"lo 🌍\"}}]}\r\n\r\n"
+            + "data: first\n"
+            + "data:second\n\n"
+            + "data: [DONE]\n\n";
+
+    private static final List<String> EVENTS = List.of(
+            "{\"choices\":[{\"delta\":{\"content\":\"Hél\"}}]}",
+            "{\"choices\":[{\"delta\":{\"content\":\"lo 🌍\"}}]}",
+            "first\nsecond",
+            "[DONE]");
+
+    @Test
+    void testWholeStreamInOneChunk() {
+        SseEventParser parser = new SseEventParser();
+
+        List<String> events = new ArrayList<>(parser.feed(Buffer.buffer(STREAM)));
+        events.addAll(parser.finish());
+
+        assertEquals(EVENTS, events);
+    }
+
+    @Test
+    void testEveryByteSplitPoint() {
+        // Chunks may split lines, CRLF pairs and multi-byte characters anywhere
+        byte[] bytes = STREAM.getBytes(StandardCharsets.UTF_8);
+
+        for (int split = 1; split < bytes.length; split++) {
+            SseEventParser parser = new SseEventParser();
+            List<String> events = new ArrayList<>();
+            events.addAll(parser.feed(Buffer.buffer().appendBytes(bytes, 0, split)));
+            events.addAll(parser.feed(Buffer.buffer().appendBytes(bytes, split, bytes.length - split)));
+            events.addAll(parser.finish());
+
+            assertEquals(EVENTS, events, "split at " + split);
+        }
+    }
+
+    @Test
+    void testByteAtATime() {
+        byte[] bytes = STREAM.getBytes(StandardCharsets.UTF_8);
+        SseEventParser parser = new SseEventParser();
+        List<String> events = new ArrayList<>();
+
+        for (byte b : bytes) {
+            events.addAll(parser.feed(Buffer.buffer().appendByte(b)));
+        }
+
+        assertEquals(EVENTS, events);
+        assertTrue(parser.finish().isEmpty());
+    }
+
+    @Test
+    void testEventIsDeliveredAsSoonAsItEnds() {
+        SseEventParser parser = new SseEventParser();
+
+        assertTrue(parser.feed(Buffer.buffer("data: one\n")).isEmpty());
+        assertEquals(List.of("one"), parser.feed(Buffer.buffer("\ndata: tw")));
+        assertEquals(List.of("two"), parser.feed(Buffer.buffer("o\n\n")));
+    }
+
+    @Test
+    void testUnterminatedLastEventIsFlushed() {
+        SseEventParser parser = new SseEventParser();
+
+        assertTrue(parser.feed(Buffer.buffer("data: tail")).isEmpty());
+        assertEquals(List.of("tail"), parser.finish());
+    }
+}
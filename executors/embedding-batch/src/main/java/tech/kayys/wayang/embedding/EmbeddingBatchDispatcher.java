@@ -0,0 +1,310 @@
+package tech.kayys.wayang.embedding;
+
+import io.smallrye.mutiny.Uni;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Micro-batching dispatcher for embedding requests.
+ *
+ * Single texts submitted concurrently are queued and sent as one provider call
+ * once the queue reaches the max batch size or the first queued text has
+ * lingered for the max linger time. Large submissions are split into
+ * provider-sized chunks. At most maxConcurrency provider calls are in flight;
+ * while all slots are busy, the queue keeps growing into fuller batches, up
+ * to maxQueued texts. Past that, submissions fail fast with a
+ * {@link RejectedExecutionException} instead of piling up behind a slow
+ * provider. Closing the dispatcher fails everything still queued or in flight.
+ */
+public class EmbeddingBatchDispatcher implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmbeddingBatchDispatcher.class);
+
+    public static final int DEFAULT_MAX_QUEUED = 100_000;
+
+    private final Function<List<String>, Uni<List<float[]>>> batchCall;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final int maxConcurrency;
+    private final int maxQueued;
+
+    private final ScheduledExecutorService timer;
+
+    // Guarded by this
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private final Set<List<Pending>> running = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int inFlight = 0;
+    private ScheduledFuture<?> lingerTask;
+    private boolean closed;
+
+    /**
+     * @param batchCall Provider call embedding a list of texts, results in input order
+     * @param maxBatchSize Max texts per provider call (the provider's input limit)
+     * @param maxLinger Max time a queued text waits for batch-mates
+     * @param maxConcurrency Max provider calls in flight
+     */
+    public EmbeddingBatchDispatcher(
+            Function<List<String>, Uni<List<float[]>>> batchCall,
+            int maxBatchSize,
+            Duration maxLinger,
+            int maxConcurrency) {
+        this(batchCall, maxBatchSize, maxLinger, maxConcurrency, DEFAULT_MAX_QUEUED);
+    }
+
+    /**
+     * @param maxQueued Max texts waiting for a batch; more are rejected
+     */
+    public EmbeddingBatchDispatcher(
+            Function<List<String>, Uni<List<float[]>>> batchCall,
+            int maxBatchSize,
+            Duration maxLinger,
+            int maxConcurrency,
+            int maxQueued) {
+        this.batchCall = batchCall;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxLingerNanos = Math.max(0L, maxLinger.toNanos());
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.maxQueued = Math.max(1, maxQueued);
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "embedding-batch-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Embed a single text as part of the next batch
+     */
+    public Uni<float[]> submit(String text) {
+        return Uni.createFrom().completionStage(() -> {
+            Pending pending = new Pending(text, new CompletableFuture<>());
+            List<List<Pending>> ready;
+            synchronized (this) {
+                RuntimeException rejection = rejectionLocked(1);
+                if (rejection != null) {
+                    return CompletableFuture.failedFuture(rejection);
+                }
+                queue.add(pending);
+                ready = drainLocked(maxLingerNanos == 0);
+            }
+            dispatchAll(ready);
+            return pending.result;
+        });
+    }
+
+    /**
+     * Embed many texts, split into provider-sized chunks that share the
+     * concurrency limit with single submissions
+     */
+    public Uni<List<float[]>> submitAll(List<String> texts) {
+        if (texts.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+
+        return Uni.createFrom().completionStage(() -> {
+            List<CompletableFuture<float[]>> results = new ArrayList<>(texts.size());
+            List<List<Pending>> ready;
+            synchronized (this) {
+                // All or nothing, so a caller never gets a partial result list
+                RuntimeException rejection = rejectionLocked(texts.size());
+                if (rejection != null) {
+                    return CompletableFuture.failedFuture(rejection);
+                }
+                for (String text : texts) {
+                    Pending pending = new Pending(text, new CompletableFuture<>());
+                    queue.add(pending);
+                    results.add(pending.result);
+                }
+                // The caller already has a full batch; do not wait for more
+                ready = drainLocked(true);
+            }
+            dispatchAll(ready);
+
+            return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+                .thenApply(v -> {
+                    List<float[]> embeddings = new ArrayList<>(results.size());
+                    for (CompletableFuture<float[]> result : results) {
+                        embeddings.add(result.join());
+                    }
+                    return embeddings;
+                });
+        });
+    }
+
+    /**
+     * Number of texts waiting for a batch
+     */
+    public synchronized int queued() {
+        return queue.size();
+    }
+
+    /**
+     * Number of provider calls currently in flight
+     */
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Stop dispatching and fail every queued or in-flight text; a provider
+     * call still running is left to finish, but its result is dropped
+     */
+    @Override
+    public void close() {
+        List<Pending> abandoned = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (lingerTask != null) {
+                lingerTask.cancel(false);
+                lingerTask = null;
+            }
+            abandoned.addAll(queue);
+            queue.clear();
+            for (List<Pending> batch : running) {
+                abandoned.addAll(batch);
+            }
+            running.clear();
+        }
+        timer.shutdownNow();
+
+        if (!abandoned.isEmpty()) {
+            LOG.debug("Failing {} embedding requests on close", abandoned.size());
+            failAll(abandoned, new IllegalStateException("Embedding batch dispatcher closed"));
+        }
+    }
+
+    /**
+     * @return Why texts cannot be queued now, or null when they can
+     */
+    private RuntimeException rejectionLocked(int count) {
+        if (closed) {
+            return new IllegalStateException("Embedding batch dispatcher closed");
+        }
+        if (queue.size() + count > maxQueued) {
+            return new RejectedExecutionException("Embedding queue full: " + queue.size()
+                + " texts queued, " + count + " more would exceed " + maxQueued);
+        }
+        return null;
+    }
+
+    /**
+     * Take every batch that may be sent now
+     *
+     * @param lingerElapsed Whether partial batches may go out
+     */
+    private List<List<Pending>> drainLocked(boolean lingerElapsed) {
+        List<List<Pending>> ready = new ArrayList<>();
+        if (closed) {
+            return ready;
+        }
+
+        while (!queue.isEmpty() && inFlight < maxConcurrency
+                && (lingerElapsed || queue.size() >= maxBatchSize)) {
+            int size = Math.min(maxBatchSize, queue.size());
+            List<Pending> batch = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                batch.add(queue.poll());
+            }
+            inFlight++;
+            running.add(batch);
+            ready.add(batch);
+        }
+
+        if (queue.isEmpty()) {
+            if (lingerTask != null) {
+                lingerTask.cancel(false);
+                lingerTask = null;
+            }
+        } else if (lingerTask == null && inFlight < maxConcurrency) {
+            lingerTask = timer.schedule(this::onLingerElapsed, maxLingerNanos, TimeUnit.NANOSECONDS);
+        }
+
+        return ready;
+    }
+
+    private void onLingerElapsed() {
+        List<List<Pending>> ready;
+        synchronized (this) {
+            lingerTask = null;
+            ready = drainLocked(true);
+        }
+        dispatchAll(ready);
+    }
+
+    private void onBatchComplete(List<Pending> batch) {
+        List<List<Pending>> ready;
+        synchronized (this) {
+            inFlight--;
+            running.remove(batch);
+            // Anything queued has been waiting for a free slot
+            ready = drainLocked(true);
+        }
+        dispatchAll(ready);
+    }
+
+    private void dispatchAll(List<List<Pending>> batches) {
+        for (List<Pending> batch : batches) {
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(List<Pending> batch) {
+        List<String> texts = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            texts.add(pending.text);
+        }
+
+        LOG.debug("Dispatching embedding batch of {} texts", texts.size());
+
+        Uni<List<float[]>> call;
+        try {
+            call = batchCall.apply(texts);
+        } catch (RuntimeException e) {
+            call = Uni.createFrom().failure(e);
+        }
+
+        call.subscribe().with(
+            embeddings -> {
+                if (embeddings == null || embeddings.size() != batch.size()) {
+                    failAll(batch, new IllegalStateException("Expected " + batch.size()
+                        + " embeddings, got " + (embeddings == null ? 0 : embeddings.size())));
+                } else {
+                    for (int i = 0; i < batch.size(); i++) {
+                        batch.get(i).result.complete(embeddings.get(i));
+                    }
+                }
+                onBatchComplete(batch);
+            },
+            error -> {
+                LOG.error("Embedding batch of {} texts failed", batch.size(), error);
+                failAll(batch, error);
+                onBatchComplete(batch);
+            });
+    }
+
+    private static void failAll(List<Pending> batch, Throwable error) {
+        for (Pending pending : batch) {
+            pending.result.completeExceptionally(error);
+        }
+    }
+
+    private record Pending(String text, CompletableFuture<float[]> result) {}
+}
@@ -0,0 +1,164 @@
+package tech.kayys.wayang.embedding;
+
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EmbeddingBatchDispatcherTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    /** Fake provider returning [text length] for each input */
+    private static Uni<List<float[]>> lengths(List<String> texts) {
+        List<float[]> out = new ArrayList<>();
+        for (String text : texts) {
+            out.add(new float[] { text.length() });
+        }
+        return Uni.createFrom().item(out);
+    }
+
+    @Test
+    void testConcurrentSingleRequestsAreBatched() {
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        try (EmbeddingBatchDispatcher dispatcher = new EmbeddingBatchDispatcher(texts -> {
+            batchSizes.add(texts.size());
+            return lengths(texts);
+        }, 100, Duration.ofMillis(50), 4)) {
+
+            List<Uni<float[]>> unis = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                unis.add(dispatcher.submit("x".repeat(i + 1)));
+            }
+
+            List<?> results = Uni.combine().all().unis(unis).with(list -> list)
+                    .await().atMost(TIMEOUT);
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i + 1, ((float[]) results.get(i))[0]);
+            }
+            assertEquals(1, batchSizes.size());
+            assertEquals(10, batchSizes.get(0));
+        }
+    }
+
+    @Test
+    void testLargeBatchIsSplitIntoProviderSizedChunks() {
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        try (EmbeddingBatchDispatcher dispatcher = new EmbeddingBatchDispatcher(texts -> {
+            batchSizes.add(texts.size());
+            return lengths(texts);
+        }, 4, Duration.ofMillis(50), 2)) {
+
+            List<String> texts = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                texts.add("y".repeat(i + 1));
+            }
+
+            List<float[]> results = dispatcher.submitAll(texts).await().atMost(TIMEOUT);
+
+            assertEquals(10, results.size());
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i + 1, results.get(i)[0]);
+            }
+            assertTrue(batchSizes.stream().allMatch(size -> size <= 4));
+            assertEquals(10, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        }
+    }
+
+    @Test
+    void testConcurrencyIsBounded() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        try (EmbeddingBatchDispatcher dispatcher = new EmbeddingBatchDispatcher(texts ->
+                Uni.createFrom().item(texts)
+                        .invoke(t -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                        .onItem().delayIt().by(Duration.ofMillis(20))
+                        .invoke(t -> inFlight.decrementAndGet())
+                        .chain(EmbeddingBatchDispatcherTest::lengths),
+                2, Duration.ofMillis(1), 2)) {
+
+            List<String> texts = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                texts.add("z");
+            }
+
+            List<float[]> results = dispatcher.submitAll(texts).await().atMost(TIMEOUT);
+
+            assertEquals(20, results.size());
+            assertTrue(maxInFlight.get() <= 2);
+        }
+    }
+
+    @Test
+    void testBatchFailureFailsEveryCaller() {
+        try (EmbeddingBatchDispatcher dispatcher = new EmbeddingBatchDispatcher(
+                texts -> Uni.createFrom().failure(new RuntimeException("boom")),
+                10, Duration.ofMillis(10), 1)) {
+
+            assertThrows(RuntimeException.class,
+                    () -> dispatcher.submit("a").await().atMost(TIMEOUT));
+            assertThrows(RuntimeException.class,
+                    () -> dispatcher.submitAll(List.of("a", "b")).await().atMost(TIMEOUT));
+        }
+    }
+
+    @Test
+    void testFullQueueRejectsFast() {
+        // One slot, taken by a call that never returns, so later texts stay queued
+        try (EmbeddingBatchDispatcher dispatcher = new EmbeddingBatchDispatcher(
+                texts -> Uni.createFrom().nothing(), 2, Duration.ofHours(1), 1, 3)) {
+
+            dispatcher.submitAll(List.of("a", "b")).subscribeAsCompletionStage();
+            for (String text : List.of("c", "d", "e")) {
+                dispatcher.submit(text).subscribeAsCompletionStage();
+            }
+            assertEquals(1, dispatcher.inFlight());
+            assertEquals(3, dispatcher.queued());
+
+            assertThrows(RejectedExecutionException.class,
+                    () -> dispatcher.submit("f").await().atMost(TIMEOUT));
+            assertThrows(RejectedExecutionException.class,
+                    () -> dispatcher.submitAll(List.of("g")).await().atMost(TIMEOUT));
+            assertEquals(3, dispatcher.queued());
+        }
+    }
+
+    @Test
+    void testCloseFailsQueuedAndInFlightRequests() {
+        EmbeddingBatchDispatcher dispatcher = new EmbeddingBatchDispatcher(
+                texts -> Uni.createFrom().nothing(), 2, Duration.ofHours(1), 1, 10);
+
+        List<CompletableFuture<?>> results = new ArrayList<>();
+        results.add(dispatcher.submitAll(List.of("a", "b")).subscribeAsCompletionStage());
+        results.add(dispatcher.submit("c").subscribeAsCompletionStage());
+        results.add(dispatcher.submit("d").subscribeAsCompletionStage());
+
+        dispatcher.close();
+
+        for (CompletableFuture<?> result : results) {
+            ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> result.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+            assertInstanceOf(IllegalStateException.class, error.getCause());
+        }
+        assertEquals(0, dispatcher.queued());
+        assertThrows(IllegalStateException.class,
+                () -> dispatcher.submit("e").await().atMost(TIMEOUT));
+    }
+}
@@ -0,0 +1,199 @@
+package tech.kayys.wayang.memory.context;
+
+import tech.kayys.wayang.memory.similarity.SimilarityKernels;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Random-hyperplane LSH index for approximate nearest neighbor candidates.
+ *
+ * Each of the {@link Projections#tables()} tables hashes a vector to a
+ * bit-packed signature of {@link Projections#bits()} sign bits; vectors
+ * sharing a signature in any table share a bucket. Queries also probe the
+ * buckets reached by flipping the query's least confident bits (multi-probe),
+ * which recovers near neighbors that fell just across a hyperplane.
+ */
+public class LshIndex {
+
+    private final Projections projections;
+
+    // (table << 32 | signature) -> memory ids
+    private final Map<Long, Set<String>> buckets = new ConcurrentHashMap<>();
+
+    // memoryId -> per-table signatures, so re-indexing and removal touch only its buckets
+    private final Map<String, int[]> signatures = new ConcurrentHashMap<>();
+
+    public LshIndex(Projections projections) {
+        this.projections = projections;
+    }
+
+    /**
+     * Index (or re-index) a vector
+     */
+    public void add(String memoryId, float[] vector) {
+        int[] signature = projections.hash(vector).signatures();
+
+        signatures.compute(memoryId, (id, previous) -> {
+            if (previous != null) {
+                unbucket(id, previous);
+            }
+            for (int table = 0; table < signature.length; table++) {
+                buckets.computeIfAbsent(bucketKey(table, signature[table]),
+                    k -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+            return signature;
+        });
+    }
+
+    public void remove(String memoryId) {
+        signatures.computeIfPresent(memoryId, (id, previous) -> {
+            unbucket(id, previous);
+            return null;
+        });
+    }
+
+    /**
+     * Collect candidates sharing a bucket with the query in any table
+     *
+     * @param vector Query vector
+     * @param probes Extra buckets probed per table by flipping the
+     *               lowest-margin bits, 0 for exact buckets only
+     * @return Candidate memory ids
+     */
+    public Set<String> query(float[] vector, int probes) {
+        Hash hash = projections.hash(vector);
+        int bits = projections.bits();
+        int extra = Math.min(Math.max(0, probes), bits);
+        Set<String> candidates = new HashSet<>();
+
+        for (int table = 0; table < projections.tables(); table++) {
+            int signature = hash.signatures()[table];
+            collect(bucketKey(table, signature), candidates);
+
+            if (extra > 0) {
+                for (int bit : lowestMarginBits(hash.projections(), table * bits, bits, extra)) {
+                    collect(bucketKey(table, signature ^ (1 << bit)), candidates);
+                }
+            }
+        }
+
+        return candidates;
+    }
+
+    public int size() {
+        return signatures.size();
+    }
+
+    public void clear() {
+        signatures.clear();
+        buckets.clear();
+    }
+
+    private void collect(long key, Set<String> candidates) {
+        Set<String> bucket = buckets.get(key);
+        if (bucket != null) {
+            candidates.addAll(bucket);
+        }
+    }
+
+    private void unbucket(String memoryId, int[] signature) {
+        for (int table = 0; table < signature.length; table++) {
+            buckets.computeIfPresent(bucketKey(table, signature[table]), (k, bucket) -> {
+                bucket.remove(memoryId);
+                return bucket.isEmpty() ? null : bucket;
+            });
+        }
+    }
+
+    private static long bucketKey(int table, int signature) {
+        return ((long) table << 32) | (signature & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Indices of the count bits whose projections lie closest to their hyperplane
+     */
+    private static int[] lowestMarginBits(float[] projections, int offset, int bits, int count) {
+        Integer[] order = new Integer[bits];
+        for (int b = 0; b < bits; b++) {
+            order[b] = b;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(b -> Math.abs(projections[offset + b])));
+
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = order[i];
+        }
+        return result;
+    }
+
+    /**
+     * Signatures of one vector, with the raw projections used for multi-probe
+     */
+    public record Hash(int[] signatures, float[] projections) {}
+
+    /**
+     * Gaussian hyperplanes shared by every index with the same shape, generated
+     * once per embedding dimension and stored as one flat row-major matrix of
+     * (tables * bits) rows.
+     */
+    public static final class Projections {
+
+        private final int tables;
+        private final int bits;
+        private final long seed;
+
+        // dimension -> hyperplane matrix
+        private final Map<Integer, float[]> matrices = new ConcurrentHashMap<>();
+
+        public Projections(int tables, int bits, long seed) {
+            if (tables <= 0 || bits <= 0 || bits > Integer.SIZE) {
+                throw new IllegalArgumentException(
+                    "Invalid LSH shape: " + tables + " tables of " + bits + " bits");
+            }
+            this.tables = tables;
+            this.bits = bits;
+            this.seed = seed;
+        }
+
+        public int tables() {
+            return tables;
+        }
+
+        public int bits() {
+            return bits;
+        }
+
+        /**
+         * Project a vector onto every hyperplane and pack the sign bits
+         */
+        public Hash hash(float[] vector) {
+            float[] matrix = matrices.computeIfAbsent(vector.length, this::generate);
+            float[] projected = new float[tables * bits];
+            SimilarityKernels.project(matrix, vector, projected);
+
+            int[] signatures = new int[tables];
+            for (int table = 0; table < tables; table++) {
+                int signature = 0;
+                int offset = table * bits;
+                for (int b = 0; b < bits; b++) {
+                    if (projected[offset + b] >= 0f) {
+                        signature |= 1 << b;
+                    }
+                }
+                signatures[table] = signature;
+            }
+
+            return new Hash(signatures, projected);
+        }
+
+        private float[] generate(int dimension) {
+            Random random = new Random(seed);
+            float[] matrix = new float[tables * bits * dimension];
+            for (int i = 0; i < matrix.length; i++) {
+                matrix[i] = (float) random.nextGaussian();
+            }
+            return matrix;
+        }
+    }
+}
@@ -7,10 +7,10 @@ import jakarta.inject.Inject;
 import io.vertx.mutiny.redis.client.RedisAPI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import tech.kayys.wayang.memory.similarity.SimilarityKernels;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.Random;
 import java.util.ArrayList;
 
 /**
@@ -21,14 +21,20 @@ public class MemoryIndexService {
 
     private static final Logger LOG = LoggerFactory.getLogger(MemoryIndexService.class);
 
+    // LSH shape: 5 tables of 8-bit signatures, hyperplanes seeded for reproducibility
+    private static final LshIndex.Projections LSH_PROJECTIONS = new LshIndex.Projections(5, 8, 42);
+
+    // Neighboring buckets probed per table on semantic search
+    private static final int LSH_PROBES = 2;
+
     @Inject
     RedisAPI redisAPI;
 
     // In-memory inverted index for fast keyword search
     private final Map<String, Set<String>> invertedIndex = new ConcurrentHashMap<>();
 
-    // Semantic hash index for approximate nearest neighbor search
-    private final Map<String, Set<String>> semanticHashIndex = new ConcurrentHashMap<>();
+    // Semantic hash index for approximate nearest neighbor search: sessionId -> LSH index
+    private final Map<String, LshIndex> semanticIndexes = new ConcurrentHashMap<>();
 
     /**
      * Build inverted index for keyword search
@@ -65,21 +71,15 @@ public class MemoryIndexService {
         LOG.debug("Building semantic hash index for session: {}", sessionId);
 
         return Uni.createFrom().item(() -> {
-            Map<String, Set<String>> localIndex = new HashMap<>();
+            LshIndex index = semanticIndexes.computeIfAbsent(sessionId,
+                k -> new LshIndex(LSH_PROJECTIONS));
 
             for (ConversationMemory memory : memories) {
                 if (memory.getEmbedding() != null && !memory.getEmbedding().isEmpty()) {
-                    String[] hashes = computeLocalitySensitiveHash(memory.getEmbedding());
-
-                    for (String hash : hashes) {
-                        String indexKey = sessionId + ":lsh:" + hash;
-                        localIndex.computeIfAbsent(indexKey, k -> new HashSet<>())
-                                 .add(memory.getId());
-                    }
+                    index.add(memory.getId(), SimilarityKernels.toFloatArray(memory.getEmbedding()));
                 }
             }
 
-            semanticHashIndex.putAll(localIndex);
             return null;
         }).replaceWithVoid();
     }
@@ -115,19 +115,12 @@ public class MemoryIndexService {
      */
     public Uni<Set<String>> searchBySemantic(String sessionId, List<Double> queryEmbedding) {
         return Uni.createFrom().item(() -> {
-            String[] queryHashes = computeLocalitySensitiveHash(queryEmbedding);
-            Set<String> candidates = new HashSet<>();
-
-            for (String hash : queryHashes) {
-                String indexKey = sessionId + ":lsh:" + hash;
-                Set<String> memoryIds = semanticHashIndex.get(indexKey);
-
-                if (memoryIds != null) {
-                    candidates.addAll(memoryIds);
-                }
+            LshIndex index = semanticIndexes.get(sessionId);
+            if (index == null || queryEmbedding == null || queryEmbedding.isEmpty()) {
+                return new HashSet<String>();
             }
 
-            return candidates;
+            return index.query(SimilarityKernels.toFloatArray(queryEmbedding), LSH_PROBES);
         });
     }
 
@@ -140,42 +133,6 @@ public class MemoryIndexService {
                   .split("\\s+");
     }
 
-    /**
-     * Compute LSH using random hyperplanes
-     */
-    private String[] computeLocalitySensitiveHash(List<Double> embedding) {
-        int numHashFunctions = 5;
-        int numBits = 8;
-        String[] hashes = new String[numHashFunctions];
-
-        Random random = new Random(42); // Fixed seed for reproducibility
-
-        for (int h = 0; h < numHashFunctions; h++) {
-            StringBuilder hashBits = new StringBuilder();
-
-            for (int b = 0; b < numBits; b++) {
-                // Generate random hyperplane
-                List<Double> hyperplane = new ArrayList<>();
-                for (int i = 0; i < embedding.size(); i++) {
-                    hyperplane.add(random.nextGaussian());
-                }
-
-                // Compute dot product
-                double dotProduct = 0.0;
-                for (int i = 0; i < embedding.size(); i++) {
-                    dotProduct += embedding.get(i) * hyperplane.get(i);
-                }
-
-                // Hash bit is 1 if dot product is positive
-                hashBits.append(dotProduct >= 0 ? "1" : "0");
-            }
-
-            hashes[h] = hashBits.toString();
-        }
-
-        return hashes;
-    }
-
     /**
      * Persist index to Redis for durability
      */
@@ -201,7 +158,7 @@ public class MemoryIndexService {
         return Uni.createFrom().item(() -> {
             // Remove from in-memory index
             invertedIndex.keySet().removeIf(key -> key.startsWith(sessionId + ":"));
-            semanticHashIndex.keySet().removeIf(key -> key.startsWith(sessionId + ":"));
+            semanticIndexes.remove(sessionId);
 
             // Remove from Redis
             return null;
@@ -0,0 +1,69 @@
+package tech.kayys.wayang.memory.ratelimit;
+
+import io.smallrye.mutiny.Uni;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Single-node stand-in for {@link RedisRateLimitStore}, running the same
+ * GCRA steps as its Lua script against a local map. Used for tests and for
+ * running without Redis; state is not shared between nodes.
+ */
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private record State(double tat, double interval) {}
+
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+    private final LongSupplier clockMillis;
+
+    public InMemoryRateLimitStore() {
+        this(System::currentTimeMillis);
+    }
+
+    public InMemoryRateLimitStore(LongSupplier clockMillis) {
+        this.clockMillis = clockMillis;
+    }
+
+    @Override
+    public Uni<Grant> acquire(String key, Duration window, int limit, int requested) {
+        return Uni.createFrom().item(() -> acquireNow(key, window, limit, requested));
+    }
+
+    @Override
+    public Uni<Integer> inUse(String key) {
+        return Uni.createFrom().item(() -> {
+            State state = states.get(key);
+            if (state == null) {
+                return 0;
+            }
+            double used = Math.ceil((state.tat() - clockMillis.getAsLong()) / state.interval() - 1e-9);
+            return (int) Math.max(0, used);
+        });
+    }
+
+    Grant acquireNow(String key, Duration window, int limit, int requested) {
+        double interval = (double) window.toMillis() / limit;
+        long burst = window.toMillis();
+        Grant[] result = new Grant[1];
+
+        states.compute(key, (k, state) -> {
+            double now = clockMillis.getAsLong();
+            double tat = state == null ? now : Math.max(state.tat(), now);
+
+            long available = (long) Math.floor((now + burst - tat) / interval + 1e-9);
+            if (available < 1) {
+                result[0] = new Grant(0, 0, Duration.ofMillis((long) Math.ceil(tat + interval - burst - now)));
+                return state;
+            }
+
+            int granted = (int) Math.min(Math.max(1, requested), available);
+            result[0] = new Grant(granted, (int) (available - granted), Duration.ZERO);
+            return new State(tat + granted * interval, interval);
+        });
+
+        return result[0];
+    }
+}
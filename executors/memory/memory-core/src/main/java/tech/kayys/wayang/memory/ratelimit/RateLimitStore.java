@@ -0,0 +1,39 @@
+package tech.kayys.wayang.memory.ratelimit;
+
+import io.smallrye.mutiny.Uni;
+
+import java.time.Duration;
+
+/**
+ * Shared state behind {@link RateLimiter}.
+ *
+ * Implementations run GCRA (the generic cell rate algorithm, equivalent to a
+ * sliding window): each key keeps a theoretical arrival time (TAT) that moves
+ * forward by window / limit per token granted, and a request fits when the
+ * TAT stays within one window of now. Acquire is a single atomic step.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Take between 1 and requested tokens, as many as currently fit
+     *
+     * @param key       Limiter key
+     * @param window    Sliding window
+     * @param limit     Tokens allowed per window
+     * @param requested Tokens wanted
+     * @return Tokens granted (0 when none fit) and when to retry
+     */
+    Uni<Grant> acquire(String key, Duration window, int limit, int requested);
+
+    /**
+     * Tokens currently counted against the key's window
+     */
+    Uni<Integer> inUse(String key);
+
+    record Grant(int granted, int remaining, Duration retryAfter) {
+
+        public boolean allowed() {
+            return granted > 0;
+        }
+    }
+}
@@ -1,53 +1,162 @@
 package tech.kayys.wayang.memory.ratelimit;
 
-import io.quarkus.redis.datasource.RedisDataSource;
-import io.quarkus.redis.datasource.string.StringCommands;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 
+/**
+ * Sliding-window rate limiter over a shared {@link RateLimitStore}.
+ *
+ * With leasing enabled a node takes a block of tokens per store call and
+ * serves following requests for the key locally until the block runs out or
+ * the lease expires, so hot keys rarely touch Redis. Blocks are capped at a
+ * tenth of the limit so one node cannot starve the others, and unused leased
+ * tokens simply lapse: leasing can only under-admit, never over-admit beyond
+ * the lease TTL.
+ */
 @ApplicationScoped
 public class RateLimiter {
-    
+
+    private static final String KEY_PREFIX = "ratelimit:gcra:";
+
     @Inject
-    RedisDataSource redisDataSource;
+    RateLimitStore store;
+
+    @ConfigProperty(name = "memory.ratelimit.lease.enabled", defaultValue = "false")
+    boolean leaseEnabled;
+
+    // Most tokens taken from the store in one call
+    @ConfigProperty(name = "memory.ratelimit.lease.size", defaultValue = "20")
+    int leaseSize;
+
+    @ConfigProperty(name = "memory.ratelimit.lease.ttl", defaultValue = "PT1S")
+    Duration leaseTtl;
+
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final LongSupplier clockMillis;
+
+    public RateLimiter() {
+        this.clockMillis = System::currentTimeMillis;
+    }
+
+    RateLimiter(RateLimitStore store, boolean leaseEnabled, int leaseSize, Duration leaseTtl,
+                LongSupplier clockMillis) {
+        this.store = store;
+        this.leaseEnabled = leaseEnabled;
+        this.leaseSize = leaseSize;
+        this.leaseTtl = leaseTtl;
+        this.clockMillis = clockMillis;
+    }
 
     public Uni<Boolean> checkRateLimit(String userId, int maxRequests, Duration window) {
-        StringCommands<String, String> commands = redisDataSource.string(String.class);
-        String key = "ratelimit:" + userId;
-        
-        return Uni.createFrom().item(() -> {
-            String countStr = commands.get(key);
-            int count = countStr != null ? Integer.parseInt(countStr) : 0;
-            
-            if (count >= maxRequests) {
-                return false;
+        return acquire(userId, maxRequests, window)
+            .onItem().transform(Decision::allowed);
+    }
+
+    /**
+     * Take one request from the user's budget
+     */
+    public Uni<Decision> acquire(String userId, int maxRequests, Duration window) {
+        String key = KEY_PREFIX + userId;
+
+        if (!leaseEnabled) {
+            return store.acquire(key, window, maxRequests, 1)
+                .onItem().transform(grant -> new Decision(grant.allowed(), grant.remaining(), grant.retryAfter()));
+        }
+
+        long now = clockMillis.getAsLong();
+        Lease lease = leases.get(key);
+        if (lease != null) {
+            int left = lease.take(now);
+            if (left >= 0) {
+                return Uni.createFrom().item(new Decision(true, left, Duration.ZERO));
             }
-            
-            if (count == 0) {
-                commands.setex(key, window.toSeconds(), "1");
-            } else {
-                commands.incr(key);
+            if (lease.expired(now)) {
+                leases.remove(key, lease);
             }
-            
-            return true;
-        });
+        }
+
+        int block = Math.min(Math.max(1, leaseSize), Math.max(1, maxRequests / 10));
+        return store.acquire(key, window, maxRequests, block)
+            .onItem().transform(grant -> {
+                if (!grant.allowed()) {
+                    return new Decision(false, 0, grant.retryAfter());
+                }
+                int spare = grant.granted() - 1;
+                if (spare > 0) {
+                    long expiresAt = clockMillis.getAsLong() + Math.min(leaseTtl.toMillis(), window.toMillis());
+                    leases.compute(key, (k, current) -> current == null || current.expired(now)
+                        ? new Lease(spare, expiresAt)
+                        : current.extend(spare));
+                }
+                return new Decision(true, grant.remaining() + spare, Duration.ZERO);
+            });
     }
 
     public Uni<RateLimitInfo> getRateLimitInfo(String userId) {
-        StringCommands<String, String> commands = redisDataSource.string(String.class);
-        String key = "ratelimit:" + userId;
-        
-        return Uni.createFrom().item(() -> {
-            String countStr = commands.get(key);
-            int count = countStr != null ? Integer.parseInt(countStr) : 0;
-            
-            return new RateLimitInfo(userId, count);
-        });
+        String key = KEY_PREFIX + userId;
+
+        return store.inUse(key)
+            .onItem().transform(count -> {
+                Lease lease = leases.get(key);
+                int unused = lease == null ? 0 : Math.max(0, lease.tokens.get());
+                return new RateLimitInfo(userId, Math.max(0, count - unused));
+            });
     }
 
+    /**
+     * Tokens leased from the store, served locally
+     */
+    private static final class Lease {
+
+        private final AtomicInteger tokens;
+        private final long expiresAt;
+
+        private Lease(int tokens, long expiresAt) {
+            this.tokens = new AtomicInteger(tokens);
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * @return Tokens left after taking one, or -1 when the lease is empty or expired
+         */
+        private int take(long now) {
+            if (expired(now)) {
+                return -1;
+            }
+            int current;
+            do {
+                current = tokens.get();
+                if (current <= 0) {
+                    return -1;
+                }
+            } while (!tokens.compareAndSet(current, current - 1));
+            return current - 1;
+        }
+
+        private boolean expired(long now) {
+            return now >= expiresAt;
+        }
+
+        // Keeps the current expiry: added tokens may lapse early, which only under-admits
+        private Lease extend(int more) {
+            tokens.addAndGet(more);
+            return this;
+        }
+    }
+
+    /**
+     * Outcome of one acquire
+     */
+    public record Decision(boolean allowed, int remaining, Duration retryAfter) {}
+
     public static class RateLimitInfo {
         public final String userId;
         public final int currentRequests;
@@ -57,4 +166,4 @@ public class RateLimiter {
             this.currentRequests = currentRequests;
         }
     }
-}
\ No newline at end of file
+}
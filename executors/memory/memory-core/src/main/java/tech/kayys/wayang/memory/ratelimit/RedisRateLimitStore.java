@@ -0,0 +1,114 @@
+package tech.kayys.wayang.memory.ratelimit;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.redis.client.RedisAPI;
+import io.vertx.mutiny.redis.client.Response;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * GCRA rate limit state in Redis.
+ *
+ * Each acquire is one EVALSHA of a Lua script, so the read-check-update is
+ * atomic on the server and costs a single round trip; the script is sent
+ * with EVAL only when the server does not have it cached yet. Time comes
+ * from the Redis clock, so nodes with skewed clocks still agree. A key is a
+ * hash of the TAT and the per-token interval, expiring when the window has
+ * fully drained.
+ */
+@ApplicationScoped
+public class RedisRateLimitStore implements RateLimitStore {
+
+    static final String ACQUIRE_SCRIPT = """
+        local interval = tonumber(ARGV[1])
+        local burst = tonumber(ARGV[2])
+        local requested = tonumber(ARGV[3])
+        local time = redis.call('TIME')
+        local now = tonumber(time[1]) * 1000 + tonumber(time[2]) / 1000
+        local tat = tonumber(redis.call('HGET', KEYS[1], 'tat'))
+        if tat == nil or tat < now then
+          tat = now
+        end
+        local available = math.floor((now + burst - tat) / interval + 1e-9)
+        if available < 1 then
+          return {0, 0, math.ceil(tat + interval - burst - now)}
+        end
+        local granted = math.min(requested, available)
+        tat = tat + granted * interval
+        redis.call('HSET', KEYS[1], 'tat', string.format('%.3f', tat), 'interval', string.format('%.3f', interval))
+        redis.call('PEXPIRE', KEYS[1], math.ceil(tat - now))
+        return {granted, available - granted, 0}
+        """;
+
+    static final String IN_USE_SCRIPT = """
+        local state = redis.call('HMGET', KEYS[1], 'tat', 'interval')
+        if not state[1] then
+          return 0
+        end
+        local time = redis.call('TIME')
+        local now = tonumber(time[1]) * 1000 + tonumber(time[2]) / 1000
+        local used = math.ceil((tonumber(state[1]) - now) / tonumber(state[2]) - 1e-9)
+        if used < 0 then
+          return 0
+        end
+        return used
+        """;
+
+    private static final String ACQUIRE_SHA = sha1(ACQUIRE_SCRIPT);
+    private static final String IN_USE_SHA = sha1(IN_USE_SCRIPT);
+
+    @Inject
+    RedisAPI redisAPI;
+
+    @Override
+    public Uni<Grant> acquire(String key, Duration window, int limit, int requested) {
+        double interval = (double) window.toMillis() / limit;
+
+        return evaluate(ACQUIRE_SCRIPT, ACQUIRE_SHA, key,
+                Double.toString(interval),
+                Long.toString(window.toMillis()),
+                Integer.toString(Math.max(1, requested)))
+            .onItem().transform(response -> new Grant(
+                response.get(0).toInteger(),
+                response.get(1).toInteger(),
+                Duration.ofMillis(response.get(2).toLong())));
+    }
+
+    @Override
+    public Uni<Integer> inUse(String key) {
+        return evaluate(IN_USE_SCRIPT, IN_USE_SHA, key)
+            .onItem().transform(Response::toInteger);
+    }
+
+    private Uni<Response> evaluate(String script, String sha, String key, String... args) {
+        return redisAPI.evalsha(arguments(sha, key, args))
+            .onFailure(failure -> String.valueOf(failure.getMessage()).startsWith("NOSCRIPT"))
+            .recoverWithUni(() -> redisAPI.eval(arguments(script, key, args)));
+    }
+
+    private static List<String> arguments(String scriptOrSha, String key, String... args) {
+        List<String> arguments = new ArrayList<>(3 + args.length);
+        arguments.add(scriptOrSha);
+        arguments.add("1");
+        arguments.add(key);
+        arguments.addAll(List.of(args));
+        return arguments;
+    }
+
+    private static String sha1(String script) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return HexFormat.of().formatHex(digest.digest(script.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+}
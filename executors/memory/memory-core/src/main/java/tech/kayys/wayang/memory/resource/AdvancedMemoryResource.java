@@ -77,6 +77,33 @@ public class AdvancedMemoryResource {
                     .build());
     }
 
+    @POST
+    @Path("/backup/{backupId}/resume")
+    @Operation(summary = "Resume an interrupted memory backup")
+    public Uni<Response> resumeBackup(
+            @Parameter(description = "Backup ID") @PathParam("backupId") String backupId,
+            BackupRequest request) {
+        return backupService.resumeBackup(backupId, request.getSessionIds())
+            .onItem().transform(backup -> Response.ok(backup).build())
+            .onFailure().recoverWithItem(throwable -> 
+                Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(new ErrorResponse(throwable.getMessage()))
+                    .build());
+    }
+
+    @GET
+    @Path("/backup/{backupId}")
+    @Operation(summary = "Describe memory backup")
+    public Uni<Response> getBackup(
+            @Parameter(description = "Backup ID") @PathParam("backupId") String backupId) {
+        return backupService.loadBackup(backupId)
+            .onItem().transform(backup -> Response.ok(backup).build())
+            .onFailure().recoverWithItem(throwable -> 
+                Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(new ErrorResponse(throwable.getMessage()))
+                    .build());
+    }
+
     @POST
     @Path("/backup/{backupId}/restore")
     @Operation(summary = "Restore memory backup")
@@ -94,6 +121,24 @@ public class AdvancedMemoryResource {
                     .build());
     }
 
+    @POST
+    @Path("/backup/{backupId}/restore/streaming")
+    @Operation(summary = "Restore memory backup from a record, returning only the restored count")
+    public Uni<Response> restoreBackupStreaming(
+            @Parameter(description = "Backup ID") @PathParam("backupId") String backupId,
+            @Parameter(description = "Record to resume from") @QueryParam("from") @DefaultValue("0") long fromRecord) {
+        
+        return backupService.restoreBackup(backupId, fromRecord)
+            .onItem().transform(count -> Response.ok(Map.of(
+                "restored", count,
+                "from", fromRecord
+            )).build())
+            .onFailure().recoverWithItem(throwable -> 
+                Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(new ErrorResponse(throwable.getMessage()))
+                    .build());
+    }
+
     @POST
     @Path("/optimize/{sessionId}")
     @Operation(summary = "Optimize memory for session")
@@ -4,15 +4,21 @@ import tech.kayys.wayang.memory.service.MemoryOptimizationService;
 import tech.kayys.wayang.memory.service.MemorySecurityService;
 import tech.kayys.wayang.memory.service.MemoryService;
 import tech.kayys.wayang.memory.entity.MemorySessionEntity;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.panache.common.Page;
+import io.quarkus.panache.common.Sort;
 import io.quarkus.scheduler.Scheduled;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.mutiny.Multi;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 
 @ApplicationScoped
 public class MemoryMaintenanceScheduler {
@@ -28,6 +34,12 @@ public class MemoryMaintenanceScheduler {
     @Inject
     MemoryService memoryService;
 
+    @ConfigProperty(name = "memory.cleanup.batch-size", defaultValue = "200")
+    int cleanupBatchSize;
+
+    @ConfigProperty(name = "memory.cleanup.time-budget", defaultValue = "PT30S")
+    Duration cleanupTimeBudget;
+
     @Scheduled(cron = "0 0 2 * * ?") // Run at 2 AM daily
     public void optimizeStaleMemories() {
         LOG.info("Starting scheduled memory optimization");
@@ -53,15 +65,48 @@ public class MemoryMaintenanceScheduler {
         LOG.info("Starting cleanup of expired sessions");
         
         Instant now = Instant.now();
+        long deadline = System.nanoTime() + cleanupTimeBudget.toNanos();
         
-        MemorySessionEntity.<MemorySessionEntity>delete(
-                "expiresAt < ?1 AND expiresAt IS NOT NULL", now)
+        deleteExpiredSessions(now, "", deadline, 0L)
             .subscribe().with(
                 count -> LOG.info("Deleted {} expired sessions", count),
                 throwable -> LOG.error("Cleanup job failed", throwable)
             );
     }
 
+    /**
+     * Delete expired sessions one keyset page per transaction until none are
+     * left or the time budget is spent; the next run resumes the rest
+     */
+    private Uni<Long> deleteExpiredSessions(Instant cutoff, String afterSessionId, long deadline, long deleted) {
+        if (System.nanoTime() >= deadline) {
+            LOG.info("Session cleanup time budget spent after {} sessions", deleted);
+            return Uni.createFrom().item(deleted);
+        }
+        
+        return Panache.withTransaction(() ->
+                MemorySessionEntity.<MemorySessionEntity>find(
+                        "expiresAt < ?1 AND expiresAt IS NOT NULL AND sessionId > ?2",
+                        Sort.by("sessionId"), cutoff, afterSessionId)
+                    .page(Page.ofSize(cleanupBatchSize))
+                    .list()
+                    .flatMap(sessions -> {
+                        if (sessions.isEmpty()) {
+                            return Uni.createFrom().item(List.<String>of());
+                        }
+                        List<String> ids = sessions.stream().map(session -> session.sessionId).toList();
+                        return MemorySessionEntity.delete("sessionId IN ?1", ids)
+                            .replaceWith(ids);
+                    }))
+            .flatMap(ids -> {
+                long total = deleted + ids.size();
+                if (ids.size() < cleanupBatchSize) {
+                    return Uni.createFrom().item(total);
+                }
+                return deleteExpiredSessions(cutoff, ids.get(ids.size() - 1), deadline, total);
+            });
+    }
+
     @Scheduled(every = "6h") // Run every 6 hours
     public void auditMemorySecurity() {
         LOG.info("Starting security audit of memory");
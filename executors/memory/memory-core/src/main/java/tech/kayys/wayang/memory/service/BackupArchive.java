@@ -0,0 +1,572 @@
+package tech.kayys.wayang.memory.service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Streaming, block-compressed backup file.
+ *
+ * Layout:
+ * <pre>
+ * header   "WMB1" magic, version, userId, createdAt (epoch millis)
+ * blocks   rawLength, compressedLength, recordCount, crc32 of the raw bytes, deflated bytes;
+ *          the raw block is a run of records: key (length-prefixed UTF-8), payload (length-prefixed)
+ * index    "WMBI" magic, block count, then per block: offset, first record ordinal, record count, keys
+ * trailer  index offset, "WMBE" magic
+ * </pre>
+ *
+ * Writers hold one block in memory and sync every block as it is written, so
+ * an interrupted backup leaves a valid prefix that {@link Writer#resume} can
+ * continue. Only record keys are kept for the index. Readers inflate one
+ * block at a time and use the index to jump straight to a key or ordinal.
+ */
+public final class BackupArchive {
+
+    static final int MAGIC = 0x574D4231;       // "WMB1"
+    static final int INDEX_MAGIC = 0x574D4249; // "WMBI"
+    static final int END_MAGIC = 0x574D4245;   // "WMBE"
+    static final int VERSION = 1;
+
+    private static final int BLOCK_HEADER_BYTES = 4 * Integer.BYTES;
+    private static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+    private static final String PARTIAL_SUFFIX = ".partial";
+
+    private BackupArchive() {
+    }
+
+    /**
+     * Backup owner and creation time, stored in the file header
+     */
+    public record Header(String userId, Instant createdAt) {}
+
+    /**
+     * One stored record; ordinals count from 0 in write order
+     */
+    public record Record(long ordinal, String key, byte[] payload) {}
+
+    private record BlockEntry(long offset, long firstOrdinal, List<String> keys) {}
+
+    /**
+     * Path of the in-progress file for a backup
+     */
+    public static Path partialPath(Path target) {
+        return target.resolveSibling(target.getFileName() + PARTIAL_SUFFIX);
+    }
+
+    // ==================== WRITER ====================
+
+    /**
+     * Appends records to a backup. Not thread-safe.
+     */
+    public static final class Writer implements Closeable {
+
+        private final Path target;
+        private final Path partial;
+        private final FileChannel channel;
+        private final int blockSize;
+        private final Header header;
+
+        private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+        private final DataOutputStream blockOut = new DataOutputStream(block);
+        private final List<String> blockKeys = new ArrayList<>();
+
+        private final List<BlockEntry> blocks = new ArrayList<>();
+        private final Set<String> keys = new HashSet<>();
+        private long records = 0;
+        private boolean finished = false;
+
+        private Writer(Path target, FileChannel channel, int blockSize, Header header) {
+            this.target = target;
+            this.partial = partialPath(target);
+            this.channel = channel;
+            this.blockSize = Math.max(4096, blockSize);
+            this.header = header;
+        }
+
+        /**
+         * Start a new backup, replacing any unfinished one at the same path
+         */
+        public static Writer create(Path target, Header header, int blockSize) throws IOException {
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            FileChannel channel = FileChannel.open(partialPath(target),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, header.userId());
+            out.writeLong(header.createdAt().toEpochMilli());
+            writeFully(channel, ByteBuffer.wrap(bytes.toByteArray()));
+            channel.force(true);
+
+            return new Writer(target, channel, blockSize, header);
+        }
+
+        /**
+         * Reopen an interrupted backup, keeping every intact block and dropping a torn tail
+         */
+        public static Writer resume(Path target, int blockSize) throws IOException {
+            Path partial = partialPath(target);
+            if (!Files.exists(partial)) {
+                throw new FileNotFoundException("No unfinished backup at " + partial);
+            }
+
+            FileChannel channel = FileChannel.open(partial, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel.position(0))));
+                Header header = readHeader(in);
+                long position = headerLength(header);
+
+                Writer writer = new Writer(target, channel, blockSize, header);
+                long size = channel.size();
+                while (position < size) {
+                    List<Record> blockRecords = readBlock(channel, position, writer.records);
+                    if (blockRecords == null) {
+                        break;
+                    }
+                    List<String> blockKeys = new ArrayList<>(blockRecords.size());
+                    for (Record record : blockRecords) {
+                        blockKeys.add(record.key());
+                    }
+                    writer.blocks.add(new BlockEntry(position, writer.records, blockKeys));
+                    writer.keys.addAll(blockKeys);
+                    writer.records += blockRecords.size();
+                    position = nextBlockOffset(channel, position);
+                }
+
+                channel.truncate(position);
+                channel.position(position);
+                return writer;
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        public Header header() {
+            return header;
+        }
+
+        /**
+         * @return true when a record with this key has been appended
+         */
+        public boolean contains(String key) {
+            return keys.contains(key);
+        }
+
+        public long recordCount() {
+            return records;
+        }
+
+        public void append(String key, byte[] payload) throws IOException {
+            if (finished) {
+                throw new IllegalStateException("Backup already finished");
+            }
+            writeString(blockOut, key);
+            blockOut.writeInt(payload.length);
+            blockOut.write(payload);
+            blockKeys.add(key);
+            keys.add(key);
+
+            if (block.size() >= blockSize) {
+                flushBlock();
+            }
+        }
+
+        /**
+         * Write the last block, the index and the trailer, then move the file into place
+         *
+         * @return Size of the finished backup in bytes
+         */
+        public long finish() throws IOException {
+            flushBlock();
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            long indexOffset = channel.position();
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(blocks.size());
+            for (BlockEntry entry : blocks) {
+                out.writeLong(entry.offset());
+                out.writeLong(entry.firstOrdinal());
+                out.writeInt(entry.keys().size());
+                for (String key : entry.keys()) {
+                    writeString(out, key);
+                }
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(END_MAGIC);
+            writeFully(channel, ByteBuffer.wrap(bytes.toByteArray()));
+            channel.force(true);
+
+            long size = channel.size();
+            channel.close();
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            finished = true;
+            return size;
+        }
+
+        /**
+         * Flush buffered records and release the file; an unfinished backup stays resumable
+         */
+        @Override
+        public void close() throws IOException {
+            if (finished) {
+                return;
+            }
+            try {
+                flushBlock();
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void flushBlock() throws IOException {
+            if (blockKeys.isEmpty()) {
+                return;
+            }
+
+            blockOut.flush();
+            byte[] raw = block.toByteArray();
+            byte[] compressed = deflate(raw);
+            CRC32 crc = new CRC32();
+            crc.update(raw);
+
+            long offset = channel.position();
+            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_HEADER_BYTES + compressed.length);
+            buffer.putInt(raw.length)
+                .putInt(compressed.length)
+                .putInt(blockKeys.size())
+                .putInt((int) crc.getValue())
+                .put(compressed)
+                .flip();
+            writeFully(channel, buffer);
+            channel.force(false);
+
+            blocks.add(new BlockEntry(offset, records, List.copyOf(blockKeys)));
+            records += blockKeys.size();
+            blockKeys.clear();
+            block.reset();
+        }
+    }
+
+    // ==================== READER ====================
+
+    /**
+     * Reads a finished backup. Not thread-safe.
+     */
+    public static final class Reader implements Closeable {
+
+        private final FileChannel channel;
+        private final Header header;
+        private final List<BlockEntry> blocks;
+        private final long records;
+        private final long size;
+
+        private Reader(FileChannel channel, Header header, List<BlockEntry> blocks, long size) {
+            this.channel = channel;
+            this.header = header;
+            this.blocks = blocks;
+            this.size = size;
+            long count = 0;
+            for (BlockEntry entry : blocks) {
+                count += entry.keys().size();
+            }
+            this.records = count;
+        }
+
+        public static Reader open(Path file) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                long size = channel.size();
+                if (size < TRAILER_BYTES) {
+                    throw new IOException("Not a finished backup: " + file);
+                }
+
+                ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+                readFully(channel, trailer, size - TRAILER_BYTES);
+                trailer.flip();
+                long indexOffset = trailer.getLong();
+                if (trailer.getInt() != END_MAGIC) {
+                    throw new IOException("Backup has no index (unfinished?): " + file);
+                }
+
+                DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel.position(0))));
+                Header header = readHeader(in);
+
+                in = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel.position(indexOffset))));
+                if (in.readInt() != INDEX_MAGIC) {
+                    throw new IOException("Corrupt backup index: " + file);
+                }
+                int blockCount = in.readInt();
+                List<BlockEntry> blocks = new ArrayList<>(blockCount);
+                for (int b = 0; b < blockCount; b++) {
+                    long offset = in.readLong();
+                    long firstOrdinal = in.readLong();
+                    int keyCount = in.readInt();
+                    List<String> keys = new ArrayList<>(keyCount);
+                    for (int k = 0; k < keyCount; k++) {
+                        keys.add(readString(in));
+                    }
+                    blocks.add(new BlockEntry(offset, firstOrdinal, keys));
+                }
+
+                return new Reader(channel, header, blocks, size);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        public Header header() {
+            return header;
+        }
+
+        public long recordCount() {
+            return records;
+        }
+
+        public long sizeBytes() {
+            return size;
+        }
+
+        /**
+         * Lazily iterate records from an ordinal on, inflating one block at a time
+         */
+        public Iterator<Record> records(long fromOrdinal) {
+            int startBlock = blockOf(fromOrdinal);
+
+            return new Iterator<>() {
+                private int nextBlock = startBlock;
+                private Iterator<Record> current = Collections.emptyIterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!current.hasNext() && nextBlock < blocks.size()) {
+                        BlockEntry entry = blocks.get(nextBlock++);
+                        List<Record> blockRecords = load(entry);
+                        current = blockRecords.stream()
+                            .filter(record -> record.ordinal() >= fromOrdinal)
+                            .iterator();
+                    }
+                    return current.hasNext();
+                }
+
+                @Override
+                public Record next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return current.next();
+                }
+            };
+        }
+
+        /**
+         * Random-access lookup of the last record written under a key
+         */
+        public Optional<Record> find(String key) {
+            for (int b = blocks.size() - 1; b >= 0; b--) {
+                BlockEntry entry = blocks.get(b);
+                int index = entry.keys().lastIndexOf(key);
+                if (index >= 0) {
+                    return Optional.of(load(entry).get(index));
+                }
+            }
+            return Optional.empty();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private int blockOf(long ordinal) {
+            int low = 0;
+            int high = blocks.size() - 1;
+            int found = blocks.size();
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                BlockEntry entry = blocks.get(mid);
+                if (entry.firstOrdinal() + entry.keys().size() <= ordinal) {
+                    low = mid + 1;
+                } else {
+                    found = mid;
+                    high = mid - 1;
+                }
+            }
+            return found;
+        }
+
+        private List<Record> load(BlockEntry entry) {
+            try {
+                List<Record> blockRecords = readBlock(channel, entry.offset(), entry.firstOrdinal());
+                if (blockRecords == null) {
+                    throw new IOException("Corrupt backup block at offset " + entry.offset());
+                }
+                return blockRecords;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // ==================== BLOCK I/O ====================
+
+    /**
+     * Read and verify one block
+     *
+     * @return Records, or null when the block is truncated or fails its checksum
+     */
+    private static List<Record> readBlock(FileChannel channel, long offset, long firstOrdinal) throws IOException {
+        long size = channel.size();
+        if (offset + BLOCK_HEADER_BYTES > size) {
+            return null;
+        }
+
+        ByteBuffer head = ByteBuffer.allocate(BLOCK_HEADER_BYTES);
+        readFully(channel, head, offset);
+        head.flip();
+        int rawLength = head.getInt();
+        int compressedLength = head.getInt();
+        int recordCount = head.getInt();
+        int checksum = head.getInt();
+
+        if (rawLength < 0 || compressedLength < 0 || recordCount < 0
+                || offset + BLOCK_HEADER_BYTES + compressedLength > size) {
+            return null;
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(compressedLength);
+        readFully(channel, body, offset + BLOCK_HEADER_BYTES);
+
+        byte[] raw;
+        try {
+            raw = inflate(body.array(), rawLength);
+        } catch (DataFormatException e) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        List<Record> blockRecords = new ArrayList<>(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+            String key = readString(in);
+            byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            blockRecords.add(new Record(firstOrdinal + i, key, payload));
+        }
+        return blockRecords;
+    }
+
+    private static long nextBlockOffset(FileChannel channel, long offset) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(BLOCK_HEADER_BYTES);
+        readFully(channel, head, offset);
+        head.flip();
+        head.getInt();
+        return offset + BLOCK_HEADER_BYTES + head.getInt();
+    }
+
+    private static Header readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a memory backup file");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported backup version: " + version);
+        }
+        String userId = readString(in);
+        return new Header(userId, Instant.ofEpochMilli(in.readLong()));
+    }
+
+    private static long headerLength(Header header) {
+        return 2L * Integer.BYTES + stringLength(header.userId()) + Long.BYTES;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int rawLength) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, rawLength - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated block");
+                }
+                read += n;
+            }
+            if (read != rawLength) {
+                throw new DataFormatException("Block shorter than declared");
+            }
+            return raw;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int stringLength(String value) {
+        return Integer.BYTES + (value == null ? "" : value).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+}
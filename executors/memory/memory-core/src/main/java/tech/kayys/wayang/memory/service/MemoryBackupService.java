@@ -1,123 +1,286 @@
 package tech.kayys.wayang.memory.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import tech.kayys.wayang.memory.model.MemoryBackup;
 import tech.kayys.wayang.memory.model.MemoryContext;
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.common.vertx.VertxContext;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.quarkus.vertx.core.runtime.context.VertxContextSafetyToggle;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.List;
-import java.util.zip.GZIPOutputStream;
-import java.util.zip.GZIPInputStream;
-import java.io.*;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+/**
+ * Backs memory contexts up to {@link BackupArchive} files.
+ *
+ * Sessions are fetched one at a time and appended to the archive as they
+ * arrive, so memory use is bounded by one block rather than the whole backup.
+ * An interrupted backup can be resumed, and a restore can start from any
+ * record ordinal.
+ *
+ * Archive IO is blocking and runs on the worker pool; every
+ * {@link MemoryService} call is switched back to the caller's Vert.x context,
+ * which the Hibernate Reactive sessions behind it require.
+ */
 @ApplicationScoped
 public class MemoryBackupService {
-    
+
     private static final Logger LOG = LoggerFactory.getLogger(MemoryBackupService.class);
-    
+
+    private static final String EXTENSION = ".wmb";
+
     @Inject
     MemoryService memoryService;
-    
+
     @Inject
     MemoryEventPublisher eventPublisher;
 
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    Vertx vertx;
+
+    @ConfigProperty(name = "memory.backup.dir", defaultValue = "data/backups")
+    String backupDir;
+
+    // Uncompressed bytes buffered before a block is compressed and synced
+    @ConfigProperty(name = "memory.backup.block-size", defaultValue = "1048576")
+    int blockSize;
+
     public Uni<MemoryBackup> createBackup(String userId, List<String> sessionIds) {
         LOG.info("Creating backup for user: {} with {} sessions", userId, sessionIds.size());
-        
-        return Multi.createFrom().iterable(sessionIds)
-            .onItem().transformToUniAndMerge(sessionId -> 
-                memoryService.getContext(sessionId, userId))
-            .collect().asList()
-            .onItem().transformToUni(contexts -> 
-                compressAndStore(userId, contexts))
-            .onItem().invoke(backup -> 
+
+        String backupId = UUID.randomUUID().toString();
+        Executor context = serviceContext();
+        return openWriter(() -> BackupArchive.Writer.create(
+                backupFile(backupId), new BackupArchive.Header(userId, Instant.now()), blockSize))
+            .onItem().transformToUni(writer -> writeSessions(backupId, writer, userId, sessionIds, context))
+            .onItem().invoke(backup ->
                 LOG.info("Backup created: {}", backup.getBackupId()));
     }
 
+    /**
+     * Continue an interrupted backup, skipping sessions it already holds
+     */
+    public Uni<MemoryBackup> resumeBackup(String backupId, List<String> sessionIds) {
+        LOG.info("Resuming backup: {}", backupId);
+
+        Executor context = serviceContext();
+        return openWriter(() -> BackupArchive.Writer.resume(backupFile(backupId), blockSize))
+            .onItem().transformToUni(writer -> {
+                LOG.info("Backup {} already holds {} sessions", backupId, writer.recordCount());
+                return writeSessions(backupId, writer, writer.header().userId(), sessionIds, context);
+            });
+    }
+
+    /**
+     * Restore every context in a backup
+     *
+     * @return The restored contexts, in backup order
+     */
     public Uni<List<MemoryContext>> restoreBackup(String backupId) {
         LOG.info("Restoring backup: {}", backupId);
-        
-        return loadBackup(backupId)
-            .onItem().transformToUni(backup -> 
-                decompressBackup(backup))
-            .onItem().transformToUni(contexts -> 
-                Multi.createFrom().iterable(contexts)
-                    .onItem().transformToUniAndMerge(context -> 
-                        memoryService.storeContext(context))
-                    .collect().asList()
-                    .replaceWith(contexts))
-            .onItem().invoke(contexts -> 
+
+        return restoreContexts(backupId, 0)
+            .collect().asList()
+            .onItem().invoke(contexts ->
                 LOG.info("Restored {} contexts from backup: {}", contexts.size(), backupId));
     }
 
+    /**
+     * Restore contexts in backup order, starting at a record ordinal.
+     * Contexts are not collected, so memory stays bounded by one block.
+     *
+     * @return Number of contexts restored
+     */
+    public Uni<Long> restoreBackup(String backupId, long fromRecord) {
+        LOG.info("Restoring backup: {} from record {}", backupId, fromRecord);
+
+        return restoreContexts(backupId, fromRecord)
+            .collect().with(Collectors.counting())
+            .onItem().invoke(count ->
+                LOG.info("Restored {} contexts from backup: {}", count, backupId));
+    }
+
+    /**
+     * Random-access read of a single session's context from a backup
+     */
+    public Uni<MemoryContext> readSession(String backupId, String sessionId) {
+        return openReader(backupId)
+            .onItem().transform(reader -> {
+                try {
+                    return reader.find(sessionId)
+                        .map(record -> readContext(record.payload()))
+                        .orElse(null);
+                } finally {
+                    closeQuietly(reader);
+                }
+            });
+    }
+
+    /**
+     * Backup metadata from the archive header and index; no contexts are read
+     */
+    public Uni<MemoryBackup> loadBackup(String backupId) {
+        return openReader(backupId)
+            .onItem().transform(reader -> {
+                try {
+                    return describe(backupId, reader.header(), reader.recordCount(), reader.sizeBytes());
+                } finally {
+                    closeQuietly(reader);
+                }
+            });
+    }
+
     public Uni<Void> schedulePeriodicBackup(String userId, java.time.Duration interval) {
         LOG.info("Scheduling periodic backup for user: {} every: {}", userId, interval);
-        
+
         // Implementation would use Quarkus Scheduler
         return eventPublisher.publishBackupScheduled(userId, interval);
     }
 
-    private Uni<MemoryBackup> compressAndStore(String userId, List<MemoryContext> contexts) {
+    private Multi<MemoryContext> restoreContexts(String backupId, long fromRecord) {
+        Executor context = serviceContext();
+        return openReader(backupId)
+            .onItem().transformToMulti(reader -> Multi.createFrom()
+                    .iterable(() -> reader.records(fromRecord))
+                    .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+                    .onItem().transform(record -> readContext(record.payload()))
+                    .onItem().transformToUniAndConcatenate(restored ->
+                        onContext(context, () -> memoryService.storeContext(restored))
+                            .replaceWith(restored))
+                    .onTermination().invoke(() -> closeQuietly(reader)));
+    }
+
+    private Uni<MemoryBackup> writeSessions(String backupId, BackupArchive.Writer writer,
+            String userId, List<String> sessionIds, Executor context) {
+
+        return Multi.createFrom().iterable(sessionIds)
+            .select().where(sessionId -> !writer.contains(sessionId))
+            .onItem().transformToUniAndConcatenate(sessionId ->
+                onContext(context, () -> memoryService.getContext(sessionId, userId)))
+            .emitOn(Infrastructure.getDefaultWorkerPool())
+            .onItem().invoke(fetched -> append(writer, fetched))
+            .collect().with(Collectors.counting())
+            .onItem().transform(written -> {
+                try {
+                    long size = writer.finish();
+                    return describe(backupId, writer.header(), writer.recordCount(), size);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to finish backup " + backupId, e);
+                }
+            })
+            .onTermination().invoke(() -> closeQuietly(writer));
+    }
+
+    /**
+     * Subscribe to a service call on the Vert.x context, whatever thread
+     * the archive IO left us on
+     */
+    private static <T> Uni<T> onContext(Executor context, Supplier<Uni<T>> call) {
+        return Uni.createFrom().deferred(call).runSubscriptionOn(context);
+    }
+
+    /**
+     * The caller's Vert.x context, or a fresh safe duplicated context when
+     * called from outside one (e.g. the scheduler)
+     */
+    private Executor serviceContext() {
+        Context context = Vertx.currentContext();
+        if (context == null) {
+            context = VertxContext.createNewDuplicatedContext(vertx.getOrCreateContext());
+            VertxContextSafetyToggle.setContextSafe(context, true);
+        }
+        Context target = context;
+        return command -> target.runOnContext(ignored -> command.run());
+    }
+
+    private void append(BackupArchive.Writer writer, MemoryContext context) {
+        if (context == null) {
+            return;
+        }
+        try {
+            writer.append(context.getSessionId(), objectMapper.writeValueAsBytes(context));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write session " + context.getSessionId(), e);
+        }
+    }
+
+    private MemoryContext readContext(byte[] payload) {
+        try {
+            return objectMapper.readValue(payload, MemoryContext.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read backed up context", e);
+        }
+    }
+
+    private Uni<BackupArchive.Writer> openWriter(IOSupplier<BackupArchive.Writer> opener) {
         return Uni.createFrom().item(() -> {
-            try {
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                GZIPOutputStream gzipOut = new GZIPOutputStream(baos);
-                ObjectOutputStream objectOut = new ObjectOutputStream(gzipOut);
-                
-                objectOut.writeObject(contexts);
-                objectOut.close();
-                
-                byte[] compressedData = baos.toByteArray();
-                
-                MemoryBackup backup = new MemoryBackup(
-                    java.util.UUID.randomUUID().toString(),
-                    userId,
-                    contexts.size(),
-                    compressedData.length,
-                    Instant.now(),
-                    compressedData
-                );
-                
-                // Store backup to persistent storage (S3, filesystem, etc.)
-                storeBackupData(backup);
-                
-                return backup;
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to compress backup", e);
-            }
-        });
-    }
-
-    private Uni<MemoryBackup> loadBackup(String backupId) {
-        // Implementation would load from persistent storage
-        return Uni.createFrom().nullItem();
-    }
-
-    private Uni<List<MemoryContext>> decompressBackup(MemoryBackup backup) {
+                try {
+                    return opener.get();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to open backup", e);
+                }
+            })
+            .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    private Uni<BackupArchive.Reader> openReader(String backupId) {
         return Uni.createFrom().item(() -> {
-            try {
-                ByteArrayInputStream bais = new ByteArrayInputStream(backup.getData());
-                GZIPInputStream gzipIn = new GZIPInputStream(bais);
-                ObjectInputStream objectIn = new ObjectInputStream(gzipIn);
-                
-                @SuppressWarnings("unchecked")
-                List<MemoryContext> contexts = (List<MemoryContext>) objectIn.readObject();
-                objectIn.close();
-                
-                return contexts;
-            } catch (IOException | ClassNotFoundException e) {
-                throw new RuntimeException("Failed to decompress backup", e);
-            }
-        });
-    }
-
-    private void storeBackupData(MemoryBackup backup) {
-        // Implementation would store to S3, filesystem, etc.
-        LOG.info("Storing backup data for backup: {}", backup.getBackupId());
-    }
-}
\ No newline at end of file
+                Path file = backupFile(backupId);
+                if (!Files.exists(file)) {
+                    throw new IllegalArgumentException("Backup not found: " + backupId);
+                }
+                try {
+                    return BackupArchive.Reader.open(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to open backup " + backupId, e);
+                }
+            })
+            .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    private Path backupFile(String backupId) {
+        if (!backupId.matches("[A-Za-z0-9._-]+")) {
+            throw new IllegalArgumentException("Invalid backup id: " + backupId);
+        }
+        return Paths.get(backupDir, backupId + EXTENSION);
+    }
+
+    private static MemoryBackup describe(
+            String backupId, BackupArchive.Header header, long records, long size) {
+        return new MemoryBackup(backupId, header.userId(), (int) records, size, header.createdAt(), null);
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            LOG.warn("Failed to close backup file", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IOSupplier<T> {
+        T get() throws IOException;
+    }
+}
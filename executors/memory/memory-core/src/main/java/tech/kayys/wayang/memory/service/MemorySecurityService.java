@@ -2,6 +2,7 @@ package tech.kayys.wayang.memory.service;
 
 import tech.kayys.wayang.memory.model.MemoryContext;
 import tech.kayys.wayang.memory.model.SecurityScanResult;
+import tech.kayys.wayang.pii.PiiScanner;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.slf4j.Logger;
@@ -15,7 +16,7 @@ import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.Base64;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
@@ -23,15 +24,19 @@ public class MemorySecurityService {
     
     private static final Logger LOG = LoggerFactory.getLogger(MemorySecurityService.class);
     
-    // PII Detection patterns
-    private static final Pattern EMAIL_PATTERN = Pattern.compile(
-        "\\b[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Z|a-z]{2,}\\b");
-    private static final Pattern PHONE_PATTERN = Pattern.compile(
-        "\\b\\d{3}[-.\\s]?\\d{3}[-.\\s]?\\d{4}\\b");
-    private static final Pattern SSN_PATTERN = Pattern.compile(
-        "\\b\\d{3}-\\d{2}-\\d{4}\\b");
-    private static final Pattern CREDIT_CARD_PATTERN = Pattern.compile(
-        "\\b\\d{4}[\\s-]?\\d{4}[\\s-]?\\d{4}[\\s-]?\\d{4}\\b");
+    // PII detection patterns, compiled into one automaton and scanned in a single pass
+    private static final PiiScanner PII_SCANNER = PiiScanner.builder()
+        .pattern("EMAIL", "\\b[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Z|a-z]{2,}\\b", "[EMAIL_REDACTED]")
+        .pattern("PHONE", "\\b\\d{3}[-.\\s]?\\d{3}[-.\\s]?\\d{4}\\b", "[PHONE_REDACTED]")
+        .pattern("SSN", "\\b\\d{3}-\\d{2}-\\d{4}\\b", "[SSN_REDACTED]")
+        .pattern("CREDIT_CARD", "\\b\\d{4}[\\s-]?\\d{4}[\\s-]?\\d{4}[\\s-]?\\d{4}\\b", "[CARD_REDACTED]")
+        .build();
+
+    private static final Map<String, String> PII_DESCRIPTIONS = Map.of(
+        "EMAIL", "Email address found",
+        "PHONE", "Phone number found",
+        "SSN", "Social Security Number found",
+        "CREDIT_CARD", "Credit card number found");
 
     public Uni<SecurityScanResult> scanMemoryForPII(MemoryContext context) {
         LOG.info("Scanning memory for PII in session: {}", context.getSessionId());
@@ -41,22 +46,8 @@ public class MemorySecurityService {
                 .sessionId(context.getSessionId());
             
             context.getConversations().forEach(memory -> {
-                String content = memory.getContent();
-                
-                if (EMAIL_PATTERN.matcher(content).find()) {
-                    resultBuilder.addViolation("EMAIL_DETECTED", memory.getId(), "Email address found");
-                }
-                
-                if (PHONE_PATTERN.matcher(content).find()) {
-                    resultBuilder.addViolation("PHONE_DETECTED", memory.getId(), "Phone number found");
-                }
-                
-                if (SSN_PATTERN.matcher(content).find()) {
-                    resultBuilder.addViolation("SSN_DETECTED", memory.getId(), "Social Security Number found");
-                }
-                
-                if (CREDIT_CARD_PATTERN.matcher(content).find()) {
-                    resultBuilder.addViolation("CREDIT_CARD_DETECTED", memory.getId(), "Credit card number found");
+                for (String type : PII_SCANNER.detectTypes(memory.getContent())) {
+                    resultBuilder.addViolation(type + "_DETECTED", memory.getId(), PII_DESCRIPTIONS.get(type));
                 }
             });
             
@@ -116,13 +107,8 @@ public class MemorySecurityService {
     }
 
     private ConversationMemory sanitizeConversationMemory(ConversationMemory memory) {
-        String sanitizedContent = memory.getContent();
-        
         // Replace PII with placeholders
-        sanitizedContent = EMAIL_PATTERN.matcher(sanitizedContent).replaceAll("[EMAIL_REDACTED]");
-        sanitizedContent = PHONE_PATTERN.matcher(sanitizedContent).replaceAll("[PHONE_REDACTED]");
-        sanitizedContent = SSN_PATTERN.matcher(sanitizedContent).replaceAll("[SSN_REDACTED]");
-        sanitizedContent = CREDIT_CARD_PATTERN.matcher(sanitizedContent).replaceAll("[CARD_REDACTED]");
+        String sanitizedContent = PII_SCANNER.redact(memory.getContent());
         
         return new ConversationMemory(
             memory.getId(),
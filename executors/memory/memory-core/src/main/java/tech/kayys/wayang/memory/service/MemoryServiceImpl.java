@@ -13,6 +13,7 @@ import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import tech.kayys.wayang.memory.similarity.SimilarityKernels;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -128,18 +129,21 @@ public class MemoryServiceImpl implements MemoryService {
             .onItem().transformToUni(queryEmbedding -> 
                 ConversationMemoryEntity.<ConversationMemoryEntity>find("sessionId = ?1", sessionId)
                     .list()
-                    .onItem().transform(entities -> 
-                        entities.stream()
-                            .map(entity -> {
-                                double similarity = calculateCosineSimilarity(
-                                    queryEmbedding, entity.embedding);
-                                return convertToConversationMemory(entity, similarity);
-                            })
-                            .filter(memory -> memory.getRelevanceScore() > similarityThreshold)
-                            .sorted((m1, m2) -> Double.compare(m2.getRelevanceScore(), m1.getRelevanceScore()))
+                    .onItem().transform(entities -> {
+                        // Score every entity once and convert only the memories returned
+                        List<Map.Entry<ConversationMemoryEntity, Double>> scored = new ArrayList<>();
+                        for (ConversationMemoryEntity entity : entities) {
+                            double similarity = calculateCosineSimilarity(queryEmbedding, entity.embedding);
+                            if (similarity > similarityThreshold) {
+                                scored.add(Map.entry(entity, similarity));
+                            }
+                        }
+                        return scored.stream()
+                            .sorted(Map.Entry.<ConversationMemoryEntity, Double>comparingByValue().reversed())
                             .limit(limit)
-                            .collect(Collectors.toList())
-                    )
+                            .map(entry -> convertToConversationMemory(entry.getKey(), entry.getValue()))
+                            .collect(Collectors.toList());
+                    })
             );
     }
 
@@ -251,7 +255,7 @@ public class MemoryServiceImpl implements MemoryService {
                     "assistant",
                     result.getContent(),
                     result.getMetadata(),
-                    embedding,
+                    toList(embedding),
                     result.getTimestamp(),
                     null
                 )
@@ -288,12 +292,10 @@ public class MemoryServiceImpl implements MemoryService {
         return entity.persist().replaceWithVoid();
     }
 
-    private Uni<List<Double>> generateEmbedding(String text) {
+    private Uni<float[]> generateEmbedding(String text) {
         return Uni.createFrom().item(() -> {
             Embedding embedding = embeddingModel.embed(text).content();
-            return Arrays.stream(embedding.vector())
-                .boxed()
-                .collect(Collectors.toList());
+            return embedding.vector();
         });
     }
 
@@ -313,29 +315,28 @@ public class MemoryServiceImpl implements MemoryService {
                     "system",
                     summary,
                     Map.of("type", "summary", "summarized_count", memories.size()),
-                    embedding,
+                    toList(embedding),
                     Instant.now(),
                     1.0
                 )
             );
     }
 
-    private double calculateCosineSimilarity(List<Double> vec1, List<Double> vec2) {
-        if (vec1.size() != vec2.size()) return 0.0;
+    private double calculateCosineSimilarity(float[] query, List<Double> embedding) {
+        if (embedding == null || query.length != embedding.size()) return 0.0;
         
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
+        // Rows stay one value per dimension in memory_embeddings; unboxed once per entity
+        return SimilarityKernels.cosine(query, SimilarityKernels.toFloatArray(embedding));
+    }
+
+    private static List<Double> toList(float[] embedding) {
+        if (embedding == null) return null;
         
-        for (int i = 0; i < vec1.size(); i++) {
-            dotProduct += vec1.get(i) * vec2.get(i);
-            norm1 += vec1.get(i) * vec1.get(i);
-            norm2 += vec2.get(i) * vec2.get(i);
+        List<Double> values = new ArrayList<>(embedding.length);
+        for (float value : embedding) {
+            values.add((double) value);
         }
-        
-        if (norm1 == 0 || norm2 == 0) return 0.0;
-        
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+        return values;
     }
 
     private ConversationMemory convertToConversationMemory(ConversationMemoryEntity entity, Double relevanceScore) {
@@ -0,0 +1,130 @@
+package tech.kayys.wayang.memory.context;
+
+import org.junit.jupiter.api.Test;
+import tech.kayys.wayang.memory.similarity.SimilarityKernels;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LshIndexTest {
+
+    private static final int DIMENSION = 64;
+    private static final int VECTORS = 2000;
+    private static final int QUERIES = 500;
+
+    // Gaussian noise added to a stored vector to make a query near it
+    private static final double NOISE = 0.4;
+
+    @Test
+    void testMultiProbeRecallOfNearestNeighbour() {
+        Random random = new Random(1);
+        List<float[]> vectors = new ArrayList<>();
+        LshIndex index = new LshIndex(new LshIndex.Projections(5, 8, 42));
+        for (int i = 0; i < VECTORS; i++) {
+            float[] vector = randomVector(random);
+            vectors.add(vector);
+            index.add("m" + i, vector);
+        }
+
+        int exactBucketHits = 0;
+        int probedHits = 0;
+        long probedCandidates = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            float[] query = vectors.get(random.nextInt(VECTORS)).clone();
+            for (int i = 0; i < DIMENSION; i++) {
+                query[i] += (float) (random.nextGaussian() * NOISE);
+            }
+            String nearest = "m" + nearest(vectors, query);
+
+            if (index.query(query, 0).contains(nearest)) {
+                exactBucketHits++;
+            }
+            Set<String> probed = index.query(query, 2);
+            probedCandidates += probed.size();
+            if (probed.contains(nearest)) {
+                probedHits++;
+            }
+        }
+
+        double exactRecall = (double) exactBucketHits / QUERIES;
+        double probedRecall = (double) probedHits / QUERIES;
+        assertTrue(exactRecall >= 0.85, "recall without probes " + exactRecall);
+        assertTrue(probedRecall >= 0.97, "recall with 2 probes " + probedRecall);
+        assertTrue(probedRecall > exactRecall);
+        // Candidates stay a small fraction of the index
+        assertTrue(probedCandidates / QUERIES < VECTORS / 10,
+            "average candidates " + probedCandidates / QUERIES);
+    }
+
+    @Test
+    void testReindexAndRemoveOnlyTouchTheirBuckets() {
+        Random random = new Random(2);
+        LshIndex index = new LshIndex(new LshIndex.Projections(4, 6, 7));
+        float[] first = randomVector(random);
+        float[] second = randomVector(random);
+
+        index.add("a", first);
+        index.add("b", first);
+        assertTrue(index.query(first, 0).containsAll(Set.of("a", "b")));
+
+        index.add("a", second);
+        assertTrue(index.query(second, 0).contains("a"));
+        assertFalse(index.query(first, 0).contains("a"));
+        assertTrue(index.query(first, 0).contains("b"));
+        assertEquals(2, index.size());
+
+        index.remove("b");
+        index.remove("missing");
+        assertFalse(index.query(first, 0).contains("b"));
+        assertEquals(1, index.size());
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertTrue(index.query(second, 2).isEmpty());
+    }
+
+    @Test
+    void testProjectionsAreSharedAndDeterministic() {
+        float[] vector = randomVector(new Random(3));
+
+        LshIndex.Hash first = new LshIndex.Projections(5, 8, 42).hash(vector);
+        LshIndex.Hash second = new LshIndex.Projections(5, 8, 42).hash(vector);
+
+        assertArrayEquals(first.signatures(), second.signatures());
+        assertEquals(5 * 8, first.projections().length);
+        for (int signature : first.signatures()) {
+            assertEquals(0, signature >>> 8);
+        }
+    }
+
+    @Test
+    void testInvalidShapeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new LshIndex.Projections(0, 8, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LshIndex.Projections(4, 33, 1));
+    }
+
+    private static int nearest(List<float[]> vectors, float[] query) {
+        int best = -1;
+        double bestSimilarity = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < vectors.size(); i++) {
+            double similarity = SimilarityKernels.cosine(query, vectors.get(i));
+            if (similarity > bestSimilarity) {
+                bestSimilarity = similarity;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
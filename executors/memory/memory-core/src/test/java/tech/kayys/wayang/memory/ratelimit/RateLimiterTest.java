@@ -0,0 +1,112 @@
+package tech.kayys.wayang.memory.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.smallrye.mutiny.Uni;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static final Duration WINDOW = Duration.ofSeconds(10);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    @Test
+    void testAllowsUpToLimitWithinWindow() {
+        RateLimiter limiter = new RateLimiter(
+            new InMemoryRateLimitStore(clock::get), false, 0, Duration.ZERO, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(check(limiter, 5));
+        }
+        assertFalse(check(limiter, 5));
+
+        RateLimiter.Decision denied = limiter.acquire("user", 5, WINDOW).await().indefinitely();
+        assertEquals(Duration.ofSeconds(2), denied.retryAfter());
+    }
+
+    @Test
+    void testWindowSlidesOneTokenAtATime() {
+        RateLimiter limiter = new RateLimiter(
+            new InMemoryRateLimitStore(clock::get), false, 0, Duration.ZERO, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            check(limiter, 5);
+        }
+
+        clock.addAndGet(2_000);
+        assertTrue(check(limiter, 5));
+        assertFalse(check(limiter, 5));
+
+        clock.addAndGet(WINDOW.toMillis());
+        assertEquals(0, limiter.getRateLimitInfo("user").await().indefinitely().currentRequests);
+    }
+
+    @Test
+    void testLeaseServesRequestsLocally() {
+        CountingStore store = new CountingStore(new InMemoryRateLimitStore(clock::get));
+        RateLimiter limiter = new RateLimiter(store, true, 10, Duration.ofSeconds(1), clock::get);
+
+        int allowed = 0;
+        for (int i = 0; i < 150; i++) {
+            if (check(limiter, 100)) {
+                allowed++;
+            }
+        }
+
+        // Given a limit of 100, when leasing blocks of 10, then 10 store calls cover the budget
+        // and each of the 50 requests over it costs one denied call
+        assertEquals(100, allowed);
+        assertEquals(60, store.calls.get());
+        assertEquals(10, store.granting.get());
+    }
+
+    @Test
+    void testExpiredLeaseIsNotUsed() {
+        RateLimitStore store = new InMemoryRateLimitStore(clock::get);
+        RateLimiter limiter = new RateLimiter(store, true, 10, Duration.ofMillis(100), clock::get);
+
+        assertTrue(check(limiter, 100));
+        clock.addAndGet(WINDOW.toMillis());
+
+        // The nine unused leased tokens lapsed; the store has fully recovered
+        assertTrue(check(limiter, 100));
+        assertEquals(10, store.inUse("ratelimit:gcra:user").await().indefinitely());
+    }
+
+    private boolean check(RateLimiter limiter, int limit) {
+        return limiter.checkRateLimit("user", limit, WINDOW).await().indefinitely();
+    }
+
+    private static final class CountingStore implements RateLimitStore {
+
+        private final RateLimitStore delegate;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger granting = new AtomicInteger();
+
+        private CountingStore(RateLimitStore delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Uni<Grant> acquire(String key, Duration window, int limit, int requested) {
+            calls.incrementAndGet();
+            return delegate.acquire(key, window, limit, requested)
+                .invoke(grant -> {
+                    if (grant.allowed()) {
+                        granting.incrementAndGet();
+                    }
+                });
+        }
+
+        @Override
+        public Uni<Integer> inUse(String key) {
+            return delegate.inUse(key);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package tech.kayys.wayang.memory.ratelimit;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.redis.client.Redis;
+import io.vertx.mutiny.redis.client.RedisAPI;
+import io.vertx.mutiny.redis.client.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the GCRA Lua scripts of {@link RedisRateLimitStore} on an embedded
+ * Redis server
+ */
+class RedisRateLimitStoreTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    // Long enough that no token is refilled while a test runs
+    private static final Duration WINDOW = Duration.ofMinutes(10);
+    private static final String KEY = "ratelimit:gcra:user";
+
+    private RedisServer server;
+    private Vertx vertx;
+    private Redis client;
+    private RedisAPI redisAPI;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new RedisServer(port);
+        server.start();
+
+        vertx = Vertx.vertx();
+        client = Redis.createClient(vertx, "redis://localhost:" + port);
+        redisAPI = RedisAPI.api(client);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        redisAPI.close();
+        client.close();
+        vertx.closeAndAwait();
+        server.stop();
+    }
+
+    @Test
+    void testAllowsUpToLimitThenDenies() {
+        RedisRateLimitStore store = store();
+
+        for (int i = 0; i < 5; i++) {
+            RateLimitStore.Grant grant = acquire(store, 5, 1);
+            assertEquals(1, grant.granted());
+            assertEquals(4 - i, grant.remaining());
+        }
+
+        RateLimitStore.Grant denied = acquire(store, 5, 1);
+        assertFalse(denied.allowed());
+        assertEquals(0, denied.remaining());
+        // One token frees up every window / limit
+        long interval = WINDOW.toMillis() / 5;
+        assertTrue(denied.retryAfter().toMillis() > interval - 1_000, "retry after " + denied.retryAfter());
+        assertTrue(denied.retryAfter().toMillis() <= interval, "retry after " + denied.retryAfter());
+    }
+
+    @Test
+    void testGrantsAsManyTokensAsFit() {
+        RedisRateLimitStore store = store();
+
+        assertEquals(new RateLimitStore.Grant(10, 90, Duration.ZERO), acquire(store, 100, 10));
+        assertEquals(new RateLimitStore.Grant(85, 5, Duration.ZERO), acquire(store, 100, 85));
+        assertEquals(new RateLimitStore.Grant(5, 0, Duration.ZERO), acquire(store, 100, 10));
+        assertFalse(acquire(store, 100, 1).allowed());
+    }
+
+    @Test
+    void testInUseCountsGrantedTokens() {
+        RedisRateLimitStore store = store();
+
+        assertEquals(0, inUse(store));
+        acquire(store, 100, 7);
+        acquire(store, 100, 1);
+
+        assertEquals(8, inUse(store));
+    }
+
+    @Test
+    void testStateExpiresWhenTheWindowDrains() {
+        RedisRateLimitStore store = store();
+
+        acquire(store, 100, 10);
+
+        assertNotNull(redisAPI.hget(KEY, "tat").await().atMost(TIMEOUT));
+        Response interval = redisAPI.hget(KEY, "interval").await().atMost(TIMEOUT);
+        assertEquals(WINDOW.toMillis() / 100.0, Double.parseDouble(interval.toString()), 1e-3);
+
+        // Ten tokens take a tenth of the window to drain
+        long ttl = redisAPI.pttl(KEY).await().atMost(TIMEOUT).toLong();
+        assertTrue(ttl > 0 && ttl <= WINDOW.toMillis() / 10, "ttl " + ttl);
+    }
+
+    @Test
+    void testFallsBackToEvalWhenScriptIsNotCached() {
+        RedisRateLimitStore store = store();
+        acquire(store, 5, 1);
+
+        redisAPI.script(List.of("FLUSH")).await().atMost(TIMEOUT);
+
+        assertEquals(1, acquire(store, 5, 1).granted());
+        assertEquals(2, inUse(store));
+    }
+
+    @Test
+    void testConcurrentNodesNeverOverAdmit() {
+        // Two stores share one Redis, like two nodes of the service
+        RedisRateLimitStore first = store();
+        RedisRateLimitStore second = store();
+
+        List<Uni<RateLimitStore.Grant>> calls = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            RedisRateLimitStore store = i % 2 == 0 ? first : second;
+            calls.add(store.acquire(KEY, WINDOW, 20, 1));
+        }
+        List<RateLimitStore.Grant> grants = Uni.join().all(calls).andFailFast().await().atMost(TIMEOUT);
+
+        assertEquals(20, grants.stream().filter(RateLimitStore.Grant::allowed).count());
+        assertEquals(20, inUse(first));
+    }
+
+    private RedisRateLimitStore store() {
+        RedisRateLimitStore store = new RedisRateLimitStore();
+        store.redisAPI = redisAPI;
+        return store;
+    }
+
+    private static RateLimitStore.Grant acquire(RedisRateLimitStore store, int limit, int requested) {
+        return store.acquire(KEY, WINDOW, limit, requested).await().atMost(TIMEOUT);
+    }
+
+    private static int inUse(RedisRateLimitStore store) {
+        return store.inUse(KEY).await().atMost(TIMEOUT);
+    }
+}
@@ -0,0 +1,219 @@
+package tech.kayys.wayang.memory.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackupArchiveTest {
+
+    private static final int BLOCK_SIZE = 4096;
+    private static final int RECORDS = 20;
+
+    private static final BackupArchive.Header HEADER =
+        new BackupArchive.Header("user-1", Instant.ofEpochMilli(1_700_000_000_000L));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRoundTripAcrossBlocks() throws IOException {
+        Path file = dir.resolve("backup.wmb");
+        long size;
+        try (BackupArchive.Writer writer = BackupArchive.Writer.create(file, HEADER, BLOCK_SIZE)) {
+            for (int i = 0; i < RECORDS; i++) {
+                writer.append(key(i), payload(i));
+            }
+            size = writer.finish();
+        }
+
+        assertTrue(Files.exists(file));
+        assertFalse(Files.exists(BackupArchive.partialPath(file)));
+
+        try (BackupArchive.Reader reader = BackupArchive.Reader.open(file)) {
+            assertEquals(HEADER, reader.header());
+            assertEquals(RECORDS, reader.recordCount());
+            assertEquals(size, reader.sizeBytes());
+
+            List<BackupArchive.Record> records = readAll(reader.records(0));
+            assertEquals(RECORDS, records.size());
+            for (int i = 0; i < RECORDS; i++) {
+                assertRecord(i, records.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testRecordsFromOrdinal() throws IOException {
+        Path file = write(RECORDS);
+
+        try (BackupArchive.Reader reader = BackupArchive.Reader.open(file)) {
+            for (int from : new int[] {0, 1, 7, RECORDS - 1}) {
+                List<BackupArchive.Record> records = readAll(reader.records(from));
+                assertEquals(RECORDS - from, records.size());
+                for (int i = 0; i < records.size(); i++) {
+                    assertRecord(from + i, records.get(i));
+                }
+            }
+            assertFalse(reader.records(RECORDS).hasNext());
+        }
+    }
+
+    @Test
+    void testFindByKey() throws IOException {
+        Path file = dir.resolve("backup.wmb");
+        try (BackupArchive.Writer writer = BackupArchive.Writer.create(file, HEADER, BLOCK_SIZE)) {
+            for (int i = 0; i < RECORDS; i++) {
+                writer.append(key(i), payload(i));
+            }
+            // A later record under the same key wins
+            writer.append(key(3), "updated".getBytes(StandardCharsets.UTF_8));
+            writer.finish();
+        }
+
+        try (BackupArchive.Reader reader = BackupArchive.Reader.open(file)) {
+            assertRecord(0, reader.find(key(0)).orElseThrow());
+            assertRecord(RECORDS - 1, reader.find(key(RECORDS - 1)).orElseThrow());
+
+            BackupArchive.Record updated = reader.find(key(3)).orElseThrow();
+            assertEquals(RECORDS, updated.ordinal());
+            assertEquals("updated", new String(updated.payload(), StandardCharsets.UTF_8));
+
+            assertTrue(reader.find("missing").isEmpty());
+        }
+    }
+
+    @Test
+    void testResumeDropsTornTailBlock() throws IOException {
+        Path file = dir.resolve("backup.wmb");
+        try (BackupArchive.Writer writer = BackupArchive.Writer.create(file, HEADER, BLOCK_SIZE)) {
+            for (int i = 0; i < RECORDS; i++) {
+                writer.append(key(i), payload(i));
+            }
+            // Interrupted: closed without finish()
+        }
+
+        Path partial = BackupArchive.partialPath(file);
+        assertFalse(Files.exists(file));
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        try (BackupArchive.Writer writer = BackupArchive.Writer.resume(file, BLOCK_SIZE)) {
+            long kept = writer.recordCount();
+            assertTrue(kept > 0 && kept < RECORDS, "torn block should be dropped, kept " + kept);
+            assertEquals(HEADER, writer.header());
+            for (int i = 0; i < RECORDS; i++) {
+                assertEquals(i < kept, writer.contains(key(i)), key(i));
+            }
+
+            for (int i = 0; i < RECORDS; i++) {
+                if (!writer.contains(key(i))) {
+                    writer.append(key(i), payload(i));
+                }
+            }
+            writer.finish();
+        }
+
+        try (BackupArchive.Reader reader = BackupArchive.Reader.open(file)) {
+            List<BackupArchive.Record> records = readAll(reader.records(0));
+            assertEquals(RECORDS, records.size());
+            for (int i = 0; i < RECORDS; i++) {
+                assertRecord(i, records.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testResumeRequiresUnfinishedBackup() throws IOException {
+        Path file = write(3);
+        assertThrows(IOException.class, () -> BackupArchive.Writer.resume(file, BLOCK_SIZE));
+    }
+
+    @Test
+    void testUnfinishedBackupCannotBeRead() throws IOException {
+        Path file = dir.resolve("backup.wmb");
+        try (BackupArchive.Writer writer = BackupArchive.Writer.create(file, HEADER, BLOCK_SIZE)) {
+            writer.append(key(0), payload(0));
+        }
+        assertThrows(IOException.class, () -> BackupArchive.Reader.open(BackupArchive.partialPath(file)));
+    }
+
+    @Test
+    void testCorruptBlockFailsChecksum() throws IOException {
+        Path file = write(RECORDS);
+
+        // Flip one compressed byte of the first block, just past its header
+        try (BackupArchive.Reader reader = BackupArchive.Reader.open(file);
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long offset = firstBlockOffset();
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, offset + 4 * Integer.BYTES + 8);
+            one.flip();
+            byte flipped = (byte) (one.get() ^ 0xFF);
+            channel.write(ByteBuffer.wrap(new byte[] {flipped}), offset + 4 * Integer.BYTES + 8);
+
+            assertThrows(UncheckedIOException.class, () -> reader.records(0).hasNext());
+        }
+    }
+
+    private Path write(int count) throws IOException {
+        Path file = dir.resolve("backup.wmb");
+        try (BackupArchive.Writer writer = BackupArchive.Writer.create(file, HEADER, BLOCK_SIZE)) {
+            for (int i = 0; i < count; i++) {
+                writer.append(key(i), payload(i));
+            }
+            writer.finish();
+        }
+        return file;
+    }
+
+    /**
+     * Header: magic, version, length-prefixed userId, createdAt
+     */
+    private static long firstBlockOffset() {
+        return 2 * Integer.BYTES
+            + Integer.BYTES + HEADER.userId().getBytes(StandardCharsets.UTF_8).length
+            + Long.BYTES;
+    }
+
+    private static List<BackupArchive.Record> readAll(Iterator<BackupArchive.Record> records) {
+        List<BackupArchive.Record> all = new ArrayList<>();
+        records.forEachRemaining(all::add);
+        return all;
+    }
+
+    private static void assertRecord(int ordinal, BackupArchive.Record record) {
+        assertEquals(ordinal, record.ordinal());
+        assertEquals(key(ordinal), record.key());
+        assertArrayEquals(payload(ordinal), record.payload());
+    }
+
+    private static String key(int i) {
+        return "session-" + i;
+    }
+
+    /**
+     * About a third of a block, so records span several blocks
+     */
+    private static byte[] payload(int i) {
+        StringBuilder json = new StringBuilder("{\"sessionId\":\"session-" + i + "\",\"messages\":[");
+        while (json.length() < 1500) {
+            json.append("\"message ").append(i).append('-').append(json.length()).append("\",");
+        }
+        return json.append("\"end\"]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
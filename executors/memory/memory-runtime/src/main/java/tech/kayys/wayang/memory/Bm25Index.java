@@ -0,0 +1,189 @@
+package tech.kayys.silat.executor.memory;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index with Okapi BM25 scoring, maintained incrementally
+ * as memories are stored and deleted.
+ */
+public class Bm25Index {
+
+    private static final Pattern WORD_PATTERN = Pattern.compile("\\w+");
+
+    private final double k1;
+    private final double b;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (memoryId -> term frequency)
+    private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+
+    // memoryId -> distinct terms, so removal only touches the postings it is in
+    private final Map<String, String[]> documentTerms = new HashMap<>();
+
+    // memoryId -> token count
+    private final Map<String, Integer> documentLengths = new HashMap<>();
+
+    private long totalLength = 0;
+
+    public Bm25Index() {
+        this(1.2, 0.75);
+    }
+
+    public Bm25Index(double k1, double b) {
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    /**
+     * Index (or re-index) a memory's content
+     */
+    public void add(String memoryId, String content) {
+        Map<String, Integer> termFrequency = new HashMap<>();
+        int length = 0;
+        if (content != null) {
+            Matcher matcher = WORD_PATTERN.matcher(content.toLowerCase(Locale.ROOT));
+            while (matcher.find()) {
+                termFrequency.merge(matcher.group(), 1, Integer::sum);
+                length++;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(memoryId);
+
+            for (Map.Entry<String, Integer> entry : termFrequency.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+                    .put(memoryId, entry.getValue());
+            }
+            documentTerms.put(memoryId, termFrequency.keySet().toArray(new String[0]));
+            documentLengths.put(memoryId, length);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String memoryId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(memoryId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Score documents containing any of the keywords
+     *
+     * @param keywords Keywords or phrases; each is tokenized like indexed content
+     * @param limit Maximum number of hits
+     * @return Hits ordered by descending BM25 score
+     */
+    public List<Hit> search(Collection<String> keywords, int limit) {
+        Set<String> terms = tokenize(keywords);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Map<String, Double> scores = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documentLengths.size();
+            if (documentCount == 0) {
+                return List.of();
+            }
+            double averageLength = Math.max(1.0, (double) totalLength / documentCount);
+
+            for (String term : terms) {
+                Map<String, Integer> docs = postings.get(term);
+                if (docs == null) {
+                    continue;
+                }
+
+                double idf = Math.log(1.0 + (documentCount - docs.size() + 0.5) / (docs.size() + 0.5));
+                for (Map.Entry<String, Integer> entry : docs.entrySet()) {
+                    int tf = entry.getValue();
+                    int length = documentLengths.get(entry.getKey());
+                    double norm = k1 * (1.0 - b + b * length / averageLength);
+                    double score = idf * (tf * (k1 + 1.0)) / (tf + norm);
+                    scores.merge(entry.getKey(), score, Double::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.comparingDouble(Hit::score));
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            if (top.size() < limit) {
+                top.add(new Hit(entry.getKey(), entry.getValue()));
+            } else if (entry.getValue() > top.peek().score()) {
+                top.poll();
+                top.add(new Hit(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed());
+        return hits;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentLengths.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(String memoryId) {
+        String[] terms = documentTerms.remove(memoryId);
+        if (terms == null) {
+            return;
+        }
+
+        for (String term : terms) {
+            Map<String, Integer> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(memoryId);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+
+        Integer length = documentLengths.remove(memoryId);
+        if (length != null) {
+            totalLength -= length;
+        }
+    }
+
+    private static Set<String> tokenize(Collection<String> keywords) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (keywords == null) {
+            return terms;
+        }
+        for (String keyword : keywords) {
+            if (keyword == null) {
+                continue;
+            }
+            Matcher matcher = WORD_PATTERN.matcher(keyword.toLowerCase(Locale.ROOT));
+            while (matcher.find()) {
+                terms.add(matcher.group());
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * A keyword search hit
+     */
+    public record Hit(String memoryId, double score) {}
+}
@@ -0,0 +1,109 @@
+package tech.kayys.silat.executor.memory;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Vocabulary-free tokenizer approximating BPE pre-tokenization.
+ *
+ * Letter runs are split into pieces of at most {@code maxWordPiece} characters,
+ * digit runs into groups of three, and every other symbol and every CJK
+ * character is its own token. Leading whitespace belongs to the following
+ * token. It is only an approximation of a real vocabulary: it usually
+ * over-counts English text, but it can under-count, for example on emoji or
+ * rare words that BPE splits into many pieces. Provide a {@link Tokenizer}
+ * bean backed by the model's vocabulary when budgets must be exact.
+ */
+public class HeuristicTokenizer implements Tokenizer {
+
+    private static final int MAX_DIGITS = 3;
+
+    private final int maxWordPiece;
+
+    public HeuristicTokenizer() {
+        this(6);
+    }
+
+    public HeuristicTokenizer(int maxWordPiece) {
+        this.maxWordPiece = Math.max(1, maxWordPiece);
+    }
+
+    @Override
+    public Iterator<Token> tokens(CharSequence text) {
+        return new TokenIterator(text);
+    }
+
+    private final class TokenIterator implements Iterator<Token> {
+
+        private final CharSequence text;
+        private int position = 0;
+        private Token next;
+
+        TokenIterator(CharSequence text) {
+            this.text = text == null ? "" : text;
+            this.next = scan();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Token next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Token token = next;
+            next = scan();
+            return token;
+        }
+
+        private Token scan() {
+            int length = text.length();
+            int start = position;
+
+            while (position < length && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            if (position >= length) {
+                return null;
+            }
+
+            int codePoint = Character.codePointAt(text, position);
+            if (Character.isLetter(codePoint) && !isIdeographic(codePoint)) {
+                int pieceLength = 0;
+                while (position < length && pieceLength < maxWordPiece) {
+                    int cp = Character.codePointAt(text, position);
+                    if (!Character.isLetter(cp) || isIdeographic(cp)) {
+                        break;
+                    }
+                    position += Character.charCount(cp);
+                    pieceLength++;
+                }
+            } else if (Character.isDigit(codePoint)) {
+                int digits = 0;
+                while (position < length && digits < MAX_DIGITS
+                        && Character.isDigit(Character.codePointAt(text, position))) {
+                    position += Character.charCount(Character.codePointAt(text, position));
+                    digits++;
+                }
+            } else {
+                position += Character.charCount(codePoint);
+            }
+
+            return new Token(start, position);
+        }
+    }
+
+    private static boolean isIdeographic(int codePoint) {
+        if (Character.isIdeographic(codePoint)) {
+            return true;
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HIRAGANA
+            || script == Character.UnicodeScript.KATAKANA
+            || script == Character.UnicodeScript.HANGUL
+            || script == Character.UnicodeScript.THAI;
+    }
+}
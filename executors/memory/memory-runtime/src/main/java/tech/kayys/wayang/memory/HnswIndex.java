@@ -0,0 +1,499 @@
+package tech.kayys.silat.executor.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.kayys.wayang.memory.similarity.SimilarityKernels;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hierarchical Navigable Small World graph for cosine similarity search.
+ *
+ * Vectors are normalized on insert so the distance is simply 1 - dot product.
+ * Deleted entries are tombstoned (still traversable, never returned) and the
+ * graph is rebuilt from live entries once tombstones dominate.
+ *
+ * Over a {@link QuantizedVectorStorage}, nodes keep no vector at all: distances
+ * are approximate cosines on the storage's codes, looked up by memory id, so the
+ * codes exist once on heap. The caller puts each vector into the storage before
+ * adding it here and re-scores the results at full precision.
+ */
+public class HnswIndex implements VectorIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HnswIndex.class);
+
+    private static final int MAX_LEVEL_CAP = 16;
+    private static final int REBUILD_MIN_DELETED = 1024;
+    private static final double REBUILD_DELETED_RATIO = 0.5;
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+
+    // Source of node codes, null to keep node vectors as float[]
+    private final QuantizedVectorStorage storage;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // memoryId -> node ordinal; nodes are append-only until rebuild
+    private final Map<String, Integer> nodeIds = new HashMap<>();
+    private final List<Node> nodes = new ArrayList<>();
+
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int deletedCount = 0;
+    private int dimension = -1;
+
+    /**
+     * @param m Max connections per node on upper layers (layer 0 allows 2 * m)
+     * @param efConstruction Candidate list size while inserting
+     * @param efSearch Candidate list size while querying
+     */
+    public HnswIndex(int m, int efConstruction, int efSearch) {
+        this(m, efConstruction, efSearch, null);
+    }
+
+    /**
+     * @param storage Score nodes on the codes this storage holds for their ids, or null to keep float[]
+     */
+    public HnswIndex(int m, int efConstruction, int efSearch, QuantizedVectorStorage storage) {
+        if (m < 2) {
+            throw new IllegalArgumentException("HNSW m must be at least 2, got " + m);
+        }
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = Math.max(efSearch, 1);
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.storage = storage;
+    }
+
+    @Override
+    public void add(String memoryId, float[] vector) {
+        if (vector == null || vector.length == 0) {
+            return;
+        }
+
+        float[] normalized = normalize(vector);
+
+        lock.writeLock().lock();
+        try {
+            // Checked first so a rejected update leaves the existing entry in place
+            if (dimension != -1 && normalized.length != dimension) {
+                LOG.warn("Not indexing memory {}: dimension {} does not match index dimension {}",
+                    memoryId, normalized.length, dimension);
+                return;
+            }
+
+            Integer existing = nodeIds.get(memoryId);
+            if (existing != null) {
+                // The storage already holds the new codes, so the caller skips unchanged ones
+                if (storage == null && Arrays.equals(nodes.get(existing).vector, normalized)) {
+                    return; // Metadata-only update, graph is unchanged
+                }
+                nodeIds.remove(memoryId);
+                tombstone(existing);
+            }
+
+            if (dimension == -1) {
+                dimension = normalized.length;
+            }
+
+            insert(memoryId, normalized);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(String memoryId) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodeIds.remove(memoryId);
+            if (node != null) {
+                tombstone(node);
+                maybeRebuild();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Neighbor> search(float[] query, int k) {
+        if (query == null || k <= 0) {
+            return List.of();
+        }
+
+        QuantizedVectorStorage.Query normalized = query(normalize(query));
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || nodeIds.isEmpty() || normalized.vector().length != dimension) {
+                return List.of();
+            }
+
+            int ep = entryPoint;
+            float epDist = distance(normalized, nodes.get(ep));
+            for (int level = maxLevel; level > 0; level--) {
+                Candidate closest = greedyClosest(normalized, ep, epDist, level);
+                ep = closest.node();
+                epDist = closest.distance();
+            }
+
+            List<Candidate> candidates = searchLayer(normalized, ep, epDist, Math.max(efSearch, k), 0);
+
+            List<Neighbor> results = new ArrayList<>(Math.min(k, candidates.size()));
+            for (Candidate candidate : candidates) {
+                Node node = nodes.get(candidate.node());
+                if (node.deleted) {
+                    continue;
+                }
+                results.add(new Neighbor(node.id, 1.0 - candidate.distance()));
+                if (results.size() >= k) {
+                    break;
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Nodes in the graph, tombstoned ones included
+     */
+    int graphSize() {
+        lock.readLock().lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ==================== GRAPH CONSTRUCTION ====================
+
+    /**
+     * @param vector Normalized vector, only kept on the node without a storage
+     */
+    private void insert(String memoryId, float[] vector) {
+        int level = randomLevel();
+        int nodeIndex = nodes.size();
+        Node node = new Node(memoryId, storage == null ? vector : null, level, m, maxM0);
+        nodes.add(node);
+        nodeIds.put(memoryId, nodeIndex);
+
+        if (entryPoint < 0) {
+            entryPoint = nodeIndex;
+            maxLevel = level;
+            return;
+        }
+
+        QuantizedVectorStorage.Query query = query(vector);
+        int ep = entryPoint;
+        float epDist = distance(query, nodes.get(ep));
+        for (int lc = maxLevel; lc > level; lc--) {
+            Candidate closest = greedyClosest(query, ep, epDist, lc);
+            ep = closest.node();
+            epDist = closest.distance();
+        }
+
+        for (int lc = Math.min(level, maxLevel); lc >= 0; lc--) {
+            List<Candidate> candidates = searchLayer(query, ep, epDist, efConstruction, lc);
+            int maxConnections = lc == 0 ? maxM0 : m;
+
+            for (int neighbor : selectNeighbors(candidates, m)) {
+                node.link(lc, neighbor);
+                connect(neighbor, nodeIndex, lc, maxConnections);
+            }
+
+            Candidate closest = candidates.get(0);
+            ep = closest.node();
+            epDist = closest.distance();
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = nodeIndex;
+        }
+    }
+
+    /**
+     * Add a back-link, shrinking the neighbor list with the selection heuristic on overflow
+     */
+    private void connect(int from, int to, int level, int maxConnections) {
+        Node node = nodes.get(from);
+        if (node.counts[level] < maxConnections) {
+            node.link(level, to);
+            return;
+        }
+
+        QuantizedVectorStorage.Query base = query(node);
+        List<Candidate> candidates = new ArrayList<>(maxConnections + 1);
+        int[] current = node.neighbors[level];
+        for (int i = 0; i < node.counts[level]; i++) {
+            candidates.add(new Candidate(current[i], distance(base, nodes.get(current[i]))));
+        }
+        candidates.add(new Candidate(to, distance(base, nodes.get(to))));
+        candidates.sort(Comparator.comparingDouble(Candidate::distance));
+
+        int[] selected = selectNeighbors(candidates, maxConnections);
+        System.arraycopy(selected, 0, current, 0, selected.length);
+        node.counts[level] = selected.length;
+    }
+
+    /**
+     * Neighbor selection heuristic: prefer candidates that are closer to the base
+     * than to any already selected neighbor, then backfill with pruned ones.
+     *
+     * @param candidates Candidates sorted by ascending distance
+     */
+    private int[] selectNeighbors(List<Candidate> candidates, int max) {
+        if (candidates.size() <= max) {
+            return candidates.stream().mapToInt(Candidate::node).toArray();
+        }
+
+        List<Candidate> selected = new ArrayList<>(max);
+        List<Candidate> pruned = new ArrayList<>();
+
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= max) {
+                break;
+            }
+            QuantizedVectorStorage.Query vector = query(nodes.get(candidate.node()));
+            boolean diverse = true;
+            for (Candidate chosen : selected) {
+                if (distance(vector, nodes.get(chosen.node())) < candidate.distance()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            } else {
+                pruned.add(candidate);
+            }
+        }
+
+        for (Candidate candidate : pruned) {
+            if (selected.size() >= max) {
+                break;
+            }
+            selected.add(candidate);
+        }
+
+        return selected.stream().mapToInt(Candidate::node).toArray();
+    }
+
+    private void tombstone(int nodeIndex) {
+        Node node = nodes.get(nodeIndex);
+        if (!node.deleted) {
+            node.deleted = true;
+            deletedCount++;
+        }
+    }
+
+    /**
+     * Rebuild from live entries once tombstones make up most of the graph
+     */
+    private void maybeRebuild() {
+        if (nodeIds.isEmpty()) {
+            reset();
+            return;
+        }
+        if (deletedCount < REBUILD_MIN_DELETED || deletedCount < nodes.size() * REBUILD_DELETED_RATIO) {
+            return;
+        }
+
+        LOG.debug("Rebuilding HNSW index: {} live, {} deleted", nodeIds.size(), deletedCount);
+
+        List<Node> live = nodes.stream().filter(node -> !node.deleted).toList();
+        reset();
+        for (Node node : live) {
+            float[] vector = node.vector != null ? node.vector : storage.decoded(node.id);
+            if (vector == null) {
+                continue;
+            }
+            if (dimension == -1) {
+                dimension = vector.length;
+            }
+            insert(node.id, vector);
+        }
+    }
+
+    private void reset() {
+        nodeIds.clear();
+        nodes.clear();
+        entryPoint = -1;
+        maxLevel = -1;
+        deletedCount = 0;
+        dimension = -1;
+    }
+
+    // ==================== GRAPH SEARCH ====================
+
+    private Candidate greedyClosest(QuantizedVectorStorage.Query query, int ep, float epDist, int level) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Node node = nodes.get(ep);
+            int[] neighbors = node.neighbors[level];
+            for (int i = 0; i < node.counts[level]; i++) {
+                float d = distance(query, nodes.get(neighbors[i]));
+                if (d < epDist) {
+                    epDist = d;
+                    ep = neighbors[i];
+                    changed = true;
+                }
+            }
+        }
+        return new Candidate(ep, epDist);
+    }
+
+    /**
+     * Beam search on a single layer
+     *
+     * @return Up to ef candidates sorted by ascending distance
+     */
+    private List<Candidate> searchLayer(
+            QuantizedVectorStorage.Query query, int ep, float epDist, int ef, int level) {
+        Set<Integer> visited = new HashSet<>();
+        visited.add(ep);
+
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(
+            Comparator.comparingDouble(Candidate::distance));
+        PriorityQueue<Candidate> results = new PriorityQueue<>(
+            Comparator.comparingDouble(Candidate::distance).reversed());
+
+        Candidate start = new Candidate(ep, epDist);
+        frontier.add(start);
+        results.add(start);
+
+        while (!frontier.isEmpty()) {
+            Candidate current = frontier.poll();
+            if (results.size() >= ef && current.distance() > results.peek().distance()) {
+                break;
+            }
+
+            Node node = nodes.get(current.node());
+            int[] neighbors = node.neighbors[level];
+            for (int i = 0; i < node.counts[level]; i++) {
+                int neighbor = neighbors[i];
+                if (!visited.add(neighbor)) {
+                    continue;
+                }
+
+                float d = distance(query, nodes.get(neighbor));
+                if (results.size() < ef || d < results.peek().distance()) {
+                    Candidate candidate = new Candidate(neighbor, d);
+                    frontier.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble(Candidate::distance));
+        return sorted;
+    }
+
+    // ==================== VECTOR HELPERS ====================
+
+    private int randomLevel() {
+        double r = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return Math.min((int) Math.floor(-Math.log(r) * levelMultiplier), MAX_LEVEL_CAP);
+    }
+
+    private float distance(QuantizedVectorStorage.Query query, Node node) {
+        if (storage == null) {
+            return 1f - SimilarityKernels.dot(query.vector(), node.vector);
+        }
+        // Tombstoned ids may be gone from the storage; keep them as far as possible
+        double similarity = storage.approximateCosine(query, node.id);
+        return Double.isNaN(similarity) ? 2f : 1f - (float) similarity;
+    }
+
+    /**
+     * Query for a normalized vector
+     */
+    private QuantizedVectorStorage.Query query(float[] vector) {
+        return storage != null
+            ? storage.prepare(vector)
+            : new QuantizedVectorStorage.Query(vector, 1f, 0f);
+    }
+
+    private QuantizedVectorStorage.Query query(Node node) {
+        if (node.vector != null) {
+            return query(node.vector);
+        }
+        float[] decoded = storage.decoded(node.id);
+        return query(decoded != null ? decoded : new float[dimension]);
+    }
+
+    private static float[] normalize(float[] vector) {
+        float norm = SimilarityKernels.norm(vector);
+
+        float[] normalized = Arrays.copyOf(vector, vector.length);
+        if (norm > 0) {
+            for (int i = 0; i < normalized.length; i++) {
+                normalized[i] /= norm;
+            }
+        }
+        return normalized;
+    }
+
+    private record Candidate(int node, float distance) {}
+
+    /**
+     * Graph node with fixed-capacity adjacency arrays per layer
+     */
+    private static final class Node {
+        final String id;
+        final float[] vector;
+        final int[][] neighbors;
+        final int[] counts;
+        boolean deleted;
+
+        Node(String id, float[] vector, int level, int m, int maxM0) {
+            this.id = id;
+            this.vector = vector;
+            this.neighbors = new int[level + 1][];
+            this.counts = new int[level + 1];
+            for (int lc = 0; lc <= level; lc++) {
+                neighbors[lc] = new int[lc == 0 ? maxM0 : m];
+            }
+        }
+
+        void link(int level, int neighbor) {
+            neighbors[level][counts[level]++] = neighbor;
+        }
+    }
+}
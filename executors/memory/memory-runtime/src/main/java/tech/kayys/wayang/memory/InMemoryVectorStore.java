@@ -1,30 +1,115 @@
 package tech.kayys.silat.executor.memory;
 
 import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import tech.kayys.silat.core.domain.MemoryType;
+import tech.kayys.wayang.memory.similarity.SimilarityKernels;
 
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.stream.Collectors;
 
 /**
- * In-memory implementation of VectorMemoryStore for development and testing
+ * In-memory implementation of VectorMemoryStore for development and testing.
+ *
+ * Top-K search goes through an HNSW graph index by default; index type "exact"
+ * keeps the brute-force scan for exact recall.
+ *
+ * With quantization set to int8 or float16, embeddings are held as compressed
+ * codes on heap (full precision off-heap). The HNSW graph then scores its
+ * nodes on those same codes by id rather than keeping a copy, and search
+ * re-scores its best candidates at full precision; with index type "exact"
+ * search scans the codes instead.
+ *
+ * Hybrid search ranks keyword matches with an incremental BM25 index and fuses
+ * them with vector results (weighted reciprocal rank fusion by default).
  */
 @ApplicationScoped
 public class InMemoryVectorStore implements VectorMemoryStore {
     private static final Logger LOG = LoggerFactory.getLogger(InMemoryVectorStore.class);
 
+    // Over-fetch factor for filtered index searches before falling back to a scan
+    private static final int FILTERED_CANDIDATE_MULTIPLIER = 4;
+
+    // Candidates taken from each ranking before hybrid fusion, per result
+    private static final int HYBRID_CANDIDATE_MULTIPLIER = 4;
+
+    // At or below this semantic weight, hybrid search only scores keyword matches
+    private static final double KEYWORD_PRUNE_WEIGHT = 0.5;
+
+    private static final int RRF_K = 60;
+
+    @ConfigProperty(name = "silat.memory.inmemory.index.type", defaultValue = "hnsw")
+    String indexType; // hnsw or exact
+
+    @ConfigProperty(name = "silat.memory.inmemory.hnsw.m", defaultValue = "16")
+    int hnswM;
+
+    @ConfigProperty(name = "silat.memory.inmemory.hnsw.ef-construction", defaultValue = "64")
+    int hnswEfConstruction;
+
+    @ConfigProperty(name = "silat.memory.inmemory.hnsw.ef-search", defaultValue = "40")
+    int hnswEfSearch;
+
+    @ConfigProperty(name = "silat.memory.inmemory.quantization", defaultValue = "none")
+    String quantization; // none, int8 or float16
+
+    @ConfigProperty(name = "silat.memory.inmemory.quantization.rescore-factor", defaultValue = "4")
+    int rescoreFactor;
+
+    @ConfigProperty(name = "silat.memory.inmemory.hybrid.fusion", defaultValue = "rrf")
+    String hybridFusion; // rrf or weighted
+
     // Storage: memoryId -> Memory
     private final Map<String, Memory> memoryStore = new ConcurrentHashMap<>();
 
+    // namespace -> memory ids in order, for keyset scans
+    private final Map<String, NavigableSet<String>> namespaceIds = new ConcurrentHashMap<>();
+
+    // namespace -> (expiresAt, id) of memories that expire, for expiry scans
+    private final Map<String, NavigableSet<ExpiryKey>> namespaceExpiries = new ConcurrentHashMap<>();
+
+    // Null when running in exact (brute-force) mode
+    private VectorIndex vectorIndex;
+
+    // Null unless a quantized storage mode is configured
+    private QuantizedVectorStorage quantizedVectors;
+
+    // Keyword index over memory content for hybrid search
+    private final Bm25Index keywordIndex = new Bm25Index();
+
+    // Background job checkpoints, kept for as long as the memories themselves
+    private final Map<String, String> checkpoints = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        QuantizedVectorStorage.Mode mode = QuantizedVectorStorage.Mode.parse(quantization);
+        if (mode != null) {
+            quantizedVectors = new QuantizedVectorStorage(mode);
+            LOG.info("In-memory vector store using {} quantized storage (rescore factor {})",
+                mode, rescoreFactor);
+        }
+        if ("hnsw".equalsIgnoreCase(indexType)) {
+            vectorIndex = new HnswIndex(hnswM, hnswEfConstruction, hnswEfSearch, quantizedVectors);
+            LOG.info("In-memory vector store using HNSW index (m={}, efConstruction={}, efSearch={})",
+                hnswM, hnswEfConstruction, hnswEfSearch);
+        } else {
+            LOG.info("In-memory vector store using exact search");
+        }
+        LOG.info("Similarity kernel: {}", SimilarityKernels.implementation());
+    }
+
     @Override
     public Uni<String> store(Memory memory) {
         LOG.debug("Storing memory: {}", memory.getId());
         
-        memoryStore.put(memory.getId(), memory);
+        putMemory(memory);
         
         return Uni.createFrom().item(memory.getId());
     }
@@ -35,7 +120,7 @@ public class InMemoryVectorStore implements VectorMemoryStore {
         
         List<String> ids = new ArrayList<>();
         for (Memory memory : memories) {
-            memoryStore.put(memory.getId(), memory);
+            putMemory(memory);
             ids.add(memory.getId());
         }
         
@@ -51,6 +136,164 @@ public class InMemoryVectorStore implements VectorMemoryStore {
         
         LOG.debug("Searching for similar memories with limit: {}", limit);
         
+        return Uni.createFrom().item(rankBySimilarity(queryEmbedding, limit, minSimilarity, filters));
+    }
+
+    /**
+     * Top-K by vector similarity through whichever search path is configured
+     */
+    private List<ScoredMemory> rankBySimilarity(
+            float[] queryEmbedding,
+            int limit,
+            double minSimilarity,
+            Map<String, Object> filters) {
+        
+        if (vectorIndex != null) {
+            List<ScoredMemory> indexed = indexSearch(queryEmbedding, limit, minSimilarity, filters);
+            if (indexed != null) {
+                return indexed;
+            }
+        }
+        
+        if (quantizedVectors != null) {
+            return quantizedSearch(queryEmbedding, limit, minSimilarity, filters);
+        }
+        
+        return exactSearch(queryEmbedding, limit, minSimilarity, filters);
+    }
+
+    /**
+     * Approximate top-K through the graph index. Over quantized codes the
+     * index returns limit * rescoreFactor candidates for re-scoring.
+     *
+     * @return Results, or null when filters left too few candidates and a scan is needed
+     */
+    private List<ScoredMemory> indexSearch(
+            float[] queryEmbedding,
+            int limit,
+            double minSimilarity,
+            Map<String, Object> filters) {
+        
+        boolean filtered = filters != null && !filters.isEmpty();
+        int k = filtered ? limit * FILTERED_CANDIDATE_MULTIPLIER : limit;
+        if (quantizedVectors != null) {
+            k *= Math.max(rescoreFactor, 1);
+        }
+        
+        List<VectorIndex.Neighbor> neighbors = vectorIndex.search(queryEmbedding, k);
+        List<ScoredMemory> results = new ArrayList<>(Math.min(limit, neighbors.size()));
+        boolean belowThreshold = false;
+        
+        for (VectorIndex.Neighbor neighbor : neighbors) {
+            Memory memory = memoryStore.get(neighbor.memoryId());
+            if (memory == null || !matchesFilters(memory, filters)) {
+                continue;
+            }
+            
+            float[] embedding = embeddingOf(memory);
+            if (embedding == null) {
+                continue;
+            }
+            
+            double similarity = cosineSimilarity(queryEmbedding, embedding);
+            if (similarity < minSimilarity) {
+                belowThreshold = true;
+                continue;
+            }
+            
+            results.add(new ScoredMemory(
+                memory.getEmbedding() == null ? copyWithEmbedding(memory, embedding) : memory, similarity));
+        }
+        
+        results.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+        
+        if (results.size() > limit) {
+            results = results.subList(0, limit);
+        }
+        
+        // Candidates ran out under filtering while more entries could still qualify
+        if (filtered && results.size() < limit && !belowThreshold
+                && neighbors.size() >= k && memoryStore.size() > k) {
+            LOG.debug("Index returned {} of {} after filtering, falling back to a scan",
+                results.size(), limit);
+            return null;
+        }
+        
+        LOG.debug("Found {} similar memories via index", results.size());
+        
+        return results;
+    }
+
+    /**
+     * Top-K over compressed codes, re-scored at full precision.
+     * Only limit * rescoreFactor candidates are ever decoded.
+     */
+    private List<ScoredMemory> quantizedSearch(
+            float[] queryEmbedding,
+            int limit,
+            double minSimilarity,
+            Map<String, Object> filters) {
+        
+        int candidateCount = Math.max(limit, 1) * Math.max(rescoreFactor, 1);
+        QuantizedVectorStorage.Query query = quantizedVectors.prepare(queryEmbedding);
+        
+        // Min-heap of the best approximate scores seen so far
+        PriorityQueue<ScoredMemory> candidates = new PriorityQueue<>(
+            Comparator.comparingDouble(ScoredMemory::getScore));
+        
+        for (Memory memory : memoryStore.values()) {
+            if (!matchesFilters(memory, filters)) {
+                continue;
+            }
+            
+            double approximate = quantizedVectors.approximateCosine(query, memory.getId());
+            if (Double.isNaN(approximate)) {
+                continue;
+            }
+            
+            if (candidates.size() < candidateCount) {
+                candidates.add(new ScoredMemory(memory, approximate));
+            } else if (approximate > candidates.peek().getScore()) {
+                candidates.poll();
+                candidates.add(new ScoredMemory(memory, approximate));
+            }
+        }
+        
+        List<ScoredMemory> results = new ArrayList<>(candidates.size());
+        for (ScoredMemory candidate : candidates) {
+            Memory memory = candidate.getMemory();
+            float[] embedding = quantizedVectors.fullPrecision(memory.getId());
+            if (embedding == null) {
+                continue;
+            }
+            
+            double similarity = cosineSimilarity(queryEmbedding, embedding);
+            if (similarity >= minSimilarity) {
+                results.add(new ScoredMemory(copyWithEmbedding(memory, embedding), similarity));
+            }
+        }
+        
+        results.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+        
+        if (results.size() > limit) {
+            results = results.subList(0, limit);
+        }
+        
+        LOG.debug("Found {} similar memories from {} quantized candidates",
+            results.size(), candidates.size());
+        
+        return results;
+    }
+
+    /**
+     * Exact top-K by scanning every memory
+     */
+    private List<ScoredMemory> exactSearch(
+            float[] queryEmbedding,
+            int limit,
+            double minSimilarity,
+            Map<String, Object> filters) {
+        
         List<ScoredMemory> results = new ArrayList<>();
         
         for (Memory memory : memoryStore.values()) {
@@ -77,7 +320,7 @@ public class InMemoryVectorStore implements VectorMemoryStore {
         
         LOG.debug("Found {} similar memories", results.size());
         
-        return Uni.createFrom().item(results);
+        return results;
     }
 
     @Override
@@ -87,11 +330,90 @@ public class InMemoryVectorStore implements VectorMemoryStore {
             int limit,
             double semanticWeight) {
         
-        LOG.debug("Performing hybrid search with {} keywords", keywords.size());
+        LOG.debug("Performing hybrid search with {} keywords", keywords == null ? 0 : keywords.size());
+        
+        int candidateCount = Math.max(limit, 1) * HYBRID_CANDIDATE_MULTIPLIER;
+        List<Bm25Index.Hit> keywordHits = keywordIndex.search(keywords, candidateCount);
+        
+        if (keywordHits.isEmpty()) {
+            return search(queryEmbedding, limit, 0.0, new HashMap<>());
+        }
+        
+        // Candidate pool: keyword hits, plus the vector top-K unless the query is keyword-heavy
+        Map<String, Memory> candidates = new HashMap<>();
+        Map<String, Double> semanticScores = new HashMap<>();
+        
+        if (semanticWeight > KEYWORD_PRUNE_WEIGHT) {
+            for (ScoredMemory scored : rankBySimilarity(queryEmbedding, candidateCount, -1.0, new HashMap<>())) {
+                String id = scored.getMemory().getId();
+                candidates.put(id, scored.getMemory());
+                semanticScores.put(id, scored.getScore());
+            }
+        }
+        
+        Map<String, Integer> keywordRanks = new HashMap<>();
+        Map<String, Double> keywordScores = new HashMap<>();
+        double maxKeywordScore = keywordHits.get(0).score();
         
-        // For in-memory implementation, we'll just do semantic search
-        // A real implementation would combine keyword matching with semantic search
-        return search(queryEmbedding, limit, 0.0, new HashMap<>());
+        for (int rank = 0; rank < keywordHits.size(); rank++) {
+            Bm25Index.Hit hit = keywordHits.get(rank);
+            Memory memory = candidates.getOrDefault(hit.memoryId(), memoryStore.get(hit.memoryId()));
+            if (memory == null) {
+                continue;
+            }
+            
+            candidates.put(hit.memoryId(), memory);
+            keywordRanks.put(hit.memoryId(), rank + 1);
+            keywordScores.put(hit.memoryId(), maxKeywordScore > 0 ? hit.score() / maxKeywordScore : 0.0);
+            semanticScores.computeIfAbsent(hit.memoryId(),
+                id -> cosineSimilarity(queryEmbedding, embeddingOf(memory)));
+        }
+        
+        // Semantic ranks over the whole candidate pool
+        List<String> semanticOrder = new ArrayList<>(candidates.keySet());
+        semanticOrder.sort((a, b) -> Double.compare(semanticScores.get(b), semanticScores.get(a)));
+        
+        boolean weighted = "weighted".equalsIgnoreCase(hybridFusion);
+        double keywordWeight = 1.0 - semanticWeight;
+        List<ScoredMemory> results = new ArrayList<>(semanticOrder.size());
+        
+        for (int rank = 0; rank < semanticOrder.size(); rank++) {
+            String id = semanticOrder.get(rank);
+            double semantic = semanticScores.get(id);
+            double keyword = keywordScores.getOrDefault(id, 0.0);
+            
+            double total;
+            if (weighted) {
+                total = semantic * semanticWeight + keyword * keywordWeight;
+            } else {
+                Integer keywordRank = keywordRanks.get(id);
+                total = semanticWeight / (RRF_K + rank + 1)
+                    + (keywordRank != null ? keywordWeight / (RRF_K + keywordRank) : 0.0);
+            }
+            
+            results.add(new ScoredMemory(candidates.get(id), total, Map.of(
+                "total", total,
+                "semantic", semantic,
+                "keyword", keyword
+            )));
+        }
+        
+        results.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+        
+        if (results.size() > limit) {
+            results = results.subList(0, limit);
+        }
+        
+        List<ScoredMemory> hydrated = new ArrayList<>(results.size());
+        for (ScoredMemory result : results) {
+            hydrated.add(new ScoredMemory(
+                withFullEmbedding(result.getMemory()), result.getScore(), result.getScoreBreakdown()));
+        }
+        
+        LOG.debug("Hybrid search fused {} candidates ({} keyword hits) into {} results",
+            candidates.size(), keywordHits.size(), hydrated.size());
+        
+        return Uni.createFrom().item(hydrated);
     }
 
     @Override
@@ -99,7 +421,7 @@ public class InMemoryVectorStore implements VectorMemoryStore {
         LOG.debug("Retrieving memory: {}", memoryId);
         
         Memory memory = memoryStore.get(memoryId);
-        return Uni.createFrom().item(memory);
+        return Uni.createFrom().item(withFullEmbedding(memory));
     }
 
     @Override
@@ -110,7 +432,7 @@ public class InMemoryVectorStore implements VectorMemoryStore {
         for (String id : memoryIds) {
             Memory memory = memoryStore.get(id);
             if (memory != null) {
-                memories.add(memory);
+                memories.add(withFullEmbedding(memory));
             }
         }
         
@@ -141,27 +463,123 @@ public class InMemoryVectorStore implements VectorMemoryStore {
         
         memoryStore.put(memoryId, updated);
         
-        return Uni.createFrom().item(updated);
+        return Uni.createFrom().item(withFullEmbedding(updated));
     }
 
     @Override
     public Uni<Boolean> delete(String memoryId) {
         LOG.debug("Deleting memory: {}", memoryId);
         
-        boolean deleted = memoryStore.remove(memoryId) != null;
-        return Uni.createFrom().item(deleted);
+        Memory removed = memoryStore.remove(memoryId);
+        if (removed != null) {
+            unindexMemory(removed);
+        }
+        return Uni.createFrom().item(removed != null);
+    }
+
+    @Override
+    public Uni<Long> deleteBatch(List<String> memoryIds) {
+        LOG.debug("Deleting batch of {} memories", memoryIds.size());
+        
+        long count = 0;
+        for (String id : memoryIds) {
+            Memory removed = memoryStore.remove(id);
+            if (removed != null) {
+                count++;
+                unindexMemory(removed);
+            }
+        }
+        
+        return Uni.createFrom().item(count);
     }
 
     @Override
     public Uni<Long> deleteNamespace(String namespace) {
         LOG.debug("Deleting all memories in namespace: {}", namespace);
         
-        long count = memoryStore.values().removeIf(memory -> 
-            namespace.equals(memory.getNamespace()));
+        NavigableSet<String> ids = namespaceIds.get(namespace);
+        if (ids == null) {
+            return Uni.createFrom().item(0L);
+        }
+        
+        long count = 0;
+        for (String id : List.copyOf(ids)) {
+            Memory removed = memoryStore.remove(id);
+            if (removed != null) {
+                count++;
+                unindexMemory(removed);
+            }
+        }
         
         return Uni.createFrom().item(count);
     }
 
+    @Override
+    public Uni<List<Memory>> scan(
+            String namespace,
+            MemoryType type,
+            String afterId,
+            int limit) {
+        
+        LOG.debug("Scanning namespace {} after {} (limit {})", namespace, afterId, limit);
+        
+        NavigableSet<String> ids = namespaceIds.get(namespace);
+        if (ids == null || limit <= 0) {
+            return Uni.createFrom().item(List.of());
+        }
+        
+        Instant now = Instant.now();
+        List<Memory> page = new ArrayList<>(Math.min(limit, ids.size()));
+        for (String id : afterId == null ? ids : ids.tailSet(afterId, false)) {
+            Memory memory = memoryStore.get(id);
+            if (memory == null
+                    || !namespace.equals(memory.getNamespace())
+                    || (type != null && memory.getType() != type)
+                    || (memory.getExpiresAt() != null && !memory.getExpiresAt().isAfter(now))) {
+                continue;
+            }
+            page.add(withFullEmbedding(memory));
+            if (page.size() >= limit) {
+                break;
+            }
+        }
+        
+        return Uni.createFrom().item(page);
+    }
+
+    @Override
+    public Uni<List<Memory>> scanExpired(String namespace, Instant cutoff, Memory after, int limit) {
+        LOG.debug("Scanning memories in {} expired by {} (limit {})", namespace, cutoff, limit);
+        
+        NavigableSet<ExpiryKey> expiries = namespaceExpiries.get(namespace);
+        if (expiries == null || limit <= 0) {
+            return Uni.createFrom().item(List.of());
+        }
+        
+        NavigableSet<ExpiryKey> from = after == null
+            ? expiries
+            : expiries.tailSet(new ExpiryKey(after.getExpiresAt(), after.getId()), false);
+        
+        List<Memory> page = new ArrayList<>();
+        for (ExpiryKey key : from) {
+            if (key.expiresAt().isAfter(cutoff)) {
+                break;
+            }
+            Memory memory = memoryStore.get(key.memoryId());
+            if (memory == null
+                    || !namespace.equals(memory.getNamespace())
+                    || !key.expiresAt().equals(memory.getExpiresAt())) {
+                continue;
+            }
+            page.add(withFullEmbedding(memory));
+            if (page.size() >= limit) {
+                break;
+            }
+        }
+        
+        return Uni.createFrom().item(page);
+    }
+
     @Override
     public Uni<MemoryStatistics> getStatistics(String namespace) {
         LOG.debug("Getting statistics for namespace: {}", namespace);
@@ -172,16 +590,16 @@ public class InMemoryVectorStore implements VectorMemoryStore {
         
         long total = memories.size();
         long episodic = memories.stream()
-            .filter(m -> m.getType() == tech.kayys.silat.core.domain.MemoryType.EPISODIC)
+            .filter(m -> m.getType() == MemoryType.EPISODIC)
             .count();
         long semantic = memories.stream()
-            .filter(m -> m.getType() == tech.kayys.silat.core.domain.MemoryType.SEMANTIC)
+            .filter(m -> m.getType() == MemoryType.SEMANTIC)
             .count();
         long procedural = memories.stream()
-            .filter(m -> m.getType() == tech.kayys.silat.core.domain.MemoryType.PROCEDURAL)
+            .filter(m -> m.getType() == MemoryType.PROCEDURAL)
             .count();
         long working = memories.stream()
-            .filter(m -> m.getType() == tech.kayys.silat.core.domain.MemoryType.WORKING)
+            .filter(m -> m.getType() == MemoryType.WORKING)
             .count();
         
         double avgImportance = memories.stream()
@@ -205,6 +623,131 @@ public class InMemoryVectorStore implements VectorMemoryStore {
         ));
     }
 
+    @Override
+    public Uni<String> loadCheckpoint(String name) {
+        return Uni.createFrom().item(checkpoints.get(name));
+    }
+
+    @Override
+    public Uni<Void> saveCheckpoint(String name, String checkpoint) {
+        if (checkpoint == null) {
+            checkpoints.remove(name);
+        } else {
+            checkpoints.put(name, checkpoint);
+        }
+        return Uni.createFrom().voidItem();
+    }
+
+    /**
+     * Store a memory and refresh its keyword entry and its vector in the index or quantized storage.
+     * In quantized mode the stored Memory carries no embedding.
+     */
+    private void putMemory(Memory memory) {
+        keywordIndex.add(memory.getId(), memory.getContent());
+        trackNamespace(memory);
+        
+        // The graph reads codes from the quantized storage, so it only changes with them
+        boolean vectorChanged = true;
+        if (quantizedVectors != null) {
+            vectorChanged = quantizedVectors.put(memory.getId(), memory.getEmbedding());
+            memoryStore.put(memory.getId(), copyWithEmbedding(memory, null));
+        } else {
+            memoryStore.put(memory.getId(), memory);
+        }
+        
+        if (vectorIndex != null && vectorChanged) {
+            if (memory.getEmbedding() != null) {
+                vectorIndex.add(memory.getId(), memory.getEmbedding());
+            } else if (quantizedVectors != null) {
+                vectorIndex.remove(memory.getId());
+            }
+        }
+    }
+
+    /**
+     * Record a memory's id and expiry under its namespace, replacing the entries
+     * of any previous version
+     */
+    private void trackNamespace(Memory memory) {
+        Memory previous = memoryStore.get(memory.getId());
+        if (previous != null) {
+            untrackNamespace(previous);
+        }
+        if (memory.getNamespace() == null) {
+            return;
+        }
+        namespaceIds.computeIfAbsent(memory.getNamespace(), k -> new ConcurrentSkipListSet<>())
+            .add(memory.getId());
+        if (memory.getExpiresAt() != null) {
+            namespaceExpiries.computeIfAbsent(memory.getNamespace(), k -> new ConcurrentSkipListSet<>())
+                .add(new ExpiryKey(memory.getExpiresAt(), memory.getId()));
+        }
+    }
+
+    private void untrackNamespace(Memory memory) {
+        if (memory.getNamespace() == null) {
+            return;
+        }
+        NavigableSet<String> ids = namespaceIds.get(memory.getNamespace());
+        if (ids != null) {
+            ids.remove(memory.getId());
+        }
+        NavigableSet<ExpiryKey> expiries = namespaceExpiries.get(memory.getNamespace());
+        if (expiries != null && memory.getExpiresAt() != null) {
+            expiries.remove(new ExpiryKey(memory.getExpiresAt(), memory.getId()));
+        }
+    }
+
+    /**
+     * Drop a removed memory from the namespace ordering, the keyword index and
+     * the vector index or quantized storage
+     */
+    private void unindexMemory(Memory removed) {
+        String memoryId = removed.getId();
+        untrackNamespace(removed);
+        keywordIndex.remove(memoryId);
+        if (quantizedVectors != null) {
+            quantizedVectors.remove(memoryId);
+        }
+        if (vectorIndex != null) {
+            vectorIndex.remove(memoryId);
+        }
+    }
+
+    /**
+     * Embedding of a stored memory, reading quantized storage when it was stripped
+     */
+    private float[] embeddingOf(Memory memory) {
+        if (memory.getEmbedding() != null || quantizedVectors == null) {
+            return memory.getEmbedding();
+        }
+        return quantizedVectors.fullPrecision(memory.getId());
+    }
+
+    /**
+     * Restore the full-precision embedding of a memory held in quantized mode
+     */
+    private Memory withFullEmbedding(Memory memory) {
+        if (memory == null || quantizedVectors == null || memory.getEmbedding() != null) {
+            return memory;
+        }
+        return copyWithEmbedding(memory, quantizedVectors.fullPrecision(memory.getId()));
+    }
+
+    private Memory copyWithEmbedding(Memory memory, float[] embedding) {
+        return Memory.builder()
+            .id(memory.getId())
+            .namespace(memory.getNamespace())
+            .content(memory.getContent())
+            .embedding(embedding)
+            .type(memory.getType())
+            .metadata(memory.getMetadata())
+            .timestamp(memory.getTimestamp())
+            .expiresAt(memory.getExpiresAt())
+            .importance(memory.getImportance())
+            .build();
+    }
+
     /**
      * Check if memory matches the given filters
      */
@@ -248,25 +791,7 @@ public class InMemoryVectorStore implements VectorMemoryStore {
      * Calculate cosine similarity between two vectors
      */
     private double cosineSimilarity(float[] a, float[] b) {
-        if (a.length != b.length) {
-            return 0.0;
-        }
-        
-        double dotProduct = 0.0;
-        double normA = 0.0;
-        double normB = 0.0;
-        
-        for (int i = 0; i < a.length; i++) {
-            dotProduct += a[i] * b[i];
-            normA += a[i] * a[i];
-            normB += b[i] * b[i];
-        }
-        
-        if (normA == 0 || normB == 0) {
-            return 0.0;
-        }
-        
-        return dotProduct / (Math.sqrt(normA) * Math.sqrt(normB));
+        return SimilarityKernels.cosine(a, b);
     }
 
     /**
@@ -277,4 +802,15 @@ public class InMemoryVectorStore implements VectorMemoryStore {
         merged.putAll(updates);
         return merged;
     }
-}
\ No newline at end of file
+
+    /**
+     * Expiry ordering key: by expiry instant, then memory id
+     */
+    private record ExpiryKey(Instant expiresAt, String memoryId) implements Comparable<ExpiryKey> {
+        @Override
+        public int compareTo(ExpiryKey other) {
+            int byExpiry = expiresAt.compareTo(other.expiresAt);
+            return byExpiry != 0 ? byExpiry : memoryId.compareTo(other.memoryId);
+        }
+    }
+}
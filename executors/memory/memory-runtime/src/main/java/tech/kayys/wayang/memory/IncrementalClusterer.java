@@ -0,0 +1,195 @@
+package tech.kayys.silat.executor.memory;
+
+import tech.kayys.wayang.memory.similarity.SimilarityKernels;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Online clustering of memory embeddings for consolidation.
+ *
+ * Each offered memory joins the open cluster whose centroid is most similar,
+ * if the cosine similarity reaches the threshold, and moves that centroid with
+ * a per-cluster 1/n learning rate (the mini-batch k-means update); otherwise
+ * it opens a new cluster. Open clusters and members per cluster are bounded:
+ * a full cluster, or the least recently updated one when no slot is free, is
+ * closed and handed back to the caller. Only ids and one representative
+ * memory are kept per cluster, never the members' embeddings.
+ */
+public class IncrementalClusterer {
+
+    private final double similarityThreshold;
+    private final int maxClusters;
+    private final int maxClusterSize;
+
+    private final List<Cluster> open = new ArrayList<>();
+    private long tick = 0;
+
+    public IncrementalClusterer(double similarityThreshold, int maxClusters, int maxClusterSize) {
+        this.similarityThreshold = similarityThreshold;
+        this.maxClusters = Math.max(1, maxClusters);
+        this.maxClusterSize = Math.max(2, maxClusterSize);
+    }
+
+    /**
+     * Assign a memory to a cluster
+     *
+     * @return Clusters closed to make room, possibly empty
+     */
+    public List<Cluster> offer(Memory memory) {
+        float[] vector = normalized(memory.getEmbedding());
+        if (vector == null) {
+            return List.of();
+        }
+        tick++;
+
+        Cluster best = null;
+        double bestSimilarity = similarityThreshold;
+        for (Cluster cluster : open) {
+            if (cluster.centroid.length != vector.length) {
+                continue;
+            }
+            double similarity = SimilarityKernels.cosine(cluster.centroid, vector);
+            if (similarity >= bestSimilarity) {
+                best = cluster;
+                bestSimilarity = similarity;
+            }
+        }
+
+        List<Cluster> closed = new ArrayList<>(1);
+        if (best != null) {
+            best.add(memory, vector, tick);
+            if (best.size() >= maxClusterSize) {
+                open.remove(best);
+                closed.add(best);
+            }
+            return closed;
+        }
+
+        if (open.size() >= maxClusters) {
+            Cluster stalest = open.get(0);
+            for (Cluster cluster : open) {
+                if (cluster.lastUpdate < stalest.lastUpdate) {
+                    stalest = cluster;
+                }
+            }
+            open.remove(stalest);
+            closed.add(stalest);
+        }
+
+        open.add(new Cluster(memory, vector, tick));
+        return closed;
+    }
+
+    /**
+     * Close and return every open cluster
+     */
+    public List<Cluster> drain() {
+        List<Cluster> closed = new ArrayList<>(open);
+        open.clear();
+        return closed;
+    }
+
+    public int openClusters() {
+        return open.size();
+    }
+
+    private static float[] normalized(float[] embedding) {
+        if (embedding == null || embedding.length == 0) {
+            return null;
+        }
+        float norm = SimilarityKernels.norm(embedding);
+        if (norm == 0f) {
+            return null;
+        }
+        float[] vector = new float[embedding.length];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = embedding[i] / norm;
+        }
+        return vector;
+    }
+
+    /**
+     * A group of near-duplicate memories
+     */
+    public static final class Cluster {
+
+        // Running mean of the members' unit vectors
+        private final float[] centroid;
+        private final List<String> memberIds = new ArrayList<>();
+        private Memory representative;
+        private Instant earliest;
+        private Instant latest;
+        private long lastUpdate;
+
+        private Cluster(Memory first, float[] vector, long tick) {
+            this.centroid = vector;
+            this.memberIds.add(first.getId());
+            this.representative = first;
+            this.earliest = first.getTimestamp();
+            this.latest = first.getTimestamp();
+            this.lastUpdate = tick;
+        }
+
+        private void add(Memory memory, float[] vector, long tick) {
+            memberIds.add(memory.getId());
+            float rate = 1f / memberIds.size();
+            for (int i = 0; i < centroid.length; i++) {
+                centroid[i] += (vector[i] - centroid[i]) * rate;
+            }
+
+            // Keep the most important member, preferring the newest on ties
+            if (memory.getImportance() > representative.getImportance()
+                    || (memory.getImportance() == representative.getImportance()
+                        && isAfter(memory.getTimestamp(), representative.getTimestamp()))) {
+                representative = memory;
+            }
+            if (isAfter(earliest, memory.getTimestamp())) {
+                earliest = memory.getTimestamp();
+            }
+            if (isAfter(memory.getTimestamp(), latest)) {
+                latest = memory.getTimestamp();
+            }
+            lastUpdate = tick;
+        }
+
+        /**
+         * Unit-length copy of the centroid
+         */
+        public float[] centroid() {
+            float[] copy = centroid.clone();
+            float norm = SimilarityKernels.norm(copy);
+            if (norm > 0f) {
+                for (int i = 0; i < copy.length; i++) {
+                    copy[i] /= norm;
+                }
+            }
+            return copy;
+        }
+
+        public List<String> memberIds() {
+            return memberIds;
+        }
+
+        public Memory representative() {
+            return representative;
+        }
+
+        public Instant earliest() {
+            return earliest;
+        }
+
+        public Instant latest() {
+            return latest;
+        }
+
+        public int size() {
+            return memberIds.size();
+        }
+
+        private static boolean isAfter(Instant a, Instant b) {
+            return a != null && (b == null || a.isAfter(b));
+        }
+    }
+}
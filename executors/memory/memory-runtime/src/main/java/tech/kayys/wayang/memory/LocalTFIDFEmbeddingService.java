@@ -1,18 +1,28 @@
 package tech.kayys.silat.executor.memory;
 
 import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Pattern;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Local embedding service using simple TF-IDF approach
  * For development and testing when external APIs are not available
+ *
+ * "vocabulary" mode (the default) keeps exact per-term statistics behind a
+ * lock. The opt-in "hashed" mode maps terms to dimensions with signed
+ * MurmurHash3 feature hashing and keeps document frequencies per hash bucket
+ * in lazily created LongAdder counters. Embedding is then lock-free and costs
+ * O(tokens) regardless of vocabulary size, but produces different vectors, so
+ * stored embeddings must be rebuilt when switching modes.
  */
 @ApplicationScoped
 public class LocalTFIDFEmbeddingService implements EmbeddingService {
@@ -21,30 +31,50 @@ public class LocalTFIDFEmbeddingService implements EmbeddingService {
     private static final int DIMENSION = 384; // Common for local models
     private static final Pattern WORD_PATTERN = Pattern.compile("\\w+");
 
+    @ConfigProperty(name = "silat.embedding.local.mode", defaultValue = "vocabulary")
+    String mode;
+
+    // Number of document-frequency buckets in hashed mode (rounded up to a power of two)
+    @ConfigProperty(name = "silat.embedding.local.idf-buckets", defaultValue = "262144")
+    int idfBuckets;
+
+    private boolean hashed;
+
+    // ==================== VOCABULARY MODE STATE ====================
+
     // Document frequency: word -> count
     private final Map<String, Integer> documentFrequency = new ConcurrentHashMap<>();
-    private final Set<String> vocabulary = ConcurrentHashMap.newKeySet();
     private int totalDocuments = 0;
 
-    @Override
-    public Uni<float[]> embed(String text) {
-        LOG.debug("Generating local TF-IDF embedding for: {} chars", text.length());
+    // ==================== HASHED MODE STATE ====================
 
-        return Uni.createFrom().item(() -> {
-            // Tokenize and calculate term frequency
-            Map<String, Integer> termFrequency = calculateTermFrequency(text);
+    // Hash bucket -> document frequency, counters created on first use
+    private AtomicReferenceArray<LongAdder> bucketDocumentFrequency;
+    private int bucketMask;
+    private final LongAdder hashedDocuments = new LongAdder();
 
-            // Update global statistics
-            updateDocumentStatistics(termFrequency.keySet());
+    @PostConstruct
+    void init() {
+        hashed = switch (mode.trim().toLowerCase(Locale.ROOT)) {
+            case "hashed" -> true;
+            case "vocabulary" -> false;
+            default -> throw new IllegalArgumentException("Unknown local embedding mode: " + mode);
+        };
 
-            // Generate TF-IDF vector
-            float[] embedding = generateTFIDFVector(termFrequency);
+        if (hashed) {
+            int buckets = Integer.highestOneBit(Math.max(1, idfBuckets - 1)) << 1;
+            bucketDocumentFrequency = new AtomicReferenceArray<>(buckets);
+            bucketMask = buckets - 1;
+        }
 
-            // Normalize
-            normalize(embedding);
+        LOG.info("Local TF-IDF embeddings in {} mode", hashed ? "hashed" : "vocabulary");
+    }
 
-            return embedding;
-        });
+    @Override
+    public Uni<float[]> embed(String text) {
+        LOG.debug("Generating local TF-IDF embedding for: {} chars", text.length());
+
+        return Uni.createFrom().item(() -> embedText(text));
     }
 
     @Override
@@ -55,11 +85,7 @@ public class LocalTFIDFEmbeddingService implements EmbeddingService {
             List<float[]> embeddings = new ArrayList<>();
 
             for (String text : texts) {
-                Map<String, Integer> termFrequency = calculateTermFrequency(text);
-                updateDocumentStatistics(termFrequency.keySet());
-                float[] embedding = generateTFIDFVector(termFrequency);
-                normalize(embedding);
-                embeddings.add(embedding);
+                embeddings.add(embedText(text));
             }
 
             return embeddings;
@@ -76,6 +102,27 @@ public class LocalTFIDFEmbeddingService implements EmbeddingService {
         return "local-tfidf";
     }
 
+    private float[] embedText(String text) {
+        // Tokenize and calculate term frequency
+        Map<String, Integer> termFrequency = calculateTermFrequency(text);
+
+        float[] embedding;
+        if (hashed) {
+            embedding = generateHashedVector(termFrequency);
+        } else {
+            // Update global statistics
+            updateDocumentStatistics(termFrequency.keySet());
+
+            // Generate TF-IDF vector
+            embedding = generateTFIDFVector(termFrequency);
+        }
+
+        // Normalize
+        normalize(embedding);
+
+        return embedding;
+    }
+
     /**
      * Calculate term frequency for text
      */
@@ -100,7 +147,6 @@ public class LocalTFIDFEmbeddingService implements EmbeddingService {
         totalDocuments++;
 
         for (String word : words) {
-            vocabulary.add(word);
             documentFrequency.merge(word, 1, Integer::sum);
         }
     }
@@ -111,10 +157,6 @@ public class LocalTFIDFEmbeddingService implements EmbeddingService {
     private float[] generateTFIDFVector(Map<String, Integer> termFrequency) {
         float[] vector = new float[DIMENSION];
 
-        // Convert vocabulary to indexed list for consistent hashing
-        List<String> vocabList = new ArrayList<>(vocabulary);
-        Collections.sort(vocabList);
-
         for (Map.Entry<String, Integer> entry : termFrequency.entrySet()) {
             String term = entry.getKey();
             int tf = entry.getValue();
@@ -134,6 +176,94 @@ public class LocalTFIDFEmbeddingService implements EmbeddingService {
         return vector;
     }
 
+    /**
+     * Generate a signed feature-hashed TF-IDF vector, updating the bucketed
+     * document frequencies without locking
+     */
+    private float[] generateHashedVector(Map<String, Integer> termFrequency) {
+        hashedDocuments.increment();
+
+        int size = termFrequency.size();
+        int[] hashes = new int[size];
+        int i = 0;
+        for (String term : termFrequency.keySet()) {
+            int hash = murmur3(term);
+            hashes[i++] = hash;
+            documentFrequencyCounter(bucketOf(hash)).increment();
+        }
+
+        double documents = hashedDocuments.sum() + 1;
+        float[] vector = new float[DIMENSION];
+
+        i = 0;
+        for (Integer tf : termFrequency.values()) {
+            int hash = hashes[i++];
+            LongAdder df = bucketDocumentFrequency.get(bucketOf(hash));
+            double idf = Math.log(documents / ((df == null ? 1 : df.sum()) + 1));
+
+            // Independent sign bit so colliding terms cancel in expectation
+            int index = Math.floorMod(hash, DIMENSION);
+            float sign = (fmix32(hash ^ 0x9E3779B9) & 1) == 0 ? 1f : -1f;
+            vector[index] += sign * (float) (tf * idf);
+        }
+
+        return vector;
+    }
+
+    private int bucketOf(int hash) {
+        return fmix32(hash + 0x7F4A7C15) & bucketMask;
+    }
+
+    private LongAdder documentFrequencyCounter(int bucket) {
+        LongAdder counter = bucketDocumentFrequency.get(bucket);
+        if (counter == null) {
+            bucketDocumentFrequency.compareAndSet(bucket, null, new LongAdder());
+            counter = bucketDocumentFrequency.get(bucket);
+        }
+        return counter;
+    }
+
+    /**
+     * MurmurHash3 x86_32 over the UTF-16 code units of a string
+     */
+    static int murmur3(CharSequence text) {
+        final int c1 = 0xcc9e2d51;
+        final int c2 = 0x1b873593;
+        int h1 = 0;
+        int length = text.length();
+
+        int i = 1;
+        for (; i < length; i += 2) {
+            int k1 = text.charAt(i - 1) | (text.charAt(i) << 16);
+            k1 *= c1;
+            k1 = Integer.rotateLeft(k1, 15);
+            k1 *= c2;
+
+            h1 ^= k1;
+            h1 = Integer.rotateLeft(h1, 13);
+            h1 = h1 * 5 + 0xe6546b64;
+        }
+
+        if ((length & 1) == 1) {
+            int k1 = text.charAt(length - 1);
+            k1 *= c1;
+            k1 = Integer.rotateLeft(k1, 15);
+            k1 *= c2;
+            h1 ^= k1;
+        }
+
+        return fmix32(h1 ^ (Character.BYTES * length));
+    }
+
+    private static int fmix32(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
     /**
      * Normalize vector to unit length
      */
@@ -0,0 +1,123 @@
+package tech.kayys.silat.executor.memory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads archive files written by {@link MemoryArchiveWriter}.
+ *
+ * Every gzip member of a file is read in order, so a file holds the memories
+ * of all batches appended to it. Records are streamed one at a time; a
+ * truncated or foreign file fails with an {@link IOException} naming the file.
+ */
+public final class MemoryArchiveReader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+    };
+
+    private MemoryArchiveReader() {
+    }
+
+    /**
+     * Read every memory in an archive file
+     */
+    public static List<Memory> read(Path file) throws IOException {
+        List<Memory> memories = new ArrayList<>();
+        read(file, memories::add);
+        return memories;
+    }
+
+    /**
+     * Hand every memory in an archive file to a consumer, in archive order
+     *
+     * @return Number of memories read
+     */
+    public static long read(Path file, Consumer<Memory> consumer) throws IOException {
+        try (InputStream fileIn = Files.newInputStream(file)) {
+            DataInputStream in = new DataInputStream(
+                new GZIPInputStream(new BufferedInputStream(fileIn, 64 * 1024), 64 * 1024));
+
+            long total = 0;
+            while (true) {
+                int first = in.read();
+                if (first < 0) {
+                    return total;
+                }
+
+                int magic = (first << 24) | (in.readUnsignedByte() << 16)
+                    | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+                if (magic != MemoryArchiveWriter.MAGIC) {
+                    throw new IOException("Not a memory archive batch in " + file
+                        + ": magic 0x" + Integer.toHexString(magic));
+                }
+
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    consumer.accept(readRecord(in));
+                }
+                total += count;
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated memory archive " + file, e);
+        }
+    }
+
+    private static Memory readRecord(DataInputStream in) throws IOException {
+        String id = readString(in);
+        String namespace = readString(in);
+        String type = readString(in);
+        long timestamp = in.readLong();
+        long expiresAt = in.readLong();
+        double importance = in.readDouble();
+        String content = readString(in);
+        String metadata = readString(in);
+
+        float[] embedding = null;
+        int dimension = in.readInt();
+        if (dimension >= 0) {
+            embedding = new float[dimension];
+            for (int i = 0; i < dimension; i++) {
+                embedding[i] = in.readFloat();
+            }
+        }
+
+        return Memory.builder()
+            .id(id)
+            .namespace(namespace)
+            .type(type != null ? MemoryType.valueOf(type) : null)
+            .timestamp(timestamp >= 0 ? Instant.ofEpochMilli(timestamp) : null)
+            .expiresAt(expiresAt >= 0 ? Instant.ofEpochMilli(expiresAt) : null)
+            .importance(importance)
+            .content(content)
+            .metadata(metadata != null ? MAPPER.readValue(metadata, METADATA_TYPE) : null)
+            .embedding(embedding)
+            .build();
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
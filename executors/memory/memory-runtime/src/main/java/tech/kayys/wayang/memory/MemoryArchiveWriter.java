@@ -0,0 +1,128 @@
+package tech.kayys.silat.executor.memory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Appends removed memories to compact local archive files.
+ *
+ * One file per namespace and UTC day. Each archived batch is appended as its
+ * own gzip member (concatenated members read back as one gzip stream)
+ * holding a "SMA1" magic, the record count and the records. A record is the
+ * id, namespace and type, then timestamp and expiry as epoch millis (-1 when
+ * absent), importance, content, metadata as JSON, and the embedding as a
+ * dimension (-1 when absent) followed by raw floats. Strings are written as
+ * a length-prefixed UTF-8 byte array.
+ *
+ * The file is synced before the batch is reported archived, so callers can
+ * delete the originals afterwards. {@link MemoryArchiveReader} reads it back.
+ */
+@ApplicationScoped
+public class MemoryArchiveWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MemoryArchiveWriter.class);
+
+    static final int MAGIC = 0x534D4131; // "SMA1"
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @ConfigProperty(name = "silat.memory.cleanup.archive.dir", defaultValue = "data/memory-archive")
+    String archiveDir;
+
+    /**
+     * Append a batch to the namespace's archive file for today, off the event loop
+     */
+    public Uni<Void> archive(String namespace, List<Memory> batch) {
+        if (batch.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+
+        return Uni.createFrom().item(() -> {
+                Path file = archiveFile(namespace);
+                try {
+                    write(file, batch);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to archive memories to " + file, e);
+                }
+                LOG.debug("Archived {} memories to {}", batch.size(), file);
+                return null;
+            })
+            .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+            .replaceWithVoid();
+    }
+
+    private Path archiveFile(String namespace) {
+        String safeNamespace = namespace.replaceAll("[^A-Za-z0-9._-]", "_");
+        return Paths.get(archiveDir, safeNamespace, LocalDate.now(ZoneOffset.UTC) + ".archive.gz");
+    }
+
+    private synchronized void write(Path file, List<Memory> batch) throws IOException {
+        Files.createDirectories(file.getParent());
+
+        try (FileOutputStream fileOut = new FileOutputStream(file.toFile(), true)) {
+            GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(fileOut, 64 * 1024));
+            DataOutputStream out = new DataOutputStream(gzip);
+
+            out.writeInt(MAGIC);
+            out.writeInt(batch.size());
+            for (Memory memory : batch) {
+                writeRecord(out, memory);
+            }
+
+            out.flush();
+            gzip.finish();
+            gzip.flush();
+            fileOut.getFD().sync();
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, Memory memory) throws IOException {
+        writeString(out, memory.getId());
+        writeString(out, memory.getNamespace());
+        writeString(out, memory.getType() != null ? memory.getType().name() : null);
+        out.writeLong(memory.getTimestamp() != null ? memory.getTimestamp().toEpochMilli() : -1L);
+        out.writeLong(memory.getExpiresAt() != null ? memory.getExpiresAt().toEpochMilli() : -1L);
+        out.writeDouble(memory.getImportance());
+        writeString(out, memory.getContent());
+        writeString(out, MAPPER.writeValueAsString(memory.getMetadata()));
+
+        float[] embedding = memory.getEmbedding();
+        if (embedding == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(embedding.length);
+            for (float value : embedding) {
+                out.writeFloat(value);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
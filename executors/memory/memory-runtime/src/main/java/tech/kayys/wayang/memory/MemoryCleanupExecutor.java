@@ -3,6 +3,7 @@ package tech.kayys.silat.executor.memory;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import tech.kayys.silat.core.domain.*;
@@ -13,6 +14,7 @@ import tech.kayys.silat.executor.Executor;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,6 +23,11 @@ import java.util.Map;
  * - Archive old low-importance memories
  * - Compress infrequently accessed memories
  * - Maintain memory store performance
+ *
+ * Expired memories are streamed in keyset-paginated batches. Each batch is
+ * archived to a local file and then deleted with a single bulk delete. A run
+ * stops when its time budget is spent, and the next run picks up where it
+ * left off, so cleanup never holds the store for long.
  */
 @Executor(
     executorType = "memory-cleanup",
@@ -35,6 +42,18 @@ public class MemoryCleanupExecutor extends AbstractWorkflowExecutor {
     @Inject
     VectorMemoryStore memoryStore;
 
+    @Inject
+    MemoryArchiveWriter archiveWriter;
+
+    @ConfigProperty(name = "silat.memory.cleanup.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "silat.memory.cleanup.time-budget", defaultValue = "PT2S")
+    Duration timeBudget;
+
+    @ConfigProperty(name = "silat.memory.cleanup.archive.enabled", defaultValue = "true")
+    boolean archiveEnabled;
+
     // Cleanup thresholds
     private static final Duration MAX_WORKING_MEMORY_AGE = Duration.ofHours(24);
     private static final Duration MAX_EPISODIC_LOW_IMPORTANCE_AGE = Duration.ofDays(30);
@@ -50,9 +69,11 @@ public class MemoryCleanupExecutor extends AbstractWorkflowExecutor {
             .map(stats -> {
                 Map<String, Object> output = Map.of(
                     "expiredRemoved", stats.expiredRemoved,
+                    "expiredArchived", stats.expiredArchived,
                     "lowImportanceArchived", stats.lowImportanceArchived,
                     "workingMemoryCleared", stats.workingMemoryCleared,
-                    "totalCleaned", stats.totalCleaned()
+                    "totalCleaned", stats.totalCleaned(),
+                    "complete", stats.complete
                 );
 
                 return NodeExecutionResult.success(
@@ -71,30 +92,86 @@ public class MemoryCleanupExecutor extends AbstractWorkflowExecutor {
     private Uni<CleanupStats> cleanupMemories(String namespace) {
         LOG.info("Cleaning up memories in namespace: {}", namespace);
 
-        return memoryStore.getStatistics(namespace)
-            .flatMap(stats -> {
-                // In a real implementation, would:
-                // 1. Query expired memories and delete
-                // 2. Query low-importance old memories and archive
-                // 3. Clear working memory older than threshold
-                // 4. Optimize storage
+        Instant cutoff = Instant.now();
+        long deadline = System.nanoTime() + timeBudget.toNanos();
+
+        return expireBatches(namespace, cutoff, deadline, new ExpiryProgress())
+            .map(progress -> {
+                LOG.info("Cleanup of {}: removed {} expired memories ({} archived){}",
+                    namespace, progress.removed, progress.archived,
+                    progress.complete ? "" : ", time budget spent");
+
+                return new CleanupStats(progress.removed, progress.archived, 0, 0, progress.complete);
+            });
+    }
+
+    /**
+     * Archive and delete one batch of expired memories, then continue with the
+     * next while the time budget lasts
+     */
+    private Uni<ExpiryProgress> expireBatches(
+            String namespace,
+            Instant cutoff,
+            long deadline,
+            ExpiryProgress progress) {
+
+        if (System.nanoTime() >= deadline) {
+            return Uni.createFrom().item(progress);
+        }
+
+        return memoryStore.scanExpired(namespace, cutoff, progress.after, batchSize)
+            .flatMap(batch -> {
+                if (batch.isEmpty()) {
+                    progress.complete = true;
+                    return Uni.createFrom().item(progress);
+                }
 
-                LOG.info("Cleanup complete for namespace: {}", namespace);
+                List<String> ids = batch.stream().map(Memory::getId).toList();
+                Uni<Void> archived = archiveEnabled
+                    ? archiveWriter.archive(namespace, batch)
+                    : Uni.createFrom().voidItem();
 
-                return Uni.createFrom().item(new CleanupStats(0, 0, 0));
+                // Only delete what has been durably archived
+                return archived
+                    .flatMap(unused -> memoryStore.deleteBatch(ids))
+                    .flatMap(deleted -> {
+                        progress.removed += deleted;
+                        if (archiveEnabled) {
+                            progress.archived += batch.size();
+                        }
+                        progress.after = batch.get(batch.size() - 1);
+
+                        if (batch.size() < batchSize) {
+                            progress.complete = true;
+                            return Uni.createFrom().item(progress);
+                        }
+                        return expireBatches(namespace, cutoff, deadline, progress);
+                    });
             });
     }
 
+    /**
+     * Mutable progress of one expiry run; only touched by its own Uni chain
+     */
+    private static final class ExpiryProgress {
+        Memory after;
+        long removed = 0;
+        long archived = 0;
+        boolean complete = false;
+    }
+
     /**
      * Cleanup statistics
      */
     private record CleanupStats(
-        int expiredRemoved,
+        long expiredRemoved,
+        long expiredArchived,
         int lowImportanceArchived,
-        int workingMemoryCleared
+        int workingMemoryCleared,
+        boolean complete
     ) {
-        int totalCleaned() {
+        long totalCleaned() {
             return expiredRemoved + lowImportanceArchived + workingMemoryCleared;
         }
     }
-}
\ No newline at end of file
+}
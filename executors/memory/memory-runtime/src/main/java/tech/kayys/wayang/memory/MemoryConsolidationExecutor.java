@@ -3,6 +3,7 @@ package tech.kayys.silat.executor.memory;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import tech.kayys.silat.core.domain.*;
@@ -13,7 +14,11 @@ import tech.kayys.silat.executor.Executor;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Specialized executor that consolidates episodic memories into semantic knowledge.
@@ -22,6 +27,13 @@ import java.util.Map;
  * - Extract semantic knowledge
  * - Reduce memory footprint
  * - Improve retrieval quality
+ *
+ * Episodic memories are read page by page with keyset scans and grouped by an
+ * {@link IncrementalClusterer}. Each group of near-duplicates is replaced by
+ * one semantic memory. A pass stops after a bounded number of memories and
+ * records a checkpoint (the last scanned id) in the memory store, so the next
+ * execution resumes there, even on another instance or after a restart. A
+ * namespace is never loaded into the heap as a whole.
  */
 @Executor(
     executorType = "memory-consolidation",
@@ -42,20 +54,41 @@ public class MemoryConsolidationExecutor extends AbstractWorkflowExecutor {
     @Inject
     TextChunker textChunker;
 
+    @ConfigProperty(name = "silat.memory.consolidation.similarity-threshold", defaultValue = "0.92")
+    double similarityThreshold;
+
+    @ConfigProperty(name = "silat.memory.consolidation.page-size", defaultValue = "256")
+    int pageSize;
+
+    @ConfigProperty(name = "silat.memory.consolidation.max-memories-per-pass", defaultValue = "10000")
+    int maxMemoriesPerPass;
+
+    @ConfigProperty(name = "silat.memory.consolidation.max-clusters", defaultValue = "1024")
+    int maxClusters;
+
+    @ConfigProperty(name = "silat.memory.consolidation.max-cluster-size", defaultValue = "64")
+    int maxClusterSize;
+
     @Override
     public Uni<NodeExecutionResult> execute(NodeExecutionTask task) {
         LOG.info("Starting memory consolidation task");
 
         String namespace = (String) task.context().getOrDefault("namespace", "default");
+        Uni<String> checkpoint = task.context().containsKey("checkpoint")
+            ? Uni.createFrom().item((String) task.context().get("checkpoint"))
+            : memoryStore.loadCheckpoint(checkpointName(namespace));
 
-        return consolidateMemories(namespace)
+        return checkpoint
+            .flatMap(startAfter -> consolidateMemories(namespace, startAfter))
             .map(stats -> {
-                Map<String, Object> output = Map.of(
-                    "consolidated", stats.consolidated,
-                    "patternsFound", stats.patterns,
-                    "semanticMemoriesCreated", stats.semanticCreated,
-                    "episodicMemoriesRetained", stats.episodicRetained
-                );
+                Map<String, Object> output = new HashMap<>();
+                output.put("consolidated", stats.consolidated);
+                output.put("patternsFound", stats.patterns);
+                output.put("semanticMemoriesCreated", stats.semanticCreated);
+                output.put("episodicMemoriesRetained", stats.episodicRetained);
+                output.put("scanned", stats.scanned);
+                output.put("complete", stats.checkpoint == null);
+                output.put("checkpoint", stats.checkpoint);
 
                 return NodeExecutionResult.success(
                     task.runId(),
@@ -69,31 +102,148 @@ public class MemoryConsolidationExecutor extends AbstractWorkflowExecutor {
 
     /**
      * Consolidate episodic memories into semantic knowledge
+     *
+     * @param startAfter Checkpoint of an unfinished pass, or null to start from the beginning
+     */
+    private Uni<ConsolidationStats> consolidateMemories(String namespace, String startAfter) {
+        LOG.info("Consolidating memories in namespace: {} (resuming after {})", namespace, startAfter);
+
+        ConsolidationPass pass = new ConsolidationPass(
+            new IncrementalClusterer(similarityThreshold, maxClusters, maxClusterSize), startAfter);
+
+        return nextPage(namespace, pass)
+            .flatMap(complete -> consolidate(namespace, pass, pass.clusterer.drain())
+                .flatMap(unused -> {
+                    String checkpoint = complete ? null : pass.afterId;
+                    return memoryStore.saveCheckpoint(checkpointName(namespace), checkpoint)
+                        .replaceWith(checkpoint);
+                })
+                .map(checkpoint -> {
+                    LOG.info("Consolidation of {}: scanned {}, merged {} into {} semantic memories{}",
+                        namespace, pass.scanned, pass.merged, pass.semanticCreated,
+                        complete ? "" : ", resuming after " + checkpoint);
+
+                    return new ConsolidationStats(
+                        pass.merged,
+                        pass.patterns,
+                        pass.semanticCreated,
+                        pass.scanned - pass.merged,
+                        pass.scanned,
+                        checkpoint
+                    );
+                }));
+    }
+
+    /**
+     * Cluster the next page and recurse until the namespace or the pass budget is exhausted
+     *
+     * @return true when the whole namespace has been scanned
+     */
+    private Uni<Boolean> nextPage(String namespace, ConsolidationPass pass) {
+        int limit = (int) Math.min(pageSize, maxMemoriesPerPass - pass.scanned);
+        if (limit <= 0) {
+            return Uni.createFrom().item(false);
+        }
+
+        return memoryStore.scan(namespace, MemoryType.EPISODIC, pass.afterId, limit)
+            .flatMap(page -> {
+                List<IncrementalClusterer.Cluster> closed = new ArrayList<>();
+                for (Memory memory : page) {
+                    closed.addAll(pass.clusterer.offer(memory));
+                }
+
+                pass.scanned += page.size();
+                if (!page.isEmpty()) {
+                    pass.afterId = page.get(page.size() - 1).getId();
+                }
+                boolean exhausted = page.size() < limit;
+
+                return consolidate(namespace, pass, closed)
+                    .flatMap(unused -> {
+                        // Members of still-open clusters stay stored, so resuming here loses nothing
+                        Uni<Void> saved = pass.afterId != null
+                            ? memoryStore.saveCheckpoint(checkpointName(namespace), pass.afterId)
+                            : Uni.createFrom().voidItem();
+                        return saved.flatMap(ignored -> exhausted
+                            ? Uni.createFrom().item(true)
+                            : nextPage(namespace, pass));
+                    });
+            });
+    }
+
+    private static String checkpointName(String namespace) {
+        return "consolidation:" + namespace;
+    }
+
+    /**
+     * Replace each closed cluster of two or more memories with one semantic memory
      */
-    private Uni<ConsolidationStats> consolidateMemories(String namespace) {
-        LOG.info("Consolidating memories in namespace: {}", namespace);
-
-        // Get statistics
-        return memoryStore.getStatistics(namespace)
-            .flatMap(stats -> {
-                LOG.info("Found {} episodic memories to consolidate", stats.getEpisodicCount());
-
-                // For now, return basic stats
-                // In real implementation, would:
-                // 1. Cluster similar episodic memories
-                // 2. Extract common patterns
-                // 3. Create semantic memories
-                // 4. Archive or delete consolidated episodic memories
-
-                return Uni.createFrom().item(new ConsolidationStats(
-                    stats.getEpisodicCount(),
-                    0, // patterns found
-                    0, // semantic created
-                    stats.getEpisodicCount() // all retained for now
-                ));
+    private Uni<Void> consolidate(
+            String namespace,
+            ConsolidationPass pass,
+            List<IncrementalClusterer.Cluster> clusters) {
+
+        List<Memory> semantic = new ArrayList<>();
+        List<String> mergedIds = new ArrayList<>();
+
+        for (IncrementalClusterer.Cluster cluster : clusters) {
+            if (cluster.size() < 2) {
+                continue;
+            }
+
+            Memory representative = cluster.representative();
+            Map<String, Object> metadata = new HashMap<>(representative.getMetadata());
+            metadata.put("consolidatedFrom", List.copyOf(cluster.memberIds()));
+            metadata.put("clusterSize", cluster.size());
+            if (cluster.earliest() != null) {
+                metadata.put("firstSeen", cluster.earliest().toString());
+            }
+
+            semantic.add(Memory.builder()
+                .id(UUID.randomUUID().toString())
+                .namespace(namespace)
+                .content(representative.getContent())
+                .embedding(cluster.centroid())
+                .type(MemoryType.SEMANTIC)
+                .metadata(metadata)
+                .timestamp(cluster.latest())
+                .importance(representative.getImportance())
+                .build());
+            mergedIds.addAll(cluster.memberIds());
+        }
+
+        if (semantic.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+
+        // Store the replacements before deleting what they replace
+        return memoryStore.storeBatch(semantic)
+            .flatMap(ids -> memoryStore.deleteBatch(mergedIds))
+            .replaceWithVoid()
+            .invoke(() -> {
+                pass.patterns += semantic.size();
+                pass.semanticCreated += semantic.size();
+                pass.merged += mergedIds.size();
             });
     }
 
+    /**
+     * Mutable progress of one consolidation pass; only touched by its own Uni chain
+     */
+    private static final class ConsolidationPass {
+        final IncrementalClusterer clusterer;
+        String afterId;
+        long scanned = 0;
+        long merged = 0;
+        int patterns = 0;
+        int semanticCreated = 0;
+
+        ConsolidationPass(IncrementalClusterer clusterer, String afterId) {
+            this.clusterer = clusterer;
+            this.afterId = afterId;
+        }
+    }
+
     /**
      * Consolidation statistics
      */
@@ -101,6 +251,8 @@ public class MemoryConsolidationExecutor extends AbstractWorkflowExecutor {
         long consolidated,
         int patterns,
         int semanticCreated,
-        long episodicRetained
+        long episodicRetained,
+        long scanned,
+        String checkpoint
     ) {}
-}
\ No newline at end of file
+}
@@ -1,27 +1,44 @@
 package tech.kayys.silat.executor.memory;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import tech.kayys.wayang.embedding.EmbeddingBatchDispatcher;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.Base64;
 
 /**
- * OpenAI embedding service implementation
+ * OpenAI embedding service implementation.
+ *
+ * Embeddings are cached in a W-TinyLFU cache bounded by both entry count and
+ * approximate byte weight. Concurrent requests for the same text share one
+ * in-flight API call. Hit, miss and eviction counts are published under
+ * the "silat.embedding" cache metrics. Callers get their own copy of a
+ * cached embedding, so mutating it cannot corrupt the cache.
+ *
+ * Cache misses go through an {@link EmbeddingBatchDispatcher}, which merges
+ * concurrent single-text requests into one API call and splits large batches
+ * into chunks of at most the provider's input limit.
  */
 @ApplicationScoped
 public class OpenAIEmbeddingService implements EmbeddingService {
 
     private static final Logger LOG = LoggerFactory.getLogger(OpenAIEmbeddingService.class);
 
+    // Rough per-entry overhead of the cache node, key and array headers
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
     @ConfigProperty(name = "silat.embedding.openai.api-key")
     Optional<String> apiKey;
 
@@ -38,39 +55,185 @@ public class OpenAIEmbeddingService implements EmbeddingService {
     @ConfigProperty(name = "silat.embedding.cache.max-size", defaultValue = "10000")
     int cacheMaxSize;
 
-    // Cache: text hash -> embedding
-    private final Map<String, float[]> embeddingCache = new ConcurrentHashMap<>();
+    @ConfigProperty(name = "silat.embedding.cache.max-weight-bytes", defaultValue = "134217728")
+    long cacheMaxWeightBytes;
+
+    @ConfigProperty(name = "silat.embedding.batch.enabled", defaultValue = "true")
+    boolean batchEnabled;
+
+    // OpenAI accepts at most 2048 inputs per request
+    @ConfigProperty(name = "silat.embedding.batch.max-size", defaultValue = "2048")
+    int batchMaxSize;
+
+    @ConfigProperty(name = "silat.embedding.batch.max-linger", defaultValue = "PT0.005S")
+    Duration batchMaxLinger;
+
+    @ConfigProperty(name = "silat.embedding.batch.max-concurrency", defaultValue = "4")
+    int batchMaxConcurrency;
+
+    // Texts waiting for a batch before new requests are rejected
+    @ConfigProperty(name = "silat.embedding.batch.max-queued", defaultValue = "100000")
+    int batchMaxQueued;
+
+    // Cache: text -> embedding; a pending future is shared by concurrent callers
+    private AsyncCache<String, float[]> embeddingCache;
+
+    private EmbeddingBatchDispatcher dispatcher;
 
     @Inject
     @RestClient
     OpenAIRestClient restClient;
 
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @PostConstruct
+    void init() {
+        initDispatcher();
+        initCache();
+    }
+
+    private void initDispatcher() {
+        if (!batchEnabled) {
+            return;
+        }
+
+        dispatcher = new EmbeddingBatchDispatcher(
+            this::requestEmbeddings, batchMaxSize, batchMaxLinger, batchMaxConcurrency, batchMaxQueued);
+
+        LOG.info("Embedding batching enabled: max {} texts, linger {}, {} concurrent requests",
+            batchMaxSize, batchMaxLinger, batchMaxConcurrency);
+    }
+
+    @PreDestroy
+    void closeDispatcher() {
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+    }
+
+    private void initCache() {
+        if (!cacheEnabled) {
+            return;
+        }
+
+        // Every entry weighs at least maxWeight / maxSize, so the weight bound
+        // also caps the entry count at maxSize
+        long minEntryWeight = Math.max(1L, cacheMaxWeightBytes / Math.max(1, cacheMaxSize));
+
+        embeddingCache = Caffeine.newBuilder()
+            .maximumWeight(cacheMaxWeightBytes)
+            .weigher((String text, float[] embedding) ->
+                (int) Math.min(Integer.MAX_VALUE, Math.max(minEntryWeight, entryBytes(text, embedding))))
+            .recordStats()
+            .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, embeddingCache.synchronous(), "silat.embedding");
+
+        LOG.info("Embedding cache enabled: max {} entries, {} bytes", cacheMaxSize, cacheMaxWeightBytes);
+    }
+
     @Override
     public Uni<float[]> embed(String text) {
         LOG.debug("Generating embedding for text: {} chars", text.length());
 
-        // Check cache
-        if (cacheEnabled) {
-            String textHash = hashText(text);
-            float[] cached = embeddingCache.get(textHash);
-            if (cached != null) {
-                LOG.debug("Returning cached embedding");
-                return Uni.createFrom().item(cached);
-            }
+        if (embeddingCache == null) {
+            return loadEmbedding(text);
+        }
+
+        return Uni.createFrom().completionStage(() ->
+                embeddingCache.get(text, (key, executor) ->
+                    loadEmbedding(key).subscribeAsCompletionStage()))
+            .map(float[]::clone);
+    }
+
+    @Override
+    public Uni<List<float[]>> embedBatch(List<String> texts) {
+        LOG.debug("Generating embeddings for batch of {} texts", texts.size());
+
+        if (texts.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+
+        if (embeddingCache == null) {
+            return loadEmbeddings(texts);
         }
 
-        // Prepare request
+        // Only texts neither cached nor already in flight reach the API
+        return Uni.createFrom().completionStage(() ->
+                embeddingCache.getAll(texts, (missing, executor) -> {
+                    List<String> uncachedTexts = new ArrayList<>(missing);
+                    return loadEmbeddings(uncachedTexts)
+                        .map(embeddings -> {
+                            Map<String, float[]> loaded = new HashMap<>();
+                            for (int i = 0; i < uncachedTexts.size(); i++) {
+                                loaded.put(uncachedTexts.get(i), embeddings.get(i));
+                            }
+                            return loaded;
+                        })
+                        .subscribeAsCompletionStage();
+                }))
+            .map(found -> {
+                List<float[]> results = new ArrayList<>(texts.size());
+                for (String text : texts) {
+                    results.add(found.get(text).clone());
+                }
+                return results;
+            });
+    }
+
+    /**
+     * Entries in the cache once pending evictions have run, or 0 without a cache
+     */
+    long cacheSize() {
+        if (embeddingCache == null) {
+            return 0;
+        }
+        embeddingCache.synchronous().cleanUp();
+        return embeddingCache.synchronous().estimatedSize();
+    }
+
+    @Override
+    public int getDimension() {
+        return switch (model) {
+            case "text-embedding-3-small" -> 1536;
+            case "text-embedding-3-large" -> 3072;
+            case "text-embedding-ada-002" -> 1536;
+            default -> 1536;
+        };
+    }
+
+    @Override
+    public String getProvider() {
+        return "openai";
+    }
+
+    /**
+     * Embed one text through the dispatcher, or directly when batching is off
+     */
+    private Uni<float[]> loadEmbedding(String text) {
+        return dispatcher != null ? dispatcher.submit(text) : requestEmbedding(text);
+    }
+
+    /**
+     * Embed texts in provider-sized chunks through the dispatcher, or in one
+     * request when batching is off
+     */
+    private Uni<List<float[]>> loadEmbeddings(List<String> texts) {
+        return dispatcher != null ? dispatcher.submitAll(texts) : requestEmbeddings(texts);
+    }
+
+    /**
+     * Call the embeddings API for a single text
+     */
+    private Uni<float[]> requestEmbedding(String text) {
         OpenAIEmbeddingRequest request = new OpenAIEmbeddingRequest(
             model,
             text,
             "float"
         );
 
-        return restClient.createEmbedding(
-                "Bearer " + apiKey.orElseThrow(() ->
-                    new IllegalStateException("OpenAI API key not configured")),
-                request
-            )
+        return restClient.createEmbedding(authorization(), request)
             .map(response -> {
                 if (response.data == null || response.data.isEmpty()) {
                     throw new RuntimeException("No embedding returned from OpenAI");
@@ -78,12 +241,6 @@ public class OpenAIEmbeddingService implements EmbeddingService {
 
                 float[] embedding = response.data.get(0).embedding;
 
-                // Cache the embedding
-                if (cacheEnabled && embeddingCache.size() < cacheMaxSize) {
-                    String textHash = hashText(text);
-                    embeddingCache.put(textHash, embedding);
-                }
-
                 LOG.debug("Generated embedding with dimension: {}", embedding.length);
                 return embedding;
             })
@@ -92,102 +249,42 @@ public class OpenAIEmbeddingService implements EmbeddingService {
             );
     }
 
-    @Override
-    public Uni<List<float[]>> embedBatch(List<String> texts) {
-        LOG.debug("Generating embeddings for batch of {} texts", texts.size());
-
-        // Check cache for all texts
-        List<float[]> results = new ArrayList<>();
-        List<String> uncachedTexts = new ArrayList<>();
-        List<Integer> uncachedIndices = new ArrayList<>();
-
-        if (cacheEnabled) {
-            for (int i = 0; i < texts.size(); i++) {
-                String text = texts.get(i);
-                String textHash = hashText(text);
-                float[] cached = embeddingCache.get(textHash);
-
-                if (cached != null) {
-                    results.add(cached);
-                } else {
-                    results.add(null); // Placeholder
-                    uncachedTexts.add(text);
-                    uncachedIndices.add(i);
-                }
-            }
-
-            if (uncachedTexts.isEmpty()) {
-                LOG.debug("All embeddings found in cache");
-                return Uni.createFrom().item(results);
-            }
-        } else {
-            uncachedTexts.addAll(texts);
-            for (int i = 0; i < texts.size(); i++) {
-                results.add(null);
-                uncachedIndices.add(i);
-            }
-        }
-
-        // Batch request for uncached texts
+    /**
+     * Call the embeddings API for several texts in one request
+     */
+    private Uni<List<float[]>> requestEmbeddings(List<String> texts) {
         OpenAIEmbeddingBatchRequest request = new OpenAIEmbeddingBatchRequest(
             model,
-            uncachedTexts,
+            texts,
             "float"
         );
 
-        return restClient.createEmbeddingBatch(
-                "Bearer " + apiKey.orElseThrow(() ->
-                    new IllegalStateException("OpenAI API key not configured")),
-                request
-            )
+        return restClient.createEmbeddingBatch(authorization(), request)
             .map(response -> {
-                if (response.data == null || response.data.size() != uncachedTexts.size()) {
+                if (response.data == null || response.data.size() != texts.size()) {
                     throw new RuntimeException("Invalid batch embedding response");
                 }
 
-                // Fill in the results and cache
-                for (int i = 0; i < uncachedTexts.size(); i++) {
-                    float[] embedding = response.data.get(i).embedding;
-                    int originalIndex = uncachedIndices.get(i);
-                    results.set(originalIndex, embedding);
-
-                    // Cache
-                    if (cacheEnabled && embeddingCache.size() < cacheMaxSize) {
-                        String textHash = hashText(uncachedTexts.get(i));
-                        embeddingCache.put(textHash, embedding);
-                    }
+                List<float[]> embeddings = new ArrayList<>(texts.size());
+                for (int i = 0; i < texts.size(); i++) {
+                    embeddings.add(response.data.get(i).embedding);
                 }
 
                 LOG.debug("Generated {} embeddings", response.data.size());
-                return results;
+                return embeddings;
             });
     }
 
-    @Override
-    public int getDimension() {
-        return switch (model) {
-            case "text-embedding-3-small" -> 1536;
-            case "text-embedding-3-large" -> 3072;
-            case "text-embedding-ada-002" -> 1536;
-            default -> 1536;
-        };
-    }
-
-    @Override
-    public String getProvider() {
-        return "openai";
+    private String authorization() {
+        return "Bearer " + apiKey.orElseThrow(() ->
+            new IllegalStateException("OpenAI API key not configured"));
     }
 
     /**
-     * Hash text for cache key
+     * Approximate retained size of a cache entry
      */
-    private String hashText(String text) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(text.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hash);
-        } catch (Exception e) {
-            return text; // Fallback
-        }
+    private static long entryBytes(String text, float[] embedding) {
+        return ENTRY_OVERHEAD_BYTES + (long) text.length() * Character.BYTES
+            + (long) embedding.length * Float.BYTES;
     }
-}
\ No newline at end of file
+}
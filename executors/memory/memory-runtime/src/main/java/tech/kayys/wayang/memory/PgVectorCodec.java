@@ -0,0 +1,67 @@
+package tech.kayys.silat.executor.memory;
+
+import io.vertx.mutiny.core.buffer.Buffer;
+
+/**
+ * Codec for pgvector values.
+ *
+ * Reads use pgvector's binary send format, selected with {@code vector_send(embedding)}:
+ * int16 dimension, int16 reserved, then dimension big-endian float4 values.
+ * Writes bind pgvector's text form, {@code [v1,v2,...]}, as one string
+ * parameter cast with {@code $n::vector}. Each float is written with its
+ * shortest exact representation, so values round-trip unchanged, and no
+ * per-element boxed array is built.
+ */
+public final class PgVectorCodec {
+
+    private static final int HEADER_BYTES = 4;
+
+    private PgVectorCodec() {
+    }
+
+    /**
+     * SQL placeholder for a vector parameter bound with {@link #encode(float[])}
+     */
+    public static String param(int index) {
+        return "$" + index + "::vector";
+    }
+
+    /**
+     * Encode a vector in pgvector's text form
+     */
+    public static String encode(float[] vector) {
+        if (vector == null) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder(2 + vector.length * 12);
+        text.append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(vector[i]);
+        }
+        return text.append(']').toString();
+    }
+
+    /**
+     * Decode the output of vector_send
+     */
+    public static float[] decode(Buffer buffer) {
+        if (buffer == null) {
+            return null;
+        }
+
+        int dimension = buffer.getShort(0) & 0xFFFF;
+        if (buffer.length() != HEADER_BYTES + dimension * Float.BYTES) {
+            throw new IllegalArgumentException("Malformed pgvector value: " + buffer.length()
+                + " bytes for dimension " + dimension);
+        }
+
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = buffer.getFloat(HEADER_BYTES + i * Float.BYTES);
+        }
+        return vector;
+    }
+}
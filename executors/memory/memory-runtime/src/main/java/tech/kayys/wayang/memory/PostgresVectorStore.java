@@ -1,6 +1,5 @@
 package tech.kayys.silat.executor.memory;
 
-import io.quarkus.hibernate.reactive.panache.Panache;
 import io.smallrye.mutiny.Uni;
 import io.vertx.mutiny.pgclient.PgPool;
 import io.vertx.mutiny.sqlclient.Row;
@@ -33,6 +32,30 @@ public class PostgresVectorStore implements VectorMemoryStore {
     @ConfigProperty(name = "silat.memory.index.type", defaultValue = "hnsw")
     String indexType; // hnsw or ivfflat
 
+    @ConfigProperty(name = "silat.memory.postgres.batch-size", defaultValue = "500")
+    int batchSize; // rows per multi-row INSERT, 10 bind parameters each
+
+    private static final int COLUMNS_PER_ROW = 10;
+
+    // The wire protocol counts bind parameters in an int16
+    private static final int MAX_ROWS_PER_STATEMENT = 65535 / COLUMNS_PER_ROW;
+
+    private static final String UPSERT_PREFIX = """
+        INSERT INTO silat_memories (
+            id, namespace, content, embedding, type, metadata,
+            timestamp, expires_at, importance, tenant_id
+        ) VALUES
+        """;
+
+    private static final String UPSERT_SUFFIX = """
+        ON CONFLICT (id) DO UPDATE SET
+            content = EXCLUDED.content,
+            embedding = EXCLUDED.embedding,
+            metadata = EXCLUDED.metadata,
+            importance = EXCLUDED.importance,
+            updated_at = NOW()
+        """;
+
     /**
      * Initialize database schema
      */
@@ -57,6 +80,9 @@ public class PostgresVectorStore implements VectorMemoryStore {
             );
 
             CREATE INDEX IF NOT EXISTS idx_memories_namespace ON silat_memories(namespace);
+            CREATE INDEX IF NOT EXISTS idx_memories_namespace_id ON silat_memories(namespace, id);
+            CREATE INDEX IF NOT EXISTS idx_memories_namespace_expiry
+                ON silat_memories(namespace, expires_at, id) WHERE expires_at IS NOT NULL;
             CREATE INDEX IF NOT EXISTS idx_memories_tenant ON silat_memories(tenant_id);
             CREATE INDEX IF NOT EXISTS idx_memories_type ON silat_memories(type);
             CREATE INDEX IF NOT EXISTS idx_memories_timestamp ON silat_memories(timestamp DESC);
@@ -68,6 +94,12 @@ public class PostgresVectorStore implements VectorMemoryStore {
             CREATE INDEX IF NOT EXISTS idx_memories_embedding_hnsw
                 ON silat_memories USING hnsw (embedding vector_cosine_ops)
                 WITH (m = 16, ef_construction = 64);
+
+            CREATE TABLE IF NOT EXISTS silat_memory_checkpoints (
+                name VARCHAR(255) PRIMARY KEY,
+                checkpoint TEXT NOT NULL,
+                updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+            );
             """.formatted(vectorDimension);
 
         return pgPool.query(createTableSql)
@@ -80,32 +112,11 @@ public class PostgresVectorStore implements VectorMemoryStore {
     public Uni<String> store(Memory memory) {
         LOG.debug("Storing memory: {}", memory.getId());
 
-        String sql = """
-            INSERT INTO silat_memories (
-                id, namespace, content, embedding, type, metadata,
-                timestamp, expires_at, importance, tenant_id
-            ) VALUES ($1, $2, $3, $4::vector, $5, $6::jsonb, $7, $8, $9, $10)
-            ON CONFLICT (id) DO UPDATE SET
-                content = EXCLUDED.content,
-                embedding = EXCLUDED.embedding,
-                metadata = EXCLUDED.metadata,
-                importance = EXCLUDED.importance,
-                updated_at = NOW()
-            RETURNING id
-            """;
+        String sql = buildUpsertSql(1) + " RETURNING id";
 
-        Tuple params = Tuple.of(
-            UUID.fromString(memory.getId()),
-            memory.getNamespace(),
-            memory.getContent(),
-            vectorToString(memory.getEmbedding()),
-            memory.getType().name(),
-            toJsonb(memory.getMetadata()),
-            memory.getTimestamp(),
-            memory.getExpiresAt(),
-            memory.getImportance(),
-            extractTenantId(memory.getNamespace())
-        );
+        List<Object> values = new ArrayList<>(COLUMNS_PER_ROW);
+        bindMemory(values, memory);
+        Tuple params = Tuple.wrap(values);
 
         return pgPool.preparedQuery(sql)
             .execute(params)
@@ -119,15 +130,57 @@ public class PostgresVectorStore implements VectorMemoryStore {
     public Uni<List<String>> storeBatch(List<Memory> memories) {
         LOG.debug("Storing batch of {} memories", memories.size());
 
-        return Panache.withTransaction(() -> {
-            List<Uni<String>> stores = memories.stream()
-                .map(this::store)
-                .toList();
+        if (memories.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+
+        List<UpsertStatement> statements = planBatchUpsert(memories);
 
-            return Uni.join().all(stores).andFailFast();
+        return pgPool.withTransaction(connection -> {
+            Uni<Void> chain = Uni.createFrom().voidItem();
+            for (UpsertStatement statement : statements) {
+                chain = chain.chain(() -> connection.preparedQuery(statement.sql())
+                    .execute(Tuple.wrap(statement.values()))
+                    .replaceWithVoid());
+            }
+            return chain;
+        })
+        .map(v -> {
+            LOG.debug("Stored {} memories in {} statement(s)", memories.size(), statements.size());
+            return memories.stream().map(Memory::getId).toList();
         });
     }
 
+    /**
+     * Split a batch into multi-row upserts of at most batchSize rows each.
+     * A single statement cannot upsert the same row twice, so a repeated id
+     * keeps its first position but takes the values of its last occurrence.
+     */
+    List<UpsertStatement> planBatchUpsert(List<Memory> memories) {
+        Map<String, Memory> unique = new LinkedHashMap<>();
+        for (Memory memory : memories) {
+            unique.put(memory.getId(), memory);
+        }
+        List<Memory> rows = new ArrayList<>(unique.values());
+        int chunkSize = Math.min(Math.max(1, batchSize), MAX_ROWS_PER_STATEMENT);
+
+        List<UpsertStatement> statements = new ArrayList<>((rows.size() + chunkSize - 1) / chunkSize);
+        for (int start = 0; start < rows.size(); start += chunkSize) {
+            List<Memory> chunk = rows.subList(start, Math.min(start + chunkSize, rows.size()));
+            List<Object> values = new ArrayList<>(chunk.size() * COLUMNS_PER_ROW);
+            for (Memory memory : chunk) {
+                bindMemory(values, memory);
+            }
+            statements.add(new UpsertStatement(buildUpsertSql(chunk.size()), values));
+        }
+        return statements;
+    }
+
+    /**
+     * One multi-row upsert with its bind parameters, in placeholder order
+     */
+    record UpsertStatement(String sql, List<Object> values) {}
+
     @Override
     public Uni<List<ScoredMemory>> search(
             float[] queryEmbedding,
@@ -140,7 +193,7 @@ public class PostgresVectorStore implements VectorMemoryStore {
         // Build dynamic query based on filters
         StringBuilder sql = new StringBuilder("""
             SELECT
-                id, namespace, content, embedding::text, type,
+                id, namespace, content, vector_send(embedding) AS embedding, type,
                 metadata, timestamp, expires_at, importance,
                 1 - (embedding <=> $1::vector) as similarity
             FROM silat_memories
@@ -148,7 +201,7 @@ public class PostgresVectorStore implements VectorMemoryStore {
             """);
 
         List<Object> params = new ArrayList<>();
-        params.add(vectorToString(queryEmbedding));
+        params.add(PgVectorCodec.encode(queryEmbedding));
         int paramIndex = 2;
 
         // Add filters
@@ -215,7 +268,7 @@ public class PostgresVectorStore implements VectorMemoryStore {
         String sql = """
             WITH semantic_results AS (
                 SELECT
-                    id, namespace, content, embedding::text, type,
+                    id, namespace, content, vector_send(embedding) AS embedding, type,
                     metadata, timestamp, expires_at, importance,
                     1 - (embedding <=> $1::vector) as semantic_score
                 FROM silat_memories
@@ -246,7 +299,7 @@ public class PostgresVectorStore implements VectorMemoryStore {
         String namespace = "default"; // From filters if available
 
         Tuple params = Tuple.of(
-            vectorToString(queryEmbedding),
+            PgVectorCodec.encode(queryEmbedding),
             namespace,
             keywordQuery,
             semanticWeight,
@@ -281,7 +334,7 @@ public class PostgresVectorStore implements VectorMemoryStore {
         LOG.debug("Retrieving memory: {}", memoryId);
 
         String sql = """
-            SELECT id, namespace, content, embedding::text, type,
+            SELECT id, namespace, content, vector_send(embedding) AS embedding, type,
                    metadata, timestamp, expires_at, importance
             FROM silat_memories
             WHERE id = $1
@@ -303,7 +356,7 @@ public class PostgresVectorStore implements VectorMemoryStore {
         LOG.debug("Retrieving batch of {} memories", memoryIds.size());
 
         String sql = """
-            SELECT id, namespace, content, embedding::text, type,
+            SELECT id, namespace, content, vector_send(embedding) AS embedding, type,
                    metadata, timestamp, expires_at, importance
             FROM silat_memories
             WHERE id = ANY($1)
@@ -334,7 +387,7 @@ public class PostgresVectorStore implements VectorMemoryStore {
             SET metadata = metadata || $1::jsonb,
                 updated_at = NOW()
             WHERE id = $2
-            RETURNING id, namespace, content, embedding::text, type,
+            RETURNING id, namespace, content, vector_send(embedding) AS embedding, type,
                       metadata, timestamp, expires_at, importance
             """;
 
@@ -359,6 +412,25 @@ public class PostgresVectorStore implements VectorMemoryStore {
             .map(rowSet -> rowSet.rowCount() > 0);
     }
 
+    @Override
+    public Uni<Long> deleteBatch(List<String> memoryIds) {
+        LOG.debug("Deleting batch of {} memories", memoryIds.size());
+
+        if (memoryIds.isEmpty()) {
+            return Uni.createFrom().item(0L);
+        }
+
+        String sql = "DELETE FROM silat_memories WHERE id = ANY($1)";
+
+        UUID[] uuids = memoryIds.stream()
+            .map(UUID::fromString)
+            .toArray(UUID[]::new);
+
+        return pgPool.preparedQuery(sql)
+            .execute(Tuple.of((Object) uuids))
+            .map(rowSet -> (long) rowSet.rowCount());
+    }
+
     @Override
     public Uni<Long> deleteNamespace(String namespace) {
         LOG.info("Deleting all memories in namespace: {}", namespace);
@@ -370,6 +442,82 @@ public class PostgresVectorStore implements VectorMemoryStore {
             .map(rowSet -> (long) rowSet.rowCount());
     }
 
+    @Override
+    public Uni<List<Memory>> scan(String namespace, MemoryType type, String afterId, int limit) {
+        LOG.debug("Scanning namespace {} after {} (limit {})", namespace, afterId, limit);
+
+        StringBuilder sql = new StringBuilder("""
+            SELECT id, namespace, content, vector_send(embedding) AS embedding, type,
+                   metadata, timestamp, expires_at, importance
+            FROM silat_memories
+            WHERE namespace = $1
+                AND (expires_at IS NULL OR expires_at > NOW())
+            """);
+
+        List<Object> params = new ArrayList<>();
+        params.add(namespace);
+
+        if (type != null) {
+            params.add(type.name());
+            sql.append(" AND type = $").append(params.size());
+        }
+
+        if (afterId != null) {
+            params.add(UUID.fromString(afterId));
+            sql.append(" AND id > $").append(params.size());
+        }
+
+        params.add(limit);
+        sql.append(" ORDER BY id LIMIT $").append(params.size());
+
+        return pgPool.preparedQuery(sql.toString())
+            .execute(Tuple.wrap(params))
+            .map(rowSet -> {
+                List<Memory> memories = new ArrayList<>();
+                for (Row row : rowSet) {
+                    memories.add(rowToMemory(row));
+                }
+                return memories;
+            });
+    }
+
+    @Override
+    public Uni<List<Memory>> scanExpired(String namespace, Instant cutoff, Memory after, int limit) {
+        LOG.debug("Scanning memories in {} expired by {} (limit {})", namespace, cutoff, limit);
+
+        StringBuilder sql = new StringBuilder("""
+            SELECT id, namespace, content, vector_send(embedding) AS embedding, type,
+                   metadata, timestamp, expires_at, importance
+            FROM silat_memories
+            WHERE namespace = $1
+                AND expires_at <= $2
+            """);
+
+        List<Object> params = new ArrayList<>();
+        params.add(namespace);
+        params.add(cutoff);
+
+        if (after != null) {
+            params.add(after.getExpiresAt());
+            params.add(UUID.fromString(after.getId()));
+            sql.append(" AND (expires_at, id) > ($").append(params.size() - 1)
+                .append(", $").append(params.size()).append(")");
+        }
+
+        params.add(limit);
+        sql.append(" ORDER BY expires_at, id LIMIT $").append(params.size());
+
+        return pgPool.preparedQuery(sql.toString())
+            .execute(Tuple.wrap(params))
+            .map(rowSet -> {
+                List<Memory> memories = new ArrayList<>();
+                for (Row row : rowSet) {
+                    memories.add(rowToMemory(row));
+                }
+                return memories;
+            });
+    }
+
     @Override
     public Uni<MemoryStatistics> getStatistics(String namespace) {
         LOG.debug("Getting statistics for namespace: {}", namespace);
@@ -414,6 +562,37 @@ public class PostgresVectorStore implements VectorMemoryStore {
             });
     }
 
+    @Override
+    public Uni<String> loadCheckpoint(String name) {
+        String sql = "SELECT checkpoint FROM silat_memory_checkpoints WHERE name = $1";
+
+        return pgPool.preparedQuery(sql)
+            .execute(Tuple.of(name))
+            .map(rowSet -> rowSet.iterator().hasNext() ?
+                rowSet.iterator().next().getString("checkpoint") : null);
+    }
+
+    @Override
+    public Uni<Void> saveCheckpoint(String name, String checkpoint) {
+        if (checkpoint == null) {
+            return pgPool.preparedQuery("DELETE FROM silat_memory_checkpoints WHERE name = $1")
+                .execute(Tuple.of(name))
+                .replaceWithVoid();
+        }
+
+        String sql = """
+            INSERT INTO silat_memory_checkpoints (name, checkpoint, updated_at)
+            VALUES ($1, $2, NOW())
+            ON CONFLICT (name) DO UPDATE SET
+                checkpoint = EXCLUDED.checkpoint,
+                updated_at = NOW()
+            """;
+
+        return pgPool.preparedQuery(sql)
+            .execute(Tuple.of(name, checkpoint))
+            .replaceWithVoid();
+    }
+
     // ==================== UTILITY METHODS ====================
 
     /**
@@ -424,7 +603,7 @@ public class PostgresVectorStore implements VectorMemoryStore {
             .id(row.getUUID("id").toString())
             .namespace(row.getString("namespace"))
             .content(row.getString("content"))
-            .embedding(stringToVector(row.getString("embedding")))
+            .embedding(PgVectorCodec.decode(row.getBuffer("embedding")))
             .type(MemoryType.valueOf(row.getString("type")))
             .metadata(fromJsonb(row.getString("metadata")))
             .timestamp(Instant.from(row.getLocalDateTime("timestamp")))
@@ -435,32 +614,44 @@ public class PostgresVectorStore implements VectorMemoryStore {
     }
 
     /**
-     * Convert float array to PostgreSQL vector format
+     * Build a multi-row upsert with bind parameters for the given number of rows
      */
-    private String vectorToString(float[] vector) {
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < vector.length; i++) {
-            if (i > 0) sb.append(",");
-            sb.append(vector[i]);
+    private String buildUpsertSql(int rowCount) {
+        StringBuilder sql = new StringBuilder(UPSERT_PREFIX);
+        for (int row = 0; row < rowCount; row++) {
+            int base = row * COLUMNS_PER_ROW;
+            if (row > 0) {
+                sql.append(",\n");
+            }
+            sql.append("($").append(base + 1)
+                .append(", $").append(base + 2)
+                .append(", $").append(base + 3)
+                .append(", ").append(PgVectorCodec.param(base + 4))
+                .append(", $").append(base + 5)
+                .append(", $").append(base + 6).append("::jsonb")
+                .append(", $").append(base + 7)
+                .append(", $").append(base + 8)
+                .append(", $").append(base + 9)
+                .append(", $").append(base + 10)
+                .append(")");
         }
-        sb.append("]");
-        return sb.toString();
+        return sql.append("\n").append(UPSERT_SUFFIX).toString();
     }
 
     /**
-     * Convert PostgreSQL vector string to float array
+     * Append the bind parameters of one memory row, in column order
      */
-    private float[] stringToVector(String vectorStr) {
-        // Remove brackets and split
-        String cleaned = vectorStr.substring(1, vectorStr.length() - 1);
-        String[] parts = cleaned.split(",");
-
-        float[] vector = new float[parts.length];
-        for (int i = 0; i < parts.length; i++) {
-            vector[i] = Float.parseFloat(parts[i].trim());
-        }
-
-        return vector;
+    private void bindMemory(List<Object> values, Memory memory) {
+        values.add(UUID.fromString(memory.getId()));
+        values.add(memory.getNamespace());
+        values.add(memory.getContent());
+        values.add(PgVectorCodec.encode(memory.getEmbedding()));
+        values.add(memory.getType().name());
+        values.add(toJsonb(memory.getMetadata()));
+        values.add(memory.getTimestamp());
+        values.add(memory.getExpiresAt());
+        values.add(memory.getImportance());
+        values.add(extractTenantId(memory.getNamespace()));
     }
 
     /**
@@ -0,0 +1,389 @@
+package tech.kayys.silat.executor.memory;
+
+import tech.kayys.wayang.memory.similarity.SimilarityKernels;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compressed embedding storage for the in-memory vector store.
+ *
+ * Each vector is kept on heap as scalar-quantized codes (int8 with a per-vector
+ * min/scale, or IEEE float16) for candidate scoring, while the full-precision
+ * copy lives off-heap and is only read to re-score the final candidates or to
+ * hand an embedding back to callers. These codes are the only heap copy: an
+ * {@link HnswIndex} built over the storage scores its nodes through it by id.
+ *
+ * Full-precision vectors of one dimension share a slab: fixed-size slots in
+ * direct buffers of about a megabyte each, reused as vectors are removed, so
+ * there is no direct allocation (and no Cleaner) per vector. Slabs only grow;
+ * off-heap usage is bounded by -XX:MaxDirectMemorySize.
+ */
+public class QuantizedVectorStorage {
+
+    // Target size of one direct buffer in a slab
+    private static final int SLAB_CHUNK_BYTES = 1 << 20;
+
+    /**
+     * Code format for the on-heap copy
+     */
+    public enum Mode {
+        INT8,
+        FLOAT16;
+
+        /**
+         * @return Mode for a config value, or null for "none"
+         */
+        public static Mode parse(String value) {
+            if (value == null) {
+                return null;
+            }
+            return switch (value.trim().toLowerCase(Locale.ROOT)) {
+                case "int8" -> INT8;
+                case "float16", "fp16", "half" -> FLOAT16;
+                case "", "none", "off" -> null;
+                default -> throw new IllegalArgumentException("Unknown quantization mode: " + value);
+            };
+        }
+    }
+
+    private final Mode mode;
+
+    // memoryId -> quantized entry
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // dimension -> full-precision slots
+    private final Map<Integer, Slab> slabs = new ConcurrentHashMap<>();
+
+    public QuantizedVectorStorage(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Quantize and store a vector, replacing any previous one for the id
+     *
+     * @return false when the id already held the same codes, so an index over
+     *         the storage needs no update
+     */
+    public boolean put(String memoryId, float[] vector) {
+        if (vector == null) {
+            return entries.containsKey(memoryId) && remove(memoryId);
+        }
+
+        Slab slab = slabs.computeIfAbsent(vector.length, Slab::new);
+        int slot = slab.allocate();
+        slab.write(slot, vector);
+
+        Entry entry = new Entry(encode(mode, vector), SimilarityKernels.norm(vector), slab, slot);
+        Entry previous = entries.put(memoryId, entry);
+        release(previous);
+        return previous == null || !previous.codes.sameCodes(entry.codes);
+    }
+
+    /**
+     * @return true when the id was stored
+     */
+    public boolean remove(String memoryId) {
+        Entry removed = entries.remove(memoryId);
+        release(removed);
+        return removed != null;
+    }
+
+    private static void release(Entry entry) {
+        if (entry != null) {
+            entry.slab.release(entry.slot);
+        }
+    }
+
+    public boolean contains(String memoryId) {
+        return entries.containsKey(memoryId);
+    }
+
+    /**
+     * Copy the full-precision vector back onto the heap
+     *
+     * @return The vector, or null when the id is unknown
+     */
+    public float[] fullPrecision(String memoryId) {
+        float[] vector = null;
+        Entry entry = entries.get(memoryId);
+        while (entry != null) {
+            if (vector == null || vector.length != entry.codes.dimension()) {
+                vector = new float[entry.codes.dimension()];
+            }
+            entry.slab.read(entry.slot, vector);
+
+            // A slot is only released once its entry is replaced, so an unchanged entry read its own vector
+            Entry current = entries.get(memoryId);
+            if (current == entry) {
+                return vector;
+            }
+            entry = current;
+        }
+        return null;
+    }
+
+    /**
+     * Approximate vector decoded from the codes, without touching off-heap memory
+     *
+     * @return The vector, or null when the id is unknown
+     */
+    public float[] decoded(String memoryId) {
+        Entry entry = entries.get(memoryId);
+        return entry == null ? null : entry.codes.decode();
+    }
+
+    /**
+     * Precompute the per-query terms shared by every approximate score
+     */
+    public Query prepare(float[] query) {
+        float sum = 0f;
+        for (float v : query) {
+            sum += v;
+        }
+        return new Query(query, SimilarityKernels.norm(query), sum);
+    }
+
+    /**
+     * Approximate cosine similarity computed on the compressed codes only
+     *
+     * @return Similarity, or NaN when the id is unknown or dimensions differ
+     */
+    public double approximateCosine(Query query, String memoryId) {
+        Entry entry = entries.get(memoryId);
+        if (entry == null || entry.codes.dimension() != query.vector().length) {
+            return Double.NaN;
+        }
+        if (entry.norm == 0f || query.norm() == 0f) {
+            return 0.0;
+        }
+        return entry.codes.dot(query) / ((double) entry.norm * query.norm());
+    }
+
+    /**
+     * Bytes held on heap by codes (excluding map and object overhead)
+     */
+    public long heapBytes() {
+        return entries.values().stream().mapToLong(entry -> entry.codes.byteSize()).sum();
+    }
+
+    /**
+     * Bytes held off-heap by full-precision vectors, including free slots
+     */
+    public long offHeapBytes() {
+        return slabs.values().stream().mapToLong(Slab::capacityBytes).sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Query vector with its norm and component sum
+     */
+    public record Query(float[] vector, float norm, float sum) {}
+
+    /**
+     * Compressed codes of a vector in the given mode
+     */
+    static Codes encode(Mode mode, float[] vector) {
+        return mode == Mode.INT8 ? Int8Codes.encode(vector) : Float16Codes.encode(vector);
+    }
+
+    private record Entry(Codes codes, float norm, Slab slab, int slot) {}
+
+    /**
+     * Scalar-quantized codes of one vector
+     */
+    interface Codes {
+        int dimension();
+
+        /**
+         * Approximate dot product with the query
+         */
+        double dot(Query query);
+
+        /**
+         * Approximate vector the codes stand for
+         */
+        float[] decode();
+
+        boolean sameCodes(Codes other);
+
+        long byteSize();
+    }
+
+    /**
+     * Fixed-size full-precision slots for vectors of one dimension, carved out
+     * of direct buffers that are allocated as the slab fills up
+     */
+    private static final class Slab {
+
+        private final int dimension;
+        private final int slotsPerChunk;
+        private final List<FloatBuffer> chunks = new ArrayList<>();
+
+        private int[] freeSlots = new int[16];
+        private int freeCount;
+        private int nextSlot;
+
+        Slab(int dimension) {
+            this.dimension = dimension;
+            this.slotsPerChunk = Math.max(1, SLAB_CHUNK_BYTES / Math.max(1, dimension * Float.BYTES));
+        }
+
+        synchronized int allocate() {
+            if (freeCount > 0) {
+                return freeSlots[--freeCount];
+            }
+            if (nextSlot == chunks.size() * slotsPerChunk) {
+                chunks.add(ByteBuffer.allocateDirect(slotsPerChunk * dimension * Float.BYTES)
+                    .order(ByteOrder.nativeOrder())
+                    .asFloatBuffer());
+            }
+            return nextSlot++;
+        }
+
+        synchronized void release(int slot) {
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        }
+
+        synchronized void write(int slot, float[] vector) {
+            chunks.get(slot / slotsPerChunk).put((slot % slotsPerChunk) * dimension, vector);
+        }
+
+        synchronized void read(int slot, float[] vector) {
+            chunks.get(slot / slotsPerChunk).get((slot % slotsPerChunk) * dimension, vector);
+        }
+
+        synchronized long capacityBytes() {
+            return (long) chunks.size() * slotsPerChunk * dimension * Float.BYTES;
+        }
+    }
+
+    /**
+     * Asymmetric int8 codes: v[i] ~= min + scale * (code[i] & 0xFF)
+     */
+    private record Int8Codes(byte[] codes, float min, float scale) implements Codes {
+
+        static Int8Codes encode(float[] vector) {
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            for (float v : vector) {
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+            if (vector.length == 0) {
+                min = 0f;
+                max = 0f;
+            }
+
+            float scale = (max - min) / 255f;
+            byte[] codes = new byte[vector.length];
+            if (scale > 0f) {
+                for (int i = 0; i < vector.length; i++) {
+                    codes[i] = (byte) Math.round((vector[i] - min) / scale);
+                }
+            }
+            return new Int8Codes(codes, min, scale);
+        }
+
+        @Override
+        public int dimension() {
+            return codes.length;
+        }
+
+        @Override
+        public double dot(Query query) {
+            float[] q = query.vector();
+            float acc = 0f;
+            for (int i = 0; i < codes.length; i++) {
+                acc += q[i] * (codes[i] & 0xFF);
+            }
+            // sum(q[i] * (min + scale * c[i])) = min * sum(q) + scale * sum(q[i] * c[i])
+            return (double) min * query.sum() + (double) scale * acc;
+        }
+
+        @Override
+        public float[] decode() {
+            float[] vector = new float[codes.length];
+            for (int i = 0; i < codes.length; i++) {
+                vector[i] = min + scale * (codes[i] & 0xFF);
+            }
+            return vector;
+        }
+
+        @Override
+        public boolean sameCodes(Codes other) {
+            return other instanceof Int8Codes int8
+                && min == int8.min && scale == int8.scale && Arrays.equals(codes, int8.codes);
+        }
+
+        @Override
+        public long byteSize() {
+            return codes.length + 2L * Float.BYTES;
+        }
+    }
+
+    /**
+     * IEEE 754 half-precision codes
+     */
+    private record Float16Codes(short[] codes) implements Codes {
+
+        static Float16Codes encode(float[] vector) {
+            short[] codes = new short[vector.length];
+            for (int i = 0; i < vector.length; i++) {
+                codes[i] = Float.floatToFloat16(vector[i]);
+            }
+            return new Float16Codes(codes);
+        }
+
+        @Override
+        public int dimension() {
+            return codes.length;
+        }
+
+        @Override
+        public double dot(Query query) {
+            float[] q = query.vector();
+            float acc = 0f;
+            for (int i = 0; i < codes.length; i++) {
+                acc += q[i] * Float.float16ToFloat(codes[i]);
+            }
+            return acc;
+        }
+
+        @Override
+        public float[] decode() {
+            float[] vector = new float[codes.length];
+            for (int i = 0; i < codes.length; i++) {
+                vector[i] = Float.float16ToFloat(codes[i]);
+            }
+            return vector;
+        }
+
+        @Override
+        public boolean sameCodes(Codes other) {
+            return other instanceof Float16Codes half && Arrays.equals(codes, half.codes);
+        }
+
+        @Override
+        public long byteSize() {
+            return (long) codes.length * Short.BYTES;
+        }
+    }
+}
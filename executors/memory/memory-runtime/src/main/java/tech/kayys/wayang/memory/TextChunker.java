@@ -1,27 +1,66 @@
 package tech.kayys.silat.executor.memory;
 
+import io.smallrye.mutiny.Multi;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
 
 /**
- * Utilities for chunking text into smaller pieces for embedding
+ * Utilities for chunking text into smaller pieces for embedding.
+ *
+ * Chunk size and overlap are measured in characters, as they always were,
+ * unless silat.embedding.chunk.max-tokens is set; then they are measured in
+ * tokens of the active {@link Tokenizer}. Token budgets are only as exact as
+ * that tokenizer: the built-in {@link HeuristicTokenizer} is an approximation.
+ * Chunks are produced lazily, holding at most one chunk's worth of token
+ * offsets, and are cut at the last sentence or paragraph boundary in the
+ * second half of the window when there is one.
  */
 @ApplicationScoped
 public class TextChunker {
 
     private static final Logger LOG = LoggerFactory.getLogger(TextChunker.class);
 
+    // Characters per chunk, unless max-tokens is set
     @ConfigProperty(name = "silat.embedding.chunk.size", defaultValue = "512")
     int chunkSize;
 
     @ConfigProperty(name = "silat.embedding.chunk.overlap", defaultValue = "50")
     int chunkOverlap;
 
+    // Opt-in: measure chunks in tokens instead of characters
+    @ConfigProperty(name = "silat.embedding.chunk.max-tokens")
+    Optional<Integer> chunkMaxTokens;
+
+    @ConfigProperty(name = "silat.embedding.chunk.overlap-tokens", defaultValue = "50")
+    int chunkOverlapTokens;
+
+    @Inject
+    Instance<Tokenizer> tokenizers;
+
+    private Tokenizer tokenizer;
+
+    @PostConstruct
+    void init() {
+        tokenizer = tokenizers != null && tokenizers.isResolvable() ? tokenizers.get() : new HeuristicTokenizer();
+        if (tokenMode()) {
+            LOG.info("Text chunker using {}: {} tokens per chunk, {} tokens overlap",
+                tokenizer.getClass().getSimpleName(), chunkMaxTokens.get(), chunkOverlapTokens);
+        } else {
+            LOG.info("Text chunker: {} characters per chunk, {} characters overlap", chunkSize, chunkOverlap);
+        }
+    }
+
     /**
      * Split text into chunks with overlap
      *
@@ -30,59 +69,240 @@ public class TextChunker {
      */
     public List<String> chunk(String text) {
         List<String> chunks = new ArrayList<>();
+        stream(text).forEachRemaining(chunks::add);
+
+        LOG.debug("Chunked text of {} chars into {} chunks",
+            text == null ? 0 : text.length(), chunks.size());
+
+        return chunks;
+    }
+
+    /**
+     * Lazily split text into chunks with the configured budget
+     *
+     * @param text Text to chunk
+     * @return Iterator producing one chunk at a time
+     */
+    public Iterator<String> stream(CharSequence text) {
+        if (tokenMode()) {
+            return stream(text, chunkMaxTokens.get(), chunkOverlapTokens);
+        }
+        return new ChunkIterator(text == null ? "" : text, tokenizer, chunkSize, chunkOverlap, true);
+    }
+
+    /**
+     * Lazily split text into chunks of at most maxTokens tokens
+     *
+     * @param text Text to chunk
+     * @param maxTokens Token budget per chunk
+     * @param overlapTokens Tokens repeated from the end of the previous chunk
+     * @return Iterator producing one chunk at a time
+     */
+    public Iterator<String> stream(CharSequence text, int maxTokens, int overlapTokens) {
+        return new ChunkIterator(text == null ? "" : text, tokenizer, maxTokens, overlapTokens, false);
+    }
+
+    /**
+     * Chunks as a Multi, produced on demand
+     */
+    public Multi<String> chunkStream(CharSequence text) {
+        return Multi.createFrom().iterable(() -> stream(text));
+    }
+
+    /**
+     * Count tokens with the active tokenizer
+     *
+     * @param text Text to count
+     * @return Token count
+     */
+    public int estimateTokenCount(String text) {
+        return tokenizer.countTokens(text);
+    }
+
+    private boolean tokenMode() {
+        return chunkMaxTokens != null && chunkMaxTokens.isPresent();
+    }
+
+    /**
+     * Sliding token window over the text. Holds the offsets of the current
+     * chunk's tokens only; tokens carried over as overlap are shifted to the
+     * front of the window after each cut. The budget counts tokens, or the
+     * characters they span in character mode.
+     */
+    private static final class ChunkIterator implements Iterator<String> {
 
-        if (text == null || text.isEmpty()) {
-            return chunks;
+        private final CharSequence text;
+        private final Iterator<Tokenizer.Token> tokens;
+        private final int budget;
+        private final int overlap;
+        private final boolean countChars;
+
+        private final int[] starts;
+        private final int[] ends;
+        private int count = 0;
+        private int size = 0;
+
+        // Window index a chunk may be cut at (0 = none seen)
+        private int boundary = 0;
+
+        // Leading window tokens already emitted in the previous chunk
+        private int carried = 0;
+
+        private String next;
+
+        ChunkIterator(CharSequence text, Tokenizer tokenizer, int budget, int overlap, boolean countChars) {
+            if (budget <= 0) {
+                throw new IllegalArgumentException("Chunk size must be positive: " + budget);
+            }
+            this.text = text;
+            this.tokens = tokenizer.tokens(text);
+            this.budget = budget;
+            // Overlap must leave room for new tokens in every chunk
+            this.overlap = Math.max(0, Math.min(overlap, budget / 2));
+            this.countChars = countChars;
+            // Every token costs at least one unit, so the window never holds more than budget tokens
+            this.starts = new int[budget];
+            this.ends = new int[budget];
+            this.next = advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            String chunk = next;
+            next = advance();
+            return chunk;
         }
 
-        // Split by sentences first
-        String[] sentences = text.split("(?<=[.!?])\\s+");
+        private String advance() {
+            while (tokens.hasNext()) {
+                Tokenizer.Token token = tokens.next();
+                int cost = countChars ? token.end() - token.start() : 1;
 
-        StringBuilder currentChunk = new StringBuilder();
-        int currentLength = 0;
+                String chunk = null;
+                if (count > 0 && size + cost > budget) {
+                    if (count > carried) {
+                        chunk = cut();
+                    }
+                    if (count > 0 && size + cost > budget) {
+                        // Overlap (or what is left after the cut) leaves no room: drop it
+                        count = 0;
+                        size = 0;
+                        carried = 0;
+                        boundary = 0;
+                    }
+                }
 
-        for (String sentence : sentences) {
-            int sentenceLength = sentence.length();
+                if (count > 0 && startsParagraph(token)) {
+                    boundary = count;
+                }
 
-            if (currentLength + sentenceLength > chunkSize && currentLength > 0) {
-                // Save current chunk
-                chunks.add(currentChunk.toString().trim());
+                starts[count] = token.start();
+                ends[count] = token.end();
+                count++;
+                size += cost;
 
-                // Start new chunk with overlap
-                currentChunk = new StringBuilder();
-                currentLength = 0;
+                if (endsSentence(token)) {
+                    boundary = count;
+                }
 
-                // Add overlap from previous chunk
-                String prevChunk = chunks.get(chunks.size() - 1);
-                if (prevChunk.length() > chunkOverlap) {
-                    String overlap = prevChunk.substring(prevChunk.length() - chunkOverlap);
-                    currentChunk.append(overlap).append(" ");
-                    currentLength = overlap.length();
+                if (chunk != null) {
+                    return chunk;
+                }
+                if (size >= budget) {
+                    return cut();
                 }
             }
 
-            currentChunk.append(sentence).append(" ");
-            currentLength += sentenceLength;
+            if (count > carried) {
+                String chunk = slice(count);
+                count = 0;
+                size = 0;
+                carried = 0;
+                return chunk;
+            }
+            return null;
+        }
+
+        private String cut() {
+            int cutAt = boundary > carried && boundary > overlapCount(boundary)
+                    && cost(0, boundary) * 2 >= budget ? boundary : count;
+            String chunk = slice(cutAt);
+
+            int keepFrom = cutAt - overlapCount(cutAt);
+            int kept = count - keepFrom;
+            size -= cost(0, keepFrom);
+            System.arraycopy(starts, keepFrom, starts, 0, kept);
+            System.arraycopy(ends, keepFrom, ends, 0, kept);
+            count = kept;
+            carried = cutAt - keepFrom;
+            // The last boundary may lie in the tail that is kept
+            boundary = boundary > keepFrom ? boundary - keepFrom : 0;
+
+            return chunk;
         }
 
-        // Add final chunk
-        if (currentLength > 0) {
-            chunks.add(currentChunk.toString().trim());
+        /**
+         * Tokens just before the window index that fit in the overlap
+         */
+        private int overlapCount(int end) {
+            int tokensKept = 0;
+            int units = 0;
+            while (tokensKept < end) {
+                int unit = cost(end - tokensKept - 1, end - tokensKept);
+                if (units + unit > overlap) {
+                    break;
+                }
+                units += unit;
+                tokensKept++;
+            }
+            return tokensKept;
         }
 
-        LOG.debug("Chunked text of {} chars into {} chunks", text.length(), chunks.size());
+        /**
+         * Budget units of the window tokens [from, to)
+         */
+        private int cost(int from, int to) {
+            if (!countChars) {
+                return to - from;
+            }
+            int units = 0;
+            for (int i = from; i < to; i++) {
+                units += ends[i] - starts[i];
+            }
+            return units;
+        }
 
-        return chunks;
-    }
+        private String slice(int tokenCount) {
+            return text.subSequence(starts[0], ends[tokenCount - 1]).toString().trim();
+        }
 
-    /**
-     * Estimate token count (rough approximation)
-     *
-     * @param text Text to count
-     * @return Estimated token count
-     */
-    public int estimateTokenCount(String text) {
-        // Rough approximation: 1 token ≈ 4 characters
-        return text.length() / 4;
+        private boolean endsSentence(Tokenizer.Token token) {
+            char last = text.charAt(token.end() - 1);
+            if (last != '.' && last != '!' && last != '?') {
+                return false;
+            }
+            return token.end() == text.length() || Character.isWhitespace(text.charAt(token.end()));
+        }
+
+        private boolean startsParagraph(Tokenizer.Token token) {
+            for (int i = token.start(); i < token.end(); i++) {
+                char c = text.charAt(i);
+                if (c == '\n') {
+                    return true;
+                }
+                if (!Character.isWhitespace(c)) {
+                    return false;
+                }
+            }
+            return false;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,39 @@
+package tech.kayys.silat.executor.memory;
+
+import java.util.Iterator;
+
+/**
+ * Local tokenizer used to budget chunks and prompts in model tokens.
+ *
+ * Provide a CDI bean implementing this interface (for example one backed by
+ * the embedding model's BPE vocabulary) to make token budgets exact for that
+ * model; otherwise {@link HeuristicTokenizer} is used.
+ */
+public interface Tokenizer {
+
+    /**
+     * Lazily iterate the tokens of a text, in order
+     */
+    Iterator<Token> tokens(CharSequence text);
+
+    /**
+     * Count the tokens of a text
+     */
+    default int countTokens(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        int count = 0;
+        Iterator<Token> tokens = tokens(text);
+        while (tokens.hasNext()) {
+            tokens.next();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Token character span [start, end); may include leading whitespace
+     */
+    record Token(int start, int end) {}
+}
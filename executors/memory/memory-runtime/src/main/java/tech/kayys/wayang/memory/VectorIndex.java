@@ -0,0 +1,44 @@
+package tech.kayys.silat.executor.memory;
+
+import java.util.List;
+
+/**
+ * In-process approximate nearest neighbor index over memory embeddings.
+ * Scores are cosine similarities; results are ordered best first.
+ */
+public interface VectorIndex {
+
+    /**
+     * Add or replace the vector for a memory
+     */
+    void add(String memoryId, float[] vector);
+
+    /**
+     * Remove a memory from the index
+     */
+    void remove(String memoryId);
+
+    /**
+     * Find the (approximately) closest memories to the query
+     *
+     * @param query Query embedding
+     * @param k Number of neighbors to return
+     * @return Neighbors ordered by descending similarity
+     */
+    List<Neighbor> search(float[] query, int k);
+
+    /**
+     * Number of live entries in the index
+     */
+    int size();
+
+    /**
+     * Remove every entry from the index
+     */
+    void clear();
+
+    /**
+     * A search hit from the index
+     */
+    record Neighbor(String memoryId, double similarity) {}
+}
@@ -2,6 +2,7 @@ package tech.kayys.silat.executor.memory;
 
 import io.smallrye.mutiny.Uni;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 
@@ -57,13 +58,56 @@ public interface VectorMemoryStore {
      */
     Uni<Boolean> delete(String memoryId);
 
+    /**
+     * Delete memories by ID in one operation
+     *
+     * @return Number of memories deleted
+     */
+    Uni<Long> deleteBatch(List<String> memoryIds);
+
     /**
      * Delete all memories in a namespace
      */
     Uni<Long> deleteNamespace(String namespace);
 
+    /**
+     * Page through unexpired memories of a namespace in id order (keyset pagination)
+     *
+     * @param namespace Namespace to scan
+     * @param type Memory type to include, or null for all types
+     * @param afterId Exclusive lower bound taken from the last memory of the previous page, or null to start
+     * @param limit Maximum memories per page
+     */
+    Uni<List<Memory>> scan(String namespace, MemoryType type, String afterId, int limit);
+
+    /**
+     * Page through memories of a namespace that expired at or before the cutoff,
+     * ordered by (expiresAt, id)
+     *
+     * @param namespace Namespace to scan
+     * @param cutoff Memories with expiresAt at or before this instant are returned
+     * @param after Last memory of the previous page, or null to start
+     * @param limit Maximum memories per page
+     */
+    Uni<List<Memory>> scanExpired(String namespace, Instant cutoff, Memory after, int limit);
+
     /**
      * Get statistics about memories in a namespace
      */
     Uni<MemoryStatistics> getStatistics(String namespace);
+
+    /**
+     * Load the checkpoint a background job saved under a name
+     *
+     * @return The checkpoint, or null when none is saved
+     */
+    Uni<String> loadCheckpoint(String name);
+
+    /**
+     * Save a background job's checkpoint so a later run, possibly on another
+     * instance or after a restart, resumes from it
+     *
+     * @param checkpoint Checkpoint to save, or null to clear it
+     */
+    Uni<Void> saveCheckpoint(String name, String checkpoint);
 }
\ No newline at end of file
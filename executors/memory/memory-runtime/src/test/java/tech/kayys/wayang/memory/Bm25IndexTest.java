@@ -0,0 +1,126 @@
+package tech.kayys.silat.executor.memory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Bm25IndexTest {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    @Test
+    void testScoresMatchHandComputedBm25() {
+        Bm25Index index = new Bm25Index(K1, B);
+        index.add("a", "The cat sat");
+        index.add("b", "the dog");
+        index.add("c", "cat, cat dog");
+
+        List<Bm25Index.Hit> hits = index.search(List.of("cat"), 10);
+
+        // N = 3, avgdl = 8 / 3, "cat" in 2 documents: idf = ln(1 + 1.5 / 2.5) = ln(1.6)
+        // a: tf 1, dl 3 -> norm = 1.2 * (0.25 + 0.75 * 3 / (8 / 3)) = 1.3125
+        // c: tf 2, dl 3 -> same norm
+        double idf = Math.log(1.6);
+        assertEquals(2, hits.size());
+        assertEquals("c", hits.get(0).memoryId());
+        assertEquals(idf * 2 * 2.2 / (2 + 1.3125), hits.get(0).score(), 1e-12);
+        assertEquals("a", hits.get(1).memoryId());
+        assertEquals(idf * 2.2 / (1 + 1.3125), hits.get(1).score(), 1e-12);
+    }
+
+    @Test
+    void testScoresSumOverQueryTerms() {
+        Bm25Index index = new Bm25Index(K1, B);
+        index.add("a", "cat dog");
+        index.add("b", "bird fish");
+
+        List<Bm25Index.Hit> hits = index.search(List.of("Cat", "dog bird"), 10);
+
+        // N = 2, avgdl = 2, every term in 1 document: idf = ln(1 + 1.5 / 1.5) = ln(2), norm = 1.2
+        double termScore = Math.log(2) * 2.2 / (1 + 1.2);
+        assertEquals("a", hits.get(0).memoryId());
+        assertEquals(2 * termScore, hits.get(0).score(), 1e-12);
+        assertEquals("b", hits.get(1).memoryId());
+        assertEquals(termScore, hits.get(1).score(), 1e-12);
+    }
+
+    @Test
+    void testRemoveKeepsDocumentFrequencyStats() {
+        Bm25Index index = new Bm25Index(K1, B);
+        index.add("a", "The cat sat");
+        index.add("b", "the dog");
+        index.add("c", "cat, cat dog");
+
+        index.remove("c");
+        index.remove("missing");
+
+        // N = 2, avgdl = 2.5, "cat" only in a: idf = ln(1 + 1.5 / 1.5) = ln(2)
+        // a: tf 1, dl 3 -> norm = 1.2 * (0.25 + 0.75 * 3 / 2.5) = 1.38
+        List<Bm25Index.Hit> hits = index.search(List.of("cat"), 10);
+        assertEquals(2, index.size());
+        assertEquals(1, hits.size());
+        assertEquals("a", hits.get(0).memoryId());
+        assertEquals(Math.log(2) * 2.2 / (1 + 1.38), hits.get(0).score(), 1e-12);
+        assertEquals(List.of("b"), ids(index.search(List.of("dog"), 10)));
+    }
+
+    @Test
+    void testUpdateReplacesPostings() {
+        Bm25Index index = new Bm25Index(K1, B);
+        index.add("a", "apple banana");
+        index.add("b", "banana cherry");
+
+        index.add("a", "cherry");
+
+        assertTrue(index.search(List.of("apple"), 10).isEmpty());
+        assertEquals(List.of("b"), ids(index.search(List.of("banana"), 10)));
+        assertEquals(2, index.search(List.of("cherry"), 10).size());
+    }
+
+    @Test
+    void testIncrementalIndexScoresLikeFreshIndex() {
+        Bm25Index incremental = new Bm25Index(K1, B);
+        incremental.add("a", "red green blue");
+        incremental.add("b", "red red");
+        incremental.add("c", "green");
+        incremental.add("d", "blue blue blue yellow");
+        incremental.remove("b");
+        incremental.add("c", "green red yellow");
+        incremental.add("e", "red");
+
+        Bm25Index fresh = new Bm25Index(K1, B);
+        fresh.add("a", "red green blue");
+        fresh.add("c", "green red yellow");
+        fresh.add("d", "blue blue blue yellow");
+        fresh.add("e", "red");
+
+        for (String query : List.of("red", "green", "blue", "yellow", "red blue", "purple")) {
+            List<Bm25Index.Hit> expected = fresh.search(List.of(query), 10);
+            List<Bm25Index.Hit> actual = incremental.search(List.of(query), 10);
+            assertEquals(ids(expected), ids(actual), query);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).score(), actual.get(i).score(), 1e-12, query);
+            }
+        }
+    }
+
+    @Test
+    void testLimitKeepsBestHits() {
+        Bm25Index index = new Bm25Index(K1, B);
+        index.add("one", "x");
+        index.add("two", "x x");
+        index.add("three", "x x x");
+        index.add("none", "y");
+
+        assertEquals(List.of("three", "two"), ids(index.search(List.of("x"), 2)));
+        assertTrue(index.search(List.of("x"), 0).isEmpty());
+        assertTrue(index.search(List.of(), 5).isEmpty());
+    }
+
+    private static List<String> ids(List<Bm25Index.Hit> hits) {
+        return hits.stream().map(Bm25Index.Hit::memoryId).toList();
+    }
+}
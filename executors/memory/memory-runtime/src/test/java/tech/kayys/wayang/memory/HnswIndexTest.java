@@ -0,0 +1,235 @@
+package tech.kayys.silat.executor.memory;
+
+import org.junit.jupiter.api.Test;
+import tech.kayys.wayang.memory.similarity.SimilarityKernels;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswIndexTest {
+
+    private static final int DIMENSION = 64;
+    private static final int K = 10;
+
+    @Test
+    void testRecallAgainstExactSearch() {
+        Random random = new Random(7);
+        List<float[]> vectors = randomVectors(random, 2000);
+        HnswIndex index = new HnswIndex(16, 64, 64);
+        addAll(index, vectors);
+
+        double recall = recall(index, vectors, random, K);
+
+        assertTrue(recall >= 0.9, "recall " + recall);
+    }
+
+    @Test
+    void testResultsAreOrderedBySimilarity() {
+        Random random = new Random(8);
+        List<float[]> vectors = randomVectors(random, 500);
+        HnswIndex index = new HnswIndex(16, 64, 64);
+        addAll(index, vectors);
+
+        float[] query = QuantizedVectorStorageTest.randomVector(random, DIMENSION);
+        List<VectorIndex.Neighbor> neighbors = index.search(query, K);
+
+        assertEquals(K, neighbors.size());
+        for (int i = 0; i < neighbors.size(); i++) {
+            VectorIndex.Neighbor neighbor = neighbors.get(i);
+            int id = Integer.parseInt(neighbor.memoryId().substring(1));
+            assertEquals(SimilarityKernels.cosine(query, vectors.get(id)), neighbor.similarity(), 1e-4);
+            if (i > 0) {
+                assertTrue(neighbors.get(i - 1).similarity() >= neighbor.similarity());
+            }
+        }
+    }
+
+    @Test
+    void testRemovedEntriesAreNeverReturned() {
+        Random random = new Random(9);
+        List<float[]> vectors = randomVectors(random, 400);
+        HnswIndex index = new HnswIndex(8, 32, 32);
+        addAll(index, vectors);
+
+        for (int i = 0; i < vectors.size(); i += 2) {
+            index.remove("m" + i);
+            vectors.set(i, null);
+        }
+
+        assertEquals(200, index.size());
+        // Tombstones stay in the graph below the rebuild threshold
+        assertEquals(400, index.graphSize());
+        for (int q = 0; q < 20; q++) {
+            for (VectorIndex.Neighbor neighbor : index.search(
+                    QuantizedVectorStorageTest.randomVector(random, DIMENSION), 50)) {
+                int id = Integer.parseInt(neighbor.memoryId().substring(1));
+                assertEquals(1, id % 2, "removed entry returned: " + neighbor.memoryId());
+            }
+        }
+        assertTrue(recall(index, vectors, random, K) >= 0.9);
+    }
+
+    @Test
+    void testRebuildDropsTombstonesAndKeepsRecall() {
+        Random random = new Random(10);
+        List<float[]> vectors = randomVectors(random, 3000);
+        HnswIndex index = new HnswIndex(16, 64, 64);
+        addAll(index, vectors);
+
+        for (int i = 0; i < 2000; i++) {
+            index.remove("m" + i);
+            vectors.set(i, null);
+        }
+
+        assertEquals(1000, index.size());
+        assertTrue(index.graphSize() < 3000, "graph was not rebuilt: " + index.graphSize());
+        for (VectorIndex.Neighbor neighbor : index.search(
+                QuantizedVectorStorageTest.randomVector(random, DIMENSION), 100)) {
+            assertTrue(Integer.parseInt(neighbor.memoryId().substring(1)) >= 2000);
+        }
+        assertTrue(recall(index, vectors, random, K) >= 0.9);
+    }
+
+    @Test
+    void testDimensionMismatchKeepsExistingEntry() {
+        HnswIndex index = new HnswIndex(4, 16, 16);
+        index.add("a", new float[] {1f, 0f, 0f});
+        index.add("b", new float[] {0f, 1f, 0f});
+
+        index.add("a", new float[] {0f, 0f, 1f, 0f});
+
+        assertEquals(2, index.size());
+        assertEquals(2, index.graphSize());
+        List<VectorIndex.Neighbor> neighbors = index.search(new float[] {1f, 0f, 0f}, 1);
+        assertEquals("a", neighbors.get(0).memoryId());
+        assertEquals(1.0, neighbors.get(0).similarity(), 1e-6);
+    }
+
+    @Test
+    void testUpdatedVectorReplacesOldOne() {
+        HnswIndex index = new HnswIndex(4, 16, 16);
+        index.add("a", new float[] {1f, 0f});
+        index.add("b", new float[] {0.7f, 0.7f});
+
+        index.add("a", new float[] {1f, 0f});
+        assertEquals(2, index.graphSize());
+
+        index.add("a", new float[] {0f, 1f});
+        assertEquals(2, index.size());
+        assertEquals("a", index.search(new float[] {0f, 1f}, 1).get(0).memoryId());
+        assertEquals("b", index.search(new float[] {1f, 0f}, 1).get(0).memoryId());
+    }
+
+    @Test
+    void testClearAndEmptyQueries() {
+        HnswIndex index = new HnswIndex(4, 16, 16);
+        assertTrue(index.search(new float[] {1f, 0f}, 5).isEmpty());
+
+        index.add("a", new float[] {1f, 0f});
+        assertTrue(index.search(new float[] {1f, 0f, 0f}, 5).isEmpty());
+        assertTrue(index.search(new float[] {1f, 0f}, 0).isEmpty());
+
+        index.clear();
+        assertEquals(0, index.size());
+        index.add("b", new float[] {0f, 1f, 0f});
+        assertEquals("b", index.search(new float[] {0f, 1f, 0f}, 5).get(0).memoryId());
+    }
+
+    @Test
+    void testQuantizedIndexRecallAgainstExactSearch() {
+        Random random = new Random(11);
+        List<float[]> vectors = randomVectors(random, 2000);
+
+        for (QuantizedVectorStorage.Mode mode : QuantizedVectorStorage.Mode.values()) {
+            QuantizedVectorStorage storage = new QuantizedVectorStorage(mode);
+            HnswIndex index = new HnswIndex(16, 64, 64, storage);
+            for (int i = 0; i < vectors.size(); i++) {
+                storage.put("m" + i, vectors.get(i));
+                index.add("m" + i, vectors.get(i));
+            }
+
+            assertEquals(vectors.size(), index.size());
+            double recall = recall(index, vectors, new Random(12), 4 * K);
+            assertTrue(recall >= 0.9, mode + " recall " + recall);
+        }
+    }
+
+    @Test
+    void testQuantizedIndexFollowsStorageUpdates() {
+        Random random = new Random(13);
+        List<float[]> vectors = randomVectors(random, 300);
+        QuantizedVectorStorage storage = new QuantizedVectorStorage(QuantizedVectorStorage.Mode.INT8);
+        HnswIndex index = new HnswIndex(8, 32, 32, storage);
+        for (int i = 0; i < vectors.size(); i++) {
+            storage.put("m" + i, vectors.get(i));
+            index.add("m" + i, vectors.get(i));
+        }
+
+        // Move m0 onto the query and drop m1 from the storage before the index
+        float[] query = QuantizedVectorStorageTest.randomVector(random, DIMENSION);
+        assertTrue(storage.put("m0", query));
+        index.add("m0", query);
+        storage.remove("m1");
+
+        List<VectorIndex.Neighbor> neighbors = index.search(query, K);
+        assertEquals("m0", neighbors.get(0).memoryId());
+        assertEquals(1.0, neighbors.get(0).similarity(), 1e-2);
+
+        index.remove("m1");
+        assertEquals(vectors.size() - 1, index.size());
+        assertTrue(index.search(query, vectors.size()).stream().noneMatch(n -> n.memoryId().equals("m1")));
+    }
+
+    private static List<float[]> randomVectors(Random random, int count) {
+        List<float[]> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            vectors.add(QuantizedVectorStorageTest.randomVector(random, DIMENSION));
+        }
+        return vectors;
+    }
+
+    private static void addAll(HnswIndex index, List<float[]> vectors) {
+        for (int i = 0; i < vectors.size(); i++) {
+            index.add("m" + i, vectors.get(i));
+        }
+    }
+
+    /**
+     * Average share of the exact top K found in the index's top k; null vectors are removed entries
+     */
+    static double recall(VectorIndex index, List<float[]> vectors, Random random, int k) {
+        int queries = 50;
+        int found = 0;
+        for (int q = 0; q < queries; q++) {
+            float[] query = QuantizedVectorStorageTest.randomVector(random, DIMENSION);
+
+            Set<String> returned = new HashSet<>();
+            for (VectorIndex.Neighbor neighbor : index.search(query, k)) {
+                returned.add(neighbor.memoryId());
+            }
+            for (String id : exactTopK(vectors, query)) {
+                if (returned.contains(id)) {
+                    found++;
+                }
+            }
+        }
+        return (double) found / (queries * K);
+    }
+
+    static List<String> exactTopK(List<float[]> vectors, float[] query) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < vectors.size(); i++) {
+            if (vectors.get(i) != null) {
+                ids.add(i);
+            }
+        }
+        ids.sort(Comparator.comparingDouble(i -> -SimilarityKernels.cosine(query, vectors.get(i))));
+        return ids.subList(0, K).stream().map(i -> "m" + i).toList();
+    }
+}
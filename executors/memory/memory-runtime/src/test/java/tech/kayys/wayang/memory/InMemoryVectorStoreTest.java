@@ -0,0 +1,87 @@
+package tech.kayys.silat.executor.memory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.kayys.silat.core.domain.*;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryVectorStoreTest {
+
+    // Matches InMemoryVectorStore.RRF_K
+    private static final int RRF_K = 60;
+
+    private InMemoryVectorStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryVectorStore();
+        store.indexType = "exact";
+        store.hnswM = 16;
+        store.hnswEfConstruction = 64;
+        store.hnswEfSearch = 40;
+        store.quantization = "none";
+        store.rescoreFactor = 4;
+        store.hybridFusion = "rrf";
+        store.init();
+
+        store.storeBatch(List.of(
+            memory("m1", "alpha", 1f, 0f),
+            memory("m2", "beta gamma", 0.8f, 0.6f),
+            memory("m3", "gamma gamma", 0f, 1f),
+            memory("m4", "delta", -1f, 0f)
+        )).await().indefinitely();
+    }
+
+    @Test
+    void testReciprocalRankFusionOrdering() {
+        List<ScoredMemory> results = store.hybridSearch(new float[]{1f, 0f}, List.of("gamma"), 3, 0.6)
+            .await().indefinitely();
+
+        // Semantic ranks m1, m2, m3, m4; keyword ranks m3 (tf 2), m2 (tf 1)
+        // score = 0.6 / (60 + semantic rank) + 0.4 / (60 + keyword rank)
+        assertEquals(List.of("m2", "m3", "m1"), ids(results));
+        assertEquals(0.6 / (RRF_K + 2) + 0.4 / (RRF_K + 2), results.get(0).getScore(), 1e-12);
+        assertEquals(0.6 / (RRF_K + 3) + 0.4 / (RRF_K + 1), results.get(1).getScore(), 1e-12);
+        assertEquals(0.6 / (RRF_K + 1), results.get(2).getScore(), 1e-12);
+    }
+
+    @Test
+    void testFullSemanticWeightKeepsVectorOrder() {
+        List<ScoredMemory> results = store.hybridSearch(new float[]{1f, 0f}, List.of("gamma"), 4, 1.0)
+            .await().indefinitely();
+
+        // Keyword ranks weigh nothing, so only the semantic ranks 1..4 count
+        assertEquals(List.of("m1", "m2", "m3", "m4"), ids(results));
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(1.0 / (RRF_K + i + 1), results.get(i).getScore(), 1e-12);
+        }
+    }
+
+    @Test
+    void testNoKeywordHitFallsBackToVectorSearch() {
+        List<ScoredMemory> results = store.hybridSearch(new float[]{0f, 1f}, List.of("omega"), 2, 0.6)
+            .await().indefinitely();
+
+        assertEquals(List.of("m3", "m2"), ids(results));
+    }
+
+    private static List<String> ids(List<ScoredMemory> results) {
+        return results.stream().map(scored -> scored.getMemory().getId()).toList();
+    }
+
+    private static Memory memory(String id, String content, float... embedding) {
+        return Memory.builder()
+            .id(id)
+            .namespace("ns")
+            .content(content)
+            .embedding(embedding)
+            .type(MemoryType.SEMANTIC)
+            .timestamp(Instant.ofEpochMilli(1_760_000_000_000L))
+            .importance(0.5)
+            .build();
+    }
+}
@@ -0,0 +1,183 @@
+package tech.kayys.silat.executor.memory;
+
+import org.junit.jupiter.api.Test;
+import tech.kayys.silat.core.domain.*;
+import tech.kayys.wayang.memory.similarity.SimilarityKernels;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalClustererTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void testNearDuplicatesJoinOneCluster() {
+        IncrementalClusterer clusterer = new IncrementalClusterer(0.9, 16, 64);
+
+        assertTrue(clusterer.offer(memory("a", 0.5, 0, 1f, 0f, 0f)).isEmpty());
+        assertTrue(clusterer.offer(memory("b", 0.5, 1, 0.99f, 0.05f, 0f)).isEmpty());
+        assertTrue(clusterer.offer(memory("c", 0.5, 2, 2f, 0.1f, 0f)).isEmpty());
+
+        assertEquals(1, clusterer.openClusters());
+        List<IncrementalClusterer.Cluster> drained = clusterer.drain();
+        assertEquals(1, drained.size());
+        assertEquals(List.of("a", "b", "c"), drained.get(0).memberIds());
+    }
+
+    @Test
+    void testDissimilarMemoriesOpenNewClusters() {
+        IncrementalClusterer clusterer = new IncrementalClusterer(0.9, 16, 64);
+
+        clusterer.offer(memory("x", 0.5, 0, 1f, 0f, 0f));
+        clusterer.offer(memory("y", 0.5, 1, 0f, 1f, 0f));
+        clusterer.offer(memory("z", 0.5, 2, 0f, 0f, 1f));
+
+        assertEquals(3, clusterer.openClusters());
+        for (IncrementalClusterer.Cluster cluster : clusterer.drain()) {
+            assertEquals(1, cluster.size());
+        }
+    }
+
+    @Test
+    void testJoinsTheMostSimilarCluster() {
+        IncrementalClusterer clusterer = new IncrementalClusterer(0.5, 16, 64);
+
+        clusterer.offer(memory("x", 0.5, 0, 1f, 0f, 0f));
+        clusterer.offer(memory("y", 0.5, 1, 0f, 1f, 0f));
+        clusterer.offer(memory("near-y", 0.5, 2, 0.3f, 1f, 0f));
+
+        List<IncrementalClusterer.Cluster> drained = clusterer.drain();
+        assertEquals(List.of("x"), drained.get(0).memberIds());
+        assertEquals(List.of("y", "near-y"), drained.get(1).memberIds());
+    }
+
+    @Test
+    void testFullClusterIsClosed() {
+        IncrementalClusterer clusterer = new IncrementalClusterer(0.9, 16, 3);
+
+        assertTrue(clusterer.offer(memory("a", 0.5, 0, 1f, 0f)).isEmpty());
+        assertTrue(clusterer.offer(memory("b", 0.5, 1, 1f, 0.01f)).isEmpty());
+        List<IncrementalClusterer.Cluster> closed = clusterer.offer(memory("c", 0.5, 2, 1f, 0.02f));
+
+        assertEquals(1, closed.size());
+        assertEquals(List.of("a", "b", "c"), closed.get(0).memberIds());
+        assertEquals(0, clusterer.openClusters());
+
+        // The next near-duplicate starts over in a fresh cluster
+        assertTrue(clusterer.offer(memory("d", 0.5, 3, 1f, 0f)).isEmpty());
+        assertEquals(List.of("d"), clusterer.drain().get(0).memberIds());
+    }
+
+    @Test
+    void testStalestClusterIsClosedWhenNoSlotIsFree() {
+        IncrementalClusterer clusterer = new IncrementalClusterer(0.9, 2, 64);
+
+        clusterer.offer(memory("x1", 0.5, 0, 1f, 0f, 0f));
+        clusterer.offer(memory("y1", 0.5, 1, 0f, 1f, 0f));
+        // Touching x makes y the least recently updated cluster
+        clusterer.offer(memory("x2", 0.5, 2, 1f, 0.01f, 0f));
+
+        List<IncrementalClusterer.Cluster> closed = clusterer.offer(memory("z1", 0.5, 3, 0f, 0f, 1f));
+
+        assertEquals(1, closed.size());
+        assertEquals(List.of("y1"), closed.get(0).memberIds());
+        assertEquals(2, clusterer.openClusters());
+    }
+
+    @Test
+    void testRepresentativeIsTheMostImportantMember() {
+        IncrementalClusterer clusterer = new IncrementalClusterer(0.9, 16, 64);
+
+        clusterer.offer(memory("low", 0.2, 0, 1f, 0f));
+        clusterer.offer(memory("high", 0.9, 1, 1f, 0.01f));
+        clusterer.offer(memory("mid", 0.5, 2, 1f, 0.02f));
+
+        assertEquals("high", clusterer.drain().get(0).representative().getId());
+    }
+
+    @Test
+    void testNewestMemberWinsImportanceTies() {
+        IncrementalClusterer clusterer = new IncrementalClusterer(0.9, 16, 64);
+
+        clusterer.offer(memory("older", 0.5, 5, 1f, 0f));
+        clusterer.offer(memory("newer", 0.5, 9, 1f, 0.01f));
+        clusterer.offer(memory("oldest", 0.5, 1, 1f, 0.02f));
+
+        assertEquals("newer", clusterer.drain().get(0).representative().getId());
+    }
+
+    @Test
+    void testEarliestAndLatestSpanAllMembers() {
+        IncrementalClusterer clusterer = new IncrementalClusterer(0.9, 16, 64);
+
+        clusterer.offer(memory("a", 0.5, 5, 1f, 0f));
+        clusterer.offer(memory("b", 0.5, 1, 1f, 0.01f));
+        clusterer.offer(memory("c", 0.5, 9, 1f, 0.02f));
+
+        IncrementalClusterer.Cluster cluster = clusterer.drain().get(0);
+        assertEquals(T0.plusSeconds(1), cluster.earliest());
+        assertEquals(T0.plusSeconds(9), cluster.latest());
+    }
+
+    @Test
+    void testCentroidIsTheUnitMeanOfMembers() {
+        IncrementalClusterer clusterer = new IncrementalClusterer(0.5, 16, 64);
+
+        // Unit vectors (1, 0) and (0.8, 0.6) average to (0.9, 0.3)
+        clusterer.offer(memory("a", 0.5, 0, 3f, 0f));
+        clusterer.offer(memory("b", 0.5, 1, 4f, 3f));
+
+        List<IncrementalClusterer.Cluster> drained = clusterer.drain();
+        assertEquals(1, drained.size());
+        float[] centroid = drained.get(0).centroid();
+        assertEquals(1f, SimilarityKernels.norm(centroid), 1e-5f);
+        assertEquals(3f, centroid[0] / centroid[1], 1e-4f);
+    }
+
+    @Test
+    void testMemoriesWithoutUsableEmbeddingsAreIgnored() {
+        IncrementalClusterer clusterer = new IncrementalClusterer(0.9, 16, 64);
+
+        assertTrue(clusterer.offer(memory("none", 0.5, 0)).isEmpty());
+        assertTrue(clusterer.offer(Memory.builder().id("null").importance(0.5).build()).isEmpty());
+        assertTrue(clusterer.offer(memory("zero", 0.5, 0, 0f, 0f)).isEmpty());
+
+        assertEquals(0, clusterer.openClusters());
+    }
+
+    @Test
+    void testDifferentDimensionsNeverShareACluster() {
+        IncrementalClusterer clusterer = new IncrementalClusterer(0.0, 16, 64);
+
+        clusterer.offer(memory("two", 0.5, 0, 1f, 0f));
+        clusterer.offer(memory("three", 0.5, 1, 1f, 0f, 0f));
+
+        assertEquals(2, clusterer.openClusters());
+    }
+
+    @Test
+    void testDrainEmptiesTheClusterer() {
+        IncrementalClusterer clusterer = new IncrementalClusterer(0.9, 16, 64);
+        clusterer.offer(memory("x", 0.5, 0, 1f, 0f));
+        clusterer.offer(memory("y", 0.5, 1, 0f, 1f));
+
+        assertEquals(2, clusterer.drain().size());
+        assertEquals(0, clusterer.openClusters());
+        assertTrue(clusterer.drain().isEmpty());
+    }
+
+    private static Memory memory(String id, double importance, int second, float... embedding) {
+        return Memory.builder()
+            .id(id)
+            .namespace("test")
+            .content(id)
+            .embedding(embedding)
+            .type(MemoryType.EPISODIC)
+            .timestamp(T0.plusSeconds(second))
+            .importance(importance)
+            .build();
+    }
+}
@@ -0,0 +1,134 @@
+package tech.kayys.silat.executor.memory;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalTFIDFEmbeddingServiceTest {
+
+    @Test
+    void testReferenceMurmur3MatchesPublishedVectors() {
+        assertEquals(0, reference(new byte[0], 0));
+        assertEquals(0x514E28B7, reference(new byte[0], 1));
+        assertEquals(0x81F16F39, reference(new byte[0], 0xffffffff));
+        assertEquals(0x2362F9DE, reference(new byte[4], 0));
+        assertEquals(0x5A97808A, reference(ascii("aaaa"), 0x9747b28c));
+        assertEquals(0x283E0130, reference(ascii("aaa"), 0x9747b28c));
+        assertEquals(0x5D211726, reference(ascii("aa"), 0x9747b28c));
+        assertEquals(0x7FA09EA6, reference(ascii("a"), 0x9747b28c));
+        assertEquals(0x24884CBA, reference(ascii("Hello, world!"), 0x9747b28c));
+        assertEquals(0x2FA826CD,
+                reference(ascii("The quick brown fox jumps over the lazy dog"), 0x9747b28c));
+    }
+
+    @Test
+    void testMurmur3HashesUtf16CodeUnits() {
+        for (String text : List.of("", "a", "ab", "abc", "embedding", "vocabulary",
+                "naïve", "日本語", "emoji 😀 pair", "x".repeat(1001))) {
+            assertEquals(reference(utf16le(text), 0), LocalTFIDFEmbeddingService.murmur3(text), text);
+        }
+    }
+
+    @Test
+    void testMurmur3KnownAnswers() {
+        assertEquals(0, LocalTFIDFEmbeddingService.murmur3(""));
+        assertEquals(0x6F49D11A, LocalTFIDFEmbeddingService.murmur3("a"));
+        assertEquals(0x50898AFC, LocalTFIDFEmbeddingService.murmur3("test"));
+        assertEquals(0x2C03D9BA, LocalTFIDFEmbeddingService.murmur3("embedding"));
+        assertEquals(0x50898AFC, LocalTFIDFEmbeddingService.murmur3(new StringBuilder("test")));
+    }
+
+    @Test
+    void testVocabularyModeIsTheDefault() throws Exception {
+        ConfigProperty property = LocalTFIDFEmbeddingService.class
+                .getDeclaredField("mode").getAnnotation(ConfigProperty.class);
+
+        assertEquals("silat.embedding.local.mode", property.name());
+        assertEquals("vocabulary", property.defaultValue());
+    }
+
+    @Test
+    void testUnknownModeIsRejected() {
+        LocalTFIDFEmbeddingService service = new LocalTFIDFEmbeddingService();
+        service.mode = "sparse";
+        service.idfBuckets = 16;
+
+        assertThrows(IllegalArgumentException.class, service::init);
+    }
+
+    @Test
+    void testHashedModeProducesUnitVectors() {
+        LocalTFIDFEmbeddingService service = new LocalTFIDFEmbeddingService();
+        service.mode = "hashed";
+        service.idfBuckets = 1024;
+        service.init();
+
+        service.embed("background document about unrelated things").await().indefinitely();
+        float[] vector = service.embed("hashed embeddings for local development")
+                .await().indefinitely();
+
+        assertEquals(service.getDimension(), vector.length);
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        assertEquals(1.0, norm, 1e-5);
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] utf16le(String text) {
+        return text.getBytes(StandardCharsets.UTF_16LE);
+    }
+
+    /**
+     * Byte-oriented MurmurHash3_x86_32, written after the SMHasher reference
+     */
+    private static int reference(byte[] data, int seed) {
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        int h1 = seed;
+        int blocks = data.length / 4;
+        for (int i = 0; i < blocks; i++) {
+            h1 ^= mixK1(buffer.getInt(i * 4));
+            h1 = Integer.rotateLeft(h1, 13);
+            h1 = h1 * 5 + 0xe6546b64;
+        }
+
+        int k1 = 0;
+        int tail = blocks * 4;
+        switch (data.length & 3) {
+            case 3:
+                k1 ^= (data[tail + 2] & 0xff) << 16;
+            case 2:
+                k1 ^= (data[tail + 1] & 0xff) << 8;
+            case 1:
+                k1 ^= data[tail] & 0xff;
+                h1 ^= mixK1(k1);
+            default:
+                break;
+        }
+
+        h1 ^= data.length;
+        h1 ^= h1 >>> 16;
+        h1 *= 0x85ebca6b;
+        h1 ^= h1 >>> 13;
+        h1 *= 0xc2b2ae35;
+        h1 ^= h1 >>> 16;
+        return h1;
+    }
+
+    private static int mixK1(int k1) {
+        k1 *= 0xcc9e2d51;
+        k1 = Integer.rotateLeft(k1, 15);
+        k1 *= 0x1b873593;
+        return k1;
+    }
+}
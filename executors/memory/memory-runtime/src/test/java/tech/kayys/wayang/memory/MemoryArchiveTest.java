@@ -0,0 +1,165 @@
+package tech.kayys.silat.executor.memory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.kayys.silat.core.domain.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryArchiveTest {
+
+    @TempDir
+    Path archiveDir;
+
+    @Test
+    void testRoundTripKeepsEveryField() throws IOException {
+        Memory full = Memory.builder()
+            .id("m-1")
+            .namespace("agents/support")
+            .content("Customer prefers e-mail — not phone ☎")
+            .embedding(new float[]{0.25f, -1.5f, Float.MIN_VALUE, 3e9f})
+            .type(MemoryType.EPISODIC)
+            .metadata(Map.of("source", "chat", "turn", 7, "tags", List.of("billing", "vip")))
+            .timestamp(Instant.ofEpochMilli(1_760_000_000_123L))
+            .expiresAt(Instant.ofEpochMilli(1_760_086_400_456L))
+            .importance(0.83)
+            .build();
+        Memory sparse = Memory.builder()
+            .id("m-2")
+            .namespace("agents/support")
+            .content("")
+            .type(MemoryType.WORKING)
+            .timestamp(Instant.ofEpochMilli(1_760_000_001_000L))
+            .importance(0.0)
+            .build();
+
+        List<Memory> read = MemoryArchiveReader.read(archive("agents/support", List.of(full, sparse)));
+
+        assertEquals(2, read.size());
+        assertSameMemory(full, read.get(0));
+        assertSameMemory(sparse, read.get(1));
+        assertNull(read.get(1).getEmbedding());
+        assertNull(read.get(1).getExpiresAt());
+        assertTrue(read.get(1).getMetadata().isEmpty());
+    }
+
+    @Test
+    void testAppendedBatchesAreReadInOrder() throws IOException {
+        MemoryArchiveWriter writer = writer();
+        List<Memory> written = new ArrayList<>();
+        for (int batch = 0; batch < 3; batch++) {
+            List<Memory> memories = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                memories.add(memory("b" + batch + "-" + i, new float[]{batch, i}));
+            }
+            writer.archive("ns", memories).await().indefinitely();
+            written.addAll(memories);
+        }
+
+        List<String> ids = new ArrayList<>();
+        long count = MemoryArchiveReader.read(onlyFile("ns"), memory -> ids.add(memory.getId()));
+
+        assertEquals(150, count);
+        assertEquals(written.stream().map(Memory::getId).toList(), ids);
+    }
+
+    @Test
+    void testNamespaceIsMadeSafeForTheFileSystem() throws IOException {
+        archive("../escape me", List.of(memory("x", new float[]{1f})));
+
+        assertTrue(Files.isDirectory(archiveDir.resolve(".._escape_me")));
+    }
+
+    @Test
+    void testEmptyBatchWritesNothing() {
+        writer().archive("ns", List.of()).await().indefinitely();
+
+        assertFalse(Files.exists(archiveDir.resolve("ns")));
+    }
+
+    @Test
+    void testTruncatedArchiveFails() throws IOException {
+        Path file = archive("ns", List.of(memory("a", new float[]{1f, 2f}), memory("b", new float[]{3f})));
+        byte[] raw;
+        try (var in = new GZIPInputStream(Files.newInputStream(file))) {
+            raw = in.readAllBytes();
+        }
+        Path truncated = archiveDir.resolve("truncated.archive.gz");
+        gzip(truncated, Arrays.copyOf(raw, raw.length - 3));
+
+        IOException error = assertThrows(IOException.class, () -> MemoryArchiveReader.read(truncated));
+        assertTrue(error.getMessage().contains("Truncated"));
+    }
+
+    @Test
+    void testForeignFileIsRejected() throws IOException {
+        Path foreign = archiveDir.resolve("foreign.gz");
+        gzip(foreign, new byte[]{'P', 'K', 3, 4, 0, 0, 0, 0});
+
+        IOException error = assertThrows(IOException.class, () -> MemoryArchiveReader.read(foreign));
+        assertTrue(error.getMessage().contains("Not a memory archive"));
+    }
+
+    private MemoryArchiveWriter writer() {
+        MemoryArchiveWriter writer = new MemoryArchiveWriter();
+        writer.archiveDir = archiveDir.toString();
+        return writer;
+    }
+
+    private Path archive(String namespace, List<Memory> batch) throws IOException {
+        writer().archive(namespace, batch).await().indefinitely();
+        return onlyFile(namespace.replaceAll("[^A-Za-z0-9._-]", "_"));
+    }
+
+    private Path onlyFile(String directory) throws IOException {
+        try (Stream<Path> files = Files.list(archiveDir.resolve(directory))) {
+            List<Path> all = files.toList();
+            assertEquals(1, all.size());
+            assertTrue(all.get(0).getFileName().toString().endsWith(".archive.gz"));
+            return all.get(0);
+        }
+    }
+
+    private static void gzip(Path file, byte[] content) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(content);
+        }
+    }
+
+    private static Memory memory(String id, float[] embedding) {
+        return Memory.builder()
+            .id(id)
+            .namespace("ns")
+            .content("content of " + id)
+            .embedding(embedding)
+            .type(MemoryType.SEMANTIC)
+            .timestamp(Instant.ofEpochMilli(1_760_000_000_000L))
+            .importance(0.5)
+            .build();
+    }
+
+    private static void assertSameMemory(Memory expected, Memory actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getNamespace(), actual.getNamespace());
+        assertEquals(expected.getContent(), actual.getContent());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.getExpiresAt(), actual.getExpiresAt());
+        assertEquals(expected.getImportance(), actual.getImportance());
+        assertEquals(expected.getMetadata(), actual.getMetadata());
+        assertArrayEquals(expected.getEmbedding(), actual.getEmbedding());
+    }
+}
@@ -0,0 +1,176 @@
+package tech.kayys.silat.executor.memory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAIEmbeddingServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private OpenAIEmbeddingService service;
+    private StubClient client;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        client = new StubClient();
+        registry = new SimpleMeterRegistry();
+
+        service = new OpenAIEmbeddingService();
+        service.apiKey = Optional.of("test-key");
+        service.model = "text-embedding-3-small";
+        service.cacheEnabled = true;
+        service.cacheMaxSize = 1000;
+        service.cacheMaxWeightBytes = 1 << 20;
+        service.batchEnabled = false;
+        service.restClient = client;
+        service.meterRegistry = registry;
+    }
+
+    @Test
+    void testCacheHitSkipsApiAndCountsInMetrics() {
+        service.init();
+
+        float[] first = embed("hello");
+        float[] second = embed("hello");
+        embed("world");
+
+        assertArrayEquals(first, second);
+        assertEquals(2, client.calls.get());
+        assertEquals(1, gets("hit"));
+        assertEquals(2, gets("miss"));
+    }
+
+    @Test
+    void testEntryCountIsBounded() {
+        service.cacheMaxSize = 10;
+        service.init();
+
+        for (int i = 0; i < 50; i++) {
+            embed("text " + i);
+        }
+
+        assertTrue(service.cacheSize() <= 10, "cache size " + service.cacheSize());
+        assertTrue(registry.get("cache.evictions").tag("cache", "silat.embedding")
+            .functionCounter().count() >= 40);
+    }
+
+    @Test
+    void testByteWeightIsBounded() {
+        // About ten entries: 96 bytes overhead + 7 chars + 4 floats each
+        service.cacheMaxWeightBytes = 10 * (96 + 2 * 7 + 4 * 4);
+        service.init();
+
+        for (int i = 10; i < 60; i++) {
+            embed("text " + i);
+        }
+
+        assertTrue(service.cacheSize() <= 10, "cache size " + service.cacheSize());
+    }
+
+    @Test
+    void testConcurrentRequestsShareOneCall() {
+        service.init();
+        client.pending = new CompletableFuture<>();
+
+        CompletableFuture<float[]> first = service.embed("same").subscribeAsCompletionStage();
+        CompletableFuture<float[]> second = service.embed("same").subscribeAsCompletionStage();
+        client.pending.complete(null);
+
+        assertArrayEquals(StubClient.vector("same"), first.join());
+        assertArrayEquals(StubClient.vector("same"), second.join());
+        assertEquals(1, client.calls.get());
+    }
+
+    @Test
+    void testCallersGetTheirOwnCopy() {
+        service.init();
+
+        float[] first = embed("hello");
+        first[0] = 42f;
+
+        assertArrayEquals(StubClient.vector("hello"), embed("hello"));
+
+        List<float[]> batch = service.embedBatch(List.of("hello", "other")).await().atMost(TIMEOUT);
+        batch.get(0)[1] = 42f;
+        assertArrayEquals(StubClient.vector("hello"), embed("hello"));
+        assertEquals(1, client.calls.get());
+        assertEquals(1, client.batchCalls.get());
+    }
+
+    @Test
+    void testBatchOnlyRequestsUncachedTexts() {
+        service.init();
+        embed("cached");
+
+        List<float[]> batch = service.embedBatch(List.of("cached", "new")).await().atMost(TIMEOUT);
+
+        assertArrayEquals(StubClient.vector("cached"), batch.get(0));
+        assertArrayEquals(StubClient.vector("new"), batch.get(1));
+        assertEquals(List.of(List.of("new")), client.batchInputs);
+    }
+
+    private float[] embed(String text) {
+        return service.embed(text).await().atMost(TIMEOUT);
+    }
+
+    private double gets(String result) {
+        return registry.get("cache.gets").tag("cache", "silat.embedding").tag("result", result)
+            .functionCounter().count();
+    }
+
+    /**
+     * Answers with a vector derived from the text, optionally once a future completes
+     */
+    private static final class StubClient implements OpenAIRestClient {
+
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger batchCalls = new AtomicInteger();
+        final List<List<String>> batchInputs = new CopyOnWriteArrayList<>();
+        volatile CompletableFuture<Void> pending;
+
+        static float[] vector(String text) {
+            return new float[]{text.length(), text.hashCode(), 1f, -1f};
+        }
+
+        @Override
+        public Uni<OpenAIEmbeddingResponse> createEmbedding(String authorization, OpenAIEmbeddingRequest request) {
+            calls.incrementAndGet();
+            Uni<OpenAIEmbeddingResponse> response = Uni.createFrom().item(() -> response(List.of(request.input)));
+            CompletableFuture<Void> gate = pending;
+            return gate == null ? response : Uni.createFrom().completionStage(gate).replaceWith(response);
+        }
+
+        @Override
+        public Uni<OpenAIEmbeddingResponse> createEmbeddingBatch(
+                String authorization, OpenAIEmbeddingBatchRequest request) {
+            batchCalls.incrementAndGet();
+            batchInputs.add(List.copyOf(request.input));
+            return Uni.createFrom().item(() -> response(request.input));
+        }
+
+        private static OpenAIEmbeddingResponse response(List<String> texts) {
+            OpenAIEmbeddingResponse response = new OpenAIEmbeddingResponse();
+            response.data = new ArrayList<>();
+            for (int i = 0; i < texts.size(); i++) {
+                OpenAIEmbeddingResponse.EmbeddingData data = new OpenAIEmbeddingResponse.EmbeddingData();
+                data.embedding = vector(texts.get(i));
+                data.index = i;
+                response.data.add(data);
+            }
+            return response;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package tech.kayys.silat.executor.memory;
+
+import io.vertx.mutiny.core.buffer.Buffer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PgVectorCodecTest {
+
+    @Test
+    void testEncodeWritesTextForm() {
+        assertEquals("[1.0,-0.5,0.0]", PgVectorCodec.encode(new float[]{1f, -0.5f, 0f}));
+        assertEquals("[]", PgVectorCodec.encode(new float[0]));
+        assertNull(PgVectorCodec.encode(null));
+        assertEquals("$4::vector", PgVectorCodec.param(4));
+    }
+
+    @Test
+    void testEncodedValuesParseBackExactly() {
+        float[] vector = {0.1f, 1e-8f, -3.4028235e38f, Float.MIN_VALUE, 0.33333334f};
+
+        String text = PgVectorCodec.encode(vector);
+        String[] parts = text.substring(1, text.length() - 1).split(",");
+
+        assertEquals(vector.length, parts.length);
+        for (int i = 0; i < vector.length; i++) {
+            assertEquals(vector[i], Float.parseFloat(parts[i]));
+        }
+    }
+
+    @Test
+    void testDecodeReadsSendFormat() {
+        Buffer buffer = Buffer.buffer()
+            .appendShort((short) 2)
+            .appendShort((short) 0)
+            .appendFloat(0.25f)
+            .appendFloat(-2f);
+
+        assertArrayEquals(new float[]{0.25f, -2f}, PgVectorCodec.decode(buffer));
+        assertNull(PgVectorCodec.decode(null));
+        assertThrows(IllegalArgumentException.class,
+            () -> PgVectorCodec.decode(Buffer.buffer().appendShort((short) 3).appendShort((short) 0)));
+    }
+}
@@ -0,0 +1,175 @@
+package tech.kayys.silat.executor.memory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.kayys.silat.core.domain.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostgresVectorStoreTest {
+
+    // Matches PostgresVectorStore.COLUMNS_PER_ROW
+    private static final int COLUMNS = 10;
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$(\\d+)");
+
+    private PostgresVectorStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new PostgresVectorStore();
+        store.batchSize = 3;
+    }
+
+    @Test
+    void testStatementBindsOnePlaceholderPerValue() {
+        List<PostgresVectorStore.UpsertStatement> statements = store.planBatchUpsert(memories(2));
+
+        assertEquals(1, statements.size());
+        PostgresVectorStore.UpsertStatement statement = statements.get(0);
+        assertEquals(2 * COLUMNS, statement.values().size());
+        assertPlaceholders(statement);
+
+        String sql = statement.sql();
+        assertTrue(sql.startsWith("INSERT INTO silat_memories ("), sql);
+        assertTrue(sql.contains("($1, $2, $3, $4::vector, $5, $6::jsonb, $7, $8, $9, $10)"), sql);
+        assertTrue(sql.contains("($11, $12, $13, $14::vector, $15, $16::jsonb, $17, $18, $19, $20)"), sql);
+        assertTrue(sql.contains("ON CONFLICT (id) DO UPDATE SET"), sql);
+    }
+
+    @Test
+    void testValuesFollowColumnOrder() {
+        Memory memory = memory(UUID.randomUUID().toString(), "acme:flow:node", "hello");
+
+        List<Object> values = store.planBatchUpsert(List.of(memory)).get(0).values();
+
+        assertEquals(UUID.fromString(memory.getId()), values.get(0));
+        assertEquals("acme:flow:node", values.get(1));
+        assertEquals("hello", values.get(2));
+        assertEquals(PgVectorCodec.encode(memory.getEmbedding()), values.get(3));
+        assertEquals("SEMANTIC", values.get(4));
+        assertEquals("{\"source\":\"test\"}", values.get(5));
+        assertEquals(memory.getTimestamp(), values.get(6));
+        assertNull(values.get(7));
+        assertEquals(0.5, values.get(8));
+        assertEquals("acme", values.get(9));
+    }
+
+    @Test
+    void testBatchIsSplitAtChunkBoundaries() {
+        assertEquals(List.of(3), rowCounts(store.planBatchUpsert(memories(3))));
+        assertEquals(List.of(3, 1), rowCounts(store.planBatchUpsert(memories(4))));
+        assertEquals(List.of(3, 3, 1), rowCounts(store.planBatchUpsert(memories(7))));
+
+        for (PostgresVectorStore.UpsertStatement statement : store.planBatchUpsert(memories(7))) {
+            assertPlaceholders(statement);
+        }
+    }
+
+    @Test
+    void testChunksStayWithinBindParameterLimit() {
+        store.batchSize = 100_000;
+
+        List<PostgresVectorStore.UpsertStatement> statements = store.planBatchUpsert(memories(7_000));
+
+        int maxRows = 65535 / COLUMNS;
+        assertEquals(List.of(maxRows, 7_000 - maxRows), rowCounts(statements));
+        assertTrue(statements.get(0).values().size() <= 65535);
+        assertPlaceholders(statements.get(0));
+    }
+
+    @Test
+    void testNonPositiveBatchSizeUpsertsRowByRow() {
+        store.batchSize = 0;
+
+        assertEquals(List.of(1, 1), rowCounts(store.planBatchUpsert(memories(2))));
+    }
+
+    @Test
+    void testDuplicateIdsKeepLastWrite() {
+        String a = UUID.randomUUID().toString();
+        String b = UUID.randomUUID().toString();
+        List<Memory> batch = List.of(
+            memory(a, "acme:flow:node", "first"),
+            memory(b, "acme:flow:node", "other"),
+            memory(a, "acme:flow:node", "second"));
+
+        List<PostgresVectorStore.UpsertStatement> statements = store.planBatchUpsert(batch);
+
+        assertEquals(List.of(2), rowCounts(statements));
+        List<Object> values = statements.get(0).values();
+        // The repeated id keeps its first position with the last values
+        assertEquals(UUID.fromString(a), values.get(0));
+        assertEquals("second", values.get(2));
+        assertEquals(UUID.fromString(b), values.get(COLUMNS));
+        assertEquals("other", values.get(COLUMNS + 2));
+        assertPlaceholders(statements.get(0));
+    }
+
+    @Test
+    void testDuplicatesAreRemovedBeforeChunking() {
+        String id = UUID.randomUUID().toString();
+        List<Memory> batch = new ArrayList<>(memories(2));
+        batch.add(memory(id, "acme:flow:node", "v1"));
+        batch.add(memory(id, "acme:flow:node", "v2"));
+        batch.add(memory(id, "acme:flow:node", "v3"));
+
+        // Five inputs, three rows: one statement at a batch size of three
+        List<PostgresVectorStore.UpsertStatement> statements = store.planBatchUpsert(batch);
+
+        assertEquals(List.of(3), rowCounts(statements));
+        assertEquals("v3", statements.get(0).values().get(2 * COLUMNS + 2));
+    }
+
+    /**
+     * Placeholders are exactly $1..$n, with n the number of bound values
+     */
+    private static void assertPlaceholders(PostgresVectorStore.UpsertStatement statement) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        int occurrences = 0;
+        Matcher matcher = PLACEHOLDER.matcher(statement.sql());
+        while (matcher.find()) {
+            indexes.add(Integer.parseInt(matcher.group(1)));
+            occurrences++;
+        }
+
+        int count = statement.values().size();
+        assertEquals(count, occurrences);
+        assertEquals(count, indexes.size());
+        assertEquals(1, indexes.first().intValue());
+        assertEquals(count, indexes.last().intValue());
+    }
+
+    private static List<Integer> rowCounts(List<PostgresVectorStore.UpsertStatement> statements) {
+        return statements.stream().map(statement -> statement.values().size() / COLUMNS).toList();
+    }
+
+    private static List<Memory> memories(int count) {
+        List<Memory> memories = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            memories.add(memory(UUID.randomUUID().toString(), "acme:flow:node", "memory " + i));
+        }
+        return memories;
+    }
+
+    private static Memory memory(String id, String namespace, String content) {
+        return Memory.builder()
+            .id(id)
+            .namespace(namespace)
+            .content(content)
+            .embedding(new float[]{0.1f, 0.2f})
+            .type(MemoryType.SEMANTIC)
+            .metadata(Map.of("source", "test"))
+            .timestamp(Instant.parse("2026-01-01T00:00:00Z"))
+            .build();
+    }
+}
@@ -0,0 +1,155 @@
+package tech.kayys.silat.executor.memory;
+
+import org.junit.jupiter.api.Test;
+import tech.kayys.wayang.memory.similarity.SimilarityKernels;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantizedVectorStorageTest {
+
+    private static final int DIMENSION = 384;
+
+    @Test
+    void testFullPrecisionIsReturnedExactly() {
+        for (QuantizedVectorStorage.Mode mode : QuantizedVectorStorage.Mode.values()) {
+            QuantizedVectorStorage storage = new QuantizedVectorStorage(mode);
+            Random random = new Random(1);
+            float[] first = randomVector(random, DIMENSION);
+            float[] second = randomVector(random, DIMENSION);
+
+            storage.put("first", first);
+            storage.put("second", second);
+
+            assertArrayEquals(first, storage.fullPrecision("first"), mode.name());
+            assertArrayEquals(second, storage.fullPrecision("second"), mode.name());
+            assertNull(storage.fullPrecision("missing"));
+        }
+    }
+
+    @Test
+    void testApproximateCosineIsCloseToExact() {
+        Random random = new Random(2);
+        float[] query = randomVector(random, DIMENSION);
+
+        for (QuantizedVectorStorage.Mode mode : QuantizedVectorStorage.Mode.values()) {
+            QuantizedVectorStorage storage = new QuantizedVectorStorage(mode);
+            QuantizedVectorStorage.Query prepared = storage.prepare(query);
+            double tolerance = mode == QuantizedVectorStorage.Mode.INT8 ? 0.02 : 0.001;
+
+            for (int i = 0; i < 50; i++) {
+                float[] vector = randomVector(random, DIMENSION);
+                storage.put("m" + i, vector);
+
+                double exact = SimilarityKernels.cosine(query, vector);
+                assertEquals(exact, storage.approximateCosine(prepared, "m" + i), tolerance, mode.name());
+            }
+        }
+    }
+
+    @Test
+    void testReplacedAndRemovedVectorsReuseSlots() {
+        QuantizedVectorStorage storage = new QuantizedVectorStorage(QuantizedVectorStorage.Mode.INT8);
+        Random random = new Random(3);
+
+        for (int i = 0; i < 1000; i++) {
+            storage.put("same", randomVector(random, DIMENSION));
+        }
+        long oneChunk = storage.offHeapBytes();
+        assertTrue(oneChunk > 0 && oneChunk <= 1 << 20, "one chunk, got " + oneChunk);
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 500; i++) {
+                storage.put("m" + i, randomVector(random, DIMENSION));
+            }
+            for (int i = 0; i < 500; i++) {
+                storage.remove("m" + i);
+            }
+        }
+        long afterChurn = storage.offHeapBytes();
+
+        for (int i = 0; i < 500; i++) {
+            storage.put("n" + i, randomVector(random, DIMENSION));
+        }
+
+        assertEquals(afterChurn, storage.offHeapBytes());
+        assertEquals(501, storage.size());
+    }
+
+    @Test
+    void testVectorsOfDifferentDimensions() {
+        QuantizedVectorStorage storage = new QuantizedVectorStorage(QuantizedVectorStorage.Mode.FLOAT16);
+        float[] small = {1f, 2f, 3f};
+        float[] large = {5f, 4f, 3f, 2f, 1f};
+
+        storage.put("small", small);
+        storage.put("large", large);
+
+        assertArrayEquals(small, storage.fullPrecision("small"));
+        assertArrayEquals(large, storage.fullPrecision("large"));
+        assertTrue(Double.isNaN(storage.approximateCosine(storage.prepare(small), "large")));
+    }
+
+    @Test
+    void testRemoveAndNullVector() {
+        QuantizedVectorStorage storage = new QuantizedVectorStorage(QuantizedVectorStorage.Mode.INT8);
+        storage.put("a", new float[] {1f, 0f});
+        storage.put("b", new float[] {0f, 1f});
+
+        storage.remove("a");
+        storage.put("b", null);
+
+        assertFalse(storage.contains("a"));
+        assertFalse(storage.contains("b"));
+        assertEquals(0, storage.size());
+        assertEquals(0, storage.heapBytes());
+    }
+
+    @Test
+    void testPutReportsCodeChanges() {
+        QuantizedVectorStorage storage = new QuantizedVectorStorage(QuantizedVectorStorage.Mode.FLOAT16);
+
+        assertTrue(storage.put("a", new float[] {1f, 0f}));
+        assertFalse(storage.put("a", new float[] {1f, 0f}));
+        assertTrue(storage.put("a", new float[] {0f, 1f}));
+        assertTrue(storage.put("a", null));
+        assertFalse(storage.put("a", null));
+        assertNull(storage.decoded("a"));
+    }
+
+    @Test
+    void testCodesDecodeCloseToVector() {
+        Random random = new Random(4);
+        float[] vector = randomVector(random, DIMENSION);
+
+        for (QuantizedVectorStorage.Mode mode : QuantizedVectorStorage.Mode.values()) {
+            QuantizedVectorStorage.Codes codes = QuantizedVectorStorage.encode(mode, vector);
+            float[] decoded = codes.decode();
+            // Half an int8 step over a range of about 6, or float16 rounding
+            double tolerance = mode == QuantizedVectorStorage.Mode.INT8 ? 0.02 : 0.005;
+
+            assertEquals(DIMENSION, codes.dimension());
+            for (int i = 0; i < DIMENSION; i++) {
+                assertEquals(vector[i], decoded[i], tolerance, mode.name());
+            }
+            assertTrue(codes.sameCodes(QuantizedVectorStorage.encode(mode, vector)));
+        }
+    }
+
+    @Test
+    void testModeParsing() {
+        assertEquals(QuantizedVectorStorage.Mode.INT8, QuantizedVectorStorage.Mode.parse("int8"));
+        assertEquals(QuantizedVectorStorage.Mode.FLOAT16, QuantizedVectorStorage.Mode.parse("fp16"));
+        assertNull(QuantizedVectorStorage.Mode.parse("none"));
+        assertThrows(IllegalArgumentException.class, () -> QuantizedVectorStorage.Mode.parse("int4"));
+    }
+
+    static float[] randomVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,112 @@
+package tech.kayys.silat.executor.memory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextChunkerTest {
+
+    private final Tokenizer tokenizer = new HeuristicTokenizer();
+
+    private TextChunker chunker;
+
+    @BeforeEach
+    void setUp() {
+        chunker = new TextChunker();
+        chunker.chunkSize = 512;
+        chunker.chunkOverlap = 50;
+        chunker.chunkMaxTokens = Optional.empty();
+        chunker.chunkOverlapTokens = 50;
+        chunker.init();
+    }
+
+    @Test
+    void testChunkSizeIsInCharactersByDefault() {
+        String text = words(2000);
+
+        List<String> chunks = chunker.chunk(text);
+
+        assertTrue(chunks.size() > 1);
+        for (String chunk : chunks) {
+            assertTrue(chunk.length() <= 512, "chunk of " + chunk.length() + " chars");
+        }
+        // Token mode would make chunks several times larger
+        assertTrue(chunks.get(0).length() > 400, "chunk of " + chunks.get(0).length() + " chars");
+    }
+
+    @Test
+    void testTokenModeIsOptIn() {
+        chunker.chunkMaxTokens = Optional.of(64);
+        chunker.chunkOverlapTokens = 8;
+        String text = words(2000);
+
+        List<String> chunks = chunker.chunk(text);
+
+        assertTrue(chunks.size() > 1);
+        for (String chunk : chunks) {
+            assertTrue(tokenizer.countTokens(chunk) <= 64, "chunk of " + tokenizer.countTokens(chunk) + " tokens");
+        }
+    }
+
+    @Test
+    void testConsecutiveChunksOverlap() {
+        List<String> chunks = toList(chunker.stream(words(3000), 40, 10));
+
+        assertTrue(chunks.size() > 2);
+        for (int i = 1; i < chunks.size(); i++) {
+            String previous = chunks.get(i - 1);
+            String tail = previous.substring(previous.lastIndexOf(' ') + 1);
+            assertTrue(chunks.get(i).contains(tail), "chunk " + i + " does not repeat '" + tail + "'");
+        }
+    }
+
+    @Test
+    void testCutsAtSentenceBoundariesInEveryWindow() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            text.append("Sentence number ").append(i).append(" has a few words in it. ");
+        }
+
+        List<String> chunks = toList(chunker.stream(text, 40, 0));
+
+        assertTrue(chunks.size() > 3);
+        for (int i = 0; i < chunks.size() - 1; i++) {
+            assertTrue(chunks.get(i).endsWith("."), "chunk " + i + " cut mid-sentence: " + chunks.get(i));
+            assertTrue(chunks.get(i + 1).startsWith("Sentence"), "chunk " + (i + 1) + ": " + chunks.get(i + 1));
+        }
+    }
+
+    @Test
+    void testCoversTheWholeTextWithoutOverlap() {
+        String text = words(1500);
+
+        List<String> chunks = toList(chunker.stream(text, 30, 0));
+
+        assertEquals(text.replace(" ", ""), String.join("", chunks).replace(" ", ""));
+    }
+
+    @Test
+    void testEmptyAndNullText() {
+        assertTrue(chunker.chunk("").isEmpty());
+        assertTrue(chunker.chunk(null).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> chunker.stream("text", 0, 0));
+    }
+
+    private static List<String> toList(java.util.Iterator<String> chunks) {
+        List<String> list = new java.util.ArrayList<>();
+        chunks.forEachRemaining(list::add);
+        return list;
+    }
+
+    private static String words(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(i % 2 == 0 ? "word" : "token").append(i).append(' ');
+        }
+        return text.toString().trim();
+    }
+}
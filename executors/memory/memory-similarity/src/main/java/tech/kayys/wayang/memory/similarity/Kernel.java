@@ -0,0 +1,23 @@
+package tech.kayys.wayang.memory.similarity;
+
+/**
+ * Low-level similarity kernel. Callers guarantee equal-length inputs.
+ */
+interface Kernel {
+
+    float dot(float[] a, float[] b);
+
+    /**
+     * Cosine similarity computed in a single pass; 0 when either vector has zero norm
+     */
+    float cosine(float[] a, float[] b);
+
+    float l2Squared(float[] a, float[] b);
+
+    /**
+     * Row-major matrix times vector: out[r] = dot(matrix row r, vector)
+     */
+    void project(float[] matrix, float[] vector, float[] out);
+
+    String name();
+}
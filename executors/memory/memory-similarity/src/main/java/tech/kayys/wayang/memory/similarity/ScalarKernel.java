@@ -0,0 +1,59 @@
+package tech.kayys.wayang.memory.similarity;
+
+/**
+ * Portable scalar kernel, used when the Vector API is unavailable or disabled
+ */
+final class ScalarKernel implements Kernel {
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float cosine(float[] a, float[] b) {
+        float dot = 0f;
+        float normA = 0f;
+        float normB = 0f;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        if (normA == 0f || normB == 0f) {
+            return 0f;
+        }
+        return (float) (dot / Math.sqrt((double) normA * normB));
+    }
+
+    @Override
+    public float l2Squared(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            float diff = a[i] - b[i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    public void project(float[] matrix, float[] vector, float[] out) {
+        int dimension = vector.length;
+        for (int r = 0, offset = 0; r < out.length; r++, offset += dimension) {
+            float sum = 0f;
+            for (int i = 0; i < dimension; i++) {
+                sum += matrix[offset + i] * vector[i];
+            }
+            out[r] = sum;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
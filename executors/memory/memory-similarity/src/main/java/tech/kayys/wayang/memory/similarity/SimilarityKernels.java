@@ -0,0 +1,122 @@
+package tech.kayys.wayang.memory.similarity;
+
+import java.util.List;
+
+/**
+ * Shared similarity kernels over primitive float vectors.
+ *
+ * Uses the JDK Vector API when the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}, otherwise a scalar loop.
+ * Set {@code -Dwayang.similarity.vector-api=false} to force the scalar path.
+ */
+public final class SimilarityKernels {
+
+    static final String VECTOR_API_PROPERTY = "wayang.similarity.vector-api";
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final Kernel KERNEL = loadKernel();
+
+    private SimilarityKernels() {
+    }
+
+    /**
+     * Dot product of two equal-length vectors
+     */
+    public static float dot(float[] a, float[] b) {
+        requireSameLength(a, b);
+        return KERNEL.dot(a, b);
+    }
+
+    /**
+     * Cosine similarity; 0 for mismatched lengths or zero-norm vectors
+     */
+    public static float cosine(float[] a, float[] b) {
+        if (a == null || b == null || a.length != b.length) {
+            return 0f;
+        }
+        return KERNEL.cosine(a, b);
+    }
+
+    /**
+     * Squared Euclidean distance of two equal-length vectors
+     */
+    public static float l2Squared(float[] a, float[] b) {
+        requireSameLength(a, b);
+        return KERNEL.l2Squared(a, b);
+    }
+
+    /**
+     * Euclidean distance of two equal-length vectors
+     */
+    public static float l2(float[] a, float[] b) {
+        return (float) Math.sqrt(l2Squared(a, b));
+    }
+
+    /**
+     * Multiply a flat row-major matrix of out.length rows by a vector
+     */
+    public static void project(float[] matrix, float[] vector, float[] out) {
+        if (matrix.length != out.length * vector.length) {
+            throw new IllegalArgumentException("Matrix of " + matrix.length + " values is not "
+                + out.length + " x " + vector.length);
+        }
+        KERNEL.project(matrix, vector, out);
+    }
+
+    /**
+     * Euclidean norm of a vector
+     */
+    public static float norm(float[] a) {
+        return (float) Math.sqrt(KERNEL.dot(a, a));
+    }
+
+    /**
+     * Unboxes an embedding stored as a list of numbers
+     */
+    public static float[] toFloatArray(List<? extends Number> values) {
+        float[] result = new float[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i).floatValue();
+        }
+        return result;
+    }
+
+    /**
+     * @return true when the SIMD kernel is active
+     */
+    public static boolean isVectorized() {
+        return !(KERNEL instanceof ScalarKernel);
+    }
+
+    /**
+     * @return Name of the active kernel, for startup diagnostics
+     */
+    public static String implementation() {
+        return KERNEL.name();
+    }
+
+    static Kernel scalarKernel() {
+        return new ScalarKernel();
+    }
+
+    static Kernel loadKernel() {
+        boolean enabled = Boolean.parseBoolean(System.getProperty(VECTOR_API_PROPERTY, "true"));
+        if (enabled && ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (Kernel) Class.forName(SimilarityKernels.class.getPackageName() + ".VectorApiKernel")
+                    .getDeclaredConstructor()
+                    .newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall through to the scalar kernel
+            }
+        }
+        return new ScalarKernel();
+    }
+
+    private static void requireSameLength(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException(
+                "Vector length mismatch: " + a.length + " != " + b.length);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package tech.kayys.wayang.memory.similarity;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the scalar and Vector API kernels.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=tech.kayys.wayang.memory.similarity.SimilarityKernelsBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class SimilarityKernelsBenchmark {
+
+    @Param({"384", "1536", "3072"})
+    int dimension;
+
+    private final Kernel scalar = SimilarityKernels.scalarKernel();
+    private final Kernel vectorized = SimilarityKernels.loadKernel();
+
+    private float[] a;
+    private float[] b;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        a = new float[dimension];
+        b = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            a[i] = (float) random.nextGaussian();
+            b[i] = (float) random.nextGaussian();
+        }
+    }
+
+    @Benchmark
+    public float cosineScalar() {
+        return scalar.cosine(a, b);
+    }
+
+    @Benchmark
+    public float cosineVectorized() {
+        return vectorized.cosine(a, b);
+    }
+
+    @Benchmark
+    public float dotScalar() {
+        return scalar.dot(a, b);
+    }
+
+    @Benchmark
+    public float dotVectorized() {
+        return vectorized.dot(a, b);
+    }
+
+    @Benchmark
+    public float l2Scalar() {
+        return scalar.l2Squared(a, b);
+    }
+
+    @Benchmark
+    public float l2Vectorized() {
+        return vectorized.l2Squared(a, b);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(SimilarityKernelsBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,87 @@
+package tech.kayys.wayang.memory.similarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarityKernelsTest {
+
+    @Test
+    void testActiveKernel_MatchesScalar() {
+        // Given - lengths that exercise both the SIMD body and the scalar tail
+        Kernel active = SimilarityKernels.loadKernel();
+        Kernel scalar = SimilarityKernels.scalarKernel();
+        Random random = new Random(7);
+
+        for (int length : new int[] {1, 3, 8, 17, 384, 1536}) {
+            float[] a = randomVector(random, length);
+            float[] b = randomVector(random, length);
+
+            // When & Then
+            assertEquals(scalar.dot(a, b), active.dot(a, b), 1e-3f * length);
+            assertEquals(scalar.cosine(a, b), active.cosine(a, b), 1e-4f);
+            assertEquals(scalar.l2Squared(a, b), active.l2Squared(a, b), 1e-3f * length);
+        }
+    }
+
+    @Test
+    void testCosine_EdgeCases() {
+        float[] v = {1f, 2f, 3f};
+
+        assertEquals(1f, SimilarityKernels.cosine(v, v), 1e-6f);
+        assertEquals(0f, SimilarityKernels.cosine(v, new float[] {1f, 2f}));
+        assertEquals(0f, SimilarityKernels.cosine(v, new float[3]));
+        assertEquals(-1f, SimilarityKernels.cosine(v, new float[] {-1f, -2f, -3f}), 1e-6f);
+    }
+
+    @Test
+    void testL2AndNorm() {
+        float[] a = {0f, 3f};
+        float[] b = {4f, 0f};
+
+        assertEquals(5f, SimilarityKernels.l2(a, b), 1e-6f);
+        assertEquals(3f, SimilarityKernels.norm(a), 1e-6f);
+        assertThrows(IllegalArgumentException.class,
+            () -> SimilarityKernels.dot(a, new float[3]));
+    }
+
+    @Test
+    void testProject_MatchesRowDots() {
+        // Given
+        Kernel active = SimilarityKernels.loadKernel();
+        Random random = new Random(11);
+        int rows = 5;
+        int length = 37;
+        float[] matrix = randomVector(random, rows * length);
+        float[] vector = randomVector(random, length);
+
+        // When
+        float[] out = new float[rows];
+        active.project(matrix, vector, out);
+
+        // Then
+        for (int r = 0; r < rows; r++) {
+            float[] row = Arrays.copyOfRange(matrix, r * length, (r + 1) * length);
+            assertEquals(SimilarityKernels.scalarKernel().dot(row, vector), out[r], 1e-3f * length);
+        }
+        assertThrows(IllegalArgumentException.class,
+            () -> SimilarityKernels.project(matrix, vector, new float[rows + 1]));
+    }
+
+    @Test
+    void testToFloatArray() {
+        assertArrayEquals(new float[] {0.5f, -1f}, SimilarityKernels.toFloatArray(List.of(0.5, -1.0)));
+    }
+
+    private static float[] randomVector(Random random, int length) {
+        float[] v = new float[length];
+        for (int i = 0; i < length; i++) {
+            v[i] = (float) random.nextGaussian();
+        }
+        return v;
+    }
+}
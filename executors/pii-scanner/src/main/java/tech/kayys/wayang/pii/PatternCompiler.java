@@ -0,0 +1,589 @@
+package tech.kayys.wayang.pii;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a set of regular expressions into one DFA.
+ *
+ * Supported syntax is the subset PII patterns use: literals and escapes,
+ * character classes with ranges and negation, the \d \s \w shorthands (and
+ * their negations), '.', groups, alternation and the * + ? {n} {n,} {n,m}
+ * quantifiers. \b is supported at the start and end of a pattern only; it is
+ * checked at match boundaries instead of inside the automaton.
+ *
+ * Each pattern is parsed to a small syntax tree, compiled to a Thompson NFA
+ * joined under shared start states, then determinized with the subset
+ * construction over character equivalence classes.
+ */
+final class PatternCompiler {
+
+    static final int MAX_DFA_STATES = 50_000;
+
+    private static final int MAX_CHAR = Character.MAX_VALUE;
+
+    private PatternCompiler() {
+    }
+
+    /**
+     * Compiled automaton. Transition -1 is the dead state.
+     */
+    record Dfa(
+            short[] classOf,
+            int classes,
+            int[] next,
+            int[][] accepts,
+            int startAtBoundary,
+            int startInsideWord,
+            boolean[] boundaryEnd) {
+    }
+
+    static Dfa compile(List<String> patterns) {
+        Nfa nfa = new Nfa();
+        int startAll = nfa.newState();
+        int startInner = nfa.newState();
+        boolean[] boundaryEnd = new boolean[patterns.size()];
+        List<int[]> allRanges = new ArrayList<>();
+
+        for (int p = 0; p < patterns.size(); p++) {
+            Parsed parsed = new Parser(patterns.get(p)).parse();
+            boundaryEnd[p] = parsed.boundaryEnd();
+            collectRanges(parsed.root(), allRanges);
+
+            int[] fragment = nfa.build(parsed.root());
+            int accept = nfa.newState();
+            nfa.accepting.put(accept, p);
+            nfa.epsilon(fragment[1], accept);
+
+            nfa.epsilon(startAll, fragment[0]);
+            if (!parsed.boundaryStart()) {
+                nfa.epsilon(startInner, fragment[0]);
+            }
+        }
+
+        // Character equivalence classes: chars no range tells apart share a class
+        BitSet cuts = new BitSet(MAX_CHAR + 2);
+        for (int[] ranges : allRanges) {
+            for (int r = 0; r < ranges.length; r += 2) {
+                cuts.set(ranges[r]);
+                cuts.set(ranges[r + 1] + 1);
+            }
+        }
+        short[] classOf = new short[MAX_CHAR + 1];
+        List<Character> representatives = new ArrayList<>();
+        int current = -1;
+        for (int c = 0; c <= MAX_CHAR; c++) {
+            if (c == 0 || cuts.get(c)) {
+                current++;
+                representatives.add((char) c);
+            }
+            classOf[c] = (short) current;
+        }
+        int classes = representatives.size();
+        if (classes > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many character classes: " + classes);
+        }
+
+        // Subset construction
+        Map<BitSet, Integer> ids = new HashMap<>();
+        List<BitSet> sets = new ArrayList<>();
+        int[] next = new int[64 * classes];
+        List<int[]> accepts = new ArrayList<>();
+
+        int dfaStartAll = intern(nfa.closure(single(startAll)), ids, sets, accepts, nfa);
+        int dfaStartInner = intern(nfa.closure(single(startInner)), ids, sets, accepts, nfa);
+
+        for (int d = 0; d < sets.size(); d++) {
+            if ((d + 1) * classes > next.length) {
+                next = Arrays.copyOf(next, next.length * 2);
+            }
+            BitSet set = sets.get(d);
+            for (int k = 0; k < classes; k++) {
+                BitSet moved = nfa.move(set, representatives.get(k));
+                int target = -1;
+                if (!moved.isEmpty()) {
+                    target = intern(nfa.closure(moved), ids, sets, accepts, nfa);
+                    if (sets.size() > MAX_DFA_STATES) {
+                        throw new IllegalArgumentException(
+                            "Patterns expand to more than " + MAX_DFA_STATES + " DFA states");
+                    }
+                }
+                next[d * classes + k] = target;
+            }
+        }
+
+        return new Dfa(
+            classOf,
+            classes,
+            Arrays.copyOf(next, sets.size() * classes),
+            accepts.toArray(new int[0][]),
+            dfaStartAll,
+            dfaStartInner,
+            boundaryEnd);
+    }
+
+    private static int intern(BitSet set, Map<BitSet, Integer> ids, List<BitSet> sets,
+                              List<int[]> accepts, Nfa nfa) {
+        Integer id = ids.get(set);
+        if (id != null) {
+            return id;
+        }
+        id = sets.size();
+        ids.put(set, id);
+        sets.add(set);
+
+        // Accepting patterns in priority (declaration) order
+        int[] accepting = set.stream()
+            .filter(nfa.accepting::containsKey)
+            .map(nfa.accepting::get)
+            .sorted()
+            .toArray();
+        accepts.add(accepting.length == 0 ? null : accepting);
+        return id;
+    }
+
+    private static BitSet single(int state) {
+        BitSet set = new BitSet();
+        set.set(state);
+        return set;
+    }
+
+    private static void collectRanges(Node node, List<int[]> out) {
+        switch (node) {
+            case Chars chars -> out.add(chars.ranges());
+            case Concat concat -> concat.nodes().forEach(n -> collectRanges(n, out));
+            case Alt alt -> alt.nodes().forEach(n -> collectRanges(n, out));
+            case Repeat repeat -> collectRanges(repeat.node(), out);
+            case Empty empty -> {
+            }
+            case Boundary boundary -> {
+            }
+        }
+    }
+
+    // ==================== SYNTAX TREE ====================
+
+    sealed interface Node permits Chars, Concat, Alt, Repeat, Empty, Boundary {}
+
+    /**
+     * Sorted, non-overlapping inclusive ranges as lo0, hi0, lo1, hi1, ...
+     */
+    record Chars(int[] ranges) implements Node {}
+
+    record Concat(List<Node> nodes) implements Node {}
+
+    record Alt(List<Node> nodes) implements Node {}
+
+    /**
+     * max is -1 when unbounded
+     */
+    record Repeat(Node node, int min, int max) implements Node {}
+
+    record Empty() implements Node {}
+
+    record Boundary() implements Node {}
+
+    record Parsed(Node root, boolean boundaryStart, boolean boundaryEnd) {}
+
+    // ==================== PARSER ====================
+
+    static final class Parser {
+
+        private final String pattern;
+        private int pos = 0;
+
+        Parser(String pattern) {
+            this.pattern = pattern;
+        }
+
+        Parsed parse() {
+            Node root = alternation();
+            if (pos < pattern.length()) {
+                throw error("Unexpected ')'");
+            }
+
+            boolean boundaryStart = false;
+            boolean boundaryEnd = false;
+            if (root instanceof Concat concat) {
+                List<Node> nodes = new ArrayList<>(concat.nodes());
+                if (!nodes.isEmpty() && nodes.get(0) instanceof Boundary) {
+                    nodes.remove(0);
+                    boundaryStart = true;
+                }
+                if (!nodes.isEmpty() && nodes.get(nodes.size() - 1) instanceof Boundary) {
+                    nodes.remove(nodes.size() - 1);
+                    boundaryEnd = true;
+                }
+                root = new Concat(nodes);
+            }
+            if (containsBoundary(root)) {
+                throw error("\\b is only supported at the start or end of a pattern");
+            }
+            return new Parsed(root, boundaryStart, boundaryEnd);
+        }
+
+        private Node alternation() {
+            List<Node> options = new ArrayList<>();
+            options.add(concatenation());
+            while (peek('|')) {
+                pos++;
+                options.add(concatenation());
+            }
+            return options.size() == 1 ? options.get(0) : new Alt(options);
+        }
+
+        private Node concatenation() {
+            List<Node> nodes = new ArrayList<>();
+            while (pos < pattern.length() && !peek('|') && !peek(')')) {
+                nodes.add(quantified(atom()));
+            }
+            if (nodes.isEmpty()) {
+                return new Empty();
+            }
+            return nodes.size() == 1 && !(nodes.get(0) instanceof Boundary) ? nodes.get(0) : new Concat(nodes);
+        }
+
+        private Node quantified(Node atom) {
+            while (pos < pattern.length()) {
+                char c = pattern.charAt(pos);
+                if (c == '*') {
+                    pos++;
+                    atom = new Repeat(atom, 0, -1);
+                } else if (c == '+') {
+                    pos++;
+                    atom = new Repeat(atom, 1, -1);
+                } else if (c == '?') {
+                    pos++;
+                    atom = new Repeat(atom, 0, 1);
+                } else if (c == '{' && isCounted()) {
+                    pos++;
+                    int min = number();
+                    int max = min;
+                    if (peek(',')) {
+                        pos++;
+                        max = peek('}') ? -1 : number();
+                    }
+                    expect('}');
+                    if (max != -1 && max < min) {
+                        throw error("Bad repetition range");
+                    }
+                    atom = new Repeat(atom, min, max);
+                } else {
+                    return atom;
+                }
+                if (atom instanceof Repeat repeat && repeat.node() instanceof Boundary) {
+                    throw error("Cannot repeat \\b");
+                }
+            }
+            return atom;
+        }
+
+        private Node atom() {
+            char c = pattern.charAt(pos++);
+            return switch (c) {
+                case '(' -> {
+                    if (pattern.startsWith("?:", pos)) {
+                        pos += 2;
+                    }
+                    Node inner = alternation();
+                    expect(')');
+                    yield inner;
+                }
+                case '[' -> charClass();
+                case '.' -> new Chars(complement(ranges('\n', '\n', '\r', '\r')));
+                case '\\' -> escape(false);
+                case '*', '+', '?' -> throw error("Dangling quantifier");
+                default -> new Chars(ranges(c, c));
+            };
+        }
+
+        private Node escape(boolean inClass) {
+            if (pos >= pattern.length()) {
+                throw error("Trailing backslash");
+            }
+            char c = pattern.charAt(pos++);
+            return switch (c) {
+                case 'd' -> new Chars(DIGIT);
+                case 'D' -> new Chars(complement(DIGIT));
+                case 's' -> new Chars(SPACE);
+                case 'S' -> new Chars(complement(SPACE));
+                case 'w' -> new Chars(WORD);
+                case 'W' -> new Chars(complement(WORD));
+                case 'b' -> {
+                    if (inClass) {
+                        throw error("\\b inside a character class");
+                    }
+                    yield new Boundary();
+                }
+                case 't' -> new Chars(ranges('\t', '\t'));
+                case 'n' -> new Chars(ranges('\n', '\n'));
+                case 'r' -> new Chars(ranges('\r', '\r'));
+                case 'f' -> new Chars(ranges('\f', '\f'));
+                default -> {
+                    if (Character.isLetterOrDigit(c)) {
+                        throw error("Unsupported escape \\" + c);
+                    }
+                    yield new Chars(ranges(c, c));
+                }
+            };
+        }
+
+        private Node charClass() {
+            boolean negated = peek('^');
+            if (negated) {
+                pos++;
+            }
+
+            List<int[]> parts = new ArrayList<>();
+            boolean first = true;
+            while (pos < pattern.length() && (first || !peek(']'))) {
+                first = false;
+                char c = pattern.charAt(pos++);
+                if (c == '\\') {
+                    parts.add(((Chars) escape(true)).ranges());
+                    continue;
+                }
+                if (peek('-') && pos + 1 < pattern.length() && pattern.charAt(pos + 1) != ']') {
+                    pos++;
+                    char hi = pattern.charAt(pos++);
+                    if (hi == '\\') {
+                        throw error("Escaped range end is not supported");
+                    }
+                    if (hi < c) {
+                        throw error("Bad character range");
+                    }
+                    parts.add(ranges(c, hi));
+                } else {
+                    parts.add(ranges(c, c));
+                }
+            }
+            expect(']');
+
+            int[] merged = union(parts);
+            return new Chars(negated ? complement(merged) : merged);
+        }
+
+        private boolean isCounted() {
+            int i = pos + 1;
+            int digits = 0;
+            while (i < pattern.length() && Character.isDigit(pattern.charAt(i))) {
+                i++;
+                digits++;
+            }
+            return digits > 0 && i < pattern.length() && (pattern.charAt(i) == '}' || pattern.charAt(i) == ',');
+        }
+
+        private int number() {
+            int start = pos;
+            while (pos < pattern.length() && Character.isDigit(pattern.charAt(pos))) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("Expected a number");
+            }
+            return Integer.parseInt(pattern.substring(start, pos));
+        }
+
+        private boolean peek(char c) {
+            return pos < pattern.length() && pattern.charAt(pos) == c;
+        }
+
+        private void expect(char c) {
+            if (!peek(c)) {
+                throw error("Expected '" + c + "'");
+            }
+            pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at index " + pos + " in pattern: " + pattern);
+        }
+
+        private static boolean containsBoundary(Node node) {
+            return switch (node) {
+                case Boundary boundary -> true;
+                case Concat concat -> concat.nodes().stream().anyMatch(Parser::containsBoundary);
+                case Alt alt -> alt.nodes().stream().anyMatch(Parser::containsBoundary);
+                case Repeat repeat -> containsBoundary(repeat.node());
+                case Chars chars -> false;
+                case Empty empty -> false;
+            };
+        }
+    }
+
+    // ==================== CHARACTER RANGES ====================
+
+    private static final int[] DIGIT = ranges('0', '9');
+    private static final int[] SPACE = union(List.of(ranges('\t', '\r'), ranges(' ', ' ')));
+    private static final int[] WORD = union(List.of(ranges('0', '9'), ranges('A', 'Z'), ranges('_', '_'), ranges('a', 'z')));
+
+    private static int[] ranges(int... bounds) {
+        return bounds;
+    }
+
+    private static int[] union(List<int[]> parts) {
+        List<int[]> pairs = new ArrayList<>();
+        for (int[] part : parts) {
+            for (int r = 0; r < part.length; r += 2) {
+                pairs.add(new int[]{part[r], part[r + 1]});
+            }
+        }
+        pairs.sort((a, b) -> Integer.compare(a[0], b[0]));
+
+        int[] out = new int[pairs.size() * 2];
+        int n = 0;
+        for (int[] pair : pairs) {
+            if (n > 0 && pair[0] <= out[n - 1] + 1) {
+                out[n - 1] = Math.max(out[n - 1], pair[1]);
+            } else {
+                out[n++] = pair[0];
+                out[n++] = pair[1];
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] complement(int[] ranges) {
+        int[] sorted = union(List.of(ranges));
+        int[] out = new int[sorted.length + 2];
+        int n = 0;
+        int from = 0;
+        for (int r = 0; r < sorted.length; r += 2) {
+            if (sorted[r] > from) {
+                out[n++] = from;
+                out[n++] = sorted[r] - 1;
+            }
+            from = sorted[r + 1] + 1;
+        }
+        if (from <= MAX_CHAR) {
+            out[n++] = from;
+            out[n++] = MAX_CHAR;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static boolean contains(int[] ranges, char c) {
+        for (int r = 0; r < ranges.length; r += 2) {
+            if (c < ranges[r]) {
+                return false;
+            }
+            if (c <= ranges[r + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ==================== NFA ====================
+
+    private static final class Nfa {
+
+        // Per state: consumed ranges (null for epsilon-only states) and their target
+        private final List<int[]> chars = new ArrayList<>();
+        private final List<Integer> charTarget = new ArrayList<>();
+        private final List<List<Integer>> epsilons = new ArrayList<>();
+        private final Map<Integer, Integer> accepting = new HashMap<>();
+
+        int newState() {
+            chars.add(null);
+            charTarget.add(-1);
+            epsilons.add(new ArrayList<>(2));
+            return chars.size() - 1;
+        }
+
+        void epsilon(int from, int to) {
+            epsilons.get(from).add(to);
+        }
+
+        /**
+         * @return {entry, exit}
+         */
+        int[] build(Node node) {
+            int entry = newState();
+            int exit = newState();
+            switch (node) {
+                case Chars c -> {
+                    chars.set(entry, c.ranges());
+                    charTarget.set(entry, exit);
+                }
+                case Empty e -> epsilon(entry, exit);
+                case Boundary b -> epsilon(entry, exit);
+                case Concat concat -> {
+                    int tail = entry;
+                    for (Node part : concat.nodes()) {
+                        int[] fragment = build(part);
+                        epsilon(tail, fragment[0]);
+                        tail = fragment[1];
+                    }
+                    epsilon(tail, exit);
+                }
+                case Alt alt -> {
+                    for (Node option : alt.nodes()) {
+                        int[] fragment = build(option);
+                        epsilon(entry, fragment[0]);
+                        epsilon(fragment[1], exit);
+                    }
+                }
+                case Repeat repeat -> {
+                    int tail = entry;
+                    for (int i = 0; i < repeat.min(); i++) {
+                        int[] fragment = build(repeat.node());
+                        epsilon(tail, fragment[0]);
+                        tail = fragment[1];
+                    }
+                    if (repeat.max() == -1) {
+                        int loop = newState();
+                        epsilon(tail, loop);
+                        int[] fragment = build(repeat.node());
+                        epsilon(loop, fragment[0]);
+                        epsilon(fragment[1], loop);
+                        epsilon(loop, exit);
+                    } else {
+                        for (int i = repeat.min(); i < repeat.max(); i++) {
+                            int[] fragment = build(repeat.node());
+                            epsilon(tail, fragment[0]);
+                            epsilon(tail, exit);
+                            tail = fragment[1];
+                        }
+                        epsilon(tail, exit);
+                    }
+                }
+            }
+            return new int[]{entry, exit};
+        }
+
+        BitSet closure(BitSet states) {
+            BitSet closed = (BitSet) states.clone();
+            int[] stack = states.stream().toArray();
+            int top = stack.length;
+            while (top > 0) {
+                int state = stack[--top];
+                for (int target : epsilons.get(state)) {
+                    if (!closed.get(target)) {
+                        closed.set(target);
+                        if (top == stack.length) {
+                            stack = Arrays.copyOf(stack, stack.length * 2 + 1);
+                        }
+                        stack[top++] = target;
+                    }
+                }
+            }
+            return closed;
+        }
+
+        BitSet move(BitSet states, char c) {
+            BitSet moved = new BitSet();
+            for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+                int[] ranges = chars.get(s);
+                if (ranges != null && contains(ranges, c)) {
+                    moved.set(charTarget.get(s));
+                }
+            }
+            return moved;
+        }
+    }
+}
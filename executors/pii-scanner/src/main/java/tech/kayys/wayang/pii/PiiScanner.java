@@ -0,0 +1,211 @@
+package tech.kayys.wayang.pii;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds and redacts PII for many patterns in one pass over the text.
+ *
+ * All patterns are compiled into a single DFA, so the work per character is
+ * one table lookup however many patterns there are. At each position the
+ * DFA's first transition acts as the prefilter: positions that cannot start
+ * any pattern are rejected with one lookup. From a viable position the DFA
+ * runs until it dies and the longest match wins, earlier patterns breaking
+ * ties; scanning resumes after the match, so matches never overlap.
+ *
+ * Instances are immutable and thread-safe.
+ */
+public final class PiiScanner {
+
+    private final List<String> types;
+    private final List<String> replacements;
+    private final PatternCompiler.Dfa dfa;
+
+    private PiiScanner(List<String> types, List<String> regexes, List<String> replacements) {
+        this.types = List.copyOf(types);
+        this.replacements = List.copyOf(replacements);
+        this.dfa = PatternCompiler.compile(regexes);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * A PII occurrence; end is exclusive
+     */
+    public record Match(String type, int start, int end) {}
+
+    /**
+     * Every non-overlapping match, left to right
+     */
+    public List<Match> scan(CharSequence text) {
+        List<Match> matches = new ArrayList<>();
+        int[] found = new int[2];
+        int from = 0;
+        int pattern;
+        while ((pattern = find(text, from, found)) >= 0) {
+            matches.add(new Match(types.get(pattern), found[0], found[1]));
+            from = found[1];
+        }
+        return matches;
+    }
+
+    /**
+     * Distinct types present, in pattern declaration order
+     */
+    public Set<String> detectTypes(CharSequence text) {
+        boolean[] seen = new boolean[types.size()];
+        int[] found = new int[2];
+        int from = 0;
+        int pattern;
+        while ((pattern = find(text, from, found)) >= 0) {
+            seen[pattern] = true;
+            from = found[1];
+        }
+
+        Set<String> detected = new LinkedHashSet<>();
+        for (int p = 0; p < seen.length; p++) {
+            if (seen[p]) {
+                detected.add(types.get(p));
+            }
+        }
+        return detected;
+    }
+
+    public boolean containsPii(CharSequence text) {
+        return find(text, 0, new int[2]) >= 0;
+    }
+
+    /**
+     * Replace every match with its pattern's replacement. Text without PII is
+     * returned as is; otherwise the result is built in one buffer.
+     */
+    public String redact(String text) {
+        StringBuilder out = null;
+        int[] found = new int[2];
+        int from = 0;
+        int copied = 0;
+        int pattern;
+        while ((pattern = find(text, from, found)) >= 0) {
+            if (out == null) {
+                out = new StringBuilder(text.length());
+            }
+            out.append(text, copied, found[0]).append(replacements.get(pattern));
+            copied = found[1];
+            from = found[1];
+        }
+        if (out == null) {
+            return text;
+        }
+        return out.append(text, copied, text.length()).toString();
+    }
+
+    /**
+     * Find the next match at or after from
+     *
+     * @param found Receives start and end of the match
+     * @return Matching pattern index, or -1 when there is none
+     */
+    private int find(CharSequence text, int from, int[] found) {
+        int length = text.length();
+        short[] classOf = dfa.classOf();
+        int classes = dfa.classes();
+        int[] next = dfa.next();
+
+        for (int start = from; start < length; start++) {
+            int state = isBoundary(text, start) ? dfa.startAtBoundary() : dfa.startInsideWord();
+
+            // Prefilter: nothing can start here
+            state = next[state * classes + classOf[text.charAt(start)]];
+            if (state < 0) {
+                continue;
+            }
+
+            int bestEnd = -1;
+            int bestPattern = -1;
+            for (int position = start + 1; ; position++) {
+                int pattern = accepted(text, state, position);
+                if (pattern >= 0) {
+                    bestEnd = position;
+                    bestPattern = pattern;
+                }
+                if (position == length) {
+                    break;
+                }
+                state = next[state * classes + classOf[text.charAt(position)]];
+                if (state < 0) {
+                    break;
+                }
+            }
+
+            if (bestPattern >= 0) {
+                found[0] = start;
+                found[1] = bestEnd;
+                return bestPattern;
+            }
+        }
+        return -1;
+    }
+
+    private int accepted(CharSequence text, int state, int position) {
+        int[] accepting = dfa.accepts()[state];
+        if (accepting == null) {
+            return -1;
+        }
+        for (int pattern : accepting) {
+            if (!dfa.boundaryEnd()[pattern] || isBoundary(text, position)) {
+                return pattern;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Same word boundary as java.util.regex \b, which since JDK 19 only
+     * counts ASCII [A-Za-z0-9_] as word characters, so PII written next to
+     * non-Latin text is still found
+     */
+    private static boolean isBoundary(CharSequence text, int position) {
+        boolean before = position > 0 && isWordChar(text.charAt(position - 1));
+        boolean after = position < text.length() && isWordChar(text.charAt(position));
+        return before != after;
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    public static final class Builder {
+
+        private final List<String> types = new ArrayList<>();
+        private final List<String> regexes = new ArrayList<>();
+        private final List<String> replacements = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Add a pattern; earlier patterns win ties between equally long matches
+         *
+         * @param type        Reported type of its matches
+         * @param regex       Pattern in the supported regex subset
+         * @param replacement Text substituted by {@link #redact}
+         */
+        public Builder pattern(String type, String regex, String replacement) {
+            types.add(type);
+            regexes.add(regex);
+            replacements.add(replacement);
+            return this;
+        }
+
+        public PiiScanner build() {
+            if (types.isEmpty()) {
+                throw new IllegalStateException("No patterns");
+            }
+            return new PiiScanner(types, regexes, replacements);
+        }
+    }
+}
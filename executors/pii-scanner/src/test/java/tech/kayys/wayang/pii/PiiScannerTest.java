@@ -0,0 +1,115 @@
+package tech.kayys.wayang.pii;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PiiScannerTest {
+
+    private static final String SSN = "\\b\\d{3}-\\d{2}-\\d{4}\\b";
+    private static final String EMAIL = "\\b[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Z|a-z]{2,}\\b";
+    private static final String PHONE = "\\b\\d{3}[-.\\s]?\\d{3}[-.\\s]?\\d{4}\\b";
+    private static final String CARD = "\\b\\d{4}[-.\\s]?\\d{4}[-.\\s]?\\d{4}[-.\\s]?\\d{4}\\b";
+    private static final String IP = "\\b\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\b";
+
+    private final PiiScanner scanner = PiiScanner.builder()
+        .pattern("ssn", SSN, "XXX-XX-XXXX")
+        .pattern("email", EMAIL, "[EMAIL REDACTED]")
+        .pattern("phone", PHONE, "XXX-XXX-XXXX")
+        .pattern("credit_card", CARD, "XXXX-XXXX-XXXX-XXXX")
+        .pattern("ip_address", IP, "[IP REDACTED]")
+        .build();
+
+    @Test
+    void testDetectsAllTypesInOnePass() {
+        // Given
+        String text = "Mail jane.doe+x@example.co.uk or call 555-123-4567. "
+            + "SSN 123-45-6789, card 4111 1111 1111 1111, host 10.0.0.12";
+
+        // When
+        List<PiiScanner.Match> matches = scanner.scan(text);
+
+        // Then
+        assertEquals(List.of("email", "phone", "ssn", "credit_card", "ip_address"),
+            matches.stream().map(PiiScanner.Match::type).toList());
+        assertEquals("jane.doe+x@example.co.uk",
+            text.substring(matches.get(0).start(), matches.get(0).end()));
+        assertEquals(Set.of("ssn", "email", "phone", "credit_card", "ip_address"), scanner.detectTypes(text));
+    }
+
+    @Test
+    void testRedactsInPlaceOfMatches() {
+        String redacted = scanner.redact("ssn 123-45-6789 and mail a@b.io!");
+
+        assertEquals("ssn XXX-XX-XXXX and mail [EMAIL REDACTED]!", redacted);
+    }
+
+    @Test
+    void testReturnsSameStringWithoutPii() {
+        String clean = "nothing to see here, 12 apples";
+
+        assertSame(clean, scanner.redact(clean));
+        assertFalse(scanner.containsPii(clean));
+    }
+
+    @Test
+    void testRespectsWordBoundaries() {
+        assertTrue(scanner.scan("id123-45-6789").isEmpty());
+        assertTrue(scanner.scan("12345678901234").isEmpty());
+    }
+
+    @Test
+    void testFindsPiiNextToNonLatinText() {
+        assertEquals(List.of("phone"), scanner.scan("電話555-123-4567").stream().map(PiiScanner.Match::type).toList());
+        assertEquals(List.of("ssn"), scanner.scan("番号123-45-6789です").stream().map(PiiScanner.Match::type).toList());
+    }
+
+    @Test
+    void testMatchesJavaRegexPerPattern() {
+        Random random = new Random(7);
+        // Non-ASCII letters and digits are not word characters for \b
+        String alphabet = "0123456789-. @abcXYZ_|電話é٣";
+
+        for (String regex : List.of(SSN, EMAIL, PHONE, CARD, IP)) {
+            PiiScanner single = PiiScanner.builder().pattern("p", regex, "").build();
+            Pattern pattern = Pattern.compile(regex);
+
+            for (int i = 0; i < 2000; i++) {
+                StringBuilder text = new StringBuilder();
+                int length = random.nextInt(40);
+                for (int c = 0; c < length; c++) {
+                    text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+
+                List<int[]> expected = new ArrayList<>();
+                Matcher matcher = pattern.matcher(text);
+                while (matcher.find()) {
+                    expected.add(new int[]{matcher.start(), matcher.end()});
+                }
+                List<int[]> actual = single.scan(text).stream()
+                    .map(m -> new int[]{m.start(), m.end()})
+                    .toList();
+
+                assertEquals(expected.size(), actual.size(), regex + " on '" + text + "'");
+                for (int m = 0; m < expected.size(); m++) {
+                    assertArrayEquals(expected.get(m), actual.get(m), regex + " on '" + text + "'");
+                }
+            }
+        }
+    }
+
+    @Test
+    void testRejectsUnsupportedSyntax() {
+        assertThrows(IllegalArgumentException.class,
+            () -> PiiScanner.builder().pattern("p", "a\\bb", "").build());
+        assertThrows(IllegalArgumentException.class,
+            () -> PiiScanner.builder().pattern("p", "(a", "").build());
+    }
+}
@@ -0,0 +1,188 @@
+package tech.kayys.silat.executor.rag.langchain;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.kayys.silat.executor.rag.domain.RetrievalConfig;
+
+import java.util.*;
+
+/**
+ * Narrows retrieved candidates down to the chunks worth putting in the prompt.
+ *
+ * Applied in order, each only when its {@link RetrievalConfig} flag is set:
+ * deduplication (identical text, or embeddings at cosine >= 0.98), reranking
+ * through the configured {@link Reranker}, and Maximal Marginal Relevance,
+ * which picks each next chunk by relevance minus its highest similarity to
+ * the chunks already picked. MMR works on the embeddings the store returned
+ * with the matches; chunks without one are treated as unrelated to the rest.
+ */
+@ApplicationScoped
+public class ChunkSelector {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChunkSelector.class);
+
+    // Candidates fetched per returned chunk when a selection stage is enabled
+    static final int FETCH_MULTIPLIER = 4;
+    static final int MAX_EXTRA_CANDIDATES = 100;
+
+    static final double DUPLICATE_SIMILARITY = 0.98;
+    static final double DEFAULT_MMR_LAMBDA = 0.5;
+
+    @Inject
+    Instance<Reranker> rerankers;
+
+    @Inject
+    LexicalReranker localReranker;
+
+    /**
+     * How many candidates to fetch from the store for the config
+     */
+    public int fetchSize(RetrievalConfig config) {
+        int topK = Math.max(1, config.topK());
+        if (!config.enableReranking() && !config.enableMmr() && !config.enableDeduplication()) {
+            return topK;
+        }
+        return Math.min(topK * FETCH_MULTIPLIER, topK + MAX_EXTRA_CANDIDATES);
+    }
+
+    /**
+     * @param candidates Store matches, best first
+     * @return At most topK chunks, in prompt order
+     */
+    public List<EmbeddingMatch<TextSegment>> select(
+            String query,
+            List<EmbeddingMatch<TextSegment>> candidates,
+            RetrievalConfig config) {
+
+        int topK = Math.max(1, config.topK());
+        List<EmbeddingMatch<TextSegment>> selected = candidates;
+
+        if (config.enableDeduplication()) {
+            selected = deduplicate(selected);
+        }
+        if (config.enableReranking() && selected.size() > 1) {
+            selected = reranker(config).rerank(query, selected);
+        }
+        if (config.enableMmr() && selected.size() > topK) {
+            selected = mmr(selected, mmrLambda(config), topK);
+        } else if (selected.size() > topK) {
+            selected = selected.subList(0, topK);
+        }
+
+        LOG.debug("Selected {} of {} retrieved chunks", selected.size(), candidates.size());
+        return selected;
+    }
+
+    private Reranker reranker(RetrievalConfig config) {
+        if (rerankers != null) {
+            for (Reranker reranker : rerankers) {
+                if (reranker.supports(config.rerankingModel())) {
+                    return reranker;
+                }
+            }
+        }
+        LOG.debug("No reranker for {}, using the local lexical reranker", config.rerankingModel());
+        return localReranker != null ? localReranker : new LexicalReranker();
+    }
+
+    /**
+     * mmrLambda is configured in percent; 0 means unset
+     */
+    private static double mmrLambda(RetrievalConfig config) {
+        int percent = config.mmrLambda();
+        return percent <= 0 ? DEFAULT_MMR_LAMBDA : Math.min(100, percent) / 100.0;
+    }
+
+    static List<EmbeddingMatch<TextSegment>> deduplicate(List<EmbeddingMatch<TextSegment>> candidates) {
+        List<EmbeddingMatch<TextSegment>> kept = new ArrayList<>(candidates.size());
+        List<float[]> keptVectors = new ArrayList<>(candidates.size());
+        Set<String> texts = new HashSet<>();
+
+        for (EmbeddingMatch<TextSegment> candidate : candidates) {
+            if (!texts.add(SimilarityMath.normalizeText(candidate.embedded().text()))) {
+                continue;
+            }
+            float[] vector = SimilarityMath.unitVector(vectorOf(candidate.embedding()));
+            boolean duplicate = false;
+            if (vector != null) {
+                for (float[] other : keptVectors) {
+                    if (other != null && other.length == vector.length && SimilarityMath.dot(vector, other) >= DUPLICATE_SIMILARITY) {
+                        duplicate = true;
+                        break;
+                    }
+                }
+            }
+            if (!duplicate) {
+                kept.add(candidate);
+                keptVectors.add(vector);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Greedy MMR: argmax of lambda * relevance - (1 - lambda) * max similarity to the picked set
+     */
+    static List<EmbeddingMatch<TextSegment>> mmr(List<EmbeddingMatch<TextSegment>> candidates, double lambda, int k) {
+        int n = candidates.size();
+
+        // Relevance is the candidate score rescaled to [0, 1] so it is comparable with cosine
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (EmbeddingMatch<TextSegment> candidate : candidates) {
+            double score = candidate.score() == null ? 0 : candidate.score();
+            min = Math.min(min, score);
+            max = Math.max(max, score);
+        }
+        double[] relevance = new double[n];
+        float[][] vectors = new float[n][];
+        for (int i = 0; i < n; i++) {
+            double score = candidates.get(i).score() == null ? 0 : candidates.get(i).score();
+            relevance[i] = max > min ? (score - min) / (max - min) : 1.0;
+            vectors[i] = SimilarityMath.unitVector(vectorOf(candidates.get(i).embedding()));
+        }
+
+        // Highest similarity of each candidate to anything picked so far, updated incrementally
+        double[] redundancy = new double[n];
+        boolean[] picked = new boolean[n];
+        List<EmbeddingMatch<TextSegment>> selected = new ArrayList<>(Math.min(k, n));
+
+        while (selected.size() < Math.min(k, n)) {
+            int best = -1;
+            double bestValue = -Double.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                if (picked[i]) {
+                    continue;
+                }
+                double value = lambda * relevance[i] - (1 - lambda) * redundancy[i];
+                if (value > bestValue) {
+                    best = i;
+                    bestValue = value;
+                }
+            }
+
+            picked[best] = true;
+            selected.add(candidates.get(best));
+
+            float[] chosen = vectors[best];
+            if (chosen != null) {
+                for (int i = 0; i < n; i++) {
+                    if (!picked[i] && vectors[i] != null && vectors[i].length == chosen.length) {
+                        redundancy[i] = Math.max(redundancy[i], SimilarityMath.dot(vectors[i], chosen));
+                    }
+                }
+            }
+        }
+        return selected;
+    }
+
+    private static float[] vectorOf(Embedding embedding) {
+        return embedding == null ? null : embedding.vector();
+    }
+}
@@ -2,34 +2,58 @@ package tech.kayys.silat.executor.rag.examples;
 
 import dev.langchain4j.data.document.Document;
 import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.parser.TextDocumentParser;
 import dev.langchain4j.data.document.parser.apache.pdfbox.ApachePdfBoxDocumentParser;
 import dev.langchain4j.data.document.splitter.DocumentSplitters;
 import dev.langchain4j.data.document.loader.FileSystemDocumentLoader;
+import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.store.embedding.EmbeddingStore;
-import dev.langchain4j.store.embedding.EmbeddingStoreIngestor;
 
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import tech.kayys.silat.client.SilatClient;
 import tech.kayys.silat.executor.rag.domain.*;
 import tech.kayys.silat.executor.rag.langchain.*;
+import tech.kayys.wayang.agent.runtime.BlockingExecutor;
 
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Service for ingesting documents into the vector store using LangChain4j
+ *
+ * Ingestion runs as a staged pipeline, parse -> split -> embed -> store, on
+ * a dedicated worker pool. Each stage has its own parallelism and only
+ * requests as many items from the previous stage as it has free slots, so
+ * the hand-off between stages is a bounded queue and a slow stage (usually
+ * embedding) backpressures parsing instead of letting parsed documents pile
+ * up in memory. Segments are embedded and stored in batches. A document that
+ * fails to parse is counted and skipped; embedding or store failures fail
+ * the ingestion. In the BlockingExecutor's virtual-thread mode the stages
+ * run on virtual threads instead, still bounded by their parallelism.
  */
 @ApplicationScoped
 public class DocumentIngestionService {
 
     private static final Logger LOG = LoggerFactory.getLogger(DocumentIngestionService.class);
 
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+
     @Inject
     LangChain4jModelFactory modelFactory;
 
@@ -39,6 +63,38 @@ public class DocumentIngestionService {
     @Inject
     LangChain4jConfig config;
 
+    @Inject
+    SemanticAnswerCache answerCache;
+
+    @Inject
+    BlockingExecutor blockingExecutor;
+
+    // Per-stage parallelism; 0 for parse and split means one per core
+    @ConfigProperty(name = "silat.rag.ingest.parse-concurrency", defaultValue = "0")
+    int parseConcurrency;
+
+    @ConfigProperty(name = "silat.rag.ingest.split-concurrency", defaultValue = "0")
+    int splitConcurrency;
+
+    @ConfigProperty(name = "silat.rag.ingest.embed-concurrency", defaultValue = "4")
+    int embedConcurrency;
+
+    @ConfigProperty(name = "silat.rag.ingest.store-concurrency", defaultValue = "2")
+    int storeConcurrency;
+
+    // Segments per embedding call and store write
+    @ConfigProperty(name = "silat.rag.ingest.batch-size", defaultValue = "64")
+    int batchSize;
+
+    private volatile ExecutorService workers;
+
+    @PreDestroy
+    void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
     /**
      * Ingest PDF documents into vector store
      */
@@ -49,184 +105,307 @@ public class DocumentIngestionService {
 
         LOG.info("Ingesting {} PDF documents for tenant: {}", pdfPaths.size(), tenantId);
 
-        return Uni.createFrom().item(() -> {
-            long startTime = System.currentTimeMillis();
-
-            // 1. Load documents
-            ApachePdfBoxDocumentParser parser = new ApachePdfBoxDocumentParser();
-            List<Document> documents = new ArrayList<>();
-
-            for (Path path : pdfPaths) {
-                Document doc = FileSystemDocumentLoader.loadDocument(path, parser);
+        DocumentSplitter splitter = DocumentSplitters.recursive(
+            512,  // maxChunkSize
+            50    // maxOverlapSize
+        );
 
-                // Add metadata
-                doc.metadata().put("tenantId", tenantId);
-                doc.metadata().put("source", path.getFileName().toString());
-                doc.metadata().put("collection", metadata.getOrDefault("collection", "default"));
-                metadata.forEach((k, v) -> doc.metadata().put(k, v));
+        List<IngestJob> jobs = pdfPaths.stream()
+            .map(path -> new IngestJob(path.toString(), () -> loadPdf(tenantId, path, metadata), splitter))
+            .toList();
 
-                documents.add(doc);
-            }
+        return ingest(tenantId, jobs, null, "Successfully ingested documents");
+    }
 
-            // 2. Split documents into chunks
-            DocumentSplitter splitter = DocumentSplitters.recursive(
-                512,  // maxChunkSize
-                50    // maxOverlapSize
-            );
+    /**
+     * Ingest text documents with custom chunking
+     */
+    public Uni<IngestResult> ingestTextDocuments(
+            String tenantId,
+            List<String> texts,
+            Map<String, String> metadata,
+            ChunkingConfig chunkingConfig) {
 
-            List<TextSegment> segments = new ArrayList<>();
-            for (Document doc : documents) {
-                segments.addAll(splitter.split(doc));
-            }
+        LOG.info("Ingesting {} text documents for tenant: {}", texts.size(), tenantId);
 
-            LOG.info("Split {} documents into {} segments", documents.size(), segments.size());
+        DocumentSplitter splitter = createSplitter(chunkingConfig);
 
-            // 3. Get embedding store and model
-            EmbeddingStore<TextSegment> embeddingStore =
-                storeFactory.getStore(tenantId, RetrievalConfig.defaults());
+        List<IngestJob> jobs = texts.stream()
+            .map(text -> new IngestJob("text", () -> textDocument(tenantId, text, metadata), splitter))
+            .toList();
 
-            EmbeddingModel embeddingModel =
-                modelFactory.createEmbeddingModel(tenantId, "text-embedding-3-small");
+        return ingest(tenantId, jobs, null, "Successfully ingested text documents");
+    }
 
-            // 4. Ingest segments
-            EmbeddingStoreIngestor ingestor = EmbeddingStoreIngestor.builder()
-                .embeddingStore(embeddingStore)
-                .embeddingModel(embeddingModel)
-                .build();
+    /**
+     * Batch ingest from multiple sources
+     */
+    public Uni<IngestResult> batchIngest(
+            String tenantId,
+            List<DocumentSource> sources) {
+        return batchIngest(tenantId, sources, null);
+    }
 
-            ingestor.ingest(segments);
+    /**
+     * Batch ingest from multiple sources through one pipeline, reporting progress
+     *
+     * @param progressListener Called from worker threads as stages complete work, may be null
+     */
+    public Uni<IngestResult> batchIngest(
+            String tenantId,
+            List<DocumentSource> sources,
+            Consumer<IngestProgress> progressListener) {
 
-            long duration = System.currentTimeMillis() - startTime;
+        LOG.info("Batch ingesting {} sources for tenant: {}", sources.size(), tenantId);
 
-            LOG.info("Successfully ingested {} segments in {}ms", segments.size(), duration);
+        DocumentSplitter pdfSplitter = DocumentSplitters.recursive(512, 50);
+        DocumentSplitter textSplitter = createSplitter(ChunkingConfig.defaults());
+
+        List<IngestJob> jobs = new ArrayList<>();
+        for (DocumentSource source : sources) {
+            switch (source.type()) {
+                case PDF -> jobs.add(new IngestJob(source.path(),
+                    () -> loadPdf(tenantId, Path.of(source.path()), source.metadata()), pdfSplitter));
+                case TEXT, MARKDOWN, HTML -> jobs.add(new IngestJob(
+                    source.path() != null ? source.path() : "text",
+                    () -> source.content() != null
+                        ? textDocument(tenantId, source.content(), source.metadata())
+                        : loadText(tenantId, Path.of(source.path()), source.metadata()),
+                    textSplitter));
+                // TODO: Implement URL scraping and ingestion
+                case URL -> LOG.warn("URL ingestion not implemented yet, skipping: {}", source.path());
+            }
+        }
 
-            return new IngestResult(
-                true,
-                documents.size(),
-                segments.size(),
-                duration,
-                "Successfully ingested documents"
-            );
-        });
+        return ingest(tenantId, jobs, progressListener, "Batch ingestion completed");
     }
 
+    // ==================== PIPELINE ====================
+
     /**
-     * Ingest text documents with custom chunking
+     * One document to ingest: how to load it and how to split it
      */
-    public Uni<IngestResult> ingestTextDocuments(
-            String tenantId,
-            List<String> texts,
-            Map<String, String> metadata,
-            ChunkingConfig chunkingConfig) {
+    private record IngestJob(String name, Supplier<Document> loader, DocumentSplitter splitter) {}
 
-        LOG.info("Ingesting {} text documents for tenant: {}", texts.size(), tenantId);
+    private record Parsed(Document document, DocumentSplitter splitter) {}
 
-        return Uni.createFrom().item(() -> {
-            long startTime = System.currentTimeMillis();
-
-            // 1. Create documents
-            List<Document> documents = texts.stream()
-                .map(text -> {
-                    Document doc = Document.from(text);
-                    doc.metadata().put("tenantId", tenantId);
-                    metadata.forEach((k, v) -> doc.metadata().put(k, v));
-                    return doc;
-                })
-                .toList();
-
-            // 2. Create splitter based on strategy
-            DocumentSplitter splitter = createSplitter(chunkingConfig);
-
-            List<TextSegment> segments = new ArrayList<>();
-            for (Document doc : documents) {
-                segments.addAll(splitter.split(doc));
-            }
+    private Uni<IngestResult> ingest(
+            String tenantId,
+            List<IngestJob> jobs,
+            Consumer<IngestProgress> progressListener,
+            String message) {
+
+        return Uni.createFrom().deferred(() -> {
+            Progress progress = new Progress(jobs.size(), progressListener);
+            Executor pool = blockingExecutor.isVirtual() ? blockingExecutor.executor() : workers();
 
-            // 3. Ingest
             EmbeddingStore<TextSegment> embeddingStore =
                 storeFactory.getStore(tenantId, RetrievalConfig.defaults());
 
             EmbeddingModel embeddingModel =
                 modelFactory.createEmbeddingModel(tenantId, "text-embedding-3-small");
 
-            EmbeddingStoreIngestor ingestor = EmbeddingStoreIngestor.builder()
-                .embeddingStore(embeddingStore)
-                .embeddingModel(embeddingModel)
-                .build();
-
-            ingestor.ingest(segments);
+            return Multi.createFrom().iterable(jobs)
+                // 1. Parse
+                .onItem().transformToUni(job -> offload(pool, "parse", () -> parse(job, progress)))
+                .merge(concurrency(parseConcurrency, CORES))
+                .select().where(Objects::nonNull)
+                // 2. Split
+                .onItem().transformToUni(parsed -> offload(pool, "split", () -> {
+                    List<TextSegment> segments = parsed.splitter().split(parsed.document());
+                    progress.split(segments.size());
+                    return segments;
+                }))
+                .merge(concurrency(splitConcurrency, CORES))
+                .onItem().transformToMultiAndConcatenate(segments -> Multi.createFrom().iterable(segments))
+                .group().intoLists().of(Math.max(1, batchSize))
+                // 3. Embed
+                .onItem().transformToUni(batch -> offload(pool, "embed", () -> {
+                    List<Embedding> embeddings = embeddingModel.embedAll(batch).content();
+                    progress.embedded(batch.size());
+                    return new EmbeddedBatch(batch, embeddings);
+                }))
+                .merge(concurrency(embedConcurrency, 4))
+                // 4. Store
+                .onItem().transformToUni(batch -> offload(pool, "store", () -> {
+                    embeddingStore.addAll(batch.embeddings(), batch.segments());
+                    // Cached answers may now be missing this content
+                    answerCache.invalidate(tenantId, collectionsOf(batch.segments()));
+                    progress.stored(batch.segments().size());
+                    return batch.segments().size();
+                }))
+                .merge(concurrency(storeConcurrency, 2))
+                .collect().with(Collectors.summingInt(Integer::intValue))
+                .onItem().transform(stored -> {
+                    IngestProgress done = progress.snapshot();
+                    LOG.info("Ingested {} documents ({} failed) as {} segments in {}ms",
+                        done.documentsParsed(), done.documentsFailed(), stored, done.elapsedMs());
+
+                    return new IngestResult(
+                        done.documentsFailed() == 0,
+                        done.documentsParsed(),
+                        stored,
+                        done.elapsedMs(),
+                        done.documentsFailed() == 0
+                            ? message
+                            : message + " (" + done.documentsFailed() + " documents failed)"
+                    );
+                });
+        });
+    }
 
-            long duration = System.currentTimeMillis() - startTime;
+    private record EmbeddedBatch(List<TextSegment> segments, List<Embedding> embeddings) {}
+
+    private Parsed parse(IngestJob job, Progress progress) {
+        try {
+            Document document = job.loader().get();
+            progress.parsed();
+            return new Parsed(document, job.splitter());
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to parse {}: {}", job.name(), e.getMessage());
+            progress.failed();
+            return null;
+        }
+    }
 
-            return new IngestResult(
-                true,
-                documents.size(),
-                segments.size(),
-                duration,
-                "Successfully ingested text documents"
-            );
-        });
+    private static Set<String> collectionsOf(List<TextSegment> segments) {
+        Set<String> collections = new HashSet<>();
+        for (TextSegment segment : segments) {
+            Object collection = segment.metadata().toMap().get("collection");
+            collections.add(collection != null ? collection.toString() : "default");
+        }
+        return collections;
     }
 
     /**
-     * Batch ingest from multiple sources
+     * Run a stage's blocking work on the pool, or on its own virtual thread
+     * when the blocking executor is in virtual-thread mode
      */
-    public Uni<IngestResult> batchIngest(
-            String tenantId,
-            List<DocumentSource> sources) {
+    private <T> Uni<T> offload(Executor pool, String stage, Supplier<T> work) {
+        if (blockingExecutor.isVirtual()) {
+            return blockingExecutor.call("ingest-" + stage, work);
+        }
+        return Uni.createFrom().item(work).runSubscriptionOn(pool);
+    }
 
-        LOG.info("Batch ingesting {} sources for tenant: {}", sources.size(), tenantId);
+    private static int concurrency(int configured, int fallback) {
+        return configured > 0 ? configured : fallback;
+    }
 
-        List<Uni<IngestResult>> unis = sources.stream()
-            .map(source -> {
-                return switch (source.type()) {
-                    case PDF -> ingestPdfDocuments(
-                        tenantId,
-                        List.of(Path.of(source.path())),
-                        source.metadata()
-                    );
-                    case TEXT -> ingestTextDocuments(
-                        tenantId,
-                        List.of(source.content()),
-                        source.metadata(),
-                        ChunkingConfig.defaults()
-                    );
-                    case URL -> ingestFromUrl(tenantId, source.path(), source.metadata());
-                };
-            })
-            .toList();
+    private ExecutorService workers() {
+        ExecutorService pool = workers;
+        if (pool == null) {
+            synchronized (this) {
+                pool = workers;
+                if (pool == null) {
+                    // Enough threads for every stage to run at full parallelism at once
+                    int threads = concurrency(parseConcurrency, CORES) + concurrency(splitConcurrency, CORES)
+                        + concurrency(embedConcurrency, 4) + concurrency(storeConcurrency, 2);
+                    AtomicInteger counter = new AtomicInteger();
+                    pool = Executors.newFixedThreadPool(threads, runnable -> {
+                        Thread thread = new Thread(runnable, "rag-ingest-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    workers = pool;
+                }
+            }
+        }
+        return pool;
+    }
 
-        return Uni.combine().all().unis(unis).combinedWith(results -> {
-            int totalDocs = 0;
-            int totalSegments = 0;
-            long totalDuration = 0;
+    private static Document loadPdf(String tenantId, Path path, Map<String, String> metadata) {
+        // PDFBox parsers are not shared across threads
+        Document doc = FileSystemDocumentLoader.loadDocument(path, new ApachePdfBoxDocumentParser());
 
-            for (Object result : results) {
-                IngestResult r = (IngestResult) result;
-                totalDocs += r.documentsIngested();
-                totalSegments += r.segmentsCreated();
-                totalDuration += r.durationMs();
-            }
+        // Add metadata
+        doc.metadata().put("tenantId", tenantId);
+        doc.metadata().put("source", path.getFileName().toString());
+        doc.metadata().put("collection", metadata.getOrDefault("collection", "default"));
+        metadata.forEach((k, v) -> doc.metadata().put(k, v));
 
-            return new IngestResult(
-                true,
-                totalDocs,
-                totalSegments,
-                totalDuration,
-                "Batch ingestion completed"
-            );
-        });
+        return doc;
     }
 
-    private Uni<IngestResult> ingestFromUrl(
-            String tenantId,
-            String url,
-            Map<String, String> metadata) {
+    private static Document loadText(String tenantId, Path path, Map<String, String> metadata) {
+        Document doc = FileSystemDocumentLoader.loadDocument(path, new TextDocumentParser());
+        doc.metadata().put("tenantId", tenantId);
+        doc.metadata().put("source", path.getFileName().toString());
+        metadata.forEach((k, v) -> doc.metadata().put(k, v));
+        return doc;
+    }
 
-        // TODO: Implement URL scraping and ingestion
-        return Uni.createFrom().item(new IngestResult(
-            true, 0, 0, 0, "URL ingestion not implemented yet"
-        ));
+    private static Document textDocument(String tenantId, String text, Map<String, String> metadata) {
+        Document doc = Document.from(text);
+        doc.metadata().put("tenantId", tenantId);
+        metadata.forEach((k, v) -> doc.metadata().put(k, v));
+        return doc;
+    }
+
+    /**
+     * Stage counters shared by the pipeline's worker threads
+     */
+    private static final class Progress {
+
+        private final int documentsTotal;
+        private final Consumer<IngestProgress> listener;
+        private final long startTime = System.currentTimeMillis();
+
+        private final AtomicInteger documentsParsed = new AtomicInteger();
+        private final AtomicInteger documentsFailed = new AtomicInteger();
+        private final AtomicInteger segmentsSplit = new AtomicInteger();
+        private final AtomicInteger segmentsEmbedded = new AtomicInteger();
+        private final AtomicInteger segmentsStored = new AtomicInteger();
+
+        private Progress(int documentsTotal, Consumer<IngestProgress> listener) {
+            this.documentsTotal = documentsTotal;
+            this.listener = listener;
+        }
+
+        void parsed() {
+            documentsParsed.incrementAndGet();
+            report();
+        }
+
+        void failed() {
+            documentsFailed.incrementAndGet();
+            report();
+        }
+
+        void split(int segments) {
+            segmentsSplit.addAndGet(segments);
+        }
+
+        void embedded(int segments) {
+            segmentsEmbedded.addAndGet(segments);
+            report();
+        }
+
+        void stored(int segments) {
+            segmentsStored.addAndGet(segments);
+            report();
+        }
+
+        IngestProgress snapshot() {
+            return new IngestProgress(
+                documentsTotal,
+                documentsParsed.get(),
+                documentsFailed.get(),
+                segmentsSplit.get(),
+                segmentsEmbedded.get(),
+                segmentsStored.get(),
+                System.currentTimeMillis() - startTime);
+        }
+
+        private void report() {
+            if (listener != null) {
+                try {
+                    listener.accept(snapshot());
+                } catch (RuntimeException e) {
+                    LOG.warn("Ingest progress listener failed", e);
+                }
+            }
+        }
     }
 
     private DocumentSplitter createSplitter(ChunkingConfig config) {
@@ -0,0 +1,14 @@
+package tech.kayys.silat.executor.rag.examples;
+
+/**
+ * Snapshot of a running ingestion, reported as stages complete work
+ */
+public record IngestProgress(
+    int documentsTotal,
+    int documentsParsed,
+    int documentsFailed,
+    int segmentsSplit,
+    int segmentsEmbedded,
+    int segmentsStored,
+    long elapsedMs
+) {}
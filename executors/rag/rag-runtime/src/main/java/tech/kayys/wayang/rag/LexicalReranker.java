@@ -0,0 +1,151 @@
+package tech.kayys.silat.executor.rag.langchain;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import jakarta.enterprise.context.ApplicationScoped;
+import tech.kayys.silat.executor.rag.domain.RerankingModel;
+
+import java.util.*;
+
+/**
+ * Local reranker needing no model or network call.
+ *
+ * Like a cross-encoder it scores each (query, chunk) pair jointly rather
+ * than comparing precomputed vectors: BM25 over the candidate pool, the
+ * share of query terms the chunk covers and the share of query bigrams it
+ * contains verbatim, blended with the original vector similarity.
+ */
+@ApplicationScoped
+public class LexicalReranker implements Reranker {
+
+    private static final double DENSE_WEIGHT = 0.45;
+    private static final double BM25_WEIGHT = 0.30;
+    private static final double COVERAGE_WEIGHT = 0.15;
+    private static final double PHRASE_WEIGHT = 0.10;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final Set<String> STOPWORDS = Set.of(
+        "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "how", "in", "is", "it",
+        "of", "on", "or", "that", "the", "this", "to", "was", "what", "when", "where", "which",
+        "who", "why", "with");
+
+    @Override
+    public boolean supports(RerankingModel model) {
+        // Fallback for every model; never selected by name
+        return false;
+    }
+
+    @Override
+    public List<EmbeddingMatch<TextSegment>> rerank(String query, List<EmbeddingMatch<TextSegment>> candidates) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+
+        List<String> queryTerms = terms(query);
+        Set<String> uniqueQueryTerms = new LinkedHashSet<>(queryTerms);
+        Set<String> queryBigrams = bigrams(queryTerms);
+
+        int n = candidates.size();
+        List<Map<String, Integer>> frequencies = new ArrayList<>(n);
+        List<Set<String>> chunkBigrams = new ArrayList<>(n);
+        int[] lengths = new int[n];
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        long totalLength = 0;
+
+        for (EmbeddingMatch<TextSegment> candidate : candidates) {
+            List<String> chunkTerms = terms(candidate.embedded().text());
+            Map<String, Integer> tf = new HashMap<>();
+            for (String term : chunkTerms) {
+                tf.merge(term, 1, Integer::sum);
+            }
+            for (String term : uniqueQueryTerms) {
+                if (tf.containsKey(term)) {
+                    documentFrequency.merge(term, 1, Integer::sum);
+                }
+            }
+            lengths[frequencies.size()] = chunkTerms.size();
+            totalLength += chunkTerms.size();
+            frequencies.add(tf);
+            chunkBigrams.add(queryBigrams.isEmpty() ? Set.of() : bigrams(chunkTerms));
+        }
+        double averageLength = Math.max(1.0, (double) totalLength / n);
+
+        double[] bm25 = new double[n];
+        double maxBm25 = 0;
+        for (int i = 0; i < n; i++) {
+            Map<String, Integer> tf = frequencies.get(i);
+            double score = 0;
+            for (String term : uniqueQueryTerms) {
+                Integer f = tf.get(term);
+                if (f == null) {
+                    continue;
+                }
+                int df = documentFrequency.get(term);
+                double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+                score += idf * f * (K1 + 1) / (f + K1 * (1 - B + B * lengths[i] / averageLength));
+            }
+            bm25[i] = score;
+            maxBm25 = Math.max(maxBm25, score);
+        }
+
+        List<EmbeddingMatch<TextSegment>> rescored = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            EmbeddingMatch<TextSegment> candidate = candidates.get(i);
+            Map<String, Integer> tf = frequencies.get(i);
+
+            double coverage = 0;
+            if (!uniqueQueryTerms.isEmpty()) {
+                coverage = uniqueQueryTerms.stream().filter(tf::containsKey).count()
+                    / (double) uniqueQueryTerms.size();
+            }
+            double phrase = 0;
+            if (!queryBigrams.isEmpty()) {
+                phrase = queryBigrams.stream().filter(chunkBigrams.get(i)::contains).count()
+                    / (double) queryBigrams.size();
+            }
+            double dense = candidate.score() == null ? 0 : candidate.score();
+
+            double score = DENSE_WEIGHT * dense
+                + BM25_WEIGHT * (maxBm25 > 0 ? bm25[i] / maxBm25 : 0)
+                + COVERAGE_WEIGHT * coverage
+                + PHRASE_WEIGHT * phrase;
+
+            rescored.add(new EmbeddingMatch<>(score, candidate.embeddingId(), candidate.embedding(), candidate.embedded()));
+        }
+
+        rescored.sort(Comparator.comparingDouble((EmbeddingMatch<TextSegment> m) -> m.score()).reversed());
+        return rescored;
+    }
+
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String term = text.substring(start, i).toLowerCase(Locale.ROOT);
+                if (term.length() > 1 && !STOPWORDS.contains(term)) {
+                    terms.add(term);
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private static Set<String> bigrams(List<String> terms) {
+        Set<String> bigrams = new HashSet<>();
+        for (int i = 1; i < terms.size(); i++) {
+            bigrams.add(terms.get(i - 1) + ' ' + terms.get(i));
+        }
+        return bigrams;
+    }
+}
@@ -1,11 +1,11 @@
 package tech.kayys.silat.executor.rag.langchain;
 
-import dev.langchain4j.data.document.DocumentSplitter;
-import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
 import dev.langchain4j.store.embedding.EmbeddingStore;
-import dev.langchain4j.store.embedding.EmbeddingStoreIngestor;
 
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -15,7 +15,6 @@ import org.slf4j.LoggerFactory;
 import tech.kayys.silat.client.SilatClient;
 import tech.kayys.silat.executor.rag.domain.*;
 
-import java.nio.file.Path;
 import java.time.Instant;
 import java.util.*;
 
@@ -36,37 +35,121 @@ public class RagExecutionService {
     @Inject
     SilatClient silatClient;
 
+    @Inject
+    ChunkSelector chunkSelector;
+
+    @Inject
+    SemanticAnswerCache answerCache;
+
     public Uni<RagResponse> executeRagWorkflow(RagWorkflowInput input) {
         LOG.info("Executing RAG workflow for tenant: {}", input.tenantId());
 
         return Uni.createFrom().item(() -> {
-            // 1. Retrieve relevant documents
-            var retriever = createRetriever(input.tenantId(), input.retrievalConfig());
-            var relevantDocs = retriever.findRelevant(input.query());
+            RetrievalConfig retrievalConfig = input.retrievalConfig();
+            SemanticAnswerCache.Scope cacheScope = answerCache.scopeOf(input);
+
+            // 0. Repeated question: answer without embedding, retrieval or generation
+            Optional<SemanticAnswerCache.Hit> exact = answerCache.lookupExact(cacheScope, input.query());
+            if (exact.isPresent()) {
+                return fromCache(input.query(), exact.get());
+            }
+
+            EmbeddingModel embeddingModel =
+                modelFactory.createEmbeddingModel(input.tenantId(), "text-embedding-3-small");
+            Embedding queryEmbedding = embeddingModel.embed(input.query()).content();
+
+            // Paraphrased question: answer without retrieval or generation
+            if (answerCache.isEnabled()) {
+                Optional<SemanticAnswerCache.Hit> similar = answerCache.lookup(cacheScope, queryEmbedding.vector());
+                if (similar.isPresent()) {
+                    return fromCache(input.query(), similar.get());
+                }
+            }
+
+            // 1. Retrieve candidates, over-fetching when a selection stage will narrow them
+            EmbeddingStore<TextSegment> embeddingStore =
+                storeFactory.getStore(input.tenantId(), retrievalConfig);
+
+            List<EmbeddingMatch<TextSegment>> candidates = embeddingStore.findRelevant(
+                queryEmbedding,
+                chunkSelector.fetchSize(retrievalConfig),
+                retrievalConfig.minSimilarity());
 
-            // 2. Generate response using LLM
+            // 2. Deduplicate, rerank and diversify down to topK
+            List<EmbeddingMatch<TextSegment>> selected =
+                chunkSelector.select(input.query(), candidates, retrievalConfig);
+            List<TextSegment> relevantDocs = selected.stream()
+                .map(EmbeddingMatch::embedded)
+                .toList();
+
+            // 3. Generate response using LLM
             var chatModel = modelFactory.createChatModel(input.tenantId(), input.generationConfig().model());
-            var response = chatModel.generate(buildPrompt(input.query(), relevantDocs, input.generationConfig()));
+            String prompt = buildPrompt(input.query(), relevantDocs, input.generationConfig());
+            var response = chatModel.generate(UserMessage.from(prompt));
 
-            // 3. Build response with metadata
-            return new RagResponse(
+            // 4. Build response with metadata
+            RagResponse ragResponse = new RagResponse(
                 input.query(),
                 response.content().text(),
-                relevantDocs,
+                toSourceDocuments(selected),
                 List.of(), // citations
                 null, // metrics
                 null, // context
                 Instant.now(),
-                Map.of(), // metadata
+                Map.of("candidatesRetrieved", candidates.size(),
+                       "chunksSelected", selected.size()),
                 List.of(), // sources
                 Optional.empty() // error
             );
+
+            answerCache.put(cacheScope, input.query(), queryEmbedding.vector(), ragResponse);
+            return ragResponse;
         });
     }
 
-    private dev.langchain4j.rag.RetrievalAugmentor createRetriever(String tenantId, RetrievalConfig config) {
-        // Create retriever based on configuration
-        return null; // Would return actual retriever implementation
+    /**
+     * The cached answer, for the question as asked this time
+     */
+    private static RagResponse fromCache(String query, SemanticAnswerCache.Hit hit) {
+        RagResponse cached = hit.response();
+
+        Map<String, Object> metadata = new HashMap<>(cached.metadata());
+        metadata.put("cacheHit", true);
+        metadata.put("cacheSimilarity", hit.similarity());
+        metadata.put("cachedAt", cached.timestamp());
+
+        return new RagResponse(
+            query,
+            cached.answer(),
+            cached.sourceDocuments(),
+            cached.citations(),
+            cached.metrics(),
+            cached.context(),
+            Instant.now(),
+            metadata,
+            cached.sources(),
+            cached.error()
+        );
+    }
+
+    private List<SourceDocument> toSourceDocuments(List<EmbeddingMatch<TextSegment>> matches) {
+        List<SourceDocument> documents = new ArrayList<>(matches.size());
+        for (EmbeddingMatch<TextSegment> match : matches) {
+            Map<String, String> metadata = new HashMap<>();
+            match.embedded().metadata().toMap().forEach((k, v) -> metadata.put(k, String.valueOf(v)));
+
+            documents.add(new SourceDocument(
+                match.embeddingId(),
+                metadata.get("source"),
+                match.embedded().text(),
+                metadata.get("source"),
+                metadata,
+                match.score() == null ? 0f : match.score().floatValue(),
+                -1,
+                null
+            ));
+        }
+        return documents;
     }
 
     private String buildPrompt(String query, List<TextSegment> relevantDocs, GenerationConfig genConfig) {
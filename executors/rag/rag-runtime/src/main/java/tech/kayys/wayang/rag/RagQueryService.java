@@ -23,6 +23,9 @@ public class RagQueryService {
     @Inject
     SilatClient silatClient;
 
+    @Inject
+    RunCompletionNotifier completionNotifier;
+
     /**
      * Execute simple RAG query
      */
@@ -124,16 +127,27 @@ public class RagQueryService {
             .input("collections", collections)
             .input("filters", filters)
             .executeAndStart()
-            .map(run -> {
-                // Poll for completion
-                return pollForCompletion(run.runId());
-            })
+            .flatMap(run -> awaitCompletion(run.runId()))
             .flatMap(runId -> getRagResponse(runId));
     }
 
-    private String pollForCompletion(String runId) {
-        // Simplified - in production use reactive polling
-        return runId;
+    private Uni<String> awaitCompletion(String runId) {
+        return completionNotifier.awaitCompletion(runId, this::fetchRunStatus)
+            .map(status -> {
+                if (!"COMPLETED".equals(status) && !"SUCCEEDED".equals(status)) {
+                    throw new IllegalStateException("RAG workflow run " + runId + " ended with status " + status);
+                }
+                return runId;
+            });
+    }
+
+    private Uni<String> fetchRunStatus(String runId) {
+        return silatClient.runs()
+            .get(runId)
+            .map(run -> {
+                Object status = ((Map<String, Object>) run).get("status");
+                return status != null ? status.toString() : null;
+            });
     }
 
     private Uni<RagResponse> getRagResponse(String runId) {
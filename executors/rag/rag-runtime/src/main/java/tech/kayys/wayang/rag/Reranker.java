@@ -0,0 +1,24 @@
+package tech.kayys.silat.executor.rag.langchain;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import tech.kayys.silat.executor.rag.domain.RerankingModel;
+
+import java.util.List;
+
+/**
+ * Rescores retrieved chunks against the query.
+ *
+ * Implementations are CDI beans; {@link ChunkSelector} uses the first one
+ * supporting the configured {@link RerankingModel} and falls back to
+ * {@link LexicalReranker} when none does.
+ */
+public interface Reranker {
+
+    boolean supports(RerankingModel model);
+
+    /**
+     * @return The candidates with new scores, best first
+     */
+    List<EmbeddingMatch<TextSegment>> rerank(String query, List<EmbeddingMatch<TextSegment>> candidates);
+}
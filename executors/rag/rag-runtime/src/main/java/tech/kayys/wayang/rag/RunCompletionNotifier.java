@@ -0,0 +1,173 @@
+package tech.kayys.silat.executor.rag.examples;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Resolves waiters when workflow runs finish.
+ *
+ * Run events pushed on the "run-events" channel complete the pending
+ * entry for their run id, so a caller resumes as soon as the run ends.
+ * Events arriving before anyone waits on the run are kept briefly, and only
+ * the most recent ones, so a fast run is not missed but events nobody asks
+ * for do not pile up. If no event shows up within the poll delay the waiter
+ * also starts polling the run status, which covers lost events and
+ * deployments without the channel.
+ *
+ * The channel and its {@link RunEventConsumer} are off by default
+ * (silat.rag.run.events.enabled) because no producer ships with this
+ * service; waiters then rely on polling.
+ */
+@ApplicationScoped
+public class RunCompletionNotifier {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RunCompletionNotifier.class);
+
+    private static final Set<String> TERMINAL_STATUSES = Set.of(
+        "COMPLETED", "SUCCEEDED", "FAILED", "CANCELLED", "TIMED_OUT", "TERMINATED");
+
+    @ConfigProperty(name = "silat.rag.run.timeout", defaultValue = "PT5M")
+    Duration timeout;
+
+    @ConfigProperty(name = "silat.rag.run.poll-delay", defaultValue = "PT2S")
+    Duration pollDelay;
+
+    @ConfigProperty(name = "silat.rag.run.poll-interval", defaultValue = "PT1S")
+    Duration pollInterval;
+
+    // How long an event is kept for a waiter that has not arrived yet
+    @ConfigProperty(name = "silat.rag.run.early-event-ttl", defaultValue = "PT30S")
+    Duration earlyEventTtl;
+
+    @ConfigProperty(name = "silat.rag.run.max-early-events", defaultValue = "1000")
+    int maxEarlyEvents;
+
+    private final Map<String, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+
+    // Terminal statuses nobody waited for yet, oldest first; guarded by itself
+    private final LinkedHashMap<String, EarlyEvent> earlyEvents = new LinkedHashMap<>();
+
+    /**
+     * Wait for the run to reach a terminal status.
+     *
+     * @param statusLookup Fetches the current run status, used only as the polling fallback
+     * @return The terminal status
+     */
+    public Uni<String> awaitCompletion(String runId, Function<String, Uni<String>> statusLookup) {
+        return Uni.createFrom().deferred(() -> {
+            CompletableFuture<String> completion = pending.computeIfAbsent(runId, id -> new CompletableFuture<>());
+            // Checked after registering, so an event racing with this call is seen by one side or the other
+            String early = takeEarlyEvent(runId);
+            if (early != null) {
+                completion.complete(early);
+            }
+
+            Uni<String> pushed = Uni.createFrom().completionStage(completion);
+
+            Uni<String> polled = Multi.createFrom().ticks()
+                .startingAfter(pollDelay)
+                .every(pollInterval)
+                .onOverflow().drop()
+                .onItem().transformToUniAndConcatenate(tick -> statusLookup.apply(runId)
+                    .onFailure().invoke(e -> LOG.debug("Status lookup failed for run {}", runId, e))
+                    .onFailure().recoverWithNull())
+                .select().where(RunCompletionNotifier::isTerminal)
+                .toUni()
+                .map(status -> status.toUpperCase(Locale.ROOT))
+                .invoke(status -> LOG.debug("Run {} completion found by polling: {}", runId, status));
+
+            return Uni.combine().any().of(pushed, polled)
+                .ifNoItem().after(timeout)
+                .failWith(() -> new TimeoutException("Run " + runId + " did not complete within " + timeout))
+                .onTermination().invoke(() -> pending.remove(runId, completion));
+        });
+    }
+
+    public void onRunEvent(RunEvent event) {
+        if (event == null || event.runId() == null || !isTerminal(event.status())) {
+            return;
+        }
+        String status = event.status().toUpperCase(Locale.ROOT);
+
+        CompletableFuture<String> completion = pending.get(event.runId());
+        if (completion == null) {
+            // Nobody is waiting yet; hold the result briefly in case the caller is about to
+            putEarlyEvent(event.runId(), status);
+            completion = pending.get(event.runId());
+            if (completion == null || takeEarlyEvent(event.runId()) == null) {
+                return;
+            }
+        }
+
+        if (completion.complete(status)) {
+            LOG.debug("Run {} completed with status {}", event.runId(), event.status());
+        }
+    }
+
+    /**
+     * Runs currently awaited or completed without a waiter yet
+     */
+    public int pendingCount() {
+        synchronized (earlyEvents) {
+            purgeExpired(System.nanoTime());
+            return pending.size() + earlyEvents.size();
+        }
+    }
+
+    private void putEarlyEvent(String runId, String status) {
+        long now = System.nanoTime();
+        synchronized (earlyEvents) {
+            purgeExpired(now);
+            earlyEvents.remove(runId);
+            earlyEvents.put(runId, new EarlyEvent(status, now + earlyEventTtl.toNanos()));
+
+            Iterator<String> eldest = earlyEvents.keySet().iterator();
+            while (earlyEvents.size() > maxEarlyEvents && eldest.hasNext()) {
+                LOG.debug("Dropping unclaimed completion event of run {}", eldest.next());
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * @return The held status of the run, or null when none is held or it expired
+     */
+    private String takeEarlyEvent(String runId) {
+        long now = System.nanoTime();
+        synchronized (earlyEvents) {
+            EarlyEvent event = earlyEvents.remove(runId);
+            return event != null && event.expiresAt() - now > 0 ? event.status() : null;
+        }
+    }
+
+    // Events share one TTL, so the expired ones are the oldest
+    private void purgeExpired(long now) {
+        Iterator<EarlyEvent> it = earlyEvents.values().iterator();
+        while (it.hasNext() && it.next().expiresAt() - now <= 0) {
+            it.remove();
+        }
+    }
+
+    static boolean isTerminal(String status) {
+        return status != null && TERMINAL_STATUSES.contains(status.toUpperCase(Locale.ROOT));
+    }
+
+    public record RunEvent(String runId, String status, String error) {}
+
+    private record EarlyEvent(String status, long expiresAt) {}
+}
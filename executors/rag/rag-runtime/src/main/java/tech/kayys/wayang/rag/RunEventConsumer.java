@@ -0,0 +1,26 @@
+package tech.kayys.silat.executor.rag.examples;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+
+/**
+ * Feeds the "run-events" channel into the {@link RunCompletionNotifier}.
+ *
+ * Only built with silat.rag.run.events.enabled=true, the same property that
+ * enables the channel, so a build without a producer has neither the channel
+ * nor a consumer waiting on it.
+ */
+@ApplicationScoped
+@IfBuildProperty(name = "silat.rag.run.events.enabled", stringValue = "true")
+public class RunEventConsumer {
+
+    @Inject
+    RunCompletionNotifier notifier;
+
+    @Incoming("run-events")
+    public void onRunEvent(RunCompletionNotifier.RunEvent event) {
+        notifier.onRunEvent(event);
+    }
+}
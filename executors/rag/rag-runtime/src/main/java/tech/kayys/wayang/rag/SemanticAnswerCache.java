@@ -0,0 +1,404 @@
+package tech.kayys.silat.executor.rag.langchain;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.kayys.silat.executor.rag.domain.GenerationConfig;
+import tech.kayys.silat.executor.rag.domain.RagResponse;
+import tech.kayys.silat.executor.rag.domain.RagWorkflowInput;
+import tech.kayys.silat.executor.rag.domain.RetrievalConfig;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers keyed by query embedding, so a repeated or paraphrased question
+ * is served without retrieval or generation.
+ *
+ * Entries live in namespaces per tenant, collection filter and retrieval /
+ * generation settings, and a lookup returns the closest cached question in
+ * the namespace when its cosine similarity reaches the threshold. An exact
+ * repeat of a question is also found by its text before the query is
+ * embedded. Entries expire after the TTL, each namespace keeps its most
+ * recently used entries, and ingesting into a collection drops the
+ * tenant's entries for it along with those not filtered by collection.
+ *
+ * Settings include the system prompt, so namespaces are bounded too: past
+ * the cap the least recently used namespace is dropped, and a namespace is
+ * dropped as soon as its last entry expires.
+ */
+@ApplicationScoped
+public class SemanticAnswerCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SemanticAnswerCache.class);
+
+    // Collection of queries not filtered to one collection
+    static final String ALL_COLLECTIONS = "*";
+
+    @ConfigProperty(name = "silat.rag.cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "silat.rag.cache.similarity-threshold", defaultValue = "0.95")
+    double similarityThreshold;
+
+    @ConfigProperty(name = "silat.rag.cache.ttl", defaultValue = "PT1H")
+    Duration ttl;
+
+    // Per namespace
+    @ConfigProperty(name = "silat.rag.cache.max-entries", defaultValue = "1000")
+    int maxEntries;
+
+    @ConfigProperty(name = "silat.rag.cache.max-namespaces", defaultValue = "1000")
+    int maxNamespaces;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private final Map<Scope, Namespace> namespaces = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> tenantEpochs = new ConcurrentHashMap<>();
+
+    // Logical clock for namespace recency
+    private final AtomicLong accessClock = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private Counter hitCounter;
+    private Counter missCounter;
+    private Counter invalidationCounter;
+
+    @PostConstruct
+    void init() {
+        if (meterRegistry == null) {
+            return;
+        }
+        hitCounter = Counter.builder("rag.answer.cache.hits")
+            .description("RAG queries answered from the semantic cache")
+            .register(meterRegistry);
+        missCounter = Counter.builder("rag.answer.cache.misses")
+            .description("RAG queries not found in the semantic cache")
+            .register(meterRegistry);
+        invalidationCounter = Counter.builder("rag.answer.cache.invalidations")
+            .description("Cached RAG answers dropped after ingestion")
+            .register(meterRegistry);
+        Gauge.builder("rag.answer.cache.hit.ratio", this, SemanticAnswerCache::hitRatio)
+            .description("Share of RAG queries answered from the semantic cache")
+            .register(meterRegistry);
+        Gauge.builder("rag.answer.cache.size", this, SemanticAnswerCache::size)
+            .description("Cached RAG answers")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Namespace for the input, bound to the tenant's current epoch so an
+     * answer computed across an ingestion is not cached
+     */
+    public Scope scopeOf(RagWorkflowInput input) {
+        RetrievalConfig retrieval = input.retrievalConfig();
+        GenerationConfig generation = input.generationConfig();
+
+        Map<String, Object> filters = retrieval.metadataFilters() == null
+            ? Map.of()
+            : new TreeMap<>(retrieval.metadataFilters());
+        Object collection = filters.get("collection");
+
+        String settings = String.join("|",
+            String.valueOf(retrieval.topK()),
+            String.valueOf(retrieval.minSimilarity()),
+            String.valueOf(retrieval.enableReranking()),
+            String.valueOf(retrieval.rerankingModel()),
+            String.valueOf(retrieval.enableMmr()),
+            String.valueOf(retrieval.mmrLambda()),
+            String.valueOf(retrieval.enableDeduplication()),
+            filters.toString(),
+            String.valueOf(generation.provider()),
+            String.valueOf(generation.model()),
+            String.valueOf(generation.temperature()),
+            String.valueOf(generation.maxTokens()),
+            String.valueOf(generation.systemPrompt()));
+
+        return new Scope(
+            input.tenantId(),
+            collection != null ? collection.toString() : ALL_COLLECTIONS,
+            settings,
+            epoch(input.tenantId()).get());
+    }
+
+    /**
+     * Cached answer for the same question text, checked before embedding it.
+     * Only hits are counted; a miss here is followed by {@link #lookup}.
+     */
+    public Optional<Hit> lookupExact(Scope scope, String query) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Scope key = scope.withoutEpoch();
+        Namespace namespace = namespaces.get(key);
+        if (namespace == null) {
+            return Optional.empty();
+        }
+        namespace.touch(accessClock.incrementAndGet());
+        Optional<Hit> hit = namespace.exact(SimilarityMath.normalizeText(query), System.currentTimeMillis());
+        hit.ifPresentOrElse(h -> recordHit(), () -> dropIfEmpty(key, namespace));
+        return hit;
+    }
+
+    /**
+     * Cached answer for the most similar question, if similar enough
+     */
+    public Optional<Hit> lookup(Scope scope, float[] queryEmbedding) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Scope key = scope.withoutEpoch();
+        Namespace namespace = namespaces.get(key);
+        float[] unit = SimilarityMath.unitVector(queryEmbedding);
+        Optional<Hit> hit = Optional.empty();
+        if (namespace != null && unit != null) {
+            namespace.touch(accessClock.incrementAndGet());
+            hit = namespace.nearest(unit, similarityThreshold, System.currentTimeMillis());
+        }
+
+        if (hit.isPresent()) {
+            recordHit();
+        } else {
+            misses.increment();
+            if (missCounter != null) {
+                missCounter.increment();
+            }
+            if (namespace != null) {
+                dropIfEmpty(key, namespace);
+            }
+        }
+        return hit;
+    }
+
+    public void put(Scope scope, String query, float[] queryEmbedding, RagResponse response) {
+        if (!enabled || response.error().isPresent()) {
+            return;
+        }
+        float[] unit = SimilarityMath.unitVector(queryEmbedding);
+        if (unit == null) {
+            return;
+        }
+        if (epoch(scope.tenantId()).get() != scope.epoch()) {
+            LOG.debug("Not caching answer for tenant {}: ingested into while answering", scope.tenantId());
+            return;
+        }
+        String normalized = SimilarityMath.normalizeText(query);
+        Entry entry = new Entry(unit, response, System.currentTimeMillis() + ttl.toMillis());
+        Scope key = scope.withoutEpoch();
+        long access = accessClock.incrementAndGet();
+
+        // Inserted under the map's lock so a concurrent drop of the empty namespace cannot lose it
+        Namespace namespace = namespaces.compute(key, (s, existing) -> {
+            Namespace target = existing != null ? existing : new Namespace(maxEntries);
+            target.touch(access);
+            target.put(normalized, entry);
+            return target;
+        });
+
+        // An invalidation may have slipped in between the check and the put
+        if (epoch(scope.tenantId()).get() != scope.epoch()) {
+            namespace.remove(normalized);
+            dropIfEmpty(key, namespace);
+        }
+
+        if (namespaces.size() > maxNamespaces) {
+            evictNamespaces(key);
+        }
+    }
+
+    /**
+     * Drop the tenant's answers that may have drawn on the collections
+     */
+    public void invalidate(String tenantId, Collection<String> collections) {
+        epoch(tenantId).incrementAndGet();
+
+        int dropped = 0;
+        Iterator<Map.Entry<Scope, Namespace>> it = namespaces.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Scope, Namespace> namespace = it.next();
+            Scope scope = namespace.getKey();
+            if (scope.tenantId().equals(tenantId)
+                    && (ALL_COLLECTIONS.equals(scope.collection()) || collections.contains(scope.collection()))) {
+                dropped += namespace.getValue().size();
+                it.remove();
+            }
+        }
+
+        if (dropped > 0) {
+            LOG.debug("Invalidated {} cached answers for tenant {} after ingesting into {}",
+                dropped, tenantId, collections);
+            if (invalidationCounter != null) {
+                invalidationCounter.increment(dropped);
+            }
+        }
+    }
+
+    public double hitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    int namespaceCount() {
+        return namespaces.size();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Namespace namespace : namespaces.values()) {
+            size += namespace.size();
+        }
+        return size;
+    }
+
+    private void dropIfEmpty(Scope key, Namespace namespace) {
+        namespaces.computeIfPresent(key, (s, current) -> current == namespace && current.size() == 0 ? null : current);
+    }
+
+    /**
+     * Drop the least recently used namespaces, never the one just written,
+     * until the cap is met again
+     */
+    private void evictNamespaces(Scope keep) {
+        while (namespaces.size() > maxNamespaces) {
+            Scope eldest = null;
+            long eldestAccess = Long.MAX_VALUE;
+            for (Map.Entry<Scope, Namespace> namespace : namespaces.entrySet()) {
+                long lastAccess = namespace.getValue().lastAccess();
+                if (!namespace.getKey().equals(keep) && lastAccess < eldestAccess) {
+                    eldest = namespace.getKey();
+                    eldestAccess = lastAccess;
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            Namespace evicted = namespaces.remove(eldest);
+            if (evicted != null) {
+                LOG.debug("Evicted cached answers namespace of tenant {} ({} entries)",
+                    eldest.tenantId(), evicted.size());
+            }
+        }
+    }
+
+    private void recordHit() {
+        hits.increment();
+        if (hitCounter != null) {
+            hitCounter.increment();
+        }
+    }
+
+    private AtomicLong epoch(String tenantId) {
+        return tenantEpochs.computeIfAbsent(tenantId, t -> new AtomicLong());
+    }
+
+    public record Scope(String tenantId, String collection, String settings, long epoch) {
+
+        Scope withoutEpoch() {
+            return epoch == 0 ? this : new Scope(tenantId, collection, settings, 0);
+        }
+    }
+
+    public record Hit(RagResponse response, double similarity) {}
+
+    private record Entry(float[] embedding, RagResponse response, long expiresAt) {}
+
+    /**
+     * Entries of one namespace by normalized question, least recently used first
+     */
+    private static final class Namespace {
+
+        private final LinkedHashMap<String, Entry> entries;
+
+        private volatile long lastAccess;
+
+        Namespace(int maxEntries) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        void touch(long access) {
+            lastAccess = access;
+        }
+
+        long lastAccess() {
+            return lastAccess;
+        }
+
+        synchronized Optional<Hit> exact(String query, long now) {
+            Entry entry = entries.get(query);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            if (entry.expiresAt() <= now) {
+                entries.remove(query);
+                return Optional.empty();
+            }
+            return Optional.of(new Hit(entry.response(), 1.0));
+        }
+
+        synchronized Optional<Hit> nearest(float[] query, double threshold, long now) {
+            String bestKey = null;
+            Entry best = null;
+            double bestSimilarity = -1;
+
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Entry> candidate = it.next();
+                Entry entry = candidate.getValue();
+                if (entry.expiresAt() <= now) {
+                    it.remove();
+                    continue;
+                }
+                if (entry.embedding().length != query.length) {
+                    continue;
+                }
+                double similarity = SimilarityMath.dot(query, entry.embedding());
+                if (similarity > bestSimilarity) {
+                    bestKey = candidate.getKey();
+                    best = entry;
+                    bestSimilarity = similarity;
+                }
+            }
+
+            if (best == null || bestSimilarity < threshold) {
+                return Optional.empty();
+            }
+            // Touch for LRU order
+            entries.get(bestKey);
+            return Optional.of(new Hit(best.response(), bestSimilarity));
+        }
+
+        synchronized void put(String query, Entry entry) {
+            entries.put(query, entry);
+        }
+
+        synchronized void remove(String query) {
+            entries.remove(query);
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package tech.kayys.silat.executor.rag.langchain;
+
+import java.util.Locale;
+
+/**
+ * Cosine-similarity helpers shared by chunk selection and the answer cache.
+ *
+ * Vectors are scaled to unit length once, so the cosine of two of them is a
+ * plain dot product.
+ */
+final class SimilarityMath {
+
+    private SimilarityMath() {
+    }
+
+    /**
+     * @return Copy of the vector scaled to unit length, or null for a null or zero vector
+     */
+    static float[] unitVector(float[] vector) {
+        if (vector == null) {
+            return null;
+        }
+        double sum = 0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        if (sum == 0) {
+            return null;
+        }
+        float inverse = (float) (1 / Math.sqrt(sum));
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = vector[i] * inverse;
+        }
+        return unit;
+    }
+
+    /**
+     * Dot product of two vectors of the same length; the cosine for unit vectors
+     */
+    static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Text compared for exact duplicates: trimmed, whitespace collapsed, lower case
+     */
+    static String normalizeText(String text) {
+        return text == null ? "" : text.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
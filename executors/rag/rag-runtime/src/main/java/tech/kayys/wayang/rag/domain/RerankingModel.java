@@ -1,6 +1,6 @@
 package tech.kayys.silat.executor.rag.domain;
 
-enum RerankingModel {
+public enum RerankingModel {
     COHERE_RERANK,
     JINA_AI_RERANK,
     MIXEDBREAD_RERANK
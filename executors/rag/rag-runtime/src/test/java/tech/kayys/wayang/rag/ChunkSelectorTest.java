@@ -0,0 +1,82 @@
+package tech.kayys.silat.executor.rag.langchain;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.junit.jupiter.api.Test;
+import tech.kayys.silat.executor.rag.domain.RerankingModel;
+import tech.kayys.silat.executor.rag.domain.RetrievalConfig;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkSelectorTest {
+
+    private final ChunkSelector selector = new ChunkSelector();
+
+    @Test
+    void testMmrPrefersDiverseChunks() {
+        // Given
+        List<EmbeddingMatch<TextSegment>> candidates = List.of(
+            match("a", 0.90, "pricing of the pro plan", 1f, 0f, 0f),
+            match("a-copy", 0.89, "pro plan pricing details", 0.99f, 0.05f, 0f),
+            match("b", 0.80, "refund policy for annual plans", 0f, 1f, 0f)
+        );
+
+        // When
+        List<EmbeddingMatch<TextSegment>> plain = selector.select("pro plan", candidates, config(2, false, false, false));
+        List<EmbeddingMatch<TextSegment>> diverse = selector.select("pro plan", candidates, config(2, false, true, false));
+
+        // Then
+        assertEquals(List.of("a", "a-copy"), ids(plain));
+        assertEquals(List.of("a", "b"), ids(diverse));
+    }
+
+    @Test
+    void testDeduplicationDropsRepeatedText() {
+        List<EmbeddingMatch<TextSegment>> candidates = List.of(
+            match("a", 0.9, "Same   text", 1f, 0f, 0f),
+            match("b", 0.8, "same text", 0f, 1f, 0f),
+            match("c", 0.7, "other text", 0f, 0f, 1f)
+        );
+
+        List<EmbeddingMatch<TextSegment>> selected = selector.select("text", candidates, config(3, false, false, true));
+
+        assertEquals(List.of("a", "c"), ids(selected));
+    }
+
+    @Test
+    void testLocalRerankerPromotesLexicalMatches() {
+        // Given equal vector scores, only one chunk mentions the query terms
+        List<EmbeddingMatch<TextSegment>> candidates = List.of(
+            match("off-topic", 0.8, "the weather is nice today", 1f, 0f, 0f),
+            match("on-topic", 0.8, "how to rotate the api key for the billing service", 0f, 1f, 0f)
+        );
+
+        List<EmbeddingMatch<TextSegment>> selected =
+            selector.select("rotate api key", candidates, config(1, true, false, false));
+
+        assertEquals(List.of("on-topic"), ids(selected));
+    }
+
+    @Test
+    void testFetchSizeOverFetchesOnlyWhenSelecting() {
+        assertEquals(5, selector.fetchSize(config(5, false, false, false)));
+        assertEquals(20, selector.fetchSize(config(5, true, false, false)));
+    }
+
+    private static RetrievalConfig config(int topK, boolean rerank, boolean mmr, boolean dedup) {
+        return new RetrievalConfig(topK, 0.5f, 512, 50, rerank, RerankingModel.COHERE_RERANK,
+            false, 0.7f, false, 3, mmr, 50, Map.of(), List.of(), false, dedup);
+    }
+
+    private static EmbeddingMatch<TextSegment> match(String id, double score, String text, float... vector) {
+        return new EmbeddingMatch<>(score, id, Embedding.from(vector), TextSegment.from(text));
+    }
+
+    private static List<String> ids(List<EmbeddingMatch<TextSegment>> matches) {
+        return matches.stream().map(EmbeddingMatch::embeddingId).toList();
+    }
+}
@@ -3,7 +3,9 @@ package tech.kayys.silat.executor.rag.examples;
 import dev.langchain4j.data.document.Document;
 import dev.langchain4j.data.document.parser.apache.pdfbox.ApachePdfBoxDocumentParser;
 import dev.langchain4j.data.document.loader.FileSystemDocumentLoader;
+import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
 import dev.langchain4j.store.embedding.EmbeddingStore;
 import io.smallrye.mutiny.Uni;
 import io.vertx.core.impl.ConcurrentHashSet;
@@ -17,14 +19,19 @@ import tech.kayys.silat.executor.rag.domain.RetrievalConfig;
 import tech.kayys.silat.executor.rag.langchain.LangChain4jConfig;
 import tech.kayys.silat.executor.rag.langchain.LangChain4jEmbeddingStoreFactory;
 import tech.kayys.silat.executor.rag.langchain.LangChain4jModelFactory;
+import tech.kayys.silat.executor.rag.langchain.SemanticAnswerCache;
+import tech.kayys.wayang.agent.runtime.BlockingExecutor;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -115,4 +122,46 @@ class DocumentIngestionServiceTest {
         // Then
         assertNotNull(result);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBatchIngest_PipelineEmbedsInBatchesAndReportsProgress() {
+        // Given
+        String tenantId = "test-tenant";
+        ingestionService.modelFactory = modelFactory;
+        ingestionService.storeFactory = storeFactory;
+        ingestionService.answerCache = new SemanticAnswerCache();
+        ingestionService.blockingExecutor = new BlockingExecutor();
+        ingestionService.embedConcurrency = 2;
+        ingestionService.storeConcurrency = 1;
+        ingestionService.batchSize = 2;
+
+        when(storeFactory.getStore(eq(tenantId), any(RetrievalConfig.class))).thenReturn(embeddingStore);
+        when(modelFactory.createEmbeddingModel(eq(tenantId), eq("text-embedding-3-small"))).thenReturn(embeddingModel);
+        when(embeddingModel.embedAll(anyList())).thenAnswer(invocation -> {
+            List<?> segments = invocation.getArgument(0);
+            return Response.from(segments.stream()
+                .map(segment -> Embedding.from(new float[]{1f}))
+                .toList());
+        });
+
+        List<DocumentSource> sources = List.of(
+            new DocumentSource(SourceType.TEXT, null, "first document", Map.of()),
+            new DocumentSource(SourceType.TEXT, null, "second document", Map.of()),
+            new DocumentSource(SourceType.TEXT, null, "third document", Map.of())
+        );
+        List<IngestProgress> progress = new CopyOnWriteArrayList<>();
+
+        // When
+        IngestResult result = ingestionService.batchIngest(tenantId, sources, progress::add)
+            .await().atMost(Duration.ofSeconds(10));
+
+        // Then
+        assertTrue(result.success());
+        assertEquals(3, result.documentsIngested());
+        assertEquals(3, result.segmentsCreated());
+        verify(embeddingStore, times(2)).addAll(anyList(), anyList());
+        assertEquals(3, progress.stream().mapToInt(IngestProgress::segmentsStored).max().orElse(0));
+
+        ingestionService.shutdown();
+    }
+}
@@ -0,0 +1,133 @@
+package tech.kayys.silat.executor.rag.examples;
+
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunCompletionNotifierTest {
+
+    private RunCompletionNotifier notifier;
+
+    @BeforeEach
+    void setUp() {
+        notifier = new RunCompletionNotifier();
+        notifier.timeout = Duration.ofSeconds(5);
+        notifier.pollDelay = Duration.ofSeconds(10);
+        notifier.pollInterval = Duration.ofSeconds(1);
+        notifier.earlyEventTtl = Duration.ofSeconds(30);
+        notifier.maxEarlyEvents = 100;
+    }
+
+    @Test
+    void testEventResolvesWaiter() {
+        // Given
+        AtomicInteger lookups = new AtomicInteger();
+        Uni<String> completion = notifier.awaitCompletion("run-1", id -> {
+            lookups.incrementAndGet();
+            return Uni.createFrom().item("RUNNING");
+        });
+
+        // When
+        new Thread(() -> {
+            sleep(50);
+            notifier.onRunEvent(new RunCompletionNotifier.RunEvent("run-1", "completed", null));
+        }).start();
+        String status = completion.await().atMost(Duration.ofSeconds(2));
+
+        // Then
+        assertEquals("COMPLETED", status);
+        assertEquals(0, lookups.get());
+        assertEquals(0, notifier.pendingCount());
+    }
+
+    @Test
+    void testEventBeforeWaiterIsNotLost() {
+        notifier.onRunEvent(new RunCompletionNotifier.RunEvent("run-2", "FAILED", "boom"));
+
+        String status = notifier.awaitCompletion("run-2", id -> Uni.createFrom().nullItem())
+            .await().atMost(Duration.ofSeconds(1));
+
+        assertEquals("FAILED", status);
+    }
+
+    @Test
+    void testUnclaimedEventExpires() {
+        // Given
+        notifier.earlyEventTtl = Duration.ofMillis(20);
+        notifier.pollDelay = Duration.ofMillis(10);
+        notifier.pollInterval = Duration.ofMillis(10);
+        notifier.onRunEvent(new RunCompletionNotifier.RunEvent("run-6", "FAILED", "boom"));
+        sleep(50);
+
+        // When
+        assertEquals(0, notifier.pendingCount());
+        String status = notifier.awaitCompletion("run-6", id -> Uni.createFrom().item("COMPLETED"))
+            .await().atMost(Duration.ofSeconds(2));
+
+        // Then: the stale event was gone, so the status came from polling
+        assertEquals("COMPLETED", status);
+    }
+
+    @Test
+    void testUnclaimedEventsAreBounded() {
+        notifier.maxEarlyEvents = 2;
+
+        notifier.onRunEvent(new RunCompletionNotifier.RunEvent("run-7", "COMPLETED", null));
+        notifier.onRunEvent(new RunCompletionNotifier.RunEvent("run-8", "COMPLETED", null));
+        notifier.onRunEvent(new RunCompletionNotifier.RunEvent("run-9", "FAILED", null));
+
+        assertEquals(2, notifier.pendingCount());
+        assertEquals("FAILED", notifier.awaitCompletion("run-9", id -> Uni.createFrom().nullItem())
+            .await().atMost(Duration.ofSeconds(1)));
+        assertEquals(1, notifier.pendingCount());
+    }
+
+    @Test
+    void testNonTerminalEventsAreIgnored() {
+        notifier.onRunEvent(new RunCompletionNotifier.RunEvent("run-3", "RUNNING", null));
+
+        assertEquals(0, notifier.pendingCount());
+    }
+
+    @Test
+    void testPollingFallbackWhenNoEventArrives() {
+        // Given
+        notifier.pollDelay = Duration.ofMillis(10);
+        notifier.pollInterval = Duration.ofMillis(10);
+        AtomicInteger lookups = new AtomicInteger();
+
+        // When
+        String status = notifier.awaitCompletion("run-4", id ->
+                Uni.createFrom().item(lookups.incrementAndGet() < 3 ? "RUNNING" : "COMPLETED"))
+            .await().atMost(Duration.ofSeconds(2));
+
+        // Then
+        assertEquals("COMPLETED", status);
+        assertEquals(3, lookups.get());
+    }
+
+    @Test
+    void testTimeoutWhenRunNeverCompletes() {
+        notifier.timeout = Duration.ofMillis(100);
+
+        Uni<String> completion = notifier.awaitCompletion("run-5", id -> Uni.createFrom().item("RUNNING"));
+
+        Exception error = assertThrows(Exception.class, () -> completion.await().atMost(Duration.ofSeconds(2)));
+        assertTrue(error instanceof TimeoutException || error.getCause() instanceof TimeoutException);
+        assertEquals(0, notifier.pendingCount());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
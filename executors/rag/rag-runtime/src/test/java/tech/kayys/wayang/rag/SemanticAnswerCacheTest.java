@@ -0,0 +1,152 @@
+package tech.kayys.silat.executor.rag.langchain;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.kayys.silat.executor.rag.domain.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SemanticAnswerCacheTest {
+
+    private SemanticAnswerCache cache;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new SemanticAnswerCache();
+        cache.enabled = true;
+        cache.similarityThreshold = 0.95;
+        cache.ttl = Duration.ofMinutes(5);
+        cache.maxEntries = 100;
+        cache.maxNamespaces = 100;
+        cache.meterRegistry = registry;
+        cache.init();
+    }
+
+    @Test
+    void testParaphrasedQuestionHitsCache() {
+        // Given
+        SemanticAnswerCache.Scope scope = cache.scopeOf(input("tenant-a", "What is the refund policy?", null));
+        cache.put(scope, "What is the refund policy?", new float[]{1f, 0.1f, 0f}, response("30 days"));
+
+        // When
+        Optional<SemanticAnswerCache.Hit> similar = cache.lookup(scope, new float[]{1f, 0.12f, 0.01f});
+        Optional<SemanticAnswerCache.Hit> unrelated = cache.lookup(scope, new float[]{0f, 0f, 1f});
+
+        // Then
+        assertTrue(similar.isPresent());
+        assertEquals("30 days", similar.get().response().answer());
+        assertTrue(unrelated.isEmpty());
+        assertEquals(0.5, registry.get("rag.answer.cache.hit.ratio").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void testExactRepeatIsFoundWithoutEmbedding() {
+        SemanticAnswerCache.Scope scope = cache.scopeOf(input("tenant-a", "q", null));
+        cache.put(scope, "What is  the refund policy?", new float[]{1f, 0f}, response("30 days"));
+
+        assertTrue(cache.lookupExact(scope, "what is the refund policy?").isPresent());
+        assertTrue(cache.lookupExact(scope, "what is the shipping policy?").isEmpty());
+    }
+
+    @Test
+    void testNamespacesAreIsolatedPerTenant() {
+        SemanticAnswerCache.Scope tenantA = cache.scopeOf(input("tenant-a", "q", null));
+        SemanticAnswerCache.Scope tenantB = cache.scopeOf(input("tenant-b", "q", null));
+        cache.put(tenantA, "q", new float[]{1f, 0f}, response("a"));
+
+        assertTrue(cache.lookup(tenantB, new float[]{1f, 0f}).isEmpty());
+    }
+
+    @Test
+    void testIngestionInvalidatesMatchingCollections() {
+        // Given
+        SemanticAnswerCache.Scope unfiltered = cache.scopeOf(input("tenant-a", "q", null));
+        SemanticAnswerCache.Scope docs = cache.scopeOf(input("tenant-a", "q", "docs"));
+        SemanticAnswerCache.Scope faq = cache.scopeOf(input("tenant-a", "q", "faq"));
+        cache.put(unfiltered, "q", new float[]{1f, 0f}, response("all"));
+        cache.put(docs, "q", new float[]{1f, 0f}, response("docs"));
+        cache.put(faq, "q", new float[]{1f, 0f}, response("faq"));
+
+        // When
+        cache.invalidate("tenant-a", Set.of("docs"));
+
+        // Then
+        assertTrue(cache.lookupExact(unfiltered, "q").isEmpty());
+        assertTrue(cache.lookupExact(docs, "q").isEmpty());
+        assertTrue(cache.lookupExact(faq, "q").isPresent());
+    }
+
+    @Test
+    void testAnswerComputedAcrossIngestionIsNotCached() {
+        SemanticAnswerCache.Scope scope = cache.scopeOf(input("tenant-a", "q", null));
+
+        cache.invalidate("tenant-a", Set.of("default"));
+        cache.put(scope, "q", new float[]{1f, 0f}, response("stale"));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testExpiredEntriesAreNotReturned() {
+        cache.ttl = Duration.ZERO;
+        SemanticAnswerCache.Scope scope = cache.scopeOf(input("tenant-a", "q", null));
+        cache.put(scope, "q", new float[]{1f, 0f}, response("old"));
+
+        assertTrue(cache.lookup(scope, new float[]{1f, 0f}).isEmpty());
+    }
+
+    @Test
+    void testLeastRecentlyUsedNamespaceIsEvictedPastCap() {
+        cache.maxNamespaces = 2;
+        SemanticAnswerCache.Scope tenantA = cache.scopeOf(input("tenant-a", "q", null));
+        SemanticAnswerCache.Scope tenantB = cache.scopeOf(input("tenant-b", "q", null));
+        SemanticAnswerCache.Scope tenantC = cache.scopeOf(input("tenant-c", "q", null));
+        cache.put(tenantA, "q", new float[]{1f, 0f}, response("a"));
+        cache.put(tenantB, "q", new float[]{1f, 0f}, response("b"));
+
+        // Reading tenant A makes tenant B the least recently used
+        assertTrue(cache.lookupExact(tenantA, "q").isPresent());
+        cache.put(tenantC, "q", new float[]{1f, 0f}, response("c"));
+
+        assertEquals(2, cache.namespaceCount());
+        assertTrue(cache.lookupExact(tenantA, "q").isPresent());
+        assertTrue(cache.lookupExact(tenantB, "q").isEmpty());
+        assertTrue(cache.lookupExact(tenantC, "q").isPresent());
+    }
+
+    @Test
+    void testNamespaceIsDroppedOnceItsEntriesExpire() {
+        cache.ttl = Duration.ZERO;
+        SemanticAnswerCache.Scope scope = cache.scopeOf(input("tenant-a", "q", null));
+        cache.put(scope, "q", new float[]{1f, 0f}, response("old"));
+        assertEquals(1, cache.namespaceCount());
+
+        assertTrue(cache.lookup(scope, new float[]{1f, 0f}).isEmpty());
+
+        assertEquals(0, cache.namespaceCount());
+    }
+
+    private static RagWorkflowInput input(String tenantId, String query, String collection) {
+        RetrievalConfig defaults = RetrievalConfig.defaults();
+        RetrievalConfig retrieval = collection == null ? defaults : new RetrievalConfig(
+            defaults.topK(), defaults.minSimilarity(), defaults.maxChunkSize(), defaults.chunkOverlap(),
+            false, RerankingModel.COHERE_RERANK, false, 0.7f, false, 3, false, 0,
+            Map.of("collection", collection), List.of(), false, false);
+        return new RagWorkflowInput(tenantId, query, retrieval, GenerationConfig.defaults());
+    }
+
+    private static RagResponse response(String answer) {
+        return new RagResponse("q", answer, List.of(), List.of(), null, null, Instant.now(),
+            Map.of(), List.of(), Optional.empty());
+    }
+}
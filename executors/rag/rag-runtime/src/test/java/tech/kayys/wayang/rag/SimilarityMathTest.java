@@ -0,0 +1,42 @@
+package tech.kayys.silat.executor.rag.langchain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarityMathTest {
+
+    @Test
+    void testUnitVectorScalesToLengthOne() {
+        float[] vector = {3f, 4f};
+
+        float[] unit = SimilarityMath.unitVector(vector);
+
+        assertArrayEquals(new float[]{0.6f, 0.8f}, unit, 1e-6f);
+        assertEquals(1.0, SimilarityMath.dot(unit, unit), 1e-6);
+        // The input is left untouched
+        assertArrayEquals(new float[]{3f, 4f}, vector);
+    }
+
+    @Test
+    void testUnitVectorOfNullOrZeroIsNull() {
+        assertNull(SimilarityMath.unitVector(null));
+        assertNull(SimilarityMath.unitVector(new float[]{0f, 0f}));
+        assertNull(SimilarityMath.unitVector(new float[0]));
+    }
+
+    @Test
+    void testDotOfUnitVectorsIsCosine() {
+        float[] a = SimilarityMath.unitVector(new float[]{1f, 0f});
+        float[] b = SimilarityMath.unitVector(new float[]{1f, 1f});
+
+        assertEquals(Math.sqrt(0.5), SimilarityMath.dot(a, b), 1e-6);
+        assertEquals(0.0, SimilarityMath.dot(a, new float[]{0f, 2f}), 1e-9);
+    }
+
+    @Test
+    void testNormalizeTextCollapsesWhitespaceAndCase() {
+        assertEquals("what is the pro plan?", SimilarityMath.normalizeText("  What is\tthe\n PRO plan? "));
+        assertEquals("", SimilarityMath.normalizeText(null));
+    }
+}
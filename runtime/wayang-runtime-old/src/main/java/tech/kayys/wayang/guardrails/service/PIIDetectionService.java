@@ -3,7 +3,6 @@ package tech.kayys.wayang.guardrails.service;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +14,7 @@ import tech.kayys.wayang.guardrails.dto.GuardrailCheckResult;
 import tech.kayys.wayang.guardrails.dto.GuardrailSeverity;
 import tech.kayys.wayang.guardrails.dto.PIIMatch;
 import tech.kayys.wayang.guardrails.dto.PIIPolicy;
+import tech.kayys.wayang.pii.PiiScanner;
 
 /**
  * PII detection and redaction service
@@ -24,15 +24,22 @@ public class PIIDetectionService {
 
     private static final Logger LOG = LoggerFactory.getLogger(PIIDetectionService.class);
 
-    // PII patterns
-    private static final Pattern SSN_PATTERN = Pattern.compile("\\b\\d{3}-\\d{2}-\\d{4}\\b");
-    private static final Pattern EMAIL_PATTERN = Pattern
-            .compile("\\b[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Z|a-z]{2,}\\b");
-    private static final Pattern PHONE_PATTERN = Pattern.compile("\\b\\d{3}[-.\\s]?\\d{3}[-.\\s]?\\d{4}\\b");
-    private static final Pattern CREDIT_CARD_PATTERN = Pattern
-            .compile("\\b\\d{4}[-.\\s]?\\d{4}[-.\\s]?\\d{4}[-.\\s]?\\d{4}\\b");
-    private static final Pattern IP_ADDRESS_PATTERN = Pattern
-            .compile("\\b\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\b");
+    // PII patterns, compiled into one automaton and scanned in a single pass
+    private static final PiiScanner PII_SCANNER = PiiScanner.builder()
+            .pattern("ssn", "\\b\\d{3}-\\d{2}-\\d{4}\\b", "XXX-XX-XXXX")
+            .pattern("email", "\\b[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Z|a-z]{2,}\\b", "[EMAIL REDACTED]")
+            .pattern("phone", "\\b\\d{3}[-.\\s]?\\d{3}[-.\\s]?\\d{4}\\b", "XXX-XXX-XXXX")
+            .pattern("credit_card", "\\b\\d{4}[-.\\s]?\\d{4}[-.\\s]?\\d{4}[-.\\s]?\\d{4}\\b",
+                    "XXXX-XXXX-XXXX-XXXX")
+            .pattern("ip_address", "\\b\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\b", "[IP REDACTED]")
+            .build();
+
+    // Types reported by detection; IP addresses are redacted but not flagged
+    private static final Map<String, String> DETECTED_TYPES = Map.of(
+            "ssn", "Social Security Number",
+            "email", "Email Address",
+            "phone", "Phone Number",
+            "credit_card", "Credit Card");
 
     public Uni<GuardrailCheckResult> check(
             String content,
@@ -74,31 +81,17 @@ public class PIIDetectionService {
     }
 
     public String redact(String content) {
-        String redacted = content;
-
-        redacted = SSN_PATTERN.matcher(redacted).replaceAll("XXX-XX-XXXX");
-        redacted = EMAIL_PATTERN.matcher(redacted).replaceAll("[EMAIL REDACTED]");
-        redacted = PHONE_PATTERN.matcher(redacted).replaceAll("XXX-XXX-XXXX");
-        redacted = CREDIT_CARD_PATTERN.matcher(redacted).replaceAll("XXXX-XXXX-XXXX-XXXX");
-        redacted = IP_ADDRESS_PATTERN.matcher(redacted).replaceAll("[IP REDACTED]");
-
-        return redacted;
+        return PII_SCANNER.redact(content);
     }
 
     private List<PIIMatch> detectPII(String content) {
         List<PIIMatch> matches = new ArrayList<>();
 
-        if (SSN_PATTERN.matcher(content).find()) {
-            matches.add(new PIIMatch("ssn", "Social Security Number"));
-        }
-        if (EMAIL_PATTERN.matcher(content).find()) {
-            matches.add(new PIIMatch("email", "Email Address"));
-        }
-        if (PHONE_PATTERN.matcher(content).find()) {
-            matches.add(new PIIMatch("phone", "Phone Number"));
-        }
-        if (CREDIT_CARD_PATTERN.matcher(content).find()) {
-            matches.add(new PIIMatch("credit_card", "Credit Card"));
+        for (String type : PII_SCANNER.detectTypes(content)) {
+            String description = DETECTED_TYPES.get(type);
+            if (description != null) {
+                matches.add(new PIIMatch(type, description));
+            }
         }
 
         return matches;
@@ -5,6 +5,7 @@ import java.util.Map;
 
 import org.jboss.logging.Logger;
 
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -55,35 +56,37 @@ public class MultiNodePluginLoader {
         LOG.infof("Loading multi-node plugin: %s with %d nodes",
                 manifest.name, manifest.nodes.size());
 
-        return Uni.createFrom().item(() -> {
+        PluginRegistration registration = new PluginRegistration();
+        registration.pluginId = manifest.pluginId;
+        registration.pluginName = manifest.name;
+        registration.version = manifest.version;
+        registration.family = manifest.family;
 
-            PluginRegistration registration = new PluginRegistration();
-            registration.pluginId = manifest.pluginId;
-            registration.pluginName = manifest.name;
-            registration.version = manifest.version;
-            registration.family = manifest.family;
+        return Uni.createFrom().item(() -> {
             registration.registeredAt = java.time.Instant.now();
 
             // 1. Load shared resources
             loadSharedResources(manifest.shared, loadedPlugin);
-
-            // 2. Register executors
-            for (ExecutorManifest executorManifest : manifest.executors) {
-                registerExecutor(executorManifest, loadedPlugin, registration);
-            }
-
-            // 3. Register all nodes
-            for (NodeManifest nodeManifest : manifest.nodes) {
-                registerNode(nodeManifest, manifest, loadedPlugin, registration);
-            }
-
-            LOG.infof("Successfully registered plugin %s with %d nodes and %d executors",
-                    manifest.pluginId,
-                    registration.registeredNodes.size(),
-                    registration.registeredExecutors.size());
-
             return registration;
-        });
+        })
+                // 2. Register executors one after the other, without blocking on each
+                .chain(() -> Multi.createFrom().iterable(manifest.executors)
+                        .onItem().transformToUniAndConcatenate(
+                                executorManifest -> registerExecutor(executorManifest, loadedPlugin, registration))
+                        .collect().last())
+                .map(ignored -> {
+                    // 3. Register all nodes
+                    for (NodeManifest nodeManifest : manifest.nodes) {
+                        registerNode(nodeManifest, manifest, loadedPlugin, registration);
+                    }
+
+                    LOG.infof("Successfully registered plugin %s with %d nodes and %d executors",
+                            manifest.pluginId,
+                            registration.registeredNodes.size(),
+                            registration.registeredExecutors.size());
+
+                    return registration;
+                });
     }
 
     /**
@@ -119,7 +122,7 @@ public class MultiNodePluginLoader {
     /**
      * Register executor
      */
-    private void registerExecutor(
+    private Uni<Void> registerExecutor(
             ExecutorManifest executorManifest,
             LoadedPlugin loadedPlugin,
             PluginRegistration registration) {
@@ -144,8 +147,8 @@ public class MultiNodePluginLoader {
             }
         }
 
-        executorRegistry.register(executorReg).await().indefinitely();
-        registration.registeredExecutors.add(executorManifest.executorId);
+        return executorRegistry.register(executorReg)
+                .invoke(() -> registration.registeredExecutors.add(executorManifest.executorId));
     }
 
     /**